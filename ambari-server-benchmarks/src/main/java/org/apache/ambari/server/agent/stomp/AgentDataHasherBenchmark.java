@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.agent.stomp;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures hashing of the agent data held by {@link AgentDataHolder}s: the full
+ * hash of the data and the hash after an update of a single cluster.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class AgentDataHasherBenchmark {
+
+  @Param({"1", "10"})
+  private int clusters;
+
+  @Param({"5000"})
+  private int hosts;
+
+  private SortedMap<String, Object> data;
+  private AgentDataHasher hasher;
+
+  @Setup
+  public void setup() {
+    data = new TreeMap<>();
+    for (int cluster = 0; cluster < clusters; cluster++) {
+      SortedMap<String, Map<String, String>> clusterData = new TreeMap<>();
+      for (int host = 0; host < hosts; host++) {
+        SortedMap<String, String> hostData = new TreeMap<>();
+        hostData.put("host_name", "c" + cluster + "-host" + host + ".example.com");
+        hostData.put("ip", "10.0." + (host / 256) + "." + (host % 256));
+        hostData.put("rack_info", "/default-rack");
+        clusterData.put(Integer.toString(host), hostData);
+      }
+      data.put(Integer.toString(cluster), clusterData);
+    }
+    hasher = new AgentDataHasher("benchmark");
+    hasher.getHash(data, null);
+  }
+
+  @Benchmark
+  public String fullHash() {
+    return hasher.getHash((Object) data);
+  }
+
+  @Benchmark
+  public String branchesHash() {
+    return hasher.getHash(data, null);
+  }
+
+  @Benchmark
+  public String singleBranchUpdateHash() {
+    return hasher.getHash(data, Collections.singleton("0"));
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.api.predicate;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures compilation of the query expressions of typical API requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class PredicateCompilerBenchmark {
+
+  @Param({
+      "Hosts/host_name=host00001.example.com",
+      "Hosts/host_state=HEALTHY&Hosts/cpu_count>8&(Hosts/os_type=centos7|Hosts/os_type=ubuntu16)",
+      "HostRoles/component_name.in(DATANODE,NODEMANAGER,HBASE_REGIONSERVER)&HostRoles/state!=STARTED&!(HostRoles/maintenance_state=ON)",
+      "metrics/cpu/cpu_user.isEmpty()|Hosts/rack_info.matches(/rack1.*)"
+  })
+  private String expression;
+
+  private final PredicateCompiler compiler = new PredicateCompiler();
+
+  @Benchmark
+  public Predicate compile() throws Exception {
+    return compiler.compile(expression);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.actionmanager.HostRoleStatus;
+import org.apache.ambari.server.events.listeners.tasks.TaskStatusListener;
+import org.apache.ambari.server.events.publishers.TaskEventPublisher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures calculation of the status counts of the running stages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class CalculatedStatusBenchmark {
+
+  @Param({"100", "5000"})
+  private int stages;
+
+  private List<TaskStatusListener.ActiveStage> activeStages;
+
+  @Setup
+  public void setup() {
+    TaskStatusListener listener = new TaskStatusListener(new TaskEventPublisher(), null, null, null);
+    HostRoleStatus[] statuses = HostRoleStatus.values();
+    activeStages = new ArrayList<>(stages);
+    for (int i = 0; i < stages; i++) {
+      HostRoleStatus status = statuses[i % statuses.length];
+      activeStages.add(listener.new ActiveStage(status, status, Collections.emptyMap(), false,
+          Collections.singleton((long) i)));
+    }
+  }
+
+  @Benchmark
+  public Map<CalculatedStatus.StatusType, Map<HostRoleStatus, Integer>> calculateStatusCountsForStage() {
+    return CalculatedStatus.calculateStatusCountsForStage(activeStages);
+  }
+}
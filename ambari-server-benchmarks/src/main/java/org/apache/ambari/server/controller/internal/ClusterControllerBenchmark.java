@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.api.predicate.PredicateCompiler;
+import org.apache.ambari.server.api.query.QueryImpl;
+import org.apache.ambari.server.api.query.render.DefaultRenderer;
+import org.apache.ambari.server.api.resources.HostResourceDefinition;
+import org.apache.ambari.server.api.services.Result;
+import org.apache.ambari.server.controller.spi.ClusterController;
+import org.apache.ambari.server.controller.spi.PageRequest;
+import org.apache.ambari.server.controller.spi.PageResponse;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.QueryResponse;
+import org.apache.ambari.server.controller.spi.Request;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.spi.SortRequest;
+import org.apache.ambari.server.controller.spi.SortRequestProperty;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures paging, sorting and filtering of the hosts of a synthetic cluster by
+ * {@link ClusterControllerImpl#getPage} and the whole query execution by
+ * {@link QueryImpl}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ClusterControllerBenchmark {
+
+  private static final String USER_PREDICATE = "Hosts/host_state=HEALTHY&Hosts/cpu_count>8";
+
+  @Param({"5000"})
+  private int hosts;
+
+  private ClusterController clusterController;
+  private Request request;
+  private Predicate predicate;
+  private QueryResponse queryResponse;
+  private PageRequest pageRequest;
+  private SortRequest sortRequest;
+
+  @Setup
+  public void setup() throws Exception {
+    clusterController = new ClusterControllerImpl(new SyntheticClusterProviderModule(hosts));
+    request = PropertyHelper.getReadRequest(SyntheticClusterProviderModule.HOST_NAME_PROPERTY_ID,
+        SyntheticClusterProviderModule.HOST_STATE_PROPERTY_ID, SyntheticClusterProviderModule.HOST_CPU_COUNT_PROPERTY_ID);
+    predicate = new PredicateCompiler().compile(USER_PREDICATE);
+    queryResponse = clusterController.getResources(Resource.Type.Host, request, predicate);
+    pageRequest = new PageRequestImpl(PageRequest.StartingPoint.OffsetStart, 100, hosts / 2, null, null);
+    sortRequest = new SortRequestImpl(Collections.singletonList(
+        new SortRequestProperty(SyntheticClusterProviderModule.HOST_NAME_PROPERTY_ID, SortRequest.Order.DESC)));
+  }
+
+  @Benchmark
+  public void getPage(Blackhole blackhole) throws Exception {
+    PageResponse page = clusterController.getPage(Resource.Type.Host, queryResponse, request, predicate,
+        pageRequest, sortRequest);
+    for (Resource resource : page.getIterable()) {
+      blackhole.consume(resource);
+    }
+  }
+
+  @Benchmark
+  public void getAllResources(Blackhole blackhole) throws Exception {
+    for (Resource resource : clusterController.getIterable(Resource.Type.Host, queryResponse, request, predicate,
+        null, null)) {
+      blackhole.consume(resource);
+    }
+  }
+
+  @Benchmark
+  public Result executeQuery() throws Exception {
+    QueryImpl query = createHostsQuery(clusterController);
+    query.setUserPredicate(new PredicateCompiler().compile(USER_PREDICATE));
+    query.setPageRequest(pageRequest);
+    query.setSortRequest(sortRequest);
+    return query.execute();
+  }
+
+  /**
+   * Creates query of all the hosts of the synthetic cluster.
+   *
+   * @param clusterController  the cluster controller
+   * @return the query
+   */
+  public static QueryImpl createHostsQuery(ClusterController clusterController) {
+    Map<Resource.Type, String> keyValueMap = new HashMap<>();
+    keyValueMap.put(Resource.Type.Cluster, SyntheticClusterProviderModule.CLUSTER_NAME);
+    keyValueMap.put(Resource.Type.Host, null);
+
+    QueryImpl query = new QueryImpl(keyValueMap, new HostResourceDefinition(), clusterController);
+    query.setRenderer(new DefaultRenderer());
+    query.addProperty(SyntheticClusterProviderModule.HOST_NAME_PROPERTY_ID, null);
+    query.addProperty(SyntheticClusterProviderModule.HOST_STATE_PROPERTY_ID, null);
+    query.addProperty(SyntheticClusterProviderModule.HOST_RACK_INFO_PROPERTY_ID, null);
+    query.addProperty(SyntheticClusterProviderModule.HOST_CPU_COUNT_PROPERTY_ID, null);
+    query.addProperty(SyntheticClusterProviderModule.HOST_TOTAL_MEM_PROPERTY_ID, null);
+    return query;
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.PropertyProvider;
+import org.apache.ambari.server.controller.spi.ProviderModule;
+import org.apache.ambari.server.controller.spi.Request;
+import org.apache.ambari.server.controller.spi.RequestStatus;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.spi.ResourceProvider;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+
+/**
+ * Provider module of a synthetic cluster with the given number of hosts. Only
+ * host resources are provided, all other resource types are empty.
+ * <p/>
+ * The module is a read-only fixture for the query benchmarks: the resources
+ * are fixed at construction and their providers reject creates, updates and
+ * deletes with an {@link UnsupportedOperationException}.
+ */
+public class SyntheticClusterProviderModule implements ProviderModule {
+
+  public static final String CLUSTER_NAME = "c1";
+
+  public static final String HOST_CLUSTER_NAME_PROPERTY_ID = "Hosts/cluster_name";
+  public static final String HOST_NAME_PROPERTY_ID = "Hosts/host_name";
+  public static final String HOST_STATE_PROPERTY_ID = "Hosts/host_state";
+  public static final String HOST_RACK_INFO_PROPERTY_ID = "Hosts/rack_info";
+  public static final String HOST_CPU_COUNT_PROPERTY_ID = "Hosts/cpu_count";
+  public static final String HOST_TOTAL_MEM_PROPERTY_ID = "Hosts/total_mem";
+  public static final String HOST_OS_TYPE_PROPERTY_ID = "Hosts/os_type";
+
+  private static final String[] HOST_STATES = {"HEALTHY", "HEARTBEAT_LOST", "UNHEALTHY"};
+
+  private final Map<Resource.Type, ResourceProvider> providers = new HashMap<>();
+
+  public SyntheticClusterProviderModule(int hostCount) {
+    for (Resource.Type type : Resource.Type.values()) {
+      providers.put(type, new SyntheticResourceProvider(PropertyHelper.getPropertyIds(type),
+          PropertyHelper.getKeyPropertyIds(type), Collections.emptySet()));
+    }
+
+    Map<Resource.Type, String> hostKeyPropertyIds = new HashMap<>();
+    hostKeyPropertyIds.put(Resource.Type.Cluster, HOST_CLUSTER_NAME_PROPERTY_ID);
+    hostKeyPropertyIds.put(Resource.Type.Host, HOST_NAME_PROPERTY_ID);
+
+    Set<String> hostPropertyIds = new HashSet<>();
+    Collections.addAll(hostPropertyIds, HOST_CLUSTER_NAME_PROPERTY_ID, HOST_NAME_PROPERTY_ID,
+        HOST_STATE_PROPERTY_ID, HOST_RACK_INFO_PROPERTY_ID, HOST_CPU_COUNT_PROPERTY_ID,
+        HOST_TOTAL_MEM_PROPERTY_ID, HOST_OS_TYPE_PROPERTY_ID);
+
+    providers.put(Resource.Type.Host,
+        new SyntheticResourceProvider(hostPropertyIds, hostKeyPropertyIds, createHosts(hostCount)));
+  }
+
+  @Override
+  public ResourceProvider getResourceProvider(Resource.Type type) {
+    return providers.get(type);
+  }
+
+  @Override
+  public List<PropertyProvider> getPropertyProviders(Resource.Type type) {
+    return Collections.emptyList();
+  }
+
+  private static Set<Resource> createHosts(int hostCount) {
+    Set<Resource> hosts = new LinkedHashSet<>();
+    for (int i = 0; i < hostCount; i++) {
+      Resource host = new ResourceImpl(Resource.Type.Host);
+      host.setProperty(HOST_CLUSTER_NAME_PROPERTY_ID, CLUSTER_NAME);
+      host.setProperty(HOST_NAME_PROPERTY_ID, String.format("host%05d.example.com", i));
+      host.setProperty(HOST_STATE_PROPERTY_ID, HOST_STATES[i % HOST_STATES.length]);
+      host.setProperty(HOST_RACK_INFO_PROPERTY_ID, "/rack" + (i % 50));
+      host.setProperty(HOST_CPU_COUNT_PROPERTY_ID, 8 << (i % 3));
+      host.setProperty(HOST_TOTAL_MEM_PROPERTY_ID, 65536L << (i % 3));
+      host.setProperty(HOST_OS_TYPE_PROPERTY_ID, i % 10 == 0 ? "ubuntu16" : "centos7");
+      hosts.add(host);
+    }
+    return hosts;
+  }
+
+  /**
+   * Resource provider returning a fixed set of resources, filtering by the
+   * predicate is left to the cluster controller.
+   */
+  private static class SyntheticResourceProvider extends AbstractResourceProvider {
+
+    private final Set<Resource> resources;
+
+    private SyntheticResourceProvider(Set<String> propertyIds, Map<Resource.Type, String> keyPropertyIds,
+                                      Set<Resource> resources) {
+      super(propertyIds, keyPropertyIds);
+      this.resources = resources;
+    }
+
+    @Override
+    public Set<Resource> getResources(Request request, Predicate predicate) {
+      return resources;
+    }
+
+    @Override
+    public RequestStatus createResources(Request request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public RequestStatus updateResources(Request request, Predicate predicate) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public RequestStatus deleteResources(Request request, Predicate predicate) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Set<String> getPKPropertyIds() {
+      return Collections.emptySet();
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.api.services.AmbariMetaInfo;
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.orm.dao.ClusterDAO;
+import org.apache.ambari.server.orm.entities.HostComponentDesiredStateEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures calculation of the effective configurations and of the configuration
+ * staleness of a host component. The stale configs cache is disabled, so every
+ * call does the full calculation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ConfigHelperBenchmark {
+
+  private static final String HOST_NAME = "host1.example.com";
+  private static final String SERVICE_NAME = "HDFS";
+  private static final String COMPONENT_NAME = "DATANODE";
+  private static final StackId STACK_ID = new StackId("HDP", "2.6");
+
+  @Param({"20", "100"})
+  private int configTypes;
+
+  @Param({"200"})
+  private int propertiesPerType;
+
+  private ConfigHelper configHelper;
+  private Cluster cluster;
+  private ServiceComponentHost serviceComponentHost;
+  private HostComponentDesiredStateEntity desiredStateEntity;
+  private Map<String, DesiredConfig> desiredConfigs;
+  private Map<String, Map<String, String>> desiredTags;
+
+  @Setup
+  public void setup() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(Configuration.SERVER_STALE_CONFIG_CACHE_ENABLED.getKey(), "false");
+    Configuration configuration = new Configuration(properties);
+
+    cluster = createNiceMock(Cluster.class);
+    desiredConfigs = new HashMap<>();
+    desiredTags = new HashMap<>();
+    Map<String, HostConfig> actualConfigs = new HashMap<>();
+    for (int i = 0; i < configTypes; i++) {
+      String type = "type-" + i;
+      String tag = "version" + i;
+
+      Map<String, String> configProperties = new HashMap<>();
+      for (int j = 0; j < propertiesPerType; j++) {
+        configProperties.put(type + ".property." + j, "value-" + j);
+      }
+      Config config = createNiceMock(Config.class);
+      expect(config.getType()).andReturn(type).anyTimes();
+      expect(config.getTag()).andReturn(tag).anyTimes();
+      expect(config.getProperties()).andReturn(configProperties).anyTimes();
+      replay(config);
+      expect(cluster.getConfig(type, tag)).andReturn(config).anyTimes();
+
+      DesiredConfig desiredConfig = new DesiredConfig();
+      desiredConfig.setTag(tag);
+      desiredConfigs.put(type, desiredConfig);
+
+      desiredTags.put(type, Collections.singletonMap(ConfigHelper.CLUSTER_DEFAULT_TAG, tag));
+
+      HostConfig hostConfig = new HostConfig();
+      hostConfig.setDefaultVersionTag(tag);
+      actualConfigs.put(type, hostConfig);
+    }
+    expect(cluster.getClusterId()).andReturn(1L).anyTimes();
+    expect(cluster.getDesiredConfigs()).andReturn(desiredConfigs).anyTimes();
+    expect(cluster.getConfigGroupsByHostname(HOST_NAME)).andReturn(Collections.emptyMap()).anyTimes();
+    replay(cluster);
+
+    Host host = createNiceMock(Host.class);
+    expect(host.getDesiredHostConfigs(eq(cluster), anyObject())).andReturn(Collections.emptyMap()).anyTimes();
+    replay(host);
+
+    Clusters clusters = createNiceMock(Clusters.class);
+    expect(clusters.getHost(HOST_NAME)).andReturn(host).anyTimes();
+    expect(clusters.getClusterById(1L)).andReturn(cluster).anyTimes();
+    replay(clusters);
+
+    ComponentInfo componentInfo = new ComponentInfo();
+    componentInfo.setName(COMPONENT_NAME);
+    ServiceInfo serviceInfo = new ServiceInfo();
+    serviceInfo.setName(SERVICE_NAME);
+    serviceInfo.getComponents().add(componentInfo);
+
+    AmbariMetaInfo ambariMetaInfo = createNiceMock(AmbariMetaInfo.class);
+    expect(ambariMetaInfo.getStack(STACK_ID)).andReturn(new StackInfo()).anyTimes();
+    expect(ambariMetaInfo.getService(anyString(), anyString(), eq(SERVICE_NAME))).andReturn(serviceInfo).anyTimes();
+    replay(ambariMetaInfo);
+
+    ServiceComponent serviceComponent = createNiceMock(ServiceComponent.class);
+    expect(serviceComponent.getDesiredStackId()).andReturn(STACK_ID).anyTimes();
+    replay(serviceComponent);
+
+    desiredStateEntity = new HostComponentDesiredStateEntity();
+    serviceComponentHost = createNiceMock(ServiceComponentHost.class);
+    expect(serviceComponentHost.getClusterId()).andReturn(1L).anyTimes();
+    expect(serviceComponentHost.getHostName()).andReturn(HOST_NAME).anyTimes();
+    expect(serviceComponentHost.getServiceName()).andReturn(SERVICE_NAME).anyTimes();
+    expect(serviceComponentHost.getServiceComponentName()).andReturn(COMPONENT_NAME).anyTimes();
+    expect(serviceComponentHost.getServiceComponent()).andReturn(serviceComponent).anyTimes();
+    expect(serviceComponentHost.getActualConfigs()).andReturn(actualConfigs).anyTimes();
+    expect(serviceComponentHost.isRestartRequired(desiredStateEntity)).andReturn(false).anyTimes();
+    replay(serviceComponentHost);
+
+    configHelper = new ConfigHelper(clusters, ambariMetaInfo, configuration, createNiceMock(ClusterDAO.class));
+  }
+
+  @Benchmark
+  public Map<String, Map<String, String>> getEffectiveConfigProperties() {
+    return configHelper.getEffectiveConfigProperties(cluster, desiredTags);
+  }
+
+  @Benchmark
+  public boolean isStaleConfigs() throws Exception {
+    return configHelper.isStaleConfigs(serviceComponentHost, desiredConfigs, desiredStateEntity);
+  }
+}
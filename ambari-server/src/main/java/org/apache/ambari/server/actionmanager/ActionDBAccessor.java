@@ -128,10 +128,28 @@ public interface ActionDBAccessor {
   void setSourceScheduleForRequest(long requestId, long scheduleId);
 
   /**
-   * Update tasks according to command reports
+   * Update tasks according to command reports. While a batch is open on the
+   * calling thread the reports are only collected, and the tasks are updated
+   * when the batch is flushed.
+   *
+   * @see #beginHostRoleStatesBatch()
    */
   void updateHostRoleStates(Collection<CommandReport> reports);
 
+  /**
+   * Opens a batch of command reports on the calling thread, so that the task
+   * updates of many reports are written in one transaction.
+   */
+  void beginHostRoleStatesBatch();
+
+  /**
+   * Closes the batch of command reports of the calling thread and updates the
+   * tasks according to the collected reports. If the tasks cannot be updated
+   * at once, they are updated one by one, so that a failing task does not
+   * affect the others.
+   */
+  void flushHostRoleStatesBatch();
+
   /**
    * For the given host, update all the tasks based on the command report
    */
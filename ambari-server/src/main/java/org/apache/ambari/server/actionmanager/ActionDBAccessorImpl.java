@@ -24,6 +24,7 @@ import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -157,6 +158,12 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
   private Cache<Long,RequestDetails> auditlogRequestCache = CacheBuilder.newBuilder().expireAfterAccess(60, TimeUnit.MINUTES).concurrencyLevel(4).build();
 
   private Cache<Long, HostRoleCommand> hostRoleCommandCache;
+
+  /**
+   * The command reports collected by the open batch of a thread, keyed by task
+   * id; not set while no batch is open.
+   */
+  private final ThreadLocal<Map<Long, CommandReport>> hostRoleStatesBatch = new ThreadLocal<>();
   private long cacheLimit; //may be exceeded to store tasks from one request
 
   @Inject
@@ -526,22 +533,79 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 
   @Override
   public void updateHostRoleStates(Collection<CommandReport> reports) {
+    Map<Long, CommandReport> batch = hostRoleStatesBatch.get();
+    if (batch != null) {
+      for (CommandReport report : reports) {
+        // a later report must not revert a task which already completed in the batch
+        batch.merge(report.getTaskId(), report, (previous, next) ->
+            HostRoleStatus.valueOf(previous.getStatus()).isCompletedState() ? previous : next);
+      }
+      return;
+    }
+
     Map<Long, CommandReport> taskReports = new HashMap<>();
     for (CommandReport report : reports) {
       taskReports.put(report.getTaskId(), report);
     }
+    persistHostRoleStates(taskReports);
+  }
+
+  @Override
+  public void beginHostRoleStatesBatch() {
+    hostRoleStatesBatch.set(new LinkedHashMap<>());
+  }
+
+  @Override
+  public void flushHostRoleStatesBatch() {
+    Map<Long, CommandReport> batch = hostRoleStatesBatch.get();
+    hostRoleStatesBatch.remove();
 
+    if (batch == null || batch.isEmpty()) {
+      return;
+    }
+
+    try {
+      persistHostRoleStates(batch);
+    } catch (RuntimeException e) {
+      // a single failing task must not drop the updates of the other tasks of the batch
+      LOG.warn("Unable to update the tasks of {} command reports at once, updating them one by one",
+          batch.size(), e);
+
+      for (Map.Entry<Long, CommandReport> entry : batch.entrySet()) {
+        try {
+          persistHostRoleStates(Collections.singletonMap(entry.getKey(), entry.getValue()));
+        } catch (RuntimeException taskException) {
+          LOG.error("Unable to update task {} from its command report", entry.getKey(), taskException);
+        }
+      }
+    }
+  }
+
+  /**
+   * Updates the tasks of the given reports; the entities of all of the tasks
+   * are merged in a single transaction.
+   *
+   * @param taskReports  the command reports by task id
+   */
+  private void persistHostRoleStates(Map<Long, CommandReport> taskReports) {
     long now = System.currentTimeMillis();
 
     List<Long> requestsToCheck = new ArrayList<>();
     List<Long> abortedCommandUpdates = new ArrayList<>();
 
+    // parse the reported statuses before touching any entity so that an invalid report
+    // does not leave the other tasks modified but not merged
+    Map<Long, HostRoleStatus> reportedStatuses = new HashMap<>();
+    for (Map.Entry<Long, CommandReport> taskReport : taskReports.entrySet()) {
+      reportedStatuses.put(taskReport.getKey(), HostRoleStatus.valueOf(taskReport.getValue().getStatus()));
+    }
+
     List<HostRoleCommandEntity> commandEntities = hostRoleCommandDAO.findByPKs(taskReports.keySet());
     List<HostRoleCommandEntity> commandEntitiesToMerge = new ArrayList<>();
     for (HostRoleCommandEntity commandEntity : commandEntities) {
       CommandReport report = taskReports.get(commandEntity.getTaskId());
       HostRoleStatus existingTaskStatus = commandEntity.getStatus();
-      HostRoleStatus reportedTaskStatus = HostRoleStatus.valueOf(report.getStatus());
+      HostRoleStatus reportedTaskStatus = reportedStatuses.get(commandEntity.getTaskId());
       if (!existingTaskStatus.isCompletedState() || existingTaskStatus == HostRoleStatus.ABORTED) {
         // if FAILED and marked for holding then set reportedTaskStatus = HOLDING_FAILED
         if (reportedTaskStatus == HostRoleStatus.FAILED && commandEntity.isRetryAllowed()) {
@@ -28,7 +28,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -87,6 +92,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
@@ -148,11 +154,29 @@ class ActionScheduler implements Runnable {
   @Inject
   private AgentCommandsPublisher agentCommandsPublisher;
 
+  /**
+   * In-memory model of commands in progress, used instead of the database
+   * queries when the scheduler is event driven.
+   */
+  private InProgressCommandsTracker inProgressCommandsTracker;
+
+  /**
+   * The time of the last reload of {@link #inProgressCommandsTracker} from the
+   * database, {@code 0} forces a reload on the next wake up.
+   */
+  private volatile long lastReconciliationTime = 0L;
+
   /**
    * The current thread's reference to the {@link EntityManager}.
    */
   volatile EntityManager threadEntityManager;
 
+  /**
+   * The references to the {@link EntityManager}s of the threads processing
+   * stages concurrently, see {@link #processStagesInParallel(List)}.
+   */
+  private final Set<EntityManager> workerEntityManagers = ConcurrentHashMap.newKeySet();
+
   private final long actionTimeout;
   private final long sleepTime;
   private volatile boolean shouldRun = true;
@@ -164,6 +188,12 @@ class ActionScheduler implements Runnable {
   private final Object wakeupSyncObject = new Object();
   private final ServerActionExecutor serverActionExecutor;
 
+  /**
+   * Processes stages of independent requests concurrently, created on the
+   * first use.
+   */
+  private ExecutorService stageProcessingExecutor;
+
   private final Set<Long> requestsInProgress = new HashSet<>();
 
   /**
@@ -293,6 +323,18 @@ class ActionScheduler implements Runnable {
             null, agentCommandsPublisher);
   }
 
+  /**
+   * Sets the in-memory model of commands in progress and wakes up the
+   * scheduler whenever all commands of a stage are finished.
+   *
+   * @param inProgressCommandsTracker
+   */
+  @Inject
+  void setInProgressCommandsTracker(InProgressCommandsTracker inProgressCommandsTracker) {
+    this.inProgressCommandsTracker = inProgressCommandsTracker;
+    inProgressCommandsTracker.setStageFinishedListener(this::awake);
+  }
+
   /**
    * Initializes the caches.
    */
@@ -326,6 +368,10 @@ class ActionScheduler implements Runnable {
     // Stop the ServerActionExecutor. Since it is directly related to the ActionScheduler it should
     // be started and stopped along with it.
     serverActionExecutor.stop();
+
+    if (stageProcessingExecutor != null) {
+      stageProcessingExecutor.shutdownNow();
+    }
   }
 
   /**
@@ -359,9 +405,11 @@ class ActionScheduler implements Runnable {
       } catch (Exception ex) {
         LOG.warn("Exception received", ex);
         requestsInProgress.clear();
+        lastReconciliationTime = 0L;
       } catch (Throwable t) {
         LOG.warn("ERROR", t);
         requestsInProgress.clear();
+        lastReconciliationTime = 0L;
       }
     }
   }
@@ -376,10 +424,15 @@ class ActionScheduler implements Runnable {
       // The first thing to do is to abort requests that are cancelled
       processCancelledRequestsList();
 
+      boolean eventDriven = isEventDriven();
+      if (eventDriven) {
+        reconcileCommandsInProgress();
+      }
+
       // !!! getting the stages in progress could be a very expensive call due
       // to the join being used; there's no need to make it if there are
       // no commands in progress
-      if (db.getCommandsInProgressCount() == 0) {
+      if (eventDriven ? !inProgressCommandsTracker.hasCommandsInProgress() : db.getCommandsInProgressCount() == 0) {
         // Nothing to do
         if (LOG.isDebugEnabled()) {
           LOG.debug("There are no stages currently in progress.");
@@ -415,16 +468,20 @@ class ActionScheduler implements Runnable {
       long iHighestRequestIdInProgress = firstStageInProgressPerRequest.get(
           firstStageInProgressPerRequest.size() - 1).getRequestId();
 
-      List<String> hostsWithPendingTasks = hostRoleCommandDAO.getHostsWithPendingTasks(
-          iLowestRequestIdInProgress, iHighestRequestIdInProgress);
+      Set<String> hostsWithPendingTasks = eventDriven ? inProgressCommandsTracker.getHostsWithPendingTasks()
+          : new HashSet<>(hostRoleCommandDAO.getHostsWithPendingTasks(iLowestRequestIdInProgress,
+          iHighestRequestIdInProgress));
 
-      actionQueue.updateListOfHostsWithPendingTask(new HashSet<>(hostsWithPendingTasks));
+      actionQueue.updateListOfHostsWithPendingTask(hostsWithPendingTasks);
 
       // filter the stages in progress down to those which can be scheduled in
       // parallel
       List<Stage> stages = filterParallelPerHostStages(firstStageInProgressPerRequest);
 
       boolean exclusiveRequestIsGoing = false;
+      boolean parallelProcessing = configuration.getParallelStageExecution()
+          && configuration.getParallelStageProcessingThreads() > 1;
+      List<Stage> stagesToProcess = new ArrayList<>();
       // This loop greatly depends on the fact that order of stages in
       // a list does not change between invocations
       for (Stage stage : stages) {
@@ -456,116 +513,18 @@ class ActionScheduler implements Runnable {
           }
         }
 
-        // Commands that will be scheduled in current scheduler wakeup
-        List<ExecutionCommand> commandsToSchedule = new ArrayList<>();
-        Multimap<Long, AgentCommand> commandsToEnqueue = ArrayListMultimap.create();
-
-        Map<String, RoleStats> roleStats =
-          processInProgressStage(stage, commandsToSchedule, commandsToEnqueue);
-
-        // Check if stage is failed
-        boolean failed = false;
-        for (Map.Entry<String, RoleStats> entry : roleStats.entrySet()) {
-
-          String role = entry.getKey();
-          RoleStats stats = entry.getValue();
-
-          if (LOG.isDebugEnabled()) {
-            LOG.debug("Stats for role: {}, stats={}", role, stats);
-          }
-
-          // only fail the request if the role failed and the stage is not
-          // skippable
-          if (stats.isRoleFailed() && !stage.isSkippable()) {
-            LOG.warn("{} failed, request {} will be aborted", role, request.getRequestId());
-
-            failed = true;
-            break;
-          }
-        }
-
-        if (!failed) {
-          // Prior stage may have failed and it may need to fail the whole request
-          failed = hasPreviousStageFailed(stage);
-        }
-
-        if (failed) {
-          LOG.error("Operation completely failed, aborting request id: {}", stage.getRequestId());
-          cancelHostRoleCommands(stage.getOrderedHostRoleCommands(), FAILED_TASK_ABORT_REASONING);
-          abortOperationsForStage(stage);
-          return;
-        }
-
-        List<ExecutionCommand> commandsToStart = new ArrayList<>();
-        List<ExecutionCommand> commandsToUpdate = new ArrayList<>();
-
-        //Schedule what we have so far
-
-
-        for (ExecutionCommand cmd : commandsToSchedule) {
-          ConfigHelper.processHiddenAttribute(cmd.getConfigurations(), cmd.getConfigurationAttributes(), cmd.getRole(), false);
-          processHostRole(request, stage, cmd, commandsToStart, commandsToUpdate);
-        }
-
-        LOG.debug("==> Commands to start: {}", commandsToStart.size());
-        LOG.debug("==> Commands to update: {}", commandsToUpdate.size());
-
-        //Multimap is analog of Map<Object, List<Object>> but allows to avoid nested loop
-        ListMultimap<String, ServiceComponentHostEvent> eventMap = formEventMap(stage, commandsToStart);
-        Map<ExecutionCommand, String> commandsToAbort = new HashMap<>();
-        if (!eventMap.isEmpty()) {
-          LOG.debug("==> processing {} serviceComponentHostEvents...", eventMap.size());
-          Cluster cluster = clusters.getCluster(stage.getClusterName());
-          if (cluster != null) {
-            Map<ServiceComponentHostEvent, String> failedEvents = cluster.processServiceComponentHostEvents(eventMap);
-
-            if (failedEvents.size() > 0) {
-              LOG.error("==> {} events failed.", failedEvents.size());
-            }
-
-            for (Iterator<ExecutionCommand> iterator = commandsToUpdate.iterator(); iterator.hasNext(); ) {
-              ExecutionCommand cmd = iterator.next();
-              for (ServiceComponentHostEvent event : failedEvents.keySet()) {
-                if (StringUtils.equals(event.getHostName(), cmd.getHostname()) &&
-                  StringUtils.equals(event.getServiceComponentName(), cmd.getRole())) {
-                  iterator.remove();
-                  commandsToAbort.put(cmd, failedEvents.get(event));
-                  break;
-                }
-              }
-            }
-          } else {
-            LOG.warn("There was events to process but cluster {} not found", stage.getClusterName());
-          }
-        }
-
-        LOG.debug("==> Scheduling {} tasks...", commandsToUpdate.size());
-        db.bulkHostRoleScheduled(stage, commandsToUpdate);
-
-        if (commandsToAbort.size() > 0) { // Code branch may be a bit slow, but is extremely rarely used
-          LOG.debug("==> Aborting {} tasks...", commandsToAbort.size());
-          // Build a list of HostRoleCommands
-          List<Long> taskIds = new ArrayList<>();
-          for (ExecutionCommand command : commandsToAbort.keySet()) {
-            taskIds.add(command.getTaskId());
-          }
-          Collection<HostRoleCommand> hostRoleCommands = db.getTasks(taskIds);
-
-          cancelHostRoleCommands(hostRoleCommands, FAILED_TASK_ABORT_REASONING);
-          db.bulkAbortHostRole(stage, commandsToAbort);
-        }
-
-        LOG.debug("==> Adding {} tasks to queue...", commandsToUpdate.size());
-        for (ExecutionCommand cmd : commandsToUpdate) {
-          // Do not queue up server actions; however if we encounter one, wake up the ServerActionExecutor
-          if (Role.AMBARI_SERVER_ACTION.name().equals(cmd.getRole())) {
-            serverActionExecutor.awake();
-          } else {
-            commandsToEnqueue.put(clusters.getHost(cmd.getHostname()).getHostId(), cmd);
+        if (parallelProcessing) {
+          // stages are processed by the worker pool once all of them are selected
+          stagesToProcess.add(stage);
+        } else {
+          Multimap<Long, AgentCommand> commandsToEnqueue = processStage(request, stage);
+          if (commandsToEnqueue == null) {
+            // the request was aborted, the remaining stages are processed on the next wake up;
+            // stages processed in parallel are already running, so only the failed stage stops
+            return;
           }
+          agentCommandsPublisher.sendAgentCommand(commandsToEnqueue);
         }
-        agentCommandsPublisher.sendAgentCommand(commandsToEnqueue);
-        LOG.debug("==> Finished.");
 
         if (!configuration.getParallelStageExecution()) { // If disabled
           return;
@@ -578,6 +537,10 @@ class ActionScheduler implements Runnable {
         }
       }
 
+      if (!stagesToProcess.isEmpty()) {
+        processStagesInParallel(stagesToProcess);
+      }
+
       requestsInProgress.retainAll(runningRequestIds);
 
     } finally {
@@ -608,6 +571,232 @@ class ActionScheduler implements Runnable {
     }
   }
 
+  /**
+   * Processes timeouts and retries of the stage commands and schedules the
+   * commands which can be started.
+   *
+   * @param request
+   *          the request of the stage
+   * @param stage
+   *          the stage to process
+   * @return the commands to send to the agents, or {@code null} if the stage
+   *         failed and the request was aborted
+   */
+  private Multimap<Long, AgentCommand> processStage(RequestEntity request, Stage stage) throws AmbariException {
+    // Commands that will be scheduled in current scheduler wakeup
+    List<ExecutionCommand> commandsToSchedule = new ArrayList<>();
+    Multimap<Long, AgentCommand> commandsToEnqueue = ArrayListMultimap.create();
+
+    Map<String, RoleStats> roleStats =
+      processInProgressStage(stage, commandsToSchedule, commandsToEnqueue);
+
+    // Check if stage is failed
+    boolean failed = false;
+    for (Map.Entry<String, RoleStats> entry : roleStats.entrySet()) {
+
+      String role = entry.getKey();
+      RoleStats stats = entry.getValue();
+
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Stats for role: {}, stats={}", role, stats);
+      }
+
+      // only fail the request if the role failed and the stage is not
+      // skippable
+      if (stats.isRoleFailed() && !stage.isSkippable()) {
+        LOG.warn("{} failed, request {} will be aborted", role, request.getRequestId());
+
+        failed = true;
+        break;
+      }
+    }
+
+    if (!failed) {
+      // Prior stage may have failed and it may need to fail the whole request
+      failed = hasPreviousStageFailed(stage);
+    }
+
+    if (failed) {
+      LOG.error("Operation completely failed, aborting request id: {}", stage.getRequestId());
+      cancelHostRoleCommands(stage.getOrderedHostRoleCommands(), FAILED_TASK_ABORT_REASONING);
+      abortOperationsForStage(stage);
+      return null;
+    }
+
+    List<ExecutionCommand> commandsToStart = new ArrayList<>();
+    List<ExecutionCommand> commandsToUpdate = new ArrayList<>();
+
+    //Schedule what we have so far
+
+
+    for (ExecutionCommand cmd : commandsToSchedule) {
+      ConfigHelper.processHiddenAttribute(cmd.getConfigurations(), cmd.getConfigurationAttributes(), cmd.getRole(), false);
+      processHostRole(request, stage, cmd, commandsToStart, commandsToUpdate);
+    }
+
+    LOG.debug("==> Commands to start: {}", commandsToStart.size());
+    LOG.debug("==> Commands to update: {}", commandsToUpdate.size());
+
+    //Multimap is analog of Map<Object, List<Object>> but allows to avoid nested loop
+    ListMultimap<String, ServiceComponentHostEvent> eventMap = formEventMap(stage, commandsToStart);
+    Map<ExecutionCommand, String> commandsToAbort = new HashMap<>();
+    if (!eventMap.isEmpty()) {
+      LOG.debug("==> processing {} serviceComponentHostEvents...", eventMap.size());
+      Cluster cluster = clusters.getCluster(stage.getClusterName());
+      if (cluster != null) {
+        Map<ServiceComponentHostEvent, String> failedEvents = cluster.processServiceComponentHostEvents(eventMap);
+
+        if (failedEvents.size() > 0) {
+          LOG.error("==> {} events failed.", failedEvents.size());
+        }
+
+        for (Iterator<ExecutionCommand> iterator = commandsToUpdate.iterator(); iterator.hasNext(); ) {
+          ExecutionCommand cmd = iterator.next();
+          for (ServiceComponentHostEvent event : failedEvents.keySet()) {
+            if (StringUtils.equals(event.getHostName(), cmd.getHostname()) &&
+              StringUtils.equals(event.getServiceComponentName(), cmd.getRole())) {
+              iterator.remove();
+              commandsToAbort.put(cmd, failedEvents.get(event));
+              break;
+            }
+          }
+        }
+      } else {
+        LOG.warn("There was events to process but cluster {} not found", stage.getClusterName());
+      }
+    }
+
+    LOG.debug("==> Scheduling {} tasks...", commandsToUpdate.size());
+    db.bulkHostRoleScheduled(stage, commandsToUpdate);
+
+    if (commandsToAbort.size() > 0) { // Code branch may be a bit slow, but is extremely rarely used
+      LOG.debug("==> Aborting {} tasks...", commandsToAbort.size());
+      // Build a list of HostRoleCommands
+      List<Long> taskIds = new ArrayList<>();
+      for (ExecutionCommand command : commandsToAbort.keySet()) {
+        taskIds.add(command.getTaskId());
+      }
+      Collection<HostRoleCommand> hostRoleCommands = db.getTasks(taskIds);
+
+      cancelHostRoleCommands(hostRoleCommands, FAILED_TASK_ABORT_REASONING);
+      db.bulkAbortHostRole(stage, commandsToAbort);
+    }
+
+    LOG.debug("==> Adding {} tasks to queue...", commandsToUpdate.size());
+    for (ExecutionCommand cmd : commandsToUpdate) {
+      // Do not queue up server actions; however if we encounter one, wake up the ServerActionExecutor
+      if (Role.AMBARI_SERVER_ACTION.name().equals(cmd.getRole())) {
+        serverActionExecutor.awake();
+      } else {
+        commandsToEnqueue.put(clusters.getHost(cmd.getHostname()).getHostId(), cmd);
+      }
+    }
+    LOG.debug("==> Finished.");
+    return commandsToEnqueue;
+  }
+
+  /**
+   * Processes stages of independent requests concurrently by the worker pool.
+   * Every stage is processed in its own unit of work, the stage and its request
+   * are loaded again by the entity manager of that unit of work. The commands of
+   * all the stages are sent to the agents at once when the processing is
+   * finished.
+   * <p/>
+   * Unlike the sequential processing, which stops at a stage that fails and
+   * aborts its request, a failed stage does not stop the processing of the
+   * other stages, as they are independent and already being processed.
+   *
+   * @param stagesToProcess
+   *          the stages to process, loaded by the scheduler thread
+   * @throws AmbariException
+   *           if processing of any of the stages failed
+   */
+  private void processStagesInParallel(List<Stage> stagesToProcess) throws AmbariException {
+    if (stageProcessingExecutor == null) {
+      stageProcessingExecutor = Executors.newFixedThreadPool(configuration.getParallelStageProcessingThreads(),
+          new ThreadFactoryBuilder().setNameFormat("ambari-stage-processor-%d").setDaemon(true).build());
+    }
+
+    List<Future<Multimap<Long, AgentCommand>>> futures = new ArrayList<>(stagesToProcess.size());
+    for (Stage stageToProcess : stagesToProcess) {
+      final String actionId = stageToProcess.getActionId();
+      final long requestId = stageToProcess.getRequestId();
+      futures.add(stageProcessingExecutor.submit(new Callable<Multimap<Long, AgentCommand>>() {
+        @Override
+        public Multimap<Long, AgentCommand> call() throws Exception {
+          unitOfWork.begin();
+          EntityManager entityManager = entityManagerProvider.get();
+          if (entityManager != null) {
+            workerEntityManagers.add(entityManager);
+          }
+          try {
+            // entities must not be shared with the entity manager of the scheduler thread
+            Stage stage = db.getStage(actionId);
+            RequestEntity request = db.getRequestEntity(requestId);
+            if (stage == null || request == null) {
+              LOG.warn("Stage {} is not found, it is not processed", actionId);
+              return null;
+            }
+            return processStage(request, stage);
+          } finally {
+            if (entityManager != null) {
+              workerEntityManagers.remove(entityManager);
+            }
+            unitOfWork.end();
+          }
+        }
+      }));
+    }
+
+    Multimap<Long, AgentCommand> commandsToEnqueue = ArrayListMultimap.create();
+    Throwable failure = null;
+    for (Future<Multimap<Long, AgentCommand>> future : futures) {
+      try {
+        Multimap<Long, AgentCommand> stageCommands = future.get();
+        if (stageCommands != null) {
+          commandsToEnqueue.putAll(stageCommands);
+        }
+      } catch (ExecutionException e) {
+        LOG.error("Unable to process stage", e.getCause());
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new AmbariException("Interrupted while processing stages", e);
+      }
+    }
+
+    // commands of the successfully processed stages are sent even if another stage failed
+    agentCommandsPublisher.sendAgentCommand(commandsToEnqueue);
+
+    if (failure != null) {
+      throw new AmbariException("Unable to process stage", failure);
+    }
+  }
+
+  /**
+   * @return {@code true} if commands in progress are tracked in memory instead
+   *         of being queried from the database on every wake up
+   */
+  private boolean isEventDriven() {
+    return inProgressCommandsTracker != null && configuration.isActionSchedulerEventDriven();
+  }
+
+  /**
+   * Reloads the in-memory model of commands in progress from the database on
+   * startup, after a failed iteration and when the reconciliation interval is
+   * over, so updates missed by the model (for example, commands changed by
+   * bulk updates without an event) don't survive for long.
+   */
+  private void reconcileCommandsInProgress() {
+    long now = System.currentTimeMillis();
+    if (now - lastReconciliationTime >= configuration.getActionSchedulerReconciliationInterval()) {
+      inProgressCommandsTracker.reload(hostRoleCommandDAO.findByStatus(HostRoleStatus.IN_PROGRESS_STATUSES));
+      lastReconciliationTime = now;
+    }
+  }
+
   /**
    * Returns filtered list of stages such that the returned list is an ordered
    * list of stages that may be executed in parallel or in the order in which
@@ -1389,8 +1578,8 @@ class ActionScheduler implements Runnable {
 
   /**
    * Handles {@link EntityManagerCacheInvalidationEvent} instances and instructs
-   * the thread running this scheduler to evict instances from the
-   * {@link EntityManager}.
+   * the thread running this scheduler, and the threads processing its stages,
+   * to evict instances from the {@link EntityManager}.
    *
    * @param event
    *          the event to handle (not {@code null}).
@@ -1404,6 +1593,16 @@ class ActionScheduler implements Runnable {
     } catch (Throwable throwable) {
       LOG.error("Unable to clear the EntityManager for the scheduler thread", throwable);
     }
+
+    for (EntityManager workerEntityManager : workerEntityManagers) {
+      try {
+        if (workerEntityManager.isOpen()) {
+          workerEntityManager.clear();
+        }
+      } catch (Throwable throwable) {
+        LOG.error("Unable to clear the EntityManager for a stage processing thread", throwable);
+      }
+    }
   }
 
   static class RoleStats {
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ambari.server.events.TaskCreateEvent;
+import org.apache.ambari.server.events.TaskUpdateEvent;
+import org.apache.ambari.server.events.publishers.TaskEventPublisher;
+import org.apache.ambari.server.orm.AmbariJpaLocalTxnInterceptor;
+import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Keeps track of the commands in one of the {@link HostRoleStatus#IN_PROGRESS_STATUSES}, so the
+ * {@link ActionScheduler} doesn't have to query the database to find out whether there is any work
+ * to do and which hosts have pending tasks.
+ * <p/>
+ * The model is kept up to date by {@link TaskCreateEvent} and {@link TaskUpdateEvent} which are
+ * published on every persist or merge of {@link HostRoleCommandEntity}. Events are published before
+ * the transaction is committed, so the commands are only applied to the model once the transaction is
+ * committed, and are discarded when it is rolled back. Commands changed without an event, for example
+ * by bulk updates, are picked up by the periodic reload of the model with {@link #reload(Collection)}.
+ */
+@Singleton
+public class InProgressCommandsTracker {
+  private static final Logger LOG = LoggerFactory.getLogger(InProgressCommandsTracker.class);
+
+  /**
+   * Commands in progress by task id.
+   */
+  private final Map<Long, TrackedCommand> commands = new HashMap<>();
+
+  /**
+   * Number of commands in progress by host name.
+   */
+  private final Map<String, Integer> hostCommandCounts = new HashMap<>();
+
+  /**
+   * Number of commands in progress by stage.
+   */
+  private final Map<StageKey, Integer> stageCommandCounts = new HashMap<>();
+
+  /**
+   * Notified when the last command in progress of a stage is finished.
+   */
+  private volatile Runnable stageFinishedListener;
+
+  @Inject
+  public InProgressCommandsTracker(TaskEventPublisher taskEventPublisher) {
+    taskEventPublisher.register(this);
+  }
+
+  /**
+   * Sets the callback invoked when all commands of a stage are finished, so the next stage can be
+   * scheduled right away.
+   * @param stageFinishedListener callback to invoke
+   */
+  public void setStageFinishedListener(Runnable stageFinishedListener) {
+    this.stageFinishedListener = stageFinishedListener;
+  }
+
+  @Subscribe
+  public void onTaskCreateEvent(TaskCreateEvent event) {
+    updateAfterCommit(event.getHostRoleCommands());
+  }
+
+  @Subscribe
+  public void onTaskUpdateEvent(TaskUpdateEvent event) {
+    updateAfterCommit(event.getHostRoleCommands());
+  }
+
+  /**
+   * Replaces the tracked commands with the commands loaded from the database.
+   * @param entities all commands in one of the in progress statuses
+   */
+  public synchronized void reload(Collection<HostRoleCommandEntity> entities) {
+    int previousSize = commands.size();
+    commands.clear();
+    hostCommandCounts.clear();
+    stageCommandCounts.clear();
+    for (HostRoleCommandEntity entity : entities) {
+      if (HostRoleStatus.IN_PROGRESS_STATUSES.contains(entity.getStatus())) {
+        add(entity.getTaskId(), new TrackedCommand(entity.getRequestId(), entity.getStageId(), entity.getHostName()));
+      }
+    }
+    if (previousSize != commands.size()) {
+      LOG.info("Reloaded commands in progress, {} tracked before, {} loaded", previousSize, commands.size());
+    }
+  }
+
+  /**
+   * @return {@code true} if there is at least one command in progress
+   */
+  public synchronized boolean hasCommandsInProgress() {
+    return !commands.isEmpty();
+  }
+
+  /**
+   * @return number of commands in progress
+   */
+  public synchronized int getCommandsInProgressCount() {
+    return commands.size();
+  }
+
+  /**
+   * @return names of the hosts having commands in progress
+   */
+  public synchronized Set<String> getHostsWithPendingTasks() {
+    return new HashSet<>(hostCommandCounts.keySet());
+  }
+
+  /**
+   * Applies the given commands once the transaction publishing them is committed. The state of the
+   * commands is captured right away, since the commands may change before the commit.
+   */
+  private void updateAfterCommit(Collection<HostRoleCommand> hostRoleCommands) {
+    List<CommandState> commandStates = new ArrayList<>(hostRoleCommands.size());
+    for (HostRoleCommand hostRoleCommand : hostRoleCommands) {
+      commandStates.add(new CommandState(hostRoleCommand));
+    }
+    AmbariJpaLocalTxnInterceptor.runAfterCommit(() -> update(commandStates));
+  }
+
+  private void update(List<CommandState> commandStates) {
+    boolean stageFinished = false;
+    synchronized (this) {
+      for (CommandState commandState : commandStates) {
+        if (HostRoleStatus.IN_PROGRESS_STATUSES.contains(commandState.status)) {
+          if (!commands.containsKey(commandState.taskId)) {
+            add(commandState.taskId, commandState.command);
+          }
+        } else {
+          stageFinished |= remove(commandState.taskId);
+        }
+      }
+    }
+    Runnable listener = stageFinishedListener;
+    if (stageFinished && listener != null) {
+      listener.run();
+    }
+  }
+
+  private void add(long taskId, TrackedCommand command) {
+    commands.put(taskId, command);
+    if (command.hostName != null) {
+      hostCommandCounts.merge(command.hostName, 1, Integer::sum);
+    }
+    stageCommandCounts.merge(command.stage, 1, Integer::sum);
+  }
+
+  /**
+   * @return {@code true} if the removed command was the last command in progress of its stage
+   */
+  private boolean remove(long taskId) {
+    TrackedCommand command = commands.remove(taskId);
+    if (command == null) {
+      return false;
+    }
+    if (command.hostName != null) {
+      hostCommandCounts.computeIfPresent(command.hostName, (hostName, count) -> count > 1 ? count - 1 : null);
+    }
+    return stageCommandCounts.computeIfPresent(command.stage, (stage, count) -> count > 1 ? count - 1 : null) == null;
+  }
+
+  /**
+   * The state of a command as published by an event.
+   */
+  private static final class CommandState {
+    private final long taskId;
+    private final HostRoleStatus status;
+    private final TrackedCommand command;
+
+    private CommandState(HostRoleCommand hostRoleCommand) {
+      taskId = hostRoleCommand.getTaskId();
+      status = hostRoleCommand.getStatus();
+      command = new TrackedCommand(hostRoleCommand.getRequestId(), hostRoleCommand.getStageId(),
+          hostRoleCommand.getHostName());
+    }
+  }
+
+  private static final class TrackedCommand {
+    private final StageKey stage;
+    private final String hostName;
+
+    private TrackedCommand(long requestId, long stageId, String hostName) {
+      stage = new StageKey(requestId, stageId);
+      this.hostName = hostName;
+    }
+  }
+
+  private static final class StageKey {
+    private final long requestId;
+    private final long stageId;
+
+    private StageKey(long requestId, long stageId) {
+      this.requestId = requestId;
+      this.stageId = stageId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      StageKey stageKey = (StageKey) o;
+      return requestId == stageKey.requestId && stageId == stageKey.stageId;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Long.hashCode(requestId) + Long.hashCode(stageId);
+    }
+  }
+}
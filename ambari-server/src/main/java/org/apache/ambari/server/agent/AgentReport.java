@@ -28,6 +28,11 @@ public class AgentReport {
   private List<CommandReport> reports;
   private HostStatusReport hostStatusReport;
 
+  /**
+   * Time in milliseconds when report was received from agent.
+   */
+  private final long receivedTime = System.currentTimeMillis();
+
   public AgentReport(String hostName, List<ComponentStatus> componentStatuses, List<CommandReport> reports, HostStatusReport hostStatusReport) {
     this.hostName = hostName;
     this.componentStatuses = componentStatuses;
@@ -50,4 +55,8 @@ public class AgentReport {
   public HostStatusReport getHostStatusReport() {
     return hostStatusReport;
   }
+
+  public long getReceivedTime() {
+    return receivedTime;
+  }
 }
@@ -1,4 +1,4 @@
-/**
+/*
  * Licensed to the Apache Software Foundation (ASF) under one
  * or more contributor license agreements.  See the NOTICE file
  * distributed with this work for additional information
@@ -17,13 +17,18 @@
  */
 package org.apache.ambari.server.agent;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.actionmanager.ActionDBAccessor;
 import org.apache.ambari.server.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,19 +36,52 @@ import org.slf4j.LoggerFactory;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.persist.Transactional;
 import com.google.inject.persist.UnitOfWork;
 
+/**
+ * Processes reports received from agents. Reports are partitioned by host name, every partition has its
+ * own bounded queue and is drained by a single task, so reports of the same host are always processed
+ * in the order they were received while reports of different hosts are processed in parallel.
+ * <p/>
+ * The reports drained in one batch are processed in a single transaction, which is committed once the
+ * batch is done. If a report of the batch fails, the transaction is rolled back and the reports of the
+ * batch are processed again one by one, each handler in its own transaction as it would without
+ * batching, so that a single failing report does not drop the others. The task status updates of the
+ * command reports of a batch are written at once after the batch is committed.
+ * <p/>
+ * A report which does not fit into the queue of its partition within
+ * {@link Configuration#AGENTS_REPORT_QUEUE_OFFER_TIMEOUT} is rejected back to the agent, so that a
+ * slow processing throttles the agents instead of blocking the inbound message threads indefinitely.
+ */
 @Singleton
 public class AgentReportsProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(AgentReportsProcessor.class);
 
   private ScheduledExecutorService executor;
 
-  private ConcurrentLinkedQueue<AgentReport> agentReportsQueue = new ConcurrentLinkedQueue<>();
+  private final List<BlockingQueue<AgentReport>> agentReportsQueues;
 
-  public void addAgentReport(AgentReport agentReport) {
-    agentReportsQueue.add(agentReport);
-  }
+  private final List<AgentReportProcessingTask> agentReportProcessingTasks;
+
+  private final int batchSize;
+
+  private final long offerTimeout;
+
+  /**
+   * Total number of processed reports.
+   */
+  private final AtomicLong processedReports = new AtomicLong();
+
+  /**
+   * Total number of reports rejected because the queue of their partition was full.
+   */
+  private final AtomicLong rejectedReports = new AtomicLong();
+
+  /**
+   * Sum of times in milliseconds passed between receiving and processing of the reports.
+   */
+  private final AtomicLong processingLatency = new AtomicLong();
 
   @Inject
   private HeartBeatHandler hh;
@@ -51,48 +89,224 @@ public class AgentReportsProcessor {
   @Inject
   private UnitOfWork unitOfWork;
 
+  @Inject
+  private ActionDBAccessor actionDBAccessor;
+
   @Inject
   public AgentReportsProcessor(Configuration configuration) {
 
     ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("agent-report-processor-%d").build();
     int poolSize = configuration.getAgentsReportThreadPoolSize();
+    int queueSize = configuration.getAgentsReportQueueSize();
+    batchSize = configuration.getAgentsReportProcessingBatchSize();
+    offerTimeout = configuration.getAgentsReportQueueOfferTimeout();
+    agentReportsQueues = new ArrayList<>(poolSize);
+    agentReportProcessingTasks = new ArrayList<>(poolSize);
     executor = Executors.newScheduledThreadPool(poolSize, threadFactory);
     for (int i=0; i< poolSize; i++) {
-      executor.scheduleAtFixedRate(new AgentReportProcessingTask(),
+      BlockingQueue<AgentReport> agentReportsQueue = new LinkedBlockingQueue<>(queueSize);
+      AgentReportProcessingTask agentReportProcessingTask = new AgentReportProcessingTask(agentReportsQueue);
+      agentReportsQueues.add(agentReportsQueue);
+      agentReportProcessingTasks.add(agentReportProcessingTask);
+      executor.scheduleAtFixedRate(agentReportProcessingTask,
           configuration.getAgentsReportProcessingStartTimeout(),
           configuration.getAgentsReportProcessingPeriod(), TimeUnit.SECONDS);
     }
   }
 
+  /**
+   * Adds report to the queue of the host's partition. If the partition queue is full the caller waits
+   * for free space up to {@link Configuration#AGENTS_REPORT_QUEUE_OFFER_TIMEOUT}, after which the
+   * report is rejected.
+   * @param agentReport report to process
+   * @throws AmbariException if the report was rejected, which is sent back to the agent
+   */
+  public void addAgentReport(AgentReport agentReport) throws AmbariException {
+    BlockingQueue<AgentReport> agentReportsQueue = getAgentReportsQueue(agentReport.getHostName());
+    if (agentReportsQueue.offer(agentReport)) {
+      return;
+    }
+
+    LOG.warn("Agent reports queue is full, waiting to add report from host {}", agentReport.getHostName());
+    boolean added;
+    try {
+      added = agentReportsQueue.offer(agentReport, offerTimeout, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      added = false;
+    }
+    if (!added) {
+      rejectedReports.incrementAndGet();
+      throw new AmbariException(String.format(
+          "Agent reports queue is full, rejected report from host %s", agentReport.getHostName()));
+    }
+  }
+
+  /**
+   * @return number of reports waiting for processing in all partitions.
+   */
+  public int getQueueSize() {
+    int size = 0;
+    for (BlockingQueue<AgentReport> agentReportsQueue : agentReportsQueues) {
+      size += agentReportsQueue.size();
+    }
+    return size;
+  }
+
+  /**
+   * @return number of reports waiting for processing in the most loaded partition.
+   */
+  public int getMaxPartitionQueueSize() {
+    int size = 0;
+    for (BlockingQueue<AgentReport> agentReportsQueue : agentReportsQueues) {
+      size = Math.max(size, agentReportsQueue.size());
+    }
+    return size;
+  }
+
+  /**
+   * @return total number of processed reports.
+   */
+  public long getProcessedReportsCount() {
+    return processedReports.get();
+  }
+
+  /**
+   * @return total number of reports rejected because the queue of their partition was full.
+   */
+  public long getRejectedReportsCount() {
+    return rejectedReports.get();
+  }
+
+  /**
+   * @return sum of times in milliseconds passed between receiving and processing of all processed reports.
+   */
+  public long getProcessingLatency() {
+    return processingLatency.get();
+  }
+
+  /**
+   * Processes the reports waiting in all partitions on the calling thread.
+   */
+  void processQueuedReports() {
+    for (AgentReportProcessingTask agentReportProcessingTask : agentReportProcessingTasks) {
+      agentReportProcessingTask.run();
+    }
+  }
+
+  /**
+   * Processes the given reports in the order of the list within a single transaction.
+   * @param agentReports reports to process
+   * @throws AgentReportProcessingException if processing of a report failed, which rolls back the
+   *                                        transaction
+   */
+  @Transactional
+  void processReportsInTransaction(List<AgentReport> agentReports) {
+    for (AgentReport agentReport : agentReports) {
+      try {
+        processReport(agentReport);
+      } catch (Exception e) {
+        throw new AgentReportProcessingException(agentReport, e);
+      }
+    }
+  }
+
+  private BlockingQueue<AgentReport> getAgentReportsQueue(String hostName) {
+    return agentReportsQueues.get(Math.floorMod(hostName.hashCode(), agentReportsQueues.size()));
+  }
+
+  private void processReport(AgentReport agentReport) throws AmbariException {
+    String hostName = agentReport.getHostName();
+
+    //TODO rewrite with polymorphism usage.
+    if (agentReport.getCommandReports() != null) {
+      hh.handleCommandReportStatus(agentReport.getCommandReports(), hostName);
+    } else if (agentReport.getComponentStatuses() != null) {
+      hh.handleComponentReportStatus(agentReport.getComponentStatuses(), hostName);
+    } else if (agentReport.getHostStatusReport() != null) {
+      hh.handleHostReportStatus(agentReport.getHostStatusReport(), hostName);
+    }
+  }
+
   private class AgentReportProcessingTask implements Runnable {
 
+    private final BlockingQueue<AgentReport> agentReportsQueue;
+
+    private final List<AgentReport> batch = new ArrayList<>(batchSize);
+
+    private AgentReportProcessingTask(BlockingQueue<AgentReport> agentReportsQueue) {
+      this.agentReportsQueue = agentReportsQueue;
+    }
+
     @Override
     public void run() {
+      while (agentReportsQueue.drainTo(batch, batchSize) > 0) {
+        try {
+          processBatch();
+        } catch (Exception e) {
+          // the task must survive failures of a batch, otherwise the whole partition stops being processed
+          LOG.error("Error processing agent reports", e);
+        } finally {
+          batch.clear();
+        }
+      }
+    }
+
+    private void processBatch() {
+      unitOfWork.begin();
       try {
-        unitOfWork.begin();
-        while (true) {
-          AgentReport agentReport = agentReportsQueue.poll();
-          if (agentReport == null) {
-            break;
-          }
-          String hostName = agentReport.getHostName();
-          try {
-
-            //TODO rewrite with polymorphism usage.
-            if (agentReport.getCommandReports() != null) {
-              hh.handleCommandReportStatus(agentReport.getCommandReports(), hostName);
-            } else if (agentReport.getComponentStatuses() != null) {
-              hh.handleComponentReportStatus(agentReport.getComponentStatuses(), hostName);
-            } else if (agentReport.getHostStatusReport() != null) {
-              hh.handleHostReportStatus(agentReport.getHostStatusReport(), hostName);
-            }
-          } catch (AmbariException e) {
-            LOG.error("Error processing agent reports", e);
+        // task status updates of all of the command reports of the batch are written at once
+        actionDBAccessor.beginHostRoleStatesBatch();
+        try {
+          processReportsInTransaction(batch);
+        } catch (RuntimeException e) {
+          LOG.warn("Unable to process {} agent reports in a single transaction, processing them one by one",
+              batch.size(), e);
+
+          // the entity manager of the rolled back transaction is discarded along with the task
+          // status updates collected by it
+          unitOfWork.end();
+          unitOfWork.begin();
+          actionDBAccessor.beginHostRoleStatesBatch();
+          for (AgentReport agentReport : batch) {
+            processReportSeparately(agentReport);
           }
         }
+        flushHostRoleStates();
       } finally {
         unitOfWork.end();
       }
+
+      long now = System.currentTimeMillis();
+      for (AgentReport agentReport : batch) {
+        processedReports.incrementAndGet();
+        processingLatency.addAndGet(now - agentReport.getReceivedTime());
+      }
+    }
+
+    private void processReportSeparately(AgentReport agentReport) {
+      try {
+        processReport(agentReport);
+      } catch (Exception e) {
+        LOG.error("Error processing agent report from host {}", agentReport.getHostName(), e);
+      }
+    }
+
+    private void flushHostRoleStates() {
+      try {
+        actionDBAccessor.flushHostRoleStatesBatch();
+      } catch (Exception e) {
+        LOG.error("Error updating tasks from agent command reports", e);
+      }
+    }
+  }
+
+  /**
+   * Thrown when processing of a report of a batch fails, to roll back the transaction of the batch.
+   */
+  private static class AgentReportProcessingException extends RuntimeException {
+    private AgentReportProcessingException(AgentReport agentReport, Throwable cause) {
+      super("Error processing agent report from host " + agentReport.getHostName(), cause);
     }
   }
 }
@@ -18,6 +18,11 @@
 
 package org.apache.ambari.server.agent.stomp;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -26,6 +31,7 @@ import javax.inject.Inject;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.agent.stomp.dto.Hashable;
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.events.AmbariUpdateEvent;
 import org.apache.ambari.server.events.publishers.StateUpdateEventPublisher;
 
@@ -38,8 +44,19 @@ public abstract class AgentClusterDataHolder<T extends AmbariUpdateEvent & Hasha
   @Inject
   protected StateUpdateEventPublisher stateUpdateEventPublisher;
 
+  @Inject
+  private Configuration configuration;
+
   private T data;
 
+  /**
+   * Recent updates of the data in the order they were applied, is used to send to agents only the changes
+   * they missed instead of the full data.
+   */
+  private final Deque<JournalEntry<T>> journal = new ArrayDeque<>();
+
+  private final AgentDataHasher hasher = createHasher();
+
   //TODO perhaps need optimization
   private Lock lock = new ReentrantLock();
 
@@ -47,7 +64,11 @@ public abstract class AgentClusterDataHolder<T extends AmbariUpdateEvent & Hasha
     try {
       lock.lock();
       initializeDataIfNeeded(true);
-      return !Objects.equals(agentHash, data.getHash()) ? data : getEmptyData();
+      if (Objects.equals(agentHash, data.getHash())) {
+        return getEmptyData();
+      }
+      T delta = getUpdatesSince(agentHash);
+      return delta != null ? delta : data;
     } finally {
       lock.unlock();
     }
@@ -65,6 +86,25 @@ public abstract class AgentClusterDataHolder<T extends AmbariUpdateEvent & Hasha
    */
   protected abstract boolean handleUpdate(T update) throws AmbariException;
 
+  /**
+   * Creates a copy of the update to keep in the journal of recent changes. The copy must not share
+   * mutable objects with the update, as those can become a part of the data.
+   * @return copy of the update, or {@code null} if the holder doesn't keep the journal
+   */
+  protected T copyUpdate(T update) {
+    return null;
+  }
+
+  /**
+   * Merges the copies of consecutive updates into a single update, which being applied by agent
+   * has the same effect as all the updates applied in order. The copies may be modified.
+   * @param updates copies of the updates in the order they were applied
+   * @return merged update, or {@code null} if the updates can't be merged
+   */
+  protected T mergeUpdates(List<T> updates) {
+    return null;
+  }
+
   /**
    * Template method to update the data.
    * @return true if the update introduced any change
@@ -73,7 +113,7 @@ public abstract class AgentClusterDataHolder<T extends AmbariUpdateEvent & Hasha
     initializeDataIfNeeded(false);
     boolean changed = handleUpdate(update);
     if (changed) {
-      regenerateHash();
+      regenerateHash(update);
       update.setHash(getData().getHash());
       stateUpdateEventPublisher.publish(update);
     }
@@ -81,14 +121,71 @@ public abstract class AgentClusterDataHolder<T extends AmbariUpdateEvent & Hasha
   }
 
   protected final void regenerateHash() {
+    regenerateHash(null);
+  }
+
+  /**
+   * Regenerates hash of the data re-digesting only the parts affected by the update.
+   * @param update applied update, or {@code null} to re-hash the whole data
+   */
+  protected final void regenerateHash(T update) {
     try {
       lock.lock();
-      regenerateHash(data);
+      String previousHash = data.getHash();
+      regenerateHash(data, hasher, update);
+      if (update == null) {
+        journal.clear();
+      } else {
+        addJournalEntry(previousHash, update);
+      }
     } finally {
       lock.unlock();
     }
   }
 
+  private void addJournalEntry(String previousHash, T update) {
+    T copy = copyUpdate(update);
+    if (copy == null || previousHash == null) {
+      journal.clear();
+      return;
+    }
+    journal.addLast(new JournalEntry<>(previousHash, copy));
+    while (journal.size() > configuration.getAgentsDataJournalSize()) {
+      journal.removeFirst();
+    }
+  }
+
+  /**
+   * Finds the updates applied after the data had the hash known by agent and merges them.
+   * Should be called under the lock.
+   * @return merged update with the actual hash, or {@code null} if the hash is not found in the journal
+   * or the updates can't be merged
+   */
+  private T getUpdatesSince(String agentHash) {
+    if (agentHash == null) {
+      return null;
+    }
+    List<T> updates = null;
+    for (Iterator<JournalEntry<T>> iterator = journal.iterator(); iterator.hasNext() && updates == null; ) {
+      JournalEntry<T> entry = iterator.next();
+      if (agentHash.equals(entry.previousHash)) {
+        updates = new ArrayList<>();
+        updates.add(copyUpdate(entry.update));
+        while (iterator.hasNext()) {
+          updates.add(copyUpdate(iterator.next().update));
+        }
+      }
+    }
+    if (updates == null) {
+      return null;
+    }
+    T delta = mergeUpdates(updates);
+    if (delta != null) {
+      delta.setHash(data.getHash());
+    }
+    return delta;
+  }
+
   protected final void initializeDataIfNeeded(boolean regenerateHash) throws AmbariException {
     if (data == null) {
       data = getCurrentData();
@@ -102,4 +199,17 @@ public abstract class AgentClusterDataHolder<T extends AmbariUpdateEvent & Hasha
     return data;
   }
 
+  private static final class JournalEntry<T> {
+
+    /**
+     * Hash of the data before the update was applied.
+     */
+    private final String previousHash;
+    private final T update;
+
+    private JournalEntry(String previousHash, T update) {
+      this.previousHash = previousHash;
+      this.update = update;
+    }
+  }
 }
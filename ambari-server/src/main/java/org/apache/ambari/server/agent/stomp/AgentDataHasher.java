@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.agent.stomp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.google.gson.Gson;
+
+/**
+ * Calculates hashes of agent data in a Merkle-like manner. The data is split into named branches
+ * (usually one per cluster), every branch is digested separately by streaming its json representation
+ * directly into a {@link MessageDigest}, and the resulting hash is the digest of all branch digests.
+ * Branch digests are cached, so after an incremental update only the changed branches are re-hashed.
+ * <p/>
+ * Instances are not thread-safe, the owning data holder is expected to serialize access.
+ */
+public class AgentDataHasher {
+
+  private static final String HASH_ALGORITHM = "SHA-512";
+
+  /**
+   * Gson instances are thread-safe, so there is no need to create a new one for every hash.
+   */
+  private static final Gson GSON = new Gson();
+
+  private static final OutputStream NULL_OUTPUT_STREAM = new OutputStream() {
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+  };
+
+  private final String salt;
+
+  /**
+   * Cached digests of the branches by branch name.
+   */
+  private final Map<String, byte[]> branchDigests = new HashMap<>();
+
+  public AgentDataHasher(String salt) {
+    this.salt = salt;
+  }
+
+  /**
+   * Calculates the hash of the whole object without splitting it into branches.
+   * @param data object to hash
+   * @return hex representation of the digest
+   */
+  public String getHash(Object data) {
+    branchDigests.clear();
+    MessageDigest md = createDigest();
+    digestJson(md, data);
+    return toHex(md.digest());
+  }
+
+  /**
+   * Calculates the hash of the data split into the branches. Only the branches with names from
+   * {@code changedBranches} and the branches which were not hashed before are re-digested,
+   * digests of the removed branches are dropped.
+   * @param branches all branches of the data
+   * @param changedBranches names of the changed branches, or {@code null} if all branches should be re-hashed
+   * @return hex representation of the combined digest
+   */
+  public String getHash(Map<?, ?> branches, Collection<String> changedBranches) {
+    if (changedBranches == null) {
+      branchDigests.clear();
+    }
+    SortedMap<String, Object> sortedBranches = new TreeMap<>();
+    if (branches != null) {
+      for (Map.Entry<?, ?> branch : branches.entrySet()) {
+        sortedBranches.put(String.valueOf(branch.getKey()), branch.getValue());
+      }
+    }
+    branchDigests.keySet().retainAll(sortedBranches.keySet());
+
+    MessageDigest root = createDigest();
+    for (Map.Entry<String, Object> branch : sortedBranches.entrySet()) {
+      String branchName = branch.getKey();
+      byte[] branchDigest = branchDigests.get(branchName);
+      if (branchDigest == null || changedBranches.contains(branchName)) {
+        MessageDigest md = createDigest();
+        digestJson(md, branch.getValue());
+        branchDigest = md.digest();
+        branchDigests.put(branchName, branchDigest);
+      }
+      root.update(branchName.getBytes(StandardCharsets.UTF_8));
+      root.update(branchDigest);
+    }
+    return toHex(root.digest());
+  }
+
+  /**
+   * Drops all cached branch digests.
+   */
+  public void reset() {
+    branchDigests.clear();
+  }
+
+  private MessageDigest createDigest() {
+    try {
+      MessageDigest md = MessageDigest.getInstance(HASH_ALGORITHM);
+      md.update(salt.getBytes(StandardCharsets.UTF_8));
+      return md;
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Hash algorithm " + HASH_ALGORITHM + " is not available", e);
+    }
+  }
+
+  /**
+   * Serializes the object to json writing it directly to the digest, so the json string is never
+   * materialized in memory.
+   */
+  private static void digestJson(MessageDigest md, Object data) {
+    try (Writer writer = new OutputStreamWriter(new DigestOutputStream(NULL_OUTPUT_STREAM, md), StandardCharsets.UTF_8)) {
+      GSON.toJson(data, writer);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to serialize data for hashing", e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+    }
+    return sb.toString();
+  }
+}
@@ -18,14 +18,12 @@
 
 package org.apache.ambari.server.agent.stomp;
 
-import java.io.UnsupportedEncodingException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.apache.ambari.server.agent.stomp.dto.Hashable;
 
-import com.google.gson.Gson;
-
 /**
  * Is used to hash generating for event
  * @param <T> event with hash to control version
@@ -35,26 +33,53 @@ public abstract class AgentDataHolder<T extends Hashable> {
 
   protected abstract T getEmptyData();
 
-  final void regenerateHash(T data) {
-    data.setHash(null);
-    data.setHash(getHash(data));
+  /**
+   * Returns the parts of the data which are hashed independently, e.g. clusters by cluster ids.
+   * Data holders which return branches get only changed branches re-hashed on incremental updates.
+   * @param data event to split into branches
+   * @return branches by names, or {@code null} if the data should be hashed as a whole
+   */
+  protected Map<?, ?> getHashBranches(T data) {
+    return null;
+  }
+
+  protected AgentDataHasher createHasher() {
+    return new AgentDataHasher(salt);
+  }
+
+  /**
+   * Regenerates hash of the data from scratch.
+   */
+  final void regenerateHash(T data, AgentDataHasher hasher) {
+    regenerateHash(data, hasher, null);
   }
 
-  private String getHash(T data) {
-    String json = new Gson().toJson(data);
-    String generatedPassword = null;
-    try {
-      MessageDigest md = MessageDigest.getInstance("SHA-512");
-      md.update(salt.getBytes("UTF-8"));
-      byte[] bytes = md.digest(json.getBytes("UTF-8"));
-      StringBuilder sb = new StringBuilder();
-      for (byte b : bytes) {
-        sb.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+  /**
+   * Regenerates hash of the data re-digesting only the branches present in the update.
+   * @param data data to hash
+   * @param hasher hasher which keeps digests of the data branches
+   * @param update incremental update applied to the data, or {@code null} to re-hash all branches
+   */
+  final void regenerateHash(T data, AgentDataHasher hasher, T update) {
+    synchronized (hasher) {
+      data.setHash(null);
+      Map<?, ?> branches = getHashBranches(data);
+      if (branches == null) {
+        data.setHash(hasher.getHash(data));
+      } else {
+        data.setHash(hasher.getHash(branches, getChangedBranches(update)));
       }
-      generatedPassword = sb.toString();
-    } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
-      e.printStackTrace();
     }
-    return generatedPassword;
+  }
+
+  private Collection<String> getChangedBranches(T update) {
+    if (update == null) {
+      return null;
+    }
+    Map<?, ?> updatedBranches = getHashBranches(update);
+    if (updatedBranches == null) {
+      return null;
+    }
+    return updatedBranches.keySet().stream().map(String::valueOf).collect(Collectors.toSet());
   }
 }
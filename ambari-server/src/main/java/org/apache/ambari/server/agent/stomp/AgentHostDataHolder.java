@@ -40,6 +40,11 @@ public abstract class AgentHostDataHolder<T extends AmbariHostUpdateEvent & Hash
 
   private final Map<Long, T> data = new ConcurrentHashMap<>();
 
+  /**
+   * Hashers keeping branch digests of the data by host ids.
+   */
+  private final Map<Long, AgentDataHasher> hashers = new ConcurrentHashMap<>();
+
   protected abstract T getCurrentData(Long hostId) throws AmbariException;
   protected abstract boolean handleUpdate(T update) throws AmbariException;
 
@@ -53,7 +58,7 @@ public abstract class AgentHostDataHolder<T extends AmbariHostUpdateEvent & Hash
     if (hostData == null) {
       hostData = getCurrentData(hostId);
       if (regenerateHash) {
-        regenerateHash(hostData);
+        regenerateHash(hostData, getHasher(hostId));
       }
       data.put(hostId, hostData);
     }
@@ -68,7 +73,7 @@ public abstract class AgentHostDataHolder<T extends AmbariHostUpdateEvent & Hash
     initializeDataIfNeeded(update.getHostId(), false);
     if (handleUpdate(update)) {
       T hostData = getData(update.getHostId());
-      regenerateHash(hostData);
+      regenerateHash(hostData, getHasher(update.getHostId()), update);
       update.setHash(hostData.getHash());
       stateUpdateEventPublisher.publish(update);
     }
@@ -80,14 +85,16 @@ public abstract class AgentHostDataHolder<T extends AmbariHostUpdateEvent & Hash
   public final void resetData(Long hostId) throws AmbariException {
     T newData = getCurrentData(hostId);
     data.replace(hostId, newData);
+    getHasher(hostId).reset();
     stateUpdateEventPublisher.publish(newData);
   }
 
   /**
    * Remove data for the given host.
    */
-  public final void onHostRemoved(String hostId) {
+  public final void onHostRemoved(Long hostId) {
     data.remove(hostId);
+    hashers.remove(hostId);
   }
 
   public Map<Long, T> getData() {
@@ -101,4 +108,8 @@ public abstract class AgentHostDataHolder<T extends AmbariHostUpdateEvent & Hash
   public void setData(T data, Long hostId) {
     this.data.put(hostId, data);
   }
+
+  private AgentDataHasher getHasher(Long hostId) {
+    return hashers.computeIfAbsent(hostId, id -> createHasher());
+  }
 }
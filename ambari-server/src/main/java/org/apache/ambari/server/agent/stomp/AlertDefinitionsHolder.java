@@ -89,6 +89,11 @@ public class AlertDefinitionsHolder extends AgentHostDataHolder<AlertDefinitions
     return AlertDefinitionsUpdateEvent.emptyEvent();
   }
 
+  @Override
+  protected Map<?, ?> getHashBranches(AlertDefinitionsUpdateEvent data) {
+    return data.getClusters();
+  }
+
   @Override
   protected boolean handleUpdate(AlertDefinitionsUpdateEvent update) throws AmbariException {
     Map<Long, AlertCluster> updateClusters = update.getClusters();
@@ -195,8 +200,12 @@ public class AlertDefinitionsHolder extends AgentHostDataHolder<AlertDefinitions
 
   @Subscribe
   public void onHostsRemoved(HostsRemovedEvent event) {
-    for (String hostName : event.getHostNames()) {
-      onHostRemoved(hostName);
+    // the removed hosts can no longer be looked up, so find their ids from the held data
+    Set<String> hostNames = event.getHostNames();
+    for (AlertDefinitionsUpdateEvent hostData : getData().values()) {
+      if (hostNames.contains(hostData.getHostName())) {
+        onHostRemoved(hostData.getHostId());
+      }
     }
   }
 
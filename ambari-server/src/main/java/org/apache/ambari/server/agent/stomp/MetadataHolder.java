@@ -17,6 +17,7 @@
  */
 package org.apache.ambari.server.agent.stomp;
 
+import java.util.List;
 import java.util.Map;
 
 import org.apache.ambari.server.AmbariException;
@@ -41,12 +42,33 @@ public class MetadataHolder extends AgentClusterDataHolder<MetadataUpdateEvent>
 
   @Override
   protected boolean handleUpdate(MetadataUpdateEvent update) throws AmbariException {
+    return mergeClusters(getData().getMetadataClusters(), update);
+  }
+
+  @Override
+  protected MetadataUpdateEvent copyUpdate(MetadataUpdateEvent update) {
+    return update.deepCopy();
+  }
+
+  /**
+   * Metadata updates only add or replace parameters, so consecutive updates are merged the same way
+   * they are applied to the data.
+   */
+  @Override
+  protected MetadataUpdateEvent mergeUpdates(List<MetadataUpdateEvent> updates) {
+    MetadataUpdateEvent merged = updates.get(0);
+    for (MetadataUpdateEvent update : updates.subList(1, updates.size())) {
+      mergeClusters(merged.getMetadataClusters(), update);
+    }
+    return merged;
+  }
+
+  private static boolean mergeClusters(Map<String, MetadataCluster> clusters, MetadataUpdateEvent update) {
     boolean changed = false;
     if (MapUtils.isNotEmpty(update.getMetadataClusters())) {
       for (Map.Entry<String, MetadataCluster> metadataClusterEntry : update.getMetadataClusters().entrySet()) {
         MetadataCluster updatedCluster = metadataClusterEntry.getValue();
         String clusterId = metadataClusterEntry.getKey();
-        Map<String, MetadataCluster> clusters = getData().getMetadataClusters();
         if (clusters.containsKey(clusterId)) {
           MetadataCluster cluster = clusters.get(clusterId);
           cluster.getClusterLevelParams().putAll(updatedCluster.getClusterLevelParams());
@@ -65,4 +87,9 @@ public class MetadataHolder extends AgentClusterDataHolder<MetadataUpdateEvent>
   protected MetadataUpdateEvent getEmptyData() {
     return MetadataUpdateEvent.emptyUpdate();
   }
+
+  @Override
+  protected Map<?, ?> getHashBranches(MetadataUpdateEvent data) {
+    return data.getMetadataClusters();
+  }
 }
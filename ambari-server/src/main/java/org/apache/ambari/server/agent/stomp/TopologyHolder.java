@@ -19,6 +19,7 @@ package org.apache.ambari.server.agent.stomp;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -159,6 +160,36 @@ public class TopologyHolder extends AgentClusterDataHolder<TopologyUpdateEvent>
     return changed;
   }
 
+  @Override
+  protected TopologyUpdateEvent copyUpdate(TopologyUpdateEvent update) {
+    return update.deepCopy();
+  }
+
+  /**
+   * Only additive updates are merged, a sequence containing deletions is answered with the full topology.
+   */
+  @Override
+  protected TopologyUpdateEvent mergeUpdates(List<TopologyUpdateEvent> updates) {
+    for (TopologyUpdateEvent update : updates) {
+      if (!TopologyUpdateEvent.EventType.UPDATE.equals(update.getEventType())) {
+        return null;
+      }
+    }
+    TopologyUpdateEvent merged = updates.get(0);
+    for (TopologyUpdateEvent update : updates.subList(1, updates.size())) {
+      for (Map.Entry<String, TopologyCluster> updatedCluster : update.getClusters().entrySet()) {
+        TopologyCluster mergedCluster = merged.getClusters().get(updatedCluster.getKey());
+        if (mergedCluster == null) {
+          merged.getClusters().put(updatedCluster.getKey(), updatedCluster.getValue());
+        } else {
+          mergedCluster.update(updatedCluster.getValue().getTopologyComponents(),
+              updatedCluster.getValue().getTopologyHosts(), TopologyUpdateEvent.EventType.UPDATE);
+        }
+      }
+    }
+    return merged;
+  }
+
   private void prepareAgentTopology(TopologyUpdateEvent topologyUpdateEvent) {
     if (topologyUpdateEvent.getClusters() != null) {
       for (TopologyCluster topologyCluster : topologyUpdateEvent.getClusters().values()) {
@@ -174,4 +205,9 @@ public class TopologyHolder extends AgentClusterDataHolder<TopologyUpdateEvent>
   protected TopologyUpdateEvent getEmptyData() {
     return TopologyUpdateEvent.emptyUpdate();
   }
+
+  @Override
+  protected Map<?, ?> getHashBranches(TopologyUpdateEvent data) {
+    return data.getClusters();
+  }
 }
@@ -63,6 +63,13 @@ public class MetadataCluster {
     this.clusterLevelParams = clusterLevelParams;
   }
 
+  public MetadataCluster deepCopyCluster() {
+    MetadataCluster copiedCluster = new MetadataCluster(null, new TreeMap<>(serviceLevelParams),
+        new TreeMap<>(clusterLevelParams));
+    copiedCluster.getStatusCommandsToRun().addAll(statusCommandsToRun);
+    return copiedCluster;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -159,6 +159,18 @@ public class QueryLexer {
     return ctx.getTokenList().toArray(new Token[ctx.getTokenList().size()]);
   }
 
+  /**
+   * Determine whether the given property name is ignored in any query
+   * expression, e.g. {@link #QUERY_FIELDS}.
+   *
+   * @param propertyName  the property name
+   *
+   * @return true if the property is always ignored
+   */
+  public static boolean isIgnoredProperty(String propertyName) {
+    return SET_IGNORE.contains(propertyName);
+  }
+
   /**
    * Uses a regular expression to scan a query expression and produce a list of string tokens.
    * These tokens are the exact strings that exist in the original syntax.
@@ -397,6 +397,13 @@ public class QueryImpl implements Query, ResourceInstance {
 
     QueryResponse queryResponse = doQuery(resourceType, request, queryPredicate, true);
 
+    // If the predicate and paging can be applied to the top-level resources directly
+    // then only the properties needed to filter and sort are populated for all of the
+    // resources, the remaining properties are populated for the requested page only
+    boolean populatePageOnly = (pageRequest != null || userPredicate != null) &&
+        !hasSubResourcePredicate() && renderer.requiresPropertyProviderInput() &&
+        populateResourceRequired(resourceType);
+
     // If there is a page request and the predicate does not contain properties
     // that need to be set
     if ((pageRequest != null || sortRequest != null ) &&
@@ -409,6 +416,13 @@ public class QueryImpl implements Query, ResourceInstance {
         resourceSet.add(r);
         providerResourceSet.add(r);
       }
+    } else if (populatePageOnly) {
+      PageResponse pageResponse = clusterController.getPopulatedPage(resourceType,
+          queryResponse, request, queryPredicate, pageRequest, sortRequest);
+
+      for (Resource r : pageResponse.getIterable()) {
+        resourceSet.add(r);
+      }
     } else {
       resourceSet.addAll(queryResponse.getResources());
       providerResourceSet.addAll(queryResponse.getResources());
@@ -420,7 +434,7 @@ public class QueryImpl implements Query, ResourceInstance {
     queryResults.put(null, new QueryResult(
       request, queryPredicate, userPredicate, getKeyValueMap(), queryResponse));
 
-    if (renderer.requiresPropertyProviderInput()) {
+    if (renderer.requiresPropertyProviderInput() && !populatePageOnly) {
       clusterController.populateResources(resourceType, providerResourceSet, request, queryPredicate);
     }
 
@@ -439,7 +453,8 @@ public class QueryImpl implements Query, ResourceInstance {
     //
     // The optimization is to apply the predicate and paging request on the top-level resources
     // directly if there are no sub-resources predicates.
-    if ((pageRequest != null || userPredicate != null) && !hasSubResourcePredicate() && populateResourceRequired(resourceType)) {
+    if ((pageRequest != null || userPredicate != null) && !hasSubResourcePredicate() && !populatePageOnly &&
+        populateResourceRequired(resourceType)) {
       QueryResponse newResponse = new QueryResponseImpl(resourceSet, queryResponse.isSortedResponse(), queryResponse.isPagedResponse(),
           queryResponse.getTotalResourceCount());
       PageResponse pageResponse = clusterController.getPage(resourceType, newResponse, request, queryPredicate, pageRequest, sortRequest);
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.api.query;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.ambari.server.api.predicate.InvalidQueryException;
+import org.apache.ambari.server.api.predicate.PredicateCompiler;
+import org.apache.ambari.server.api.predicate.QueryLexer;
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.spi.TemporalInfo;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Bounded LRU cache of the query plans of API requests.
+ * <p/>
+ * Clients like the web UI poll the same URLs over and over.  The predicates
+ * compiled from their query strings and the sets of fields they request are
+ * cached, so that repeated requests skip lexing and parsing.  Predicates are
+ * keyed by resource type, by the properties ignored for the request type and
+ * by the normalized query string; the normalized query string omits the
+ * top level parameters which the lexer always ignores, e.g. the cache busting
+ * {@code _} parameter, so that polls with a different cache buster share a
+ * plan.  The cached predicates and temporal infos are immutable and shared by
+ * all of the requests.
+ */
+@Singleton
+public class QueryPlanCache {
+
+  /**
+   * Characters which delimit tokens of query expressions.
+   */
+  private static final String DELIMITERS = "=<>!&|()";
+
+  /**
+   * The compiled predicates; an empty optional for query strings that do
+   * not result in a predicate.
+   */
+  private final Cache<PredicateKey, Optional<Predicate>> predicates;
+
+  /**
+   * The parsed sets of fields keyed by the fields parameter.
+   */
+  private final Cache<String, Map<String, TemporalInfo>> fields;
+
+
+  // ----- Constructors ------------------------------------------------------
+
+  /**
+   * Constructor.
+   *
+   * @param configuration  the configuration
+   */
+  @Inject
+  public QueryPlanCache(Configuration configuration) {
+    this(configuration.getApiQueryPlanCacheSize());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maximumSize  the maximum number of predicates and of field sets to cache
+   */
+  public QueryPlanCache(int maximumSize) {
+    predicates = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    fields = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+  }
+
+
+  // ----- QueryPlanCache ----------------------------------------------------
+
+  /**
+   * Get the predicate of the given query string, compiling it if it is not
+   * cached.
+   *
+   * @param type               the resource type
+   * @param query              the decoded query string
+   * @param ignoredProperties  the property names to ignore; may be null
+   * @param compiler           the compiler used if the predicate is not cached
+   *
+   * @return the predicate; null if the query string does not result in a predicate
+   *
+   * @throws InvalidQueryException if unable to compile the query string
+   */
+  public Predicate getPredicate(Resource.Type type, String query, Collection<String> ignoredProperties,
+                                PredicateCompiler compiler) throws InvalidQueryException {
+
+    Set<String> ignored = ignoredProperties == null ?
+        Collections.emptySet() : new HashSet<>(ignoredProperties);
+    PredicateKey key = new PredicateKey(type, normalize(query, ignored), ignored);
+
+    Optional<Predicate> predicate = predicates.getIfPresent(key);
+    if (predicate == null) {
+      predicate = Optional.ofNullable(ignoredProperties == null ?
+          compiler.compile(query) : compiler.compile(query, ignoredProperties));
+      predicates.put(key, predicate);
+    }
+    return predicate.orElse(null);
+  }
+
+  /**
+   * Get the set of fields of the given fields parameter, parsing it if it is
+   * not cached.
+   *
+   * @param fieldsParameter  the fields parameter
+   * @param parser           the parser used if the fields are not cached
+   *
+   * @return a modifiable copy of the parsed fields
+   */
+  public Map<String, TemporalInfo> getFields(String fieldsParameter,
+                                             Function<String, Map<String, TemporalInfo>> parser) {
+    Map<String, TemporalInfo> parsedFields = fields.getIfPresent(fieldsParameter);
+    if (parsedFields == null) {
+      parsedFields = parser.apply(fieldsParameter);
+      fields.put(fieldsParameter, parsedFields);
+    }
+    return new HashMap<>(parsedFields);
+  }
+
+  /**
+   * Get the combined statistics of the cached predicates and field sets.
+   *
+   * @return the cache statistics
+   */
+  public CacheStats getStats() {
+    return predicates.stats().plus(fields.stats());
+  }
+
+  /**
+   * Get the number of cached predicates and field sets.
+   *
+   * @return the number of cache entries
+   */
+  public long size() {
+    return predicates.size() + fields.size();
+  }
+
+  /**
+   * Discard all of the cached plans.
+   */
+  public void invalidateAll() {
+    predicates.invalidateAll();
+    fields.invalidateAll();
+  }
+
+
+  // ----- helper methods ----------------------------------------------------
+
+  /**
+   * Normalize the given query string by removing the top level
+   * {@code name=value} parameters which are ignored by the lexer.  Only
+   * parameters with a value that can not be split into several tokens are
+   * removed, so that the normalized query string compiles to the same
+   * predicate as the given one.
+   *
+   * @param query    the query string
+   * @param ignored  the property names to ignore in addition to the ones
+   *                 always ignored by the lexer
+   *
+   * @return the normalized query string
+   */
+  static String normalize(String query, Set<String> ignored) {
+    StringBuilder sb = new StringBuilder(query.length());
+    boolean first = true;
+    for (String parameter : query.split("&", -1)) {
+      if (!isIgnoredParameter(parameter, ignored)) {
+        if (!first) {
+          sb.append('&');
+        }
+        sb.append(parameter);
+        first = false;
+      }
+    }
+    return sb.toString();
+  }
+
+  private static boolean isIgnoredParameter(String parameter, Set<String> ignored) {
+    int separator = parameter.indexOf('=');
+    if (separator <= 0) {
+      return false;
+    }
+
+    String name = parameter.substring(0, separator);
+    if (!QueryLexer.isIgnoredProperty(name) && !ignored.contains(name)) {
+      return false;
+    }
+
+    for (int i = separator + 1; i < parameter.length(); i++) {
+      if (DELIMITERS.indexOf(parameter.charAt(i)) != -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  // ----- PredicateKey inner class ------------------------------------------
+
+  /**
+   * Cache key of a compiled predicate.
+   */
+  private static final class PredicateKey {
+    private final Resource.Type type;
+    private final String query;
+    private final Set<String> ignoredProperties;
+
+    private PredicateKey(Resource.Type type, String query, Set<String> ignoredProperties) {
+      this.type              = type;
+      this.query             = query;
+      this.ignoredProperties = ignoredProperties;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      PredicateKey that = (PredicateKey) o;
+
+      return Objects.equals(type, that.type) &&
+          query.equals(that.query) &&
+          ignoredProperties.equals(that.ignoredProperties);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, query, ignoredProperties);
+    }
+  }
+}
@@ -278,7 +278,7 @@ public class ClusterBlueprintRenderer extends BaseRenderer implements Renderer {
     //Fetch the services, to obtain ServiceInfo and ServiceComponents
     Collection<TreeNode<Resource>> serviceChildren = clusterNode.getChild("services").getChildren();
     for (TreeNode serviceNode : serviceChildren) {
-      ResourceImpl service = (ResourceImpl) serviceNode.getObject();
+      Resource service = (Resource) serviceNode.getObject();
       Map<String, Object> ServiceInfoMap = service.getPropertiesMap().get("ServiceInfo");
 
       //service_settings population
@@ -291,7 +291,7 @@ public class ClusterBlueprintRenderer extends BaseRenderer implements Renderer {
       //Fetch the service Components to obtain ServiceComponentInfo
       Collection<TreeNode<Resource>> componentChildren = serviceNode.getChild("components").getChildren();
       for (TreeNode componentNode : componentChildren) {
-        ResourceImpl component = (ResourceImpl) componentNode.getObject();
+        Resource component = (Resource) componentNode.getObject();
         Map<String, Object> ServiceComponentInfoMap = component.getPropertiesMap().get("ServiceComponentInfo");
 
         if (ServiceComponentInfoMap.get("recovery_enabled").equals("true")) {
@@ -38,6 +38,7 @@ import org.apache.ambari.server.api.handlers.RequestHandler;
 import org.apache.ambari.server.api.predicate.InvalidQueryException;
 import org.apache.ambari.server.api.predicate.PredicateCompiler;
 import org.apache.ambari.server.api.predicate.QueryLexer;
+import org.apache.ambari.server.api.query.QueryPlanCache;
 import org.apache.ambari.server.api.query.render.Renderer;
 import org.apache.ambari.server.api.resources.ResourceInstance;
 import org.apache.ambari.server.controller.internal.PageRequestImpl;
@@ -113,6 +114,20 @@ public abstract class BaseRequest implements Request {
    */
   private final static Logger LOG = LoggerFactory.getLogger(Request.class);
 
+  /**
+   * Pattern which splits the fields parameter using ',' as the delimiter unless ',' is between '[' and ']'.
+   */
+  private static final Pattern FIELDS_PATTERN = Pattern.compile("[^,\\[]*?\\[[^\\]]*?\\]|[^,]+");
+
+  /**
+   * Cache of the predicates and fields of repeated requests; null if requests are not cached.
+   */
+  private static QueryPlanCache queryPlanCache;
+
+  public static void init(QueryPlanCache instance) {
+    queryPlanCache = instance;
+  }
+
 
   /**
    * Constructor.
@@ -185,40 +200,53 @@ public abstract class BaseRequest implements Request {
     String partialResponseFields = m_uriInfo.getQueryParameters().getFirst(QueryLexer.QUERY_FIELDS);
     if (partialResponseFields == null) {
       mapProperties = Collections.emptyMap();
+    } else if (queryPlanCache != null) {
+      mapProperties = queryPlanCache.getFields(partialResponseFields, BaseRequest::parseFields);
     } else {
-      Set<String> setMatches = new HashSet<>();
-      // Pattern basically splits a string using ',' as the deliminator unless ',' is between '[' and ']'.
-      // Actually, captures char sequences between ',' and all chars between '[' and ']' including ','.
-      Pattern re = Pattern.compile("[^,\\[]*?\\[[^\\]]*?\\]|[^,]+");
-      Matcher m = re.matcher(partialResponseFields);
-      while (m.find()){
-        for (int groupIdx = 0; groupIdx < m.groupCount() + 1; groupIdx++) {
-          setMatches.add(m.group(groupIdx));
-        }
+      mapProperties = parseFields(partialResponseFields);
+    }
+
+    return mapProperties;
+  }
+
+  /**
+   * Parse the given fields parameter into a map of property ids to temporal information.
+   *
+   * @param partialResponseFields  the fields parameter
+   *
+   * @return the map of requested property ids to temporal information; the temporal information may be null
+   */
+  private static Map<String, TemporalInfo> parseFields(String partialResponseFields) {
+    Set<String> setMatches = new HashSet<>();
+    // Pattern basically splits a string using ',' as the deliminator unless ',' is between '[' and ']'.
+    // Actually, captures char sequences between ',' and all chars between '[' and ']' including ','.
+    Matcher m = FIELDS_PATTERN.matcher(partialResponseFields);
+    while (m.find()){
+      for (int groupIdx = 0; groupIdx < m.groupCount() + 1; groupIdx++) {
+        setMatches.add(m.group(groupIdx));
       }
+    }
 
-      mapProperties = new HashMap<>(setMatches.size());
-      for (String field : setMatches) {
-        TemporalInfo temporalInfo = null;
-        if (field.contains("[")) {
-          String[] temporalData = field.substring(field.indexOf('[') + 1,
-              field.indexOf(']')).split(",");
-          field = field.substring(0, field.indexOf('['));
-          long start = Long.parseLong(temporalData[0].trim());
-          long end   = -1;
-          long step  = -1;
-          if (temporalData.length >= 2) {
-            end = Long.parseLong(temporalData[1].trim());
-            if (temporalData.length == 3) {
-              step = Long.parseLong(temporalData[2].trim());
-            }
+    Map<String, TemporalInfo> mapProperties = new HashMap<>(setMatches.size());
+    for (String field : setMatches) {
+      TemporalInfo temporalInfo = null;
+      if (field.contains("[")) {
+        String[] temporalData = field.substring(field.indexOf('[') + 1,
+            field.indexOf(']')).split(",");
+        field = field.substring(0, field.indexOf('['));
+        long start = Long.parseLong(temporalData[0].trim());
+        long end   = -1;
+        long step  = -1;
+        if (temporalData.length >= 2) {
+          end = Long.parseLong(temporalData[1].trim());
+          if (temporalData.length == 3) {
+            step = Long.parseLong(temporalData[2].trim());
           }
-          temporalInfo = new TemporalInfoImpl(start, end, step);
         }
-        mapProperties.put(field, temporalInfo);
+        temporalInfo = new TemporalInfoImpl(start, end, step);
       }
+      mapProperties.put(field, temporalInfo);
     }
-
     return mapProperties;
   }
 
@@ -341,9 +369,15 @@ public abstract class BaseRequest implements Request {
         }
 
 
-        m_predicate = (ignoredProperties == null)
-            ? getPredicateCompiler().compile(URLDecoder.decode(queryString, "UTF-8"))
-            : getPredicateCompiler().compile(URLDecoder.decode(queryString, "UTF-8"), ignoredProperties);
+        String decodedQueryString = URLDecoder.decode(queryString, "UTF-8");
+        if (queryPlanCache != null) {
+          m_predicate = queryPlanCache.getPredicate(m_resource.getResourceDefinition().getType(),
+              decodedQueryString, ignoredProperties, getPredicateCompiler());
+        } else {
+          m_predicate = (ignoredProperties == null)
+              ? getPredicateCompiler().compile(decodedQueryString)
+              : getPredicateCompiler().compile(decodedQueryString, ignoredProperties);
+        }
       } catch (UnsupportedEncodingException e) {
         throw new RuntimeException("Unable to decode URI: " + e, e);
       }
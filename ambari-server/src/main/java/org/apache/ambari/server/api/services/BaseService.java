@@ -18,13 +18,18 @@
 
 package org.apache.ambari.server.api.services;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.ambari.server.api.resources.ResourceInstance;
@@ -36,6 +41,7 @@ import org.apache.ambari.server.api.services.parsers.RequestBodyParser;
 import org.apache.ambari.server.api.services.serializers.CsvSerializer;
 import org.apache.ambari.server.api.services.serializers.JsonSerializer;
 import org.apache.ambari.server.api.services.serializers.ResultSerializer;
+import org.apache.ambari.server.api.services.serializers.StreamingResultSerializer;
 import org.apache.ambari.server.audit.request.RequestAuditLogger;
 import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.utils.RetryHelper;
@@ -90,6 +96,12 @@ public abstract class BaseService {
 
   static final String FIELDS_SEPARATOR = ", ";
 
+  /**
+   * The number of bytes of a streamed result which are buffered before the
+   * response is sent.
+   */
+  static final int RESPONSE_STREAMING_BUFFER_SIZE = 64 * 1024;
+
   /**
    * Logger instance.
    */
@@ -185,7 +197,7 @@ public abstract class BaseService {
     ResultSerializer serializer = mediaType == null ? getResultSerializer() : getResultSerializer(mediaType);
 
     Response.ResponseBuilder builder = Response.status(result.getStatus().getStatusCode()).entity(
-        serializer.serialize(result));
+        getResponseEntity(serializer, result));
 
     if (mediaType != null) {
       builder.type(mediaType);
@@ -195,6 +207,73 @@ public abstract class BaseService {
     return builder.build();
   }
 
+  /**
+   * Get the entity of the response for the given result.  Successful results
+   * are written directly to the response stream if the serializer supports it,
+   * so that large results are not held in memory a second time in serialized
+   * form.
+   *
+   * @param serializer  the result serializer
+   * @param result      the result
+   *
+   * @return the response entity
+   */
+  private Object getResponseEntity(final ResultSerializer serializer, final Result result) {
+    if (isResponseStreamingEnabled() && serializer instanceof StreamingResultSerializer &&
+        !result.getStatus().isErrorState()) {
+      return (StreamingOutput) out -> writeResult((StreamingResultSerializer) serializer, result, out,
+          RESPONSE_STREAMING_BUFFER_SIZE);
+    }
+    return serializer.serialize(result);
+  }
+
+  /**
+   * Write the serialized result to the response stream.  The beginning of the
+   * result is buffered, so if the serialization fails before the buffer is
+   * full, nothing has been sent yet and the client gets a server error
+   * response, as for a result which is not streamed.  Once part of the result
+   * has been sent the status can't be changed anymore, so the failure is
+   * rethrown and the response is aborted instead of being completed with
+   * truncated JSON.
+   *
+   * @param serializer  the result serializer
+   * @param result      the result
+   * @param out         the response stream
+   * @param bufferSize  the number of bytes buffered before the response is sent
+   *
+   * @throws IOException if the result could not be written to the stream
+   * @throws WebApplicationException if the serialization failed before the response was sent
+   */
+  static void writeResult(StreamingResultSerializer serializer, Result result, OutputStream out,
+                          int bufferSize) throws IOException {
+    ResponseBuffer buffer = new ResponseBuffer(out, bufferSize);
+    try {
+      serializer.serialize(result, buffer);
+    } catch (IOException | RuntimeException e) {
+      if (buffer.isSent()) {
+        LOG.error("Unable to serialize the result, aborting the partially sent response", e);
+        throw e;
+      }
+      LOG.error("Unable to serialize the result", e);
+      ResultStatus error = new ResultStatus(ResultStatus.STATUS.SERVER_ERROR, e.getMessage());
+      throw new WebApplicationException(e, Response.status(error.getStatusCode()).entity(
+          serializer.serializeError(error)).build());
+    }
+    buffer.send();
+    out.flush();
+  }
+
+  /**
+   * Determine whether successful results may be written directly to the
+   * response stream.  Services which consume the response entity themselves
+   * should return false to get the serialized result as the entity.
+   *
+   * @return true if the response may be streamed
+   */
+  protected boolean isResponseStreamingEnabled() {
+    return true;
+  }
+
   /**
    * Obtain the factory from which to create Request instances.
    *
@@ -271,4 +350,60 @@ public abstract class BaseService {
   protected RequestBodyParser getBodyParser() {
     return new JsonRequestBodyParser();
   }
+
+  /**
+   * Stream holding the written bytes until the buffer is full, after which
+   * they and any further bytes are written to the response stream.
+   */
+  private static class ResponseBuffer extends OutputStream {
+    private final OutputStream out;
+    private final int size;
+
+    /**
+     * The buffered bytes, or null once they have been sent.
+     */
+    private ByteArrayOutputStream buffer;
+
+    private ResponseBuffer(OutputStream out, int size) {
+      this.out = out;
+      this.size = size;
+      buffer = new ByteArrayOutputStream(size);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (buffer != null) {
+        if (buffer.size() + len <= size) {
+          buffer.write(b, off, len);
+          return;
+        }
+        send();
+      }
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      // the buffered bytes are only sent once the buffer is full or the result is complete
+      if (buffer == null) {
+        out.flush();
+      }
+    }
+
+    private void send() throws IOException {
+      if (buffer != null) {
+        buffer.writeTo(out);
+        buffer = null;
+      }
+    }
+
+    private boolean isSent() {
+      return buffer == null;
+    }
+  }
 }
@@ -20,6 +20,7 @@ package org.apache.ambari.server.api.services.serializers;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.util.LinkedHashMap;
@@ -41,7 +42,7 @@ import org.codehaus.jackson.util.DefaultPrettyPrinter;
  * JSON serializer.
  * Responsible for representing a result as JSON.
  */
-public class JsonSerializer implements ResultSerializer {
+public class JsonSerializer implements StreamingResultSerializer {
 
   /**
    * Factory used to create JSON generator.
@@ -59,32 +60,35 @@ public class JsonSerializer implements ResultSerializer {
   @Override
   public Object serialize(Result result) {
     try {
-      ByteArrayOutputStream bytesOut = init();
+      ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+      serialize(result, bytesOut);
+      return bytesOut.toString("UTF-8");
+    } catch (IOException e) {
+      //todo: exception handling.  Create ResultStatus 500 and call serializeError
+      throw new RuntimeException("Unable to serialize to json: " + e, e);
+    }
+  }
 
-      if (result.getStatus().isErrorState()) {
-        return serializeError(result.getStatus());
-      }
+  @Override
+  public void serialize(Result result, OutputStream out) throws IOException {
+    init(out);
 
+    if (result.getStatus().isErrorState()) {
+      writeError(result.getStatus());
+    } else {
       TreeNode<Resource> treeNode = result.getResultTree();
       processNode(treeNode);
       processResultMetadata(result.getResultMetadata());
-      m_generator.close();
-      return bytesOut.toString("UTF-8");
-    } catch (IOException e) {
-      //todo: exception handling.  Create ResultStatus 500 and call serializeError
-      throw new RuntimeException("Unable to serialize to json: " + e, e);
     }
+    m_generator.close();
   }
 
   @Override
   public Object serializeError(ResultStatus error) {
     try {
-      ByteArrayOutputStream bytesOut = init();
-      //m_mapper.writeValue(m_generator, error);
-      m_generator.writeStartObject();
-      m_generator.writeNumberField("status", error.getStatus().getStatus());
-      m_generator.writeStringField("message", error.getMessage());
-      m_generator.writeEndObject();
+      ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+      init(bytesOut);
+      writeError(error);
       m_generator.close();
       return bytesOut.toString("UTF-8");
 
@@ -94,15 +98,16 @@ public class JsonSerializer implements ResultSerializer {
     }
   }
 
-  private ByteArrayOutputStream init() throws IOException {
-    ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-    m_generator = createJsonGenerator(bytesOut);
-
-    DefaultPrettyPrinter p = new DefaultPrettyPrinter();
-    p.indentArraysWith(new DefaultPrettyPrinter.Lf2SpacesIndenter());
-    m_generator.setPrettyPrinter(p);
+  private void init(OutputStream out) throws IOException {
+    m_generator = createJsonGenerator(out);
+  }
 
-    return bytesOut;
+  private void writeError(ResultStatus error) throws IOException {
+    //m_mapper.writeValue(m_generator, error);
+    m_generator.writeStartObject();
+    m_generator.writeNumberField("status", error.getStatus().getStatus());
+    m_generator.writeStringField("message", error.getMessage());
+    m_generator.writeEndObject();
   }
 
   private void processResultMetadata(ResultMetadata resultMetadata) throws IOException {
@@ -244,9 +249,11 @@ public class JsonSerializer implements ResultSerializer {
     }
   }
 
-  private JsonGenerator createJsonGenerator(ByteArrayOutputStream baos) throws IOException {
-    JsonGenerator generator = m_factory.createJsonGenerator(new OutputStreamWriter(baos,
+  private JsonGenerator createJsonGenerator(OutputStream out) throws IOException {
+    JsonGenerator generator = m_factory.createJsonGenerator(new OutputStreamWriter(out,
         Charset.forName("UTF-8").newEncoder()));
+    // closing the generator flushes the output, the stream itself is owned by the caller
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
     DefaultPrettyPrinter p = new DefaultPrettyPrinter();
     p.indentArraysWith(new DefaultPrettyPrinter.Lf2SpacesIndenter());
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.api.services.serializers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.ambari.server.api.services.Result;
+
+/**
+ * Result serializer which is able to write the serialized result directly to
+ * an output stream instead of building it in memory first.
+ */
+public interface StreamingResultSerializer extends ResultSerializer {
+  /**
+   * Serialize the given result to the given output stream.  The stream is
+   * flushed but not closed.
+   *
+   * @param result  internal result
+   * @param out     the stream to write the serialized result to
+   *
+   * @throws IOException if the result could not be written to the stream
+   */
+  void serialize(Result result, OutputStream out) throws IOException;
+}
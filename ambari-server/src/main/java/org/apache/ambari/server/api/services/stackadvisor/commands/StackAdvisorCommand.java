@@ -432,6 +432,12 @@ public abstract class StackAdvisorCommand<T extends StackAdvisorResponse> extend
     return servicesJSON;
   }
 
+  @Override
+  protected boolean isResponseStreamingEnabled() {
+    // the hosts and services information is read from the response entity
+    return false;
+  }
+
   private ResourceInstance createHostResource() {
     Map<Resource.Type, String> mapIds = new HashMap<>();
     return createResource(Resource.Type.Host, mapIds);
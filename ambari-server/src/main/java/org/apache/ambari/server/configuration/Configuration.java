@@ -501,6 +501,14 @@ public class Configuration {
   public static final ConfigurationProperty<String> API_GZIP_MIN_COMPRESSION_SIZE = new ConfigurationProperty<>(
       "api.gzip.compression.min.size", "10240");
 
+  /**
+   * The maximum number of parsed query predicates and field sets kept for
+   * repeated API requests.
+   */
+  @Markdown(description = "The maximum number of parsed query predicates and requested field sets that are cached for repeated API requests, like the ones polled by the web client. A value of `0` disables the cache.")
+  public static final ConfigurationProperty<Integer> API_QUERY_PLAN_CACHE_SIZE = new ConfigurationProperty<>(
+      "api.query.plan.cache.size", 1000);
+
   /**
    * Determiens whether communication with the Ambari Agents should have the
    * JSON payloads compressed with GZIP.
@@ -1274,13 +1282,15 @@ public class Configuration {
 
   /**
    * The expiration time, in {@link TimeUnit#MINUTES}, that stale configuration information is
-   * cached.
+   * cached. No longer used; cached stale configuration information is discarded
+   * when the configurations it was calculated from change.
    *
    * @see #SERVER_STALE_CONFIG_CACHE_ENABLED
    */
+  @Deprecated
   @Markdown(
       relatedTo = "server.cache.isStale.enabled",
-      description = "The expiration time, in {@link TimeUnit#MINUTES}, that stale configuration information is cached.")
+      description = "No longer used. Stale configuration information is cached until the configurations it was calculated from change.")
   public static final ConfigurationProperty<Integer> SERVER_STALE_CONFIG_CACHE_EXPIRATION = new ConfigurationProperty<>(
       "server.cache.isStale.expiration", 600);
 
@@ -1817,6 +1827,22 @@ public class Configuration {
   public static final ConfigurationProperty<Long> EXECUTION_SCHEDULER_WAIT = new ConfigurationProperty<>(
       "server.execution.scheduler.wait", 1L);
 
+  /**
+   * Determines whether the action scheduler keeps the commands in progress in memory and consults
+   * the database only on startup and during periodic reconciliation.
+   */
+  @Markdown(description = "Determines whether the action scheduler tracks commands in progress in memory from task events instead of querying the database on every wake up. The database is still consulted on startup and during periodic reconciliation.")
+  public static final ConfigurationProperty<Boolean> ACTION_SCHEDULER_EVENT_DRIVEN = new ConfigurationProperty<>(
+      "server.action.scheduler.event.driven", Boolean.FALSE);
+
+  /**
+   * The interval, in seconds, after which the in-memory model of commands in
+   * progress is reloaded from the database.
+   */
+  @Markdown(description = "The interval, in seconds, after which the in-memory model of commands in progress used by the event driven action scheduler is reloaded from the database.")
+  public static final ConfigurationProperty<Long> ACTION_SCHEDULER_RECONCILIATION_INTERVAL = new ConfigurationProperty<>(
+      "server.action.scheduler.reconciliation.interval", 300L);
+
   /**
    * The location on the Ambari Server where temporary artifacts can be created.
    */
@@ -1973,6 +1999,22 @@ public class Configuration {
   public static final ConfigurationProperty<Boolean> PARALLEL_STAGE_EXECUTION = new ConfigurationProperty<>(
       "server.stages.parallel", Boolean.TRUE);
 
+  /**
+   * The number of threads used by the action scheduler to process stages of
+   * independent requests concurrently.
+   */
+  @Markdown(description = "The number of threads used by the action scheduler to process stages of independent requests concurrently. A value of `1` processes stages one by one. Has no effect unless `server.stages.parallel` is enabled.")
+  public static final ConfigurationProperty<Integer> PARALLEL_STAGE_PROCESSING_THREADS = new ConfigurationProperty<>(
+      "server.stages.parallel.processing.threads", 1);
+
+  /**
+   * The number of threads used to parse the stack, common service and
+   * extension folders at startup.
+   */
+  @Markdown(description = "The number of threads used to parse the stack, common service and extension definitions on startup. A value of `1` parses them one by one, a value of `0` uses one thread per available processor.")
+  public static final ConfigurationProperty<Integer> STACK_PARSING_THREADS = new ConfigurationProperty<>(
+      "server.stack.parsing.threads", 0);
+
   /**
    *
    * Property driving the view extraction.
@@ -2134,6 +2176,31 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> AGENTS_REGISTRATION_QUEUE_SIZE = new ConfigurationProperty<>(
       "agents.registration.queue.size", 200);
 
+  /**
+   * Number of recent topology and metadata updates kept to send reconnecting agents only the changes they missed.
+   */
+  @Markdown(description = "Number of recent topology and metadata updates kept to send reconnecting agents only "
+      + "the changes they missed. Agents which missed more updates receive the full data.")
+  public static final ConfigurationProperty<Integer> AGENTS_DATA_JOURNAL_SIZE = new ConfigurationProperty<>(
+      "agents.data.journal.size", 100);
+
+  /**
+   * Time window in milliseconds during which update events for the same entity are merged before sending to
+   * subscribers.
+   */
+  @Markdown(description = "Time window in milliseconds during which update events for the same entity "
+      + "(request, service, host component) are merged before sending to subscribers.")
+  public static final ConfigurationProperty<Long> UPDATE_EVENTS_BUFFER_WINDOW = new ConfigurationProperty<>(
+      "update.events.buffer.window", 1000L);
+
+  /**
+   * Maximal number of merged entity updates sent to subscribers in a single update event.
+   */
+  @Markdown(description = "Maximal number of merged entity updates sent to subscribers in a single update event. "
+      + "Buffer is flushed before the end of the time window when the number is reached.")
+  public static final ConfigurationProperty<Integer> UPDATE_EVENTS_BUFFER_MAX_BATCH_SIZE = new ConfigurationProperty<>(
+      "update.events.buffer.max.batch.size", 1000);
+
 
   /**
    * Period in seconds with agents reports will be processed.
@@ -2156,6 +2223,29 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> AGENTS_REPORT_THREAD_POOL_SIZE = new ConfigurationProperty<>(
       "agents.reports.thread.pool.size", 10);
 
+  /**
+   * Maximal number of agents' reports waiting for processing in a single partition.
+   */
+  @Markdown(description = "Maximal number of agents' reports waiting for processing in a single partition. "
+      + "Reports are partitioned by host, there are as many partitions as agents reports processing threads.")
+  public static final ConfigurationProperty<Integer> AGENTS_REPORT_QUEUE_SIZE = new ConfigurationProperty<>(
+      "agents.reports.queue.size", 10000);
+
+  /**
+   * Time in milliseconds to wait for free space in the queue of a partition before rejecting an agent's report.
+   */
+  @Markdown(description = "Time in milliseconds to wait for free space in the queue of a partition before an agent's "
+      + "report is rejected back to the agent.")
+  public static final ConfigurationProperty<Long> AGENTS_REPORT_QUEUE_OFFER_TIMEOUT = new ConfigurationProperty<>(
+      "agents.reports.queue.offer.timeout", 5000L);
+
+  /**
+   * Maximal number of agents' reports processed within a single unit of work.
+   */
+  @Markdown(description = "Maximal number of agents' reports processed within a single unit of work.")
+  public static final ConfigurationProperty<Integer> AGENTS_REPORT_PROCESSING_BATCH_SIZE = new ConfigurationProperty<>(
+      "agents.reports.processing.batch.size", 100);
+
   /**
    * The maximum number of threads used to extract Ambari Views when Ambari
    * Server is starting up.
@@ -2397,6 +2487,21 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> ALERTS_EXECUTION_SCHEDULER_WORKER_QUEUE_SIZE = new ConfigurationProperty<>(
       "alerts.execution.scheduler.threadpool.worker.size", 2000);
 
+  /**
+   * The number of shards used to process received alerts in parallel.
+   */
+  @ConfigurationMarkdown(
+      group = ConfigurationGrouping.ALERTS,
+      scaleValues = {
+          @ClusterScale(clusterSize = ClusterSizeType.HOSTS_10, value = "2"),
+          @ClusterScale(clusterSize = ClusterSizeType.HOSTS_50, value = "4"),
+          @ClusterScale(clusterSize = ClusterSizeType.HOSTS_100, value = "4"),
+          @ClusterScale(clusterSize = ClusterSizeType.HOSTS_500, value = "8") },
+      markdown = @Markdown(
+          description = "The number of shards which process received alerts in parallel. Alerts of the same cluster, definition and host are always processed by the same shard. The value should be increased as the size of the cluster increases."))
+  public static final ConfigurationProperty<Integer> ALERTS_RECEIVED_PROCESSING_SHARDS = new ConfigurationProperty<>(
+      "alerts.received.processing.shards", 4);
+
   /**
    * If {@code true} then alert information is cached and not immediately
    * persisted in the database.
@@ -2691,6 +2796,29 @@ public class Configuration {
   public static final ConfigurationProperty<Integer> METRIC_RETRIEVAL_SERVICE_REQUEST_TTL = new ConfigurationProperty<>(
       "metrics.retrieval-service.request.ttl", 5);
 
+  /**
+   * The amount of time, in {@link TimeUnit#SECONDS}, between periodic scrapes
+   * of the endpoints which have been requested from the
+   * {@link MetricsRetrievalService}.
+   */
+  @Markdown(
+      relatedTo = "metrics.retrieval-service.scrape.host.concurrency",
+      description = "The number of seconds between scrapes of JMX and REST endpoints which have been requested recently, keeping their cached metrics fresh. "
+          + "A value of 0 disables periodic scraping so that endpoints are only retrieved when requested.")
+  public static final ConfigurationProperty<Integer> METRIC_RETRIEVAL_SERVICE_SCRAPE_INTERVAL = new ConfigurationProperty<>(
+      "metrics.retrieval-service.scrape.interval", 15);
+
+  /**
+   * The maximum number of requests to the same host which can be in flight
+   * before periodic scrapes of that host by the {@link MetricsRetrievalService}
+   * are deferred.
+   */
+  @Markdown(
+      relatedTo = "metrics.retrieval-service.scrape.interval",
+      description = "The maximum number of JMX or REST metric requests to the same host which can be in flight before periodic scrapes of that host are deferred.")
+  public static final ConfigurationProperty<Integer> METRIC_RETRIEVAL_SERVICE_SCRAPE_HOST_CONCURRENCY = new ConfigurationProperty<>(
+      "metrics.retrieval-service.scrape.host.concurrency", 2);
+
   /**
    * The number of tasks that can be queried from the database at once In the
    * case of more tasks, multiple queries are issued
@@ -3990,6 +4118,14 @@ public class Configuration {
     return getProperty(API_GZIP_MIN_COMPRESSION_SIZE);
   }
 
+  /**
+   * @return the maximum number of parsed query predicates and field sets kept
+   *         for repeated API requests; 0 if they are not cached
+   */
+  public int getApiQueryPlanCacheSize() {
+    return Integer.parseInt(getProperty(API_QUERY_PLAN_CACHE_SIZE));
+  }
+
   /**
    * Check persistence type Ambari Server should use. Possible values:
    * in-memory - use in-memory Derby database to store data
@@ -4634,6 +4770,7 @@ public class Configuration {
   /**
    * @return expiration time of stale config cache
    */
+  @Deprecated
   public Integer staleConfigCacheExpiration() {
     return Integer.parseInt(getProperty(SERVER_STALE_CONFIG_CACHE_EXPIRATION));
   }
@@ -4724,6 +4861,21 @@ public class Configuration {
     return sleepTime*1000;
   }
 
+  /**
+   * @return {@code true} if the action scheduler should track commands in progress in memory
+   */
+  public boolean isActionSchedulerEventDriven() {
+    return Boolean.parseBoolean(getProperty(ACTION_SCHEDULER_EVENT_DRIVEN));
+  }
+
+  /**
+   * @return interval in milliseconds between reconciliations of the in-memory commands in progress
+   * with the database
+   */
+  public long getActionSchedulerReconciliationInterval() {
+    return Long.parseLong(getProperty(ACTION_SCHEDULER_RECONCILIATION_INTERVAL)) * 1000;
+  }
+
   public Integer getExternalScriptTimeout() {
     return Integer.parseInt(getProperty(EXTERNAL_SCRIPT_TIMEOUT));
   }
@@ -4742,6 +4894,21 @@ public class Configuration {
     return Boolean.parseBoolean(configsMap.get(PARALLEL_STAGE_EXECUTION.getKey()));
   }
 
+  /**
+   * @return number of threads processing stages of independent requests concurrently
+   */
+  public int getParallelStageProcessingThreads() {
+    return Integer.parseInt(getProperty(PARALLEL_STAGE_PROCESSING_THREADS));
+  }
+
+  /**
+   * @return number of threads parsing the stack definitions, one per available processor unless configured
+   */
+  public int getStackParsingThreads() {
+    int threads = Integer.parseInt(getProperty(STACK_PARSING_THREADS));
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
   public String getCustomActionDefinitionPath() {
     return getProperty(CUSTOM_ACTION_DEFINITION);
   }
@@ -4876,6 +5043,48 @@ public class Configuration {
     return Integer.parseInt(getProperty(AGENTS_REPORT_THREAD_POOL_SIZE));
   }
 
+  /**
+   * @return number of recent topology and metadata updates kept to send reconnecting agents only the changes they missed.
+   */
+  public int getAgentsDataJournalSize() {
+    return Integer.parseInt(getProperty(AGENTS_DATA_JOURNAL_SIZE));
+  }
+
+  /**
+   * @return time window in milliseconds during which update events for the same entity are merged.
+   */
+  public long getUpdateEventsBufferWindow() {
+    return Long.parseLong(getProperty(UPDATE_EVENTS_BUFFER_WINDOW));
+  }
+
+  /**
+   * @return maximal number of merged entity updates sent to subscribers in a single update event.
+   */
+  public int getUpdateEventsBufferMaxBatchSize() {
+    return Integer.parseInt(getProperty(UPDATE_EVENTS_BUFFER_MAX_BATCH_SIZE));
+  }
+
+  /**
+   * @return maximal number of agents' reports waiting for processing in a single partition.
+   */
+  public int getAgentsReportQueueSize() {
+    return Integer.parseInt(getProperty(AGENTS_REPORT_QUEUE_SIZE));
+  }
+
+  /**
+   * @return time in milliseconds to wait for free space in the queue of a partition before rejecting an agent's report.
+   */
+  public long getAgentsReportQueueOfferTimeout() {
+    return Long.parseLong(getProperty(AGENTS_REPORT_QUEUE_OFFER_TIMEOUT));
+  }
+
+  /**
+   * @return maximal number of agents' reports processed within a single unit of work.
+   */
+  public int getAgentsReportProcessingBatchSize() {
+    return Integer.parseInt(getProperty(AGENTS_REPORT_PROCESSING_BATCH_SIZE));
+  }
+
   /**
    * @return max thread pool size for agents, default 25
    */
@@ -5020,6 +5229,13 @@ public class Configuration {
     return Integer.parseInt(getProperty(ALERTS_EXECUTION_SCHEDULER_WORKER_QUEUE_SIZE));
   }
 
+  /**
+   * @return the number of shards which process received alerts, default 4
+   */
+  public int getAlertReceivedProcessingShards() {
+    return Integer.parseInt(getProperty(ALERTS_RECEIVED_PROCESSING_SHARDS));
+  }
+
   /**
    * Get the node recovery type DEFAULT|AUTO_START|FULL
    * @return
@@ -5663,6 +5879,27 @@ public class Configuration {
     return Boolean.parseBoolean(getProperty(METRIC_RETRIEVAL_SERVICE_REQUEST_TTL_ENABLED));
   }
 
+  /**
+   * Gets the number of seconds between periodic scrapes of the endpoints which
+   * have been requested from the {@link MetricsRetrievalService}.
+   *
+   * @return the scrape interval in seconds, or {@code 0} if periodic scraping
+   *         is disabled.
+   */
+  public int getMetricsServiceScrapeInterval() {
+    return Integer.parseInt(getProperty(METRIC_RETRIEVAL_SERVICE_SCRAPE_INTERVAL));
+  }
+
+  /**
+   * Gets the maximum number of requests to the same host which can be in
+   * flight before periodic scrapes of that host are deferred.
+   *
+   * @return the maximum number of requests per host.
+   */
+  public int getMetricsServiceScrapeHostConcurrency() {
+    return Integer.parseInt(getProperty(METRIC_RETRIEVAL_SERVICE_SCRAPE_HOST_CONCURRENCY));
+  }
+
   /**
    * Returns the number of tasks that can be queried from the database at once
    * In the case of more tasks, multiple queries are issued
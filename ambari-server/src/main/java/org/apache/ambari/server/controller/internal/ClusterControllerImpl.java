@@ -52,6 +52,7 @@ import org.apache.ambari.server.controller.spi.Schema;
 import org.apache.ambari.server.controller.spi.SortRequest;
 import org.apache.ambari.server.controller.spi.SortRequestProperty;
 import org.apache.ambari.server.controller.spi.SystemException;
+import org.apache.ambari.server.controller.spi.TemporalInfo;
 import org.apache.ambari.server.controller.spi.UnsupportedPropertyException;
 import org.apache.ambari.server.controller.utilities.PredicateBuilder;
 import org.apache.ambari.server.controller.utilities.PredicateHelper;
@@ -186,6 +187,11 @@ public class ClusterControllerImpl implements ClusterController {
       boolean providerAlreadyPaged  = queryResponse.isPagedResponse();
       boolean providerAlreadySorted = queryResponse.isSortedResponse();
 
+      // the default evaluation of the predicate may be replaced by the compiled one
+      if (predicate != null && provider.hasDefaultEvaluator()) {
+        predicate = CompiledPredicate.compile(predicate);
+      }
+
       // conditionally create a comparator if there is a sort
       Comparator<Resource> resourceComparator = comparator;
       if (null != sortRequest) {
@@ -238,6 +244,38 @@ public class ClusterControllerImpl implements ClusterController {
         provider), 0, null, null, totalCount);
   }
 
+  @Override
+  public PageResponse getPopulatedPage(Type type, QueryResponse queryResponse,
+                                       Request request, Predicate predicate,
+                                       PageRequest pageRequest, SortRequest sortRequest)
+      throws UnsupportedPropertyException,
+      SystemException,
+      NoSuchResourceException,
+      NoSuchParentResourceException {
+
+    // populate only the properties needed to filter and sort all of the resources
+    Set<String> orderingPropertyIds = new HashSet<>(PredicateHelper.getPropertyIds(predicate));
+    if (sortRequest != null) {
+      orderingPropertyIds.addAll(sortRequest.getPropertyIds());
+    }
+    if (!orderingPropertyIds.isEmpty()) {
+      populateResources(type, queryResponse.getResources(), getSubRequest(request, orderingPropertyIds),
+          predicate);
+    }
+
+    PageResponse pageResponse = getPage(type, queryResponse, request, predicate, pageRequest, sortRequest);
+
+    // populate all of the requested properties for the resources of the page
+    Set<Resource> pageResources = new LinkedHashSet<>();
+    for (Resource resource : pageResponse.getIterable()) {
+      pageResources.add(resource);
+    }
+    populateResources(type, pageResources, request, predicate);
+
+    return new PageResponseImpl(pageResources, pageResponse.getOffset(), pageResponse.getPreviousResource(),
+        pageResponse.getNextResource(), pageResponse.getTotalResourceCount());
+  }
+
   /**
    * Check whether properties specified with a @SortRequest are supported by
    * the @ResourceProvider.
@@ -424,8 +462,7 @@ public class ClusterControllerImpl implements ClusterController {
       NoSuchParentResourceException {
 
     QueryResponse queryResponse = getResources(type, request, predicate);
-    populateResources(type, queryResponse.getResources(), request, predicate);
-    return getPage(type, queryResponse, request, predicate, pageRequest, sortRequest);
+    return getPopulatedPage(type, queryResponse, request, predicate, pageRequest, sortRequest);
   }
 
   /**
@@ -532,6 +569,26 @@ public class ClusterControllerImpl implements ClusterController {
     return pbWithPredicate == null ? null : pbWithPredicate.toPredicate();
   }
 
+  /**
+   * Create a request for the given subset of the property ids of the given request.
+   *
+   * @param request      the request
+   * @param propertyIds  the property ids of the new request
+   *
+   * @return a read request for the given property ids
+   */
+  private Request getSubRequest(Request request, Set<String> propertyIds) {
+    Map<String, TemporalInfo> mapTemporalInfo = new HashMap<>();
+    for (String propertyId : propertyIds) {
+      TemporalInfo temporalInfo = request.getTemporalInfo(propertyId);
+      if (temporalInfo != null) {
+        mapTemporalInfo.put(propertyId, temporalInfo);
+      }
+    }
+    return PropertyHelper.getReadRequest(propertyIds, request.getRequestInfoProperties(), mapTemporalInfo,
+        null, null);
+  }
+
   /**
    * Indicates whether or not the given property provider can service the given request.
    *
@@ -1011,5 +1068,14 @@ public class ClusterControllerImpl implements ClusterController {
     public boolean evaluate(Predicate predicate, Resource resource) {
       return evaluator.evaluate(predicate, resource);
     }
+
+    /**
+     * Determine whether the predicates are evaluated by the default evaluator.
+     *
+     * @return true if the delegate resource provider does not evaluate predicates itself
+     */
+    public boolean hasDefaultEvaluator() {
+      return evaluator == DEFAULT_RESOURCE_PREDICATE_EVALUATOR;
+    }
   }
 }
@@ -0,0 +1,853 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.controller.internal;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+
+/**
+ * Compact resource implementation.
+ * <p/>
+ * The property ids set on the resources of a type are interned in a schema
+ * shared by those resources, which maps each property id to a slot number.
+ * The category and name of a property id are determined once per type
+ * instead of on every access.  Each resource holds the slot numbers of its own
+ * properties in a sorted array with a parallel array of values, so that its
+ * size depends on its own properties only.  Ids are interned when a property
+ * is set, never when one is read, so that reading arbitrary property ids, e.g.
+ * from a user predicate, does not grow the schema.  Reading a property does
+ * not lock; setting a property locks the resource only.
+ * <p/>
+ * The properties map returned by {@link #getPropertiesMap()} holds the
+ * properties of the resource at the time of the call.  Like the map of
+ * {@link ResourceImpl} it is mutable: categories put into or removed from the
+ * map, and properties put into, removed from or updated in a category map,
+ * are set on or removed from the resource as well.  Unlike
+ * {@link ResourceImpl}, a category map put into the map is copied, so that
+ * later changes to it are not reflected by the resource, and properties set
+ * on the resource afterwards are not reflected by the map.
+ */
+public class CompactResource implements Resource {
+
+  /**
+   * The maximum number of property ids interned per resource type.  Property
+   * ids beyond that are kept in a map of the resource, so that resources with
+   * an unbounded set of property ids do not grow the schema indefinitely.
+   */
+  static final int MAX_SCHEMA_SIZE = 4096;
+
+  /**
+   * The maximum number of property ids whose slots are cached per resource
+   * type.  Property ids which resolve to the same slot, e.g. metric ids with
+   * arguments, are unbounded; the slots of ids beyond that are resolved
+   * through the property key on each access.
+   */
+  static final int MAX_SLOT_CACHE_SIZE = 4 * MAX_SCHEMA_SIZE;
+
+  /**
+   * The property schemas keyed by resource type.
+   */
+  private static final ConcurrentMap<Type, PropertySchema> SCHEMAS = new ConcurrentHashMap<>();
+
+  /**
+   * Separator of the category and the name in a property key.  Property names
+   * never contain it.
+   */
+  private static final char KEY_SEPARATOR = '/';
+
+  /**
+   * Value stored for properties which are set to null.
+   */
+  private static final Object NULL_VALUE = new Object();
+
+  /**
+   * The resource type.
+   */
+  private final Type type;
+
+  /**
+   * The property schema of the resource type.
+   */
+  private final PropertySchema schema;
+
+  /**
+   * The properties of the resource kept in the schema.  Updates are made under
+   * the resource lock and then published, so that reads see the latest values
+   * without locking.
+   */
+  private volatile PropertySlots slots = PropertySlots.EMPTY;
+
+  /**
+   * The values of properties which did not fit into the schema keyed by
+   * property key; null until required.
+   */
+  private volatile Map<String, Object> overflowValues;
+
+  /**
+   * The categories added through {@link #addCategory(String)}; null until
+   * required.
+   */
+  private volatile Set<String> categories;
+
+
+  // ----- Constructors ------------------------------------------------------
+
+  /**
+   * Create a resource of the given type.
+   *
+   * @param type the resource type
+   */
+  public CompactResource(Type type) {
+    this.type = type;
+    schema = getSchema(type);
+  }
+
+  /**
+   * Copy constructor
+   *
+   * @param resource the resource to copy
+   */
+  public CompactResource(Resource resource) {
+    this(resource, null);
+  }
+
+  /**
+   * Construct a resource from the given resource, setting only the properties
+   * that are found in the given set of property and category ids.
+   *
+   * @param resource    the resource to copy
+   * @param propertyIds the set of requested property and category ids
+   */
+  public CompactResource(Resource resource, Set<String> propertyIds) {
+    this(resource.getType());
+
+    for (Map.Entry<String, Map<String, Object>> categoryEntry :
+        resource.getPropertiesMap().entrySet()) {
+      String category = categoryEntry.getKey();
+      Map<String, Object> propertyMap = categoryEntry.getValue();
+      if (propertyMap != null) {
+        for (Map.Entry<String, Object> propertyEntry : propertyMap.entrySet()) {
+          String propertyId = PropertyHelper.getPropertyId(category, propertyEntry.getKey());
+          if (propertyIds == null || propertyIds.isEmpty() || PropertyHelper.containsProperty(propertyIds, propertyId)) {
+            setProperty(propertyId, propertyEntry.getValue());
+          }
+        }
+      }
+    }
+  }
+
+
+  // ----- Resource ----------------------------------------------------------
+
+  @Override
+  public Type getType() {
+    return type;
+  }
+
+  @Override
+  public Map<String, Map<String, Object>> getPropertiesMap() {
+    Map<String, Map<String, Object>> propertiesMap = new TreeMap<>();
+
+    Set<String> categories = this.categories;
+    if (categories != null) {
+      for (String category : categories) {
+        propertiesMap.put(category, new CategoryMap(category));
+      }
+    }
+
+    PropertySlots slots = this.slots;
+    for (int i = 0; i < slots.size; i++) {
+      PropertySlot slot = schema.getSlot(slots.indexes[i]);
+      addProperty(propertiesMap, slot.category, slot.name, slots.values[i]);
+    }
+
+    Map<String, Object> overflowValues = this.overflowValues;
+    if (overflowValues != null) {
+      for (Map.Entry<String, Object> entry : overflowValues.entrySet()) {
+        String key = entry.getKey();
+        int separator = key.lastIndexOf(KEY_SEPARATOR);
+        addProperty(propertiesMap, key.substring(0, separator), key.substring(separator + 1), entry.getValue());
+      }
+    }
+    return new PropertiesMap(propertiesMap);
+  }
+
+  @Override
+  public void setProperty(String id, Object value) {
+    Object storedValue = value == null ? NULL_VALUE : value;
+
+    PropertySlot slot = schema.internSlot(id);
+    if (slot == null) {
+      setOverflowProperty(id, storedValue);
+      return;
+    }
+
+    synchronized (this) {
+      slots = slots.set(slot.index, storedValue);
+    }
+  }
+
+  @Override
+  public void addCategory(String id) {
+    String categoryKey = getCategoryKey(id);
+
+    synchronized (this) {
+      if (categories == null) {
+        categories = ConcurrentHashMap.newKeySet();
+      }
+      categories.add(categoryKey);
+    }
+  }
+
+  @Override
+  public Object getPropertyValue(String id) {
+    PropertySlot slot = schema.findSlot(id);
+    if (slot == null) {
+      Map<String, Object> overflowValues = this.overflowValues;
+      return overflowValues == null ? null : unmask(overflowValues.get(getPropertyKey(id)));
+    }
+
+    return getPropertyValue(slot.index);
+  }
+
+
+  /**
+   * Get the value of the property in the given schema slot.
+   *
+   * @param index  the slot index as returned by {@link #getSlotIndex(Type, String)}
+   *
+   * @return the property value; null if the property is not set
+   */
+  Object getPropertyValue(int index) {
+    return unmask(slots.get(index));
+  }
+
+  /**
+   * Get the schema slot index of the given property id for resources of the
+   * given type.  The id is not interned, so the index is only found once a
+   * property of the same category and name has been set on a resource of the
+   * type.  The index is stable for the lifetime of the type, so it may be
+   * resolved once and used to read the property of any resource of the type.
+   *
+   * @param type  the resource type
+   * @param id    the property id
+   *
+   * @return the slot index; -1 if the property is not kept in the schema
+   */
+  static int getSlotIndex(Type type, String id) {
+    PropertySlot slot = getSchema(type).findSlot(id);
+    return slot == null ? -1 : slot.index;
+  }
+
+
+  // ----- Object overrides --------------------------------------------------
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    sb.append("Resource : ").append(type).append("\n");
+    sb.append("Properties:\n");
+    sb.append(getPropertiesMap());
+
+    return sb.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    CompactResource resource = (CompactResource) o;
+
+    if (!type.equals(resource.type)) {
+      return false;
+    }
+
+    if (!slots.equals(resource.slots)) {
+      return false;
+    }
+
+    return Objects.equals(nullToEmpty(overflowValues), nullToEmpty(resource.overflowValues)) &&
+        Objects.equals(nullToEmpty(categories), nullToEmpty(resource.categories));
+  }
+
+  @Override
+  public int hashCode() {
+    int result = 31 * type.hashCode();
+
+    PropertySlots slots = this.slots;
+    for (int i = 0; i < slots.size; i++) {
+      result += schema.getSlot(slots.indexes[i]).key.hashCode() ^ slots.values[i].hashCode();
+    }
+    result += nullToEmpty(overflowValues).hashCode();
+    result += nullToEmpty(categories).hashCode();
+
+    return result;
+  }
+
+
+  // ----- utility methods ---------------------------------------------------
+
+  /**
+   * Set a property which did not fit into the schema of the resource type.
+   *
+   * @param id     the property id
+   * @param value  the value to store
+   */
+  private void setOverflowProperty(String id, Object value) {
+    synchronized (this) {
+      if (overflowValues == null) {
+        overflowValues = new ConcurrentHashMap<>();
+      }
+      overflowValues.put(getPropertyKey(id), value);
+    }
+  }
+
+  /**
+   * Remove the property of the given category and name.
+   *
+   * @param category  the category key
+   * @param name      the property name
+   */
+  private void removeProperty(String category, String name) {
+    String key = getPropertyKey(category, name);
+
+    synchronized (this) {
+      PropertySlot slot = schema.getSlotByKey(key);
+      if (slot != null) {
+        slots = slots.remove(slot.index);
+      }
+      if (overflowValues != null) {
+        overflowValues.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Remove the given category and all of its properties.
+   *
+   * @param category    the category key
+   * @param properties  the properties of the category
+   */
+  private void removeCategory(String category, Map<String, Object> properties) {
+    for (String name : properties.keySet()) {
+      removeProperty(category, name);
+    }
+    synchronized (this) {
+      if (categories != null) {
+        categories.remove(category);
+      }
+    }
+  }
+
+  private void addProperty(Map<String, Map<String, Object>> propertiesMap, String category,
+                           String name, Object value) {
+    ((CategoryMap) propertiesMap.computeIfAbsent(category, CategoryMap::new)).properties.put(name, unmask(value));
+  }
+
+  private static Object unmask(Object value) {
+    return value == NULL_VALUE ? null : value;
+  }
+
+  private static PropertySchema getSchema(Type type) {
+    return SCHEMAS.computeIfAbsent(type, t -> new PropertySchema());
+  }
+
+  private static <T> Set<T> nullToEmpty(Set<T> set) {
+    return set == null ? Collections.emptySet() : set;
+  }
+
+  private static <K, V> Map<K, V> nullToEmpty(Map<K, V> map) {
+    return map == null ? Collections.emptyMap() : map;
+  }
+
+  private static String getCategoryKey(String category) {
+    return category == null ? "" : category;
+  }
+
+  /**
+   * Get the key of the given property id, which is the same for all of the
+   * property ids which resolve to the same category and property name.
+   *
+   * @param id  the property id
+   *
+   * @return the property key
+   */
+  private static String getPropertyKey(String id) {
+    return getPropertyKey(getCategoryKey(PropertyHelper.getPropertyCategory(id)), PropertyHelper.getPropertyName(id));
+  }
+
+  private static String getPropertyKey(String category, String name) {
+    return category + KEY_SEPARATOR + name;
+  }
+
+
+  // ----- PropertiesMap inner class -----------------------------------------
+
+  /**
+   * The properties of the resource by category, setting the categories put
+   * into the map on the resource and removing the categories removed from the
+   * map from the resource.
+   */
+  private final class PropertiesMap extends AbstractMap<String, Map<String, Object>> {
+
+    /**
+     * The category maps keyed by category.
+     */
+    private final Map<String, Map<String, Object>> categoryMaps;
+
+    private PropertiesMap(Map<String, Map<String, Object>> categoryMaps) {
+      this.categoryMaps = categoryMaps;
+    }
+
+    @Override
+    public Map<String, Object> get(Object category) {
+      return categoryMaps.get(category);
+    }
+
+    @Override
+    public boolean containsKey(Object category) {
+      return categoryMaps.containsKey(category);
+    }
+
+    /**
+     * Replace the properties of the given category with a copy of the given
+     * properties.
+     */
+    @Override
+    public Map<String, Object> put(String category, Map<String, Object> properties) {
+      Map<String, Object> previous = remove(category);
+
+      addCategory(category);
+      CategoryMap categoryMap = new CategoryMap(category);
+      if (properties != null) {
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+          categoryMap.put(entry.getKey(), entry.getValue());
+        }
+      }
+      categoryMaps.put(category, categoryMap);
+      return previous;
+    }
+
+    @Override
+    public Map<String, Object> remove(Object category) {
+      Map<String, Object> properties = categoryMaps.remove(category);
+      if (properties != null) {
+        removeCategory((String) category, properties);
+      }
+      return properties;
+    }
+
+    @Override
+    public Set<Entry<String, Map<String, Object>>> entrySet() {
+      return new AbstractSet<Entry<String, Map<String, Object>>>() {
+        @Override
+        public Iterator<Entry<String, Map<String, Object>>> iterator() {
+          Iterator<Entry<String, Map<String, Object>>> iterator = categoryMaps.entrySet().iterator();
+          return new Iterator<Entry<String, Map<String, Object>>>() {
+            private Entry<String, Map<String, Object>> current;
+
+            @Override
+            public boolean hasNext() {
+              return iterator.hasNext();
+            }
+
+            @Override
+            public Entry<String, Map<String, Object>> next() {
+              current = iterator.next();
+              return current;
+            }
+
+            @Override
+            public void remove() {
+              // the removal may reuse the tree entry for its successor
+              String category = current.getKey();
+              Map<String, Object> properties = current.getValue();
+              iterator.remove();
+              removeCategory(category, properties);
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return categoryMaps.size();
+        }
+      };
+    }
+  }
+
+
+  // ----- CategoryMap inner class -------------------------------------------
+
+  /**
+   * The properties of a category of the resource by name, setting and
+   * removing the properties put into and removed from the map on the resource.
+   */
+  private final class CategoryMap extends AbstractMap<String, Object> {
+
+    /**
+     * The category key.
+     */
+    private final String category;
+
+    /**
+     * The property values keyed by property name.
+     */
+    private final Map<String, Object> properties = new TreeMap<>();
+
+    private CategoryMap(String category) {
+      this.category = category;
+    }
+
+    @Override
+    public Object get(Object name) {
+      return properties.get(name);
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+      return properties.containsKey(name);
+    }
+
+    @Override
+    public Object put(String name, Object value) {
+      setProperty(PropertyHelper.getPropertyId(category, name), value);
+      return properties.put(name, value);
+    }
+
+    @Override
+    public Object remove(Object name) {
+      if (!properties.containsKey(name)) {
+        return null;
+      }
+      removeProperty(category, (String) name);
+      return properties.remove(name);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          Iterator<Entry<String, Object>> iterator = properties.entrySet().iterator();
+          return new Iterator<Entry<String, Object>>() {
+            private Entry<String, Object> current;
+
+            @Override
+            public boolean hasNext() {
+              return iterator.hasNext();
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+              current = iterator.next();
+              return new CategoryEntry(current);
+            }
+
+            @Override
+            public void remove() {
+              String name = current.getKey();
+              iterator.remove();
+              removeProperty(category, name);
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return properties.size();
+        }
+      };
+    }
+
+    /**
+     * A property of the category, setting the values set on the entry on the
+     * resource.
+     */
+    private final class CategoryEntry implements Entry<String, Object> {
+      private final Entry<String, Object> entry;
+
+      private CategoryEntry(Entry<String, Object> entry) {
+        this.entry = entry;
+      }
+
+      @Override
+      public String getKey() {
+        return entry.getKey();
+      }
+
+      @Override
+      public Object getValue() {
+        return entry.getValue();
+      }
+
+      @Override
+      public Object setValue(Object value) {
+        setProperty(PropertyHelper.getPropertyId(category, entry.getKey()), value);
+        return entry.setValue(value);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+        return entry.equals(o);
+      }
+
+      @Override
+      public int hashCode() {
+        return entry.hashCode();
+      }
+
+      @Override
+      public String toString() {
+        return entry.toString();
+      }
+    }
+  }
+
+
+  // ----- PropertySlots inner class -----------------------------------------
+
+  /**
+   * The values of the properties of a resource kept in the schema, sorted by
+   * slot index.  Updates return the instance to publish; values are replaced
+   * and appended in place, since readers of an earlier instance never look
+   * beyond its size, while insertions and removals copy the arrays.
+   */
+  private static final class PropertySlots {
+    private static final PropertySlots EMPTY = new PropertySlots(new int[0], new Object[0], 0);
+
+    private final int[] indexes;
+    private final Object[] values;
+    private final int size;
+
+    private PropertySlots(int[] indexes, Object[] values, int size) {
+      this.indexes = indexes;
+      this.values  = values;
+      this.size    = size;
+    }
+
+    private Object get(int index) {
+      int position = Arrays.binarySearch(indexes, 0, size, index);
+      return position < 0 ? null : values[position];
+    }
+
+    private PropertySlots set(int index, Object value) {
+      int position = Arrays.binarySearch(indexes, 0, size, index);
+      if (position >= 0) {
+        values[position] = value;
+        return this;
+      }
+
+      position = -position - 1;
+      if (position == size && size < indexes.length) {
+        indexes[size] = index;
+        values[size]  = value;
+        return new PropertySlots(indexes, values, size + 1);
+      }
+
+      int capacity = Math.max(size + 1, size + (size >> 1));
+      int[] newIndexes = new int[capacity];
+      Object[] newValues = new Object[capacity];
+      System.arraycopy(indexes, 0, newIndexes, 0, position);
+      System.arraycopy(values, 0, newValues, 0, position);
+      newIndexes[position] = index;
+      newValues[position]  = value;
+      System.arraycopy(indexes, position, newIndexes, position + 1, size - position);
+      System.arraycopy(values, position, newValues, position + 1, size - position);
+      return new PropertySlots(newIndexes, newValues, size + 1);
+    }
+
+    private PropertySlots remove(int index) {
+      int position = Arrays.binarySearch(indexes, 0, size, index);
+      if (position < 0) {
+        return this;
+      }
+
+      int[] newIndexes = new int[size - 1];
+      Object[] newValues = new Object[size - 1];
+      System.arraycopy(indexes, 0, newIndexes, 0, position);
+      System.arraycopy(values, 0, newValues, 0, position);
+      System.arraycopy(indexes, position + 1, newIndexes, position, size - position - 1);
+      System.arraycopy(values, position + 1, newValues, position, size - position - 1);
+      return new PropertySlots(newIndexes, newValues, size - 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      PropertySlots slots = (PropertySlots) o;
+      if (size != slots.size) {
+        return false;
+      }
+      for (int i = 0; i < size; i++) {
+        if (indexes[i] != slots.indexes[i] || !Objects.equals(values[i], slots.values[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 0;
+      for (int i = 0; i < size; i++) {
+        result = 31 * result + indexes[i];
+      }
+      return result;
+    }
+  }
+
+
+  // ----- PropertySlot inner class ------------------------------------------
+
+  /**
+   * The slot of a property in the schema of a resource type.
+   */
+  private static final class PropertySlot {
+    private final int index;
+    private final String category;
+    private final String name;
+    private final String key;
+
+    private PropertySlot(int index, String category, String name, String key) {
+      this.index    = index;
+      this.category = category;
+      this.name     = name;
+      this.key      = key;
+    }
+  }
+
+
+  // ----- PropertySchema inner class ----------------------------------------
+
+  /**
+   * The interned property ids of a resource type.
+   */
+  private static final class PropertySchema {
+
+    /**
+     * The slots keyed by property id, holding at most
+     * {@link #MAX_SLOT_CACHE_SIZE} ids.  Different property ids which resolve
+     * to the same category and name, e.g. metric ids with arguments, share
+     * the same slot.
+     */
+    private final ConcurrentMap<String, PropertySlot> slotsById = new ConcurrentHashMap<>();
+
+    /**
+     * The slots keyed by property key.
+     */
+    private final ConcurrentMap<String, PropertySlot> slotsByKey = new ConcurrentHashMap<>();
+
+    /**
+     * The slots indexed by slot index.
+     */
+    private volatile PropertySlot[] slots = new PropertySlot[0];
+
+    /**
+     * Get the slot of the given property id without interning the id.
+     *
+     * @param id  the property id
+     *
+     * @return the slot; null if the id is not interned
+     */
+    private PropertySlot findSlot(String id) {
+      PropertySlot slot = slotsById.get(id);
+      if (slot == null) {
+        slot = slotsByKey.get(getPropertyKey(id));
+        if (slot != null) {
+          cacheSlot(id, slot);
+        }
+      }
+      return slot;
+    }
+
+    /**
+     * Get the slot of the given property id, interning the id if required.
+     * Only called when a property is set.
+     *
+     * @param id  the property id
+     *
+     * @return the slot; null if the schema is full
+     */
+    private PropertySlot internSlot(String id) {
+      PropertySlot slot = slotsById.get(id);
+      if (slot != null) {
+        return slot;
+      }
+
+      String category = getCategoryKey(PropertyHelper.getPropertyCategory(id));
+      String name = PropertyHelper.getPropertyName(id);
+      String key = getPropertyKey(category, name);
+
+      slot = slotsByKey.get(key);
+      if (slot == null) {
+        synchronized (this) {
+          slot = slotsByKey.get(key);
+          if (slot == null) {
+            PropertySlot[] slots = this.slots;
+            if (slots.length >= MAX_SCHEMA_SIZE) {
+              return null;
+            }
+            slot = new PropertySlot(slots.length, category, name, key);
+            slots = Arrays.copyOf(slots, slots.length + 1);
+            slots[slot.index] = slot;
+            this.slots = slots;
+            slotsByKey.put(key, slot);
+          }
+        }
+      }
+      cacheSlot(id, slot);
+      return slot;
+    }
+
+    private void cacheSlot(String id, PropertySlot slot) {
+      if (slotsById.size() < MAX_SLOT_CACHE_SIZE) {
+        slotsById.put(id, slot);
+      }
+    }
+
+    /**
+     * Get the slot of the given property key.
+     *
+     * @param key  the property key
+     *
+     * @return the slot; null if the key is not interned
+     */
+    private PropertySlot getSlotByKey(String key) {
+      return slotsByKey.get(key);
+    }
+
+    private PropertySlot getSlot(int index) {
+      return slots[index];
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.controller.internal;
+
+import org.apache.ambari.server.controller.predicate.AlwaysPredicate;
+import org.apache.ambari.server.controller.predicate.AndPredicate;
+import org.apache.ambari.server.controller.predicate.ArrayPredicate;
+import org.apache.ambari.server.controller.predicate.CategoryPredicate;
+import org.apache.ambari.server.controller.predicate.ComparisonPredicate;
+import org.apache.ambari.server.controller.predicate.NotPredicate;
+import org.apache.ambari.server.controller.predicate.OrPredicate;
+import org.apache.ambari.server.controller.predicate.PredicateVisitor;
+import org.apache.ambari.server.controller.predicate.UnaryPredicate;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PredicateHelper;
+
+/**
+ * A predicate compiled for evaluation against many resources.
+ * <p/>
+ * The predicate tree is compiled once into a tree of evaluators in which the
+ * property ids of the comparisons are resolved through {@link PropertyReader}s,
+ * so that evaluating the predicate against a resource neither dispatches
+ * through the predicate classes nor parses property ids.  Predicates unknown
+ * to the compiler, e.g. category predicates, are evaluated as is.  The compiled
+ * predicate evaluates to the same result as the source predicate.
+ */
+public class CompiledPredicate implements Predicate {
+
+  /**
+   * The source predicate.
+   */
+  private final Predicate predicate;
+
+  /**
+   * The compiled evaluator.
+   */
+  private final Evaluator evaluator;
+
+
+  // ----- Constructors ------------------------------------------------------
+
+  /**
+   * Constructor.
+   *
+   * @param predicate  the source predicate
+   */
+  private CompiledPredicate(Predicate predicate) {
+    this.predicate = predicate;
+
+    Compiler compiler = new Compiler();
+    evaluator = compiler.compile(predicate);
+  }
+
+  /**
+   * Compile the given predicate.
+   *
+   * @param predicate  the predicate
+   *
+   * @return the compiled predicate
+   */
+  public static CompiledPredicate compile(Predicate predicate) {
+    return predicate instanceof CompiledPredicate ?
+        (CompiledPredicate) predicate : new CompiledPredicate(predicate);
+  }
+
+
+  // ----- Predicate ---------------------------------------------------------
+
+  @Override
+  public boolean evaluate(Resource resource) {
+    return evaluator.evaluate(resource);
+  }
+
+
+  // ----- CompiledPredicate -------------------------------------------------
+
+  /**
+   * Get the source predicate.
+   *
+   * @return the source predicate
+   */
+  public Predicate getPredicate() {
+    return predicate;
+  }
+
+
+  // ----- Object overrides --------------------------------------------------
+
+  @Override
+  public String toString() {
+    return predicate.toString();
+  }
+
+
+  // ----- Evaluator inner interface -----------------------------------------
+
+  /**
+   * A compiled predicate node.
+   */
+  private interface Evaluator {
+    boolean evaluate(Resource resource);
+  }
+
+
+  // ----- Compiler inner class ----------------------------------------------
+
+  /**
+   * Visitor which compiles a predicate tree into a tree of evaluators.
+   */
+  private static class Compiler implements PredicateVisitor {
+
+    /**
+     * The evaluator of the last visited predicate.
+     */
+    private Evaluator lastCompiled;
+
+    /**
+     * Compile the given predicate.
+     *
+     * @param predicate  the predicate
+     *
+     * @return the evaluator of the predicate
+     */
+    private Evaluator compile(Predicate predicate) {
+      // predicates which do not accept a visitor are evaluated as is
+      lastCompiled = predicate::evaluate;
+      PredicateHelper.visit(predicate, this);
+      return lastCompiled;
+    }
+
+    @Override
+    public void acceptComparisonPredicate(ComparisonPredicate predicate) {
+      PropertyReader reader = new PropertyReader(predicate.getPropertyId());
+      lastCompiled = resource -> predicate.evaluateValue(reader.read(resource));
+    }
+
+    @Override
+    public void acceptArrayPredicate(ArrayPredicate predicate) {
+      if (!(predicate instanceof AndPredicate || predicate instanceof OrPredicate)) {
+        lastCompiled = predicate::evaluate;
+        return;
+      }
+
+      Predicate[] predicates = predicate.getPredicates();
+      Evaluator[] evaluators = new Evaluator[predicates.length];
+      for (int i = 0; i < predicates.length; i++) {
+        evaluators[i] = compile(predicates[i]);
+      }
+
+      if (predicate instanceof AndPredicate) {
+        lastCompiled = resource -> {
+          for (Evaluator evaluator : evaluators) {
+            if (!evaluator.evaluate(resource)) {
+              return false;
+            }
+          }
+          return true;
+        };
+      } else {
+        lastCompiled = resource -> {
+          for (Evaluator evaluator : evaluators) {
+            if (evaluator.evaluate(resource)) {
+              return true;
+            }
+          }
+          return false;
+        };
+      }
+    }
+
+    @Override
+    public void acceptUnaryPredicate(UnaryPredicate predicate) {
+      if (predicate instanceof NotPredicate) {
+        Evaluator evaluator = compile(predicate.getPredicate());
+        lastCompiled = resource -> !evaluator.evaluate(resource);
+      } else {
+        lastCompiled = predicate::evaluate;
+      }
+    }
+
+    @Override
+    public void acceptAlwaysPredicate(AlwaysPredicate predicate) {
+      lastCompiled = resource -> true;
+    }
+
+    @Override
+    public void acceptCategoryPredicate(CategoryPredicate predicate) {
+      lastCompiled = predicate::evaluate;
+    }
+  }
+}
@@ -221,7 +221,7 @@ public class HostComponentResourceProvider extends AbstractControllerResourcePro
     });
 
     for (ServiceComponentHostResponse response : responses) {
-      Resource resource = new ResourceImpl(Resource.Type.HostComponent);
+      Resource resource = new CompactResource(Resource.Type.HostComponent);
       setResourceProperty(resource, HOST_COMPONENT_CLUSTER_NAME_PROPERTY_ID,
               response.getClusterName(), requestedIds);
       setResourceProperty(resource, HOST_COMPONENT_SERVICE_NAME_PROPERTY_ID,
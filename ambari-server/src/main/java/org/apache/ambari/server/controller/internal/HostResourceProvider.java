@@ -256,7 +256,7 @@ public class HostResourceProvider extends AbstractControllerResourceProvider {
     Set<Resource> resources    = new HashSet<>();
 
     for (HostResponse response : responses) {
-      Resource resource = new ResourceImpl(Resource.Type.Host);
+      Resource resource = new CompactResource(Resource.Type.Host);
 
       // TODO : properly handle more than one cluster
       if (response.getClusterName() != null
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.controller.internal;
+
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+
+/**
+ * Reads the value of a single property from many resources.
+ * <p/>
+ * The property id is resolved once to the category key and name of the
+ * property for {@link ResourceImpl}s, and to the schema slot of the property
+ * for {@link CompactResource}s, instead of on every read.  Other resources are
+ * read by property id.
+ */
+final class PropertyReader {
+
+  /**
+   * The property id.
+   */
+  private final String propertyId;
+
+  /**
+   * The resolved category key of the property.
+   */
+  private final String categoryKey;
+
+  /**
+   * The resolved name of the property.
+   */
+  private final String name;
+
+  /**
+   * The schema slot of the property for the last type of compact resource
+   * read; null until the property is found in the schema of a compact
+   * resource read.  Reading does not intern the property id, so a property
+   * which is not found yet is resolved again on the next read.
+   */
+  private volatile SlotBinding slotBinding;
+
+
+  // ----- Constructors ------------------------------------------------------
+
+  /**
+   * Constructor.
+   *
+   * @param propertyId  the id of the property to read
+   */
+  PropertyReader(String propertyId) {
+    String category = PropertyHelper.getPropertyCategory(propertyId);
+
+    this.propertyId  = propertyId;
+    this.categoryKey = category == null ? "" : category;
+    this.name        = PropertyHelper.getPropertyName(propertyId);
+  }
+
+
+  // ----- PropertyReader ----------------------------------------------------
+
+  /**
+   * Get the property id.
+   *
+   * @return the property id
+   */
+  String getPropertyId() {
+    return propertyId;
+  }
+
+  /**
+   * Read the value of the property from the given resource.
+   *
+   * @param resource  the resource
+   *
+   * @return the property value; null if the property is not set
+   */
+  Object read(Resource resource) {
+    if (resource instanceof CompactResource) {
+      Resource.Type type = resource.getType();
+
+      SlotBinding binding = slotBinding;
+      if (binding == null || !binding.type.equals(type)) {
+        int index = CompactResource.getSlotIndex(type, propertyId);
+        if (index == -1) {
+          return resource.getPropertyValue(propertyId);
+        }
+        binding = new SlotBinding(type, index);
+        slotBinding = binding;
+      }
+      return ((CompactResource) resource).getPropertyValue(binding.index);
+    } else if (resource instanceof ResourceImpl) {
+      return ((ResourceImpl) resource).getPropertyValue(categoryKey, name);
+    }
+    return resource.getPropertyValue(propertyId);
+  }
+
+
+  // ----- SlotBinding inner class -------------------------------------------
+
+  /**
+   * The schema slot index of the property for a resource type.
+   */
+  private static final class SlotBinding {
+    private final Resource.Type type;
+    private final int index;
+
+    private SlotBinding(Resource.Type type, int index) {
+      this.type  = type;
+      this.index = index;
+    }
+  }
+}
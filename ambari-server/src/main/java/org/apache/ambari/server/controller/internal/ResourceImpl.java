@@ -133,6 +133,21 @@ public class ResourceImpl implements Resource {
         null : properties.get(PropertyHelper.getPropertyName(id));
   }
 
+  /**
+   * Get the value of the property with the given category key and name, which
+   * have been resolved from the property id beforehand.
+   *
+   * @param categoryKey  the category key; the empty string for no category
+   * @param name         the property name
+   *
+   * @return the property value; null if the property is not set
+   */
+  Object getPropertyValue(String categoryKey, String name) {
+    Map<String, Object> properties = propertiesMap.get(categoryKey);
+
+    return properties == null ? null : properties.get(name);
+  }
+
 
   // ----- Object overrides --------------------------------------------------
 
@@ -45,6 +45,7 @@ import org.apache.ambari.server.state.services.MetricsRetrievalService.MetricSou
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
@@ -136,6 +137,12 @@ public class JMXPropertyProvider extends ThreadPoolEnabledPropertyProvider {
 
   private final Map<String, String> clusterComponentPortsMap;
 
+  /**
+   * The components whose JMX attributes have been registered with the
+   * {@link MetricsRetrievalService}.
+   */
+  private final Set<String> registeredComponents = Sets.newConcurrentHashSet();
+
   /**
    * Used to submit asynchronous requests for remote metrics as well as querying
    * cached metrics.
@@ -234,6 +241,8 @@ public class JMXPropertyProvider extends ThreadPoolEnabledPropertyProvider {
       }
     }
 
+    registerJMXAttributes(componentName);
+
     String clusterName = (String) resource.getPropertyValue(clusterNamePropertyId);
 
     String protocol = jmxHostProvider.getJMXProtocol(clusterName, componentName);
@@ -336,6 +345,59 @@ public class JMXPropertyProvider extends ThreadPoolEnabledPropertyProvider {
     return resource;
   }
 
+  /**
+   * Registers the names of the JMX attributes read for the metrics of the
+   * given component with the {@link MetricsRetrievalService}, so that only
+   * those attributes are retained from the JMX responses.
+   *
+   * @param componentName  the component name
+   */
+  private void registerJMXAttributes(String componentName) {
+    if (registeredComponents.contains(componentName)) {
+      return;
+    }
+
+    Set<String> attributes = new HashSet<>();
+    for (Map.Entry<String, PropertyInfo> entry : getComponentMetrics().get(componentName).entrySet()) {
+      PropertyInfo propertyInfo = entry.getValue();
+      if (propertyInfo.isPointInTime()) {
+        attributes.add(getAttributeName(propertyInfo.getPropertyId(), containsArguments(entry.getKey())));
+      }
+    }
+
+    metricsRetrievalService.addJMXAttributes(attributes);
+    registeredComponents.add(componentName);
+  }
+
+  /**
+   * Get the name of the bean attribute read for a JMX property, the same way
+   * {@link #getHadoopMetricValue} splits the property into the bean category
+   * and the attribute.
+   *
+   * @param property      the JMX property, e.g. {@code java.lang:type=Memory.HeapMemoryUsage[max]}
+   * @param hasArguments  whether the metric contains arguments
+   *
+   * @return the attribute name, e.g. {@code HeapMemoryUsage}
+   */
+  static String getAttributeName(String property, boolean hasArguments) {
+    int keyStartIndex = property.indexOf('[');
+
+    int dotIndex = hasArguments ?
+        property.lastIndexOf('.', keyStartIndex > -1 ? keyStartIndex : property.length()) :
+        property.indexOf('.', property.indexOf('='));
+
+    if (-1 != dotIndex) {
+      property = (-1 == keyStartIndex) ?
+          property.substring(dotIndex + 1) :
+          property.substring(dotIndex + 1, keyStartIndex);
+    }
+
+    if (property.contains(DOT_REPLACEMENT_CHAR)) {
+      property = dotReplacementCharPattern.matcher(property).replaceAll(".");
+    }
+    return property;
+  }
+
   /**
    * Hadoop-specific metrics fetching
    */
@@ -20,8 +20,14 @@ package org.apache.ambari.server.controller.metrics.timeline.cache;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.ambari.server.controller.spi.TemporalInfo;
+import org.apache.hadoop.metrics2.sink.timeline.Precision;
 import org.apache.hadoop.metrics2.sink.timeline.TimelineMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +45,14 @@ public class TimelineMetricCache extends UpdatingSelfPopulatingCache {
   private final static Logger LOG = LoggerFactory.getLogger(TimelineMetricCache.class);
   private static AtomicInteger printCacheStatsCounter = new AtomicInteger(0);
 
+  /**
+   * Requests which are currently being fetched, by key. Concurrent requests
+   * for the same key whose query window is covered by the pending request
+   * wait for its result instead of updating the cache entry again.
+   */
+  private final ConcurrentMap<TimelineAppMetricCacheKey, PendingRequest> pendingRequests =
+    new ConcurrentHashMap<>();
+
   /**
    * Creates a SelfPopulatingCache.
    *
@@ -51,7 +65,10 @@ public class TimelineMetricCache extends UpdatingSelfPopulatingCache {
 
   /**
    * Get metrics for an app grouped by the requested @TemporalInfo which is a
-   * part of the @TimelineAppMetricCacheKey
+   * part of the @TimelineAppMetricCacheKey.
+   * If the same metrics are already being fetched for a window which covers
+   * the requested one at the same precision, the result of that request is
+   * returned instead of issuing another call to the collector.
    * @param key @TimelineAppMetricCacheKey
    * @return @org.apache.hadoop.metrics2.sink.timeline.TimelineMetrics
    */
@@ -63,6 +80,39 @@ public class TimelineMetricCache extends UpdatingSelfPopulatingCache {
     // Make sure key is valid
     validateKey(key);
 
+    TemporalInfo temporalInfo = key.getTemporalInfo();
+    if (temporalInfo.getStartTimeMillis() == null || temporalInfo.getEndTimeMillis() == null) {
+      return fetchAppTimelineMetrics(key);
+    }
+
+    PendingRequest request = new PendingRequest(temporalInfo);
+    PendingRequest pendingRequest = pendingRequests.putIfAbsent(key, request);
+    if (pendingRequest != null) {
+      if (pendingRequest.covers(request)) {
+        LOG.debug("Waiting for pending request of key: {}", key);
+        return pendingRequest.await();
+      }
+      return fetchAppTimelineMetrics(key);
+    }
+
+    try {
+      TimelineMetrics timelineMetrics = fetchAppTimelineMetrics(key);
+      request.future.complete(timelineMetrics);
+      return timelineMetrics;
+    } catch (IOException | RuntimeException e) {
+      request.future.completeExceptionally(e);
+      throw e;
+    } finally {
+      pendingRequests.remove(key, request);
+    }
+  }
+
+  /**
+   * Get metrics for an app from the cache, updating the cache entry.
+   * @param key @TimelineAppMetricCacheKey
+   * @return @org.apache.hadoop.metrics2.sink.timeline.TimelineMetrics
+   */
+  private TimelineMetrics fetchAppTimelineMetrics(TimelineAppMetricCacheKey key) throws IOException {
     Element element = null;
     try {
       element = get(key);
@@ -154,4 +204,48 @@ public class TimelineMetricCache extends UpdatingSelfPopulatingCache {
       throw new IllegalArgumentException(msg.toString());
     }
   }
+
+  /**
+   * A request which is being fetched, along with the query window it was
+   * issued for.
+   */
+  private static class PendingRequest {
+    private final long startTime;
+    private final long endTime;
+    private final Precision precision;
+    private final CompletableFuture<TimelineMetrics> future = new CompletableFuture<>();
+
+    PendingRequest(TemporalInfo temporalInfo) {
+      startTime = temporalInfo.getStartTimeMillis();
+      endTime = temporalInfo.getEndTimeMillis();
+      precision = Precision.getPrecision(startTime, endTime);
+    }
+
+    /**
+     * Whether the result of this request can be returned for the other
+     * request, i.e. whether its window is covered at the same precision.
+     */
+    boolean covers(PendingRequest other) {
+      return startTime <= other.startTime && endTime >= other.endTime
+        && precision == other.precision;
+    }
+
+    TimelineMetrics await() throws IOException {
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for pending metrics request", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new IOException(cause);
+      }
+    }
+  }
 }
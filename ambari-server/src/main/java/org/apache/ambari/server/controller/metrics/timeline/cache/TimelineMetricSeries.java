@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.metrics.timeline.cache;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.hadoop.metrics2.sink.timeline.TimelineMetric;
+
+/**
+ * Cached time series of a single metric, stored as parallel arrays of
+ * timestamps and values sorted by timestamp instead of a map of boxed
+ * values. The arrays are always exactly as long as the series, so that the
+ * size of a series is known from its length alone. Null values are kept
+ * apart from the values in a bit set, so that they are returned as null.
+ * <p/>
+ * The {@link TimelineMetric} built from the arrays is kept until the series
+ * changes and shared by the reads in between, like the cached metrics were
+ * before the values were stored as arrays; callers copy the metric before
+ * changing it. It is only softly referenced, so that it does not add to the
+ * memory used by the cache when memory is short.
+ */
+class TimelineMetricSeries {
+  private static final long[] EMPTY_TIMESTAMPS = new long[0];
+  private static final double[] EMPTY_VALUES = new double[0];
+
+  /**
+   * The metric without values, identifying the series.
+   */
+  private final TimelineMetric metric;
+  private long[] timestamps = EMPTY_TIMESTAMPS;
+  private double[] values = EMPTY_VALUES;
+
+  /**
+   * The indexes of the null values; null if there are no null values.
+   */
+  private BitSet nullValues;
+
+  /**
+   * The metric built from the current values; null until built.
+   */
+  private SoftReference<TimelineMetric> timelineMetric;
+
+  TimelineMetricSeries(TimelineMetric timelineMetric) {
+    metric = new TimelineMetric();
+    metric.setMetricName(timelineMetric.getMetricName());
+    metric.setType(timelineMetric.getType());
+    metric.setUnits(timelineMetric.getUnits());
+    metric.setTimestamp(timelineMetric.getTimestamp());
+    metric.setAppId(timelineMetric.getAppId());
+    metric.setInstanceId(timelineMetric.getInstanceId());
+    metric.setHostName(timelineMetric.getHostName());
+    metric.setStartTime(timelineMetric.getStartTime());
+    metric.setMetadata(timelineMetric.getMetadata());
+
+    merge(timelineMetric.getMetricValues());
+  }
+
+  /**
+   * Whether the given metric belongs to this series.
+   */
+  boolean isSeriesOf(TimelineMetric timelineMetric) {
+    return metric.equalsExceptTime(timelineMetric);
+  }
+
+  int size() {
+    return timestamps.length;
+  }
+
+  /**
+   * Add the given values, replacing the values of existing timestamps. Values
+   * after the last timestamp of the series are appended without merging.
+   */
+  void merge(SortedMap<Long, Double> newValues) {
+    if (newValues == null || newValues.isEmpty()) {
+      return;
+    }
+
+    int size = timestamps.length;
+    long[] mergedTimestamps;
+    double[] mergedValues;
+    BitSet mergedNullValues = null;
+
+    if (size == 0 || newValues.firstKey() > timestamps[size - 1]) {
+      mergedTimestamps = Arrays.copyOf(timestamps, size + newValues.size());
+      mergedValues = Arrays.copyOf(values, size + newValues.size());
+      if (nullValues != null) {
+        mergedNullValues = (BitSet) nullValues.clone();
+      }
+      for (Map.Entry<Long, Double> entry : newValues.entrySet()) {
+        if (entry.getValue() == null) {
+          mergedNullValues = setNull(mergedNullValues, size);
+        }
+        mergedTimestamps[size] = entry.getKey();
+        mergedValues[size] = toPrimitive(entry.getValue());
+        size++;
+      }
+    } else {
+      mergedTimestamps = new long[size + newValues.size()];
+      mergedValues = new double[size + newValues.size()];
+
+      int i = 0;
+      int merged = 0;
+      for (Map.Entry<Long, Double> entry : newValues.entrySet()) {
+        long timestamp = entry.getKey();
+        while (i < size && timestamps[i] < timestamp) {
+          if (isNull(i)) {
+            mergedNullValues = setNull(mergedNullValues, merged);
+          }
+          mergedTimestamps[merged] = timestamps[i];
+          mergedValues[merged++] = values[i++];
+        }
+        if (i < size && timestamps[i] == timestamp) {
+          i++;
+        }
+        if (entry.getValue() == null) {
+          mergedNullValues = setNull(mergedNullValues, merged);
+        }
+        mergedTimestamps[merged] = timestamp;
+        mergedValues[merged++] = toPrimitive(entry.getValue());
+      }
+
+      int remaining = size - i;
+      if (nullValues != null) {
+        for (int n = nullValues.nextSetBit(i); n >= 0; n = nullValues.nextSetBit(n + 1)) {
+          mergedNullValues = setNull(mergedNullValues, merged + n - i);
+        }
+      }
+      System.arraycopy(timestamps, i, mergedTimestamps, merged, remaining);
+      System.arraycopy(values, i, mergedValues, merged, remaining);
+      merged += remaining;
+
+      if (merged < mergedTimestamps.length) {
+        mergedTimestamps = Arrays.copyOf(mergedTimestamps, merged);
+        mergedValues = Arrays.copyOf(mergedValues, merged);
+      }
+    }
+
+    timestamps = mergedTimestamps;
+    values = mergedValues;
+    nullValues = mergedNullValues;
+    timelineMetric = null;
+  }
+
+  /**
+   * Retain only the values within the [startTime, endTime] window.
+   */
+  void retain(long startTime, long endTime) {
+    int from = Arrays.binarySearch(timestamps, startTime);
+    from = from < 0 ? -from - 1 : from;
+
+    int to = Arrays.binarySearch(timestamps, endTime);
+    to = to < 0 ? -to - 1 : to + 1;
+
+    if (from >= to) {
+      clear();
+    } else if (from > 0 || to < timestamps.length) {
+      timestamps = Arrays.copyOfRange(timestamps, from, to);
+      values = Arrays.copyOfRange(values, from, to);
+      if (nullValues != null) {
+        BitSet retainedNullValues = nullValues.get(from, to);
+        nullValues = retainedNullValues.isEmpty() ? null : retainedNullValues;
+      }
+      timelineMetric = null;
+    }
+  }
+
+  void clear() {
+    timestamps = EMPTY_TIMESTAMPS;
+    values = EMPTY_VALUES;
+    nullValues = null;
+    timelineMetric = null;
+  }
+
+  /**
+   * Get the series as a {@link TimelineMetric}, which is shared until the
+   * series changes and must not be changed by the caller.
+   */
+  TimelineMetric toTimelineMetric() {
+    TimelineMetric timelineMetric = this.timelineMetric == null ? null : this.timelineMetric.get();
+    if (timelineMetric == null) {
+      timelineMetric = buildTimelineMetric();
+      this.timelineMetric = new SoftReference<>(timelineMetric);
+    }
+    return timelineMetric;
+  }
+
+  private TimelineMetric buildTimelineMetric() {
+    TimelineMetric timelineMetric = new TimelineMetric();
+    timelineMetric.setMetricName(metric.getMetricName());
+    timelineMetric.setType(metric.getType());
+    timelineMetric.setUnits(metric.getUnits());
+    timelineMetric.setTimestamp(metric.getTimestamp());
+    timelineMetric.setAppId(metric.getAppId());
+    timelineMetric.setInstanceId(metric.getInstanceId());
+    timelineMetric.setHostName(metric.getHostName());
+    timelineMetric.setStartTime(metric.getStartTime());
+    timelineMetric.setMetadata(metric.getMetadata());
+
+    TreeMap<Long, Double> metricValues = new TreeMap<>();
+    for (int i = 0; i < timestamps.length; i++) {
+      metricValues.put(timestamps[i], isNull(i) ? null : values[i]);
+    }
+    timelineMetric.setMetricValues(metricValues);
+
+    return timelineMetric;
+  }
+
+  TimelineMetric getMetric() {
+    return metric;
+  }
+
+  private boolean isNull(int index) {
+    return nullValues != null && nullValues.get(index);
+  }
+
+  private static BitSet setNull(BitSet nullValues, int index) {
+    if (nullValues == null) {
+      nullValues = new BitSet();
+    }
+    nullValues.set(index);
+    return nullValues;
+  }
+
+  /**
+   * The value stored for the given value; null values are stored as NaN and
+   * marked in {@link #nullValues}.
+   */
+  private static double toPrimitive(Double value) {
+    return value == null ? Double.NaN : value;
+  }
+}
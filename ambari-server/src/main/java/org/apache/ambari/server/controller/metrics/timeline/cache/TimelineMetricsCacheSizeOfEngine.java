@@ -17,11 +17,7 @@
  */
 package org.apache.ambari.server.controller.metrics.timeline.cache;
 
-import java.util.Map;
-import java.util.TreeMap;
-
 import org.apache.hadoop.metrics2.sink.timeline.TimelineMetric;
-import org.apache.hadoop.metrics2.sink.timeline.TimelineMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,7 +29,8 @@ import net.sf.ehcache.pool.sizeof.SizeOf;
 
 /**
  * Cache sizing engine that reduces reflective calls over the Object graph to
- * find total Heap usage.
+ * find total Heap usage. The values of a {@link TimelineMetricSeries} are
+ * sized exactly from the length of its primitive arrays.
  */
 public class TimelineMetricsCacheSizeOfEngine implements SizeOfEngine {
 
@@ -47,26 +44,22 @@ public class TimelineMetricsCacheSizeOfEngine implements SizeOfEngine {
   // Optimizations
   private volatile long timelineMetricPrimitivesApproximation = 0;
 
-  private long sizeOfMapEntry;
-  private long sizeOfMapEntryOverhead;
+  // Size of a series without values, including its metric and empty arrays
+  private final long sizeOfEmptySeries;
+  // Size of a timestamp and its value in the parallel arrays
+  private static final long SIZE_OF_VALUE = 16;
 
   private TimelineMetricsCacheSizeOfEngine(SizeOfEngine underlying) {
     this.underlying = underlying;
+
+    // Array headers are part of the empty series, elements are 8 bytes each
+    this.sizeOfEmptySeries = reflectionSizeOf.deepSizeOf(DEFAULT_MAX_DEPTH,
+      DEFAULT_ABORT_WHEN_MAX_DEPTH_EXCEEDED, new TimelineMetricSeries(new TimelineMetric())).getCalculated();
   }
 
   public TimelineMetricsCacheSizeOfEngine() {
     this(new DefaultSizeOfEngine(DEFAULT_MAX_DEPTH, DEFAULT_ABORT_WHEN_MAX_DEPTH_EXCEEDED));
 
-    this.sizeOfMapEntry = reflectionSizeOf.sizeOf(new Long(1)) +
-      reflectionSizeOf.sizeOf(new Double(2.0));
-
-    //SizeOfMapEntryOverhead = SizeOfMapWithOneEntry - (SizeOfEmptyMap + SizeOfOneEntry)
-    TreeMap<Long, Double> map = new TreeMap<>();
-    long emptyMapSize = reflectionSizeOf.sizeOf(map);
-    map.put(new Long(1), new Double(2.0));
-    long sizeOfMapOneEntry = reflectionSizeOf.deepSizeOf(DEFAULT_MAX_DEPTH, DEFAULT_ABORT_WHEN_MAX_DEPTH_EXCEEDED, map).getCalculated();
-    this.sizeOfMapEntryOverhead =  sizeOfMapOneEntry - (emptyMapSize + this.sizeOfMapEntry);
-
     LOG.info("Creating custom sizeof engine for TimelineMetrics.");
   }
 
@@ -108,36 +101,28 @@ public class TimelineMetricsCacheSizeOfEngine implements SizeOfEngine {
 
   private long getTimelineMetricCacheValueSize(TimelineMetricsCacheValue value) {
     long size = 16; // startTime + endTime
-    TimelineMetrics metrics = value.getTimelineMetrics();
     size += 8; // Object reference
 
-    if (metrics != null) {
-      for (TimelineMetric metric : metrics.getMetrics()) {
-
-        if (timelineMetricPrimitivesApproximation == 0) {
-          timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getMetricName());
-          timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getAppId());
-          timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getHostName());
-          timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getInstanceId());
-          timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getTimestamp());
-          timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getStartTime());
-          timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getType());
-          timelineMetricPrimitivesApproximation += 8; // Object overhead
-
-          LOG.debug("timelineMetricPrimitivesApproximation bytes = {}", timelineMetricPrimitivesApproximation);
-        }
-        size += timelineMetricPrimitivesApproximation;
-
-        Map<Long, Double> metricValues = metric.getMetricValues();
-        if (metricValues != null && !metricValues.isEmpty()) {
-          // Numeric wrapper: 12 bytes + 8 bytes Data type + 4 bytes alignment = 48 (Long, Double)
-          // Tree Map: 12 bytes for header + 20 bytes for 5 object fields : pointers + 1 byte for flag = 40
-          LOG.debug("Size of metric value: {}", (sizeOfMapEntry + sizeOfMapEntryOverhead) * metricValues.size());
-          size += (sizeOfMapEntry + sizeOfMapEntryOverhead) * metricValues.size(); // Treemap size is O(1)
-        }
+    for (TimelineMetricSeries series : value.getSeries()) {
+      TimelineMetric metric = series.getMetric();
+
+      if (timelineMetricPrimitivesApproximation == 0) {
+        timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getMetricName());
+        timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getAppId());
+        timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getHostName());
+        timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getInstanceId());
+        timelineMetricPrimitivesApproximation += reflectionSizeOf.sizeOf(metric.getType());
+
+        LOG.debug("timelineMetricPrimitivesApproximation bytes = {}", timelineMetricPrimitivesApproximation);
       }
-      LOG.debug("Total Size of metric values in cache: {}", size);
+      size += timelineMetricPrimitivesApproximation;
+      size += sizeOfEmptySeries;
+
+      // long timestamp + double value per data point
+      LOG.debug("Size of metric value: {}", SIZE_OF_VALUE * series.size());
+      size += SIZE_OF_VALUE * series.size();
     }
+    LOG.debug("Total Size of metric values in cache: {}", size);
 
     return size;
   }
@@ -17,7 +17,9 @@
  */
 package org.apache.ambari.server.controller.metrics.timeline.cache;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.hadoop.metrics2.sink.timeline.Precision;
 import org.apache.hadoop.metrics2.sink.timeline.TimelineMetric;
@@ -25,23 +27,32 @@ import org.apache.hadoop.metrics2.sink.timeline.TimelineMetrics;
 
 /**
  * Wrapper object for metrics returned from AMS that includes the query time
- * window.
+ * window. The values of each metric are stored as a {@link TimelineMetricSeries}
+ * of primitive timestamps and values rather than as boxed map entries.
  */
 public class TimelineMetricsCacheValue {
   private Long startTime;
   private Long endTime;
   // Same metrics could be requested across hosts
-  private TimelineMetrics timelineMetrics = new TimelineMetrics();
+  private final List<TimelineMetricSeries> series = new ArrayList<>();
   private Precision precision;
 
   public TimelineMetricsCacheValue(Long startTime, Long endTime, TimelineMetrics timelineMetrics, Precision precision) {
     this.startTime = startTime;
     this.endTime = endTime;
-    this.timelineMetrics = timelineMetrics;
     this.precision = precision;
+    setTimelineMetrics(timelineMetrics);
   }
 
-  public TimelineMetrics getTimelineMetrics() {
+  /**
+   * Get a copy of the cached metrics. Later updates of the cache entry are
+   * not reflected in the returned metrics.
+   */
+  public synchronized TimelineMetrics getTimelineMetrics() {
+    TimelineMetrics timelineMetrics = new TimelineMetrics();
+    for (TimelineMetricSeries metricSeries : series) {
+      timelineMetrics.getMetrics().add(metricSeries.toTimelineMetric());
+    }
     return timelineMetrics;
   }
 
@@ -49,8 +60,55 @@ public class TimelineMetricsCacheValue {
    * Map of metricName to metric values. Works on the assumption that metric
    * name is unique
    */
-  public void setTimelineMetrics(TimelineMetrics timelineMetrics) {
-    this.timelineMetrics = timelineMetrics;
+  public synchronized void setTimelineMetrics(TimelineMetrics timelineMetrics) {
+    series.clear();
+    if (timelineMetrics != null) {
+      for (TimelineMetric timelineMetric : timelineMetrics.getMetrics()) {
+        series.add(new TimelineMetricSeries(timelineMetric));
+      }
+    }
+  }
+
+  /**
+   * Merge the values of new metrics into the series of the same metrics,
+   * adding series for metrics which are not cached yet.
+   */
+  public synchronized void mergeTimelineMetrics(TimelineMetrics timelineMetrics) {
+    for (TimelineMetric timelineMetric : timelineMetrics.getMetrics()) {
+      TimelineMetricSeries existingSeries = null;
+      for (TimelineMetricSeries metricSeries : series) {
+        if (metricSeries.isSeriesOf(timelineMetric)) {
+          existingSeries = metricSeries;
+        }
+      }
+
+      if (existingSeries != null) {
+        existingSeries.merge(timelineMetric.getMetricValues());
+      } else {
+        series.add(new TimelineMetricSeries(timelineMetric));
+      }
+    }
+  }
+
+  /**
+   * Retain only the values within the [startTime, endTime] window, or remove
+   * all values.
+   */
+  public synchronized void retainMetricValues(long startTime, long endTime, boolean removeAll) {
+    for (TimelineMetricSeries metricSeries : series) {
+      if (removeAll) {
+        metricSeries.clear();
+      } else {
+        metricSeries.retain(startTime, endTime);
+      }
+    }
+  }
+
+  /**
+   * The cached series, used for sizing the cache entry.
+   */
+  synchronized List<TimelineMetricSeries> getSeries() {
+    return new ArrayList<>(series);
   }
 
   public Long getStartTime() {
@@ -85,13 +143,13 @@ public class TimelineMetricsCacheValue {
       ", precision = " + precision +
       ", timelineMetrics =");
 
-    for (TimelineMetric metric : timelineMetrics.getMetrics()) {
+    for (TimelineMetricSeries metricSeries : getSeries()) {
       sb.append(" { ");
-      sb.append(metric.getMetricName());
+      sb.append(metricSeries.getMetric().getMetricName());
       sb.append(", ");
-      sb.append(metric.getHostName());
+      sb.append(metricSeries.getMetric().getHostName());
       sb.append(" # ");
-      sb.append(metric.getMetricValues().size());
+      sb.append(metricSeries.size());
       sb.append(" }");
     }
 
@@ -71,11 +71,26 @@ public abstract class ComparisonPredicate<T> extends PropertyPredicate implement
     return result;
   }
 
+  @Override
+  public boolean evaluate(Resource resource) {
+    return evaluateValue(resource.getPropertyValue(getPropertyId()));
+  }
+
   @Override
   public void accept(PredicateVisitor visitor) {
     visitor.acceptComparisonPredicate(this);
   }
 
+  /**
+   * Evaluate the predicate against the given property value.  Allows the
+   * property value to be obtained by means other than a lookup by property id.
+   *
+   * @param propertyValue  the value of the property of the resource; may be null
+   *
+   * @return true if the predicate evaluates to true for the given value
+   */
+  public abstract boolean evaluateValue(Object propertyValue);
+
   protected int compareValueToIgnoreCase(Object propertyValue) throws ClassCastException{
     return compareValueTo(propertyValue, true); // case insensitive
   }
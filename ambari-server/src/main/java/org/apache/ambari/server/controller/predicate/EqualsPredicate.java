@@ -30,8 +30,7 @@ public class EqualsPredicate<T> extends ComparisonPredicate<T> {
   }
 
   @Override
-  public boolean evaluate(Resource resource) {
-    Object propertyValue  = resource.getPropertyValue(getPropertyId());
+  public boolean evaluateValue(Object propertyValue) {
     Object predicateValue = getValue();
 
     return predicateValue == null ?
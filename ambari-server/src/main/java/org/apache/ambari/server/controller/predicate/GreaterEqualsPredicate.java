@@ -41,8 +41,7 @@ public class GreaterEqualsPredicate<T> extends ComparisonPredicate<T> {
   }
 
   @Override
-  public boolean evaluate(Resource resource) {
-    Object propertyValue = resource.getPropertyValue(getPropertyId());
+  public boolean evaluateValue(Object propertyValue) {
     return propertyValue != null && compareValueTo(propertyValue) <= 0;
   }
 
@@ -126,6 +126,37 @@ public interface ClusterController extends SchemaFactory {
       NoSuchResourceException,
       NoSuchParentResourceException;
 
+  /**
+   * Get a page of resources from the given set filtered by the given request,
+   * predicate objects and page request, and populate the resources of the page
+   * from the associated property providers.  Only the properties used by the
+   * predicate and the sort request are populated for all of the resources;
+   * all other requested properties are populated for the resources of the
+   * returned page only.
+   *
+   * @param type           type of resources
+   * @param queryResponse  the response from the resource query
+   * @param request        the request
+   * @param predicate      the predicate object which filters which resources are returned
+   * @param pageRequest    the page request for a paginated response; may be null
+   * @param sortRequest    the sortRequest object which defines if the resources need to be sorted
+   *
+   * @return a page response representing the requested page of populated resources
+   *
+   * @throws UnsupportedPropertyException thrown if the request or predicate contain
+   *                                      unsupported property ids
+   * @throws SystemException an internal exception occurred
+   * @throws NoSuchResourceException no matching resource(s) found
+   * @throws NoSuchParentResourceException a specified parent resource doesn't exist
+   */
+  PageResponse getPopulatedPage(Resource.Type type, QueryResponse queryResponse,
+                                Request request, Predicate predicate,
+                                PageRequest pageRequest, SortRequest sortRequest)
+      throws UnsupportedPropertyException,
+      SystemException,
+      NoSuchResourceException,
+      NoSuchParentResourceException;
+
   /**
    * Get the {@link Schema schema} for the given resource type.  The schema
    * for a given resource type describes the properties and categories provided
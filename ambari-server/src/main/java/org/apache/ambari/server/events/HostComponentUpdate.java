@@ -41,6 +41,16 @@ public class HostComponentUpdate {
     this.previousState = previousState;
   }
 
+  public HostComponentUpdate(HostComponentUpdate update) {
+    this.id = update.id;
+    this.clusterId = update.clusterId;
+    this.serviceName = update.serviceName;
+    this.hostName = update.hostName;
+    this.componentName = update.componentName;
+    this.currentState = update.currentState;
+    this.previousState = update.previousState;
+  }
+
   public Long getId() {
     return id;
   }
@@ -76,6 +76,18 @@ public class MetadataUpdateEvent extends AmbariUpdateEvent implements Hashable {
     this.hash = hash;
   }
 
+  public MetadataUpdateEvent deepCopy() {
+    SortedMap<String, MetadataCluster> copiedClusters = new TreeMap<>();
+    if (metadataClusters != null) {
+      for (Map.Entry<String, MetadataCluster> metadataClusterEntry : metadataClusters.entrySet()) {
+        copiedClusters.put(metadataClusterEntry.getKey(), metadataClusterEntry.getValue().deepCopyCluster());
+      }
+    }
+    MetadataUpdateEvent copiedEvent = new MetadataUpdateEvent(copiedClusters, null);
+    copiedEvent.setHash(getHash());
+    return copiedEvent;
+  }
+
   public static MetadataUpdateEvent emptyUpdate() {
     return new MetadataUpdateEvent();
   }
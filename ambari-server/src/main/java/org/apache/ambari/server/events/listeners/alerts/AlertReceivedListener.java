@@ -22,7 +22,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.EagerSingleton;
@@ -59,7 +63,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
-import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
@@ -69,6 +73,12 @@ import com.google.inject.persist.Transactional;
  * The {@link AlertReceivedListener} class handles {@link AlertReceivedEvent}
  * and updates the appropriate DAOs. It may also fire new
  * {@link AlertStateChangeEvent} when an {@link AlertState} change is detected.
+ * <p/>
+ * The alerts of an event are split into shards by cluster, definition and
+ * host. Every shard is processed by its own single threaded worker, so alerts
+ * which share a current alert are never processed concurrently and current
+ * alerts can be created without locking. The events of all shards are
+ * published together once the shards are done.
  */
 @Singleton
 @EagerSingleton
@@ -112,18 +122,25 @@ public class AlertReceivedListener {
   private AlertEventPublisher m_alertEventPublisher;
 
   /**
-   * Used for ensuring that creation of {@link AlertCurrentEntity} instances has fine-grain
-   * locks to prevent duplicates.
+   * The single threaded workers of the shards.
    */
-  private Striped<Lock> creationLocks = Striped.lazyWeakLock(100);
+  private final List<ExecutorService> m_shardExecutors;
 
   /**
    * Constructor.
    *
    * @param publisher
+   * @param configuration
    */
   @Inject
-  public AlertReceivedListener(AlertEventPublisher publisher) {
+  public AlertReceivedListener(AlertEventPublisher publisher, Configuration configuration) {
+    int shards = Math.max(1, configuration.getAlertReceivedProcessingShards());
+    m_shardExecutors = new ArrayList<>(shards);
+    for (int i = 0; i < shards; i++) {
+      m_shardExecutors.add(Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(
+          "alert-received-shard-" + i).setDaemon(true).build()));
+    }
+
     m_alertEventPublisher = publisher;
     m_alertEventPublisher.register(this);
   }
@@ -136,29 +153,77 @@ public class AlertReceivedListener {
    */
   @Subscribe
   @AllowConcurrentEvents
-  @RequiresSession
   public void onAlertEvent(AlertReceivedEvent event) {
     if (LOG.isDebugEnabled()) {
       LOG.debug(event.toString());
     }
 
+    // split the alerts into their shards
+    Map<Integer, List<Alert>> shards = new HashMap<>();
+    for (Alert alert : event.getAlerts()) {
+      Long clusterId = getClusterId(event, alert);
+      int shard = Math.floorMod(Objects.hash(clusterId, alert.getName(), alert.getHostName()),
+          m_shardExecutors.size());
+
+      shards.computeIfAbsent(shard, key -> new ArrayList<>()).add(alert);
+    }
+
+    List<Future<ShardResult>> futures = new ArrayList<>(shards.size());
+    for (Map.Entry<Integer, List<Alert>> shard : shards.entrySet()) {
+      List<Alert> alerts = shard.getValue();
+      futures.add(m_shardExecutors.get(shard.getKey()).submit(() -> processAlerts(event, alerts)));
+    }
+
+    // wait for the shards and gather their events
+    List<AlertEvent> alertEvents = new ArrayList<>(20);
+    Map<Long, Map<String, AlertSummaryGroupedRenderer.AlertDefinitionSummary>> alertUpdates = new HashMap<>();
+    for (Future<ShardResult> future : futures) {
+      try {
+        ShardResult result = future.get();
+        alertEvents.addAll(result.alertEvents);
+        for (Consumer<Map<Long, Map<String, AlertSummaryGroupedRenderer.AlertDefinitionSummary>>> summaryUpdate : result.summaryUpdates) {
+          summaryUpdate.accept(alertUpdates);
+        }
+      } catch (InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+        LOG.warn("Interrupted while waiting for received alerts to be processed");
+        return;
+      } catch (ExecutionException executionException) {
+        LOG.error("Unable to process received alerts", executionException.getCause());
+      }
+    }
+
+    // broadcast events
+    for (AlertEvent eventToFire : alertEvents) {
+      m_alertEventPublisher.publish(eventToFire);
+    }
+    if (!alertUpdates.isEmpty()) {
+      stateUpdateEventPublisher.publish(new AlertUpdateEvent(alertUpdates));
+    }
+  }
+
+  /**
+   * Processes the alerts of one shard. This is only invoked by the worker of
+   * the shard.
+   *
+   * @param event
+   *          the event which received the alerts.
+   * @param alerts
+   *          the alerts of the shard.
+   * @return the events to fire for the processed alerts.
+   */
+  @RequiresSession
+  ShardResult processAlerts(AlertReceivedEvent event, List<Alert> alerts) {
     // process the list of alerts inside of a single transaction to prevent too
     // many transactions/commits
-    List<Alert> alerts = event.getAlerts();
-
-    // these can be wrapped in their own transaction
     List<AlertCurrentEntity> toMerge = new ArrayList<>();
     List<AlertCurrentEntity> toCreateHistoryAndMerge = new ArrayList<>();
 
-    List<AlertEvent> alertEvents = new ArrayList<>(20);
-    Map<Long, Map<String, AlertSummaryGroupedRenderer.AlertDefinitionSummary>> alertUpdates = new HashMap<>();
+    ShardResult result = new ShardResult();
+    List<AlertEvent> alertEvents = result.alertEvents;
 
     for (Alert alert : alerts) {
-      Long clusterId = alert.getClusterId();
-      if (clusterId == null) {
-        // check event
-        clusterId = event.getClusterId();
-      }
+      Long clusterId = getClusterId(event, alert);
 
       AlertDefinitionEntity definition = m_definitionDao.findByName(clusterId, alert.getName());
 
@@ -203,8 +268,9 @@ public class AlertReceivedListener {
       // attempt to lookup the current alert
       current = getCurrentEntity(clusterId, alert, definition);
 
-      // if it doesn't exist then we must create it, ensuring that two or more
-      // aren't created from other threads
+      // if it doesn't exist then we must create it; alerts of the same
+      // cluster/definition name/host are only processed by this shard, so no
+      // other thread can create it concurrently
       if( null == current ){
 
         // if there is no current alert and the state is skipped, then simply
@@ -213,44 +279,25 @@ public class AlertReceivedListener {
           continue;
         }
 
-        // create a key out of the cluster/definition name/host (possibly null)
-        int key = Objects.hash(clusterId, alert.getName(), alert.getHostName());
-        Lock lock = creationLocks.get(key);
-        lock.lock();
-
-        // attempt to lookup the current alert again to ensure that a previous
-        // thread didn't already create it
-        try {
-          // if it's not null anymore, then there's no work to do here
-          current = getCurrentEntity(clusterId, alert, definition);
-          if( null != current ) {
-            continue;
-          }
-
-          // the current alert is still null, so go through and create it
-          AlertHistoryEntity history = createHistory(clusterId, definition, alert);
+        AlertHistoryEntity history = createHistory(clusterId, definition, alert);
 
-          // this new alert must reflect the correct MM state for the
-          // service/component/host
-          MaintenanceState maintenanceState = getMaintenanceState(alert, clusterId);
+        // this new alert must reflect the correct MM state for the
+        // service/component/host
+        MaintenanceState maintenanceState = getMaintenanceState(alert, clusterId);
 
-          current = new AlertCurrentEntity();
-          current.setMaintenanceState(maintenanceState);
-          current.setAlertHistory(history);
-          current.setLatestTimestamp(alert.getTimestamp());
-          current.setOriginalTimestamp(alert.getTimestamp());
+        current = new AlertCurrentEntity();
+        current.setMaintenanceState(maintenanceState);
+        current.setAlertHistory(history);
+        current.setLatestTimestamp(alert.getTimestamp());
+        current.setOriginalTimestamp(alert.getTimestamp());
 
-          // brand new alert instances being received are always HARD
-          current.setFirmness(AlertFirmness.HARD);
+        // brand new alert instances being received are always HARD
+        current.setFirmness(AlertFirmness.HARD);
 
-          m_alertsDao.create(current);
+        m_alertsDao.create(current);
 
-          // create the event to fire later
-          alertEvents.add(new InitialAlertEvent(clusterId, alert, current));
-        } finally {
-          // release the lock for this alert
-          lock.unlock();
-        }
+        // create the event to fire later
+        alertEvents.add(new InitialAlertEvent(clusterId, alert, current));
       } else if (alertState == current.getAlertHistory().getAlertState()
           || alertState == AlertState.SKIPPED) {
 
@@ -352,16 +399,19 @@ public class AlertReceivedListener {
         // create the event to fire later
         alertEvents.add(new AlertStateChangeEvent(clusterId, alert, current, oldState, oldFirmness));
 
-        // create alert update to fire event to UI
+        // create alert update to fire event to UI once all shards are done
         MaintenanceState maintenanceState = getMaintenanceState(alert, clusterId);
+        Long updateClusterId = clusterId;
+        Long definitionId = definition.getDefinitionId();
+        String definitionName = definition.getDefinitionName();
 
-        if (!alertUpdates.containsKey(clusterId)) {
-          alertUpdates.put(clusterId, new HashMap<>());
-        }
-        Map<String, AlertSummaryGroupedRenderer.AlertDefinitionSummary> summaries = alertUpdates.get(clusterId);
+        result.summaryUpdates.add(alertUpdates -> {
+          Map<String, AlertSummaryGroupedRenderer.AlertDefinitionSummary> summaries =
+              alertUpdates.computeIfAbsent(updateClusterId, key -> new HashMap<>());
 
-        AlertSummaryGroupedRenderer.updateSummary(summaries, definition.getDefinitionId(),
-            definition.getDefinitionName(), alertState, alert.getTimestamp(), maintenanceState, alert.getText());
+          AlertSummaryGroupedRenderer.updateSummary(summaries, definitionId, definitionName,
+              alertState, alert.getTimestamp(), maintenanceState, alert.getText());
+        });
       }
     }
 
@@ -369,13 +419,26 @@ public class AlertReceivedListener {
     // transaction
     saveEntities(toMerge, toCreateHistoryAndMerge);
 
-    // broadcast events
-    for (AlertEvent eventToFire : alertEvents) {
-      m_alertEventPublisher.publish(eventToFire);
-    }
-    if (!alertUpdates.isEmpty()) {
-      stateUpdateEventPublisher.publish(new AlertUpdateEvent(alertUpdates));
+    return result;
+  }
+
+  /**
+   * Gets the cluster of the specified alert, falling back to the cluster of
+   * the event.
+   *
+   * @param event
+   *          the event which received the alert.
+   * @param alert
+   *          the alert.
+   * @return the cluster ID, or {@code null} if neither specifies one.
+   */
+  private Long getClusterId(AlertReceivedEvent event, Alert alert) {
+    Long clusterId = alert.getClusterId();
+    if (clusterId == null) {
+      // check event
+      clusterId = event.getClusterId();
     }
+    return clusterId;
   }
 
   private void updateAlertDetails(Alert alert, AlertDefinitionEntity definition) {
@@ -673,4 +736,21 @@ public class AlertReceivedListener {
 
     return repeatTolerance;
   }
+
+  /**
+   * The events produced by processing the alerts of a shard.
+   */
+  static final class ShardResult {
+    /**
+     * The alert events to fire.
+     */
+    private final List<AlertEvent> alertEvents = new ArrayList<>(20);
+
+    /**
+     * The updates of the UI alert summaries, applied once all shards are
+     * done.
+     */
+    private final List<Consumer<Map<Long, Map<String, AlertSummaryGroupedRenderer.AlertDefinitionSummary>>>> summaryUpdates =
+        new ArrayList<>();
+  }
 }
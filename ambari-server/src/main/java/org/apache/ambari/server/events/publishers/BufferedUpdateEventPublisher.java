@@ -19,55 +19,149 @@
 package org.apache.ambari.server.events.publishers;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.ambari.server.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
 import com.google.common.eventbus.EventBus;
-import com.google.inject.Singleton;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Buffers update events and merges updates of the same entity, so subscribers receive a single update
+ * per entity per time window instead of every intermediate state.
+ * <p/>
+ * Every event is split into updates keyed by the updated entity. Updates are buffered as copies, so
+ * the published events are never changed. Updates with the same key are merged into the buffered copy
+ * (last writer wins unless {@link #merge(Object, Object)} says otherwise) and are published when the
+ * window is over, or earlier if the number of buffered updates reaches the maximal batch size. An event
+ * arriving after a quiet period longer than the window is published immediately. All events are posted
+ * from a single thread, so the order of updates is preserved.
+ *
+ * @param <T> type of the update event
+ * @param <K> type of the key identifying the updated entity
+ * @param <V> type of the single entity update
+ */
+public abstract class BufferedUpdateEventPublisher<T, K, V> {
+  private static final Logger LOG = LoggerFactory.getLogger(BufferedUpdateEventPublisher.class);
+
+  private final Object lock = new Object();
+  private final Map<K, V> buffer = new LinkedHashMap<>();
+  private long previousTime = 0L;
+  private boolean collecting = false;
+  private boolean batchFlushScheduled = false;
 
-@Singleton
-public abstract class BufferedUpdateEventPublisher<T> {
+  private final long window;
+  private final int maxBatchSize;
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  /**
+   * @param configuration configuration providing the time window and the maximal batch size, which are
+   *                      read once
+   */
+  protected BufferedUpdateEventPublisher(Configuration configuration) {
+    this(configuration, Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("update-event-buffer-%d").setDaemon(true).build()));
+  }
 
-  private static final long TIMEOUT = 1000L;
-  private final AtomicLong previousTime = new AtomicLong(0);
-  private final AtomicBoolean collecting = new AtomicBoolean(false);
-  private final ConcurrentLinkedQueue<T> buffer = new ConcurrentLinkedQueue<>();
-  private final ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(1);
+  /**
+   * @param configuration configuration providing the time window and the maximal batch size
+   * @param scheduledExecutorService executor running the flushes of the buffer
+   */
+  BufferedUpdateEventPublisher(Configuration configuration, ScheduledExecutorService scheduledExecutorService) {
+    window = configuration.getUpdateEventsBufferWindow();
+    maxBatchSize = configuration.getUpdateEventsBufferMaxBatchSize();
+    this.scheduledExecutorService = scheduledExecutorService;
+  }
 
   public void publish(T event, EventBus m_eventBus) {
-    long eventTime = System.currentTimeMillis();
-    if ((eventTime - previousTime.get() <= TIMEOUT) && !collecting.get()) {
-      buffer.add(event);
-      collecting.set(true);
-      scheduledExecutorService.schedule(getScheduledPublisher(m_eventBus),
-          TIMEOUT, TimeUnit.MILLISECONDS);
-    } else if (collecting.get()) {
-      buffer.add(event);
-    } else {
-      //TODO add logging and metrics posting
-      previousTime.set(eventTime);
-      m_eventBus.post(event);
+    Map<K, V> updates = getUpdates(event);
+    if (updates.isEmpty()) {
+      return;
+    }
+    synchronized (lock) {
+      for (Map.Entry<K, V> update : updates.entrySet()) {
+        buffer.compute(update.getKey(),
+            (key, buffered) -> buffered == null ? copy(update.getValue()) : merge(buffered, update.getValue()));
+      }
+      if (!collecting) {
+        collecting = true;
+        long delay = System.currentTimeMillis() - previousTime > window ? 0 : window;
+        scheduledExecutorService.schedule(() -> flush(m_eventBus, true), delay, TimeUnit.MILLISECONDS);
+      } else if (buffer.size() >= maxBatchSize && !batchFlushScheduled) {
+        batchFlushScheduled = true;
+        scheduledExecutorService.execute(() -> flush(m_eventBus, false));
+      }
     }
   }
 
-  protected abstract Runnable getScheduledPublisher(EventBus m_eventBus);
+  /**
+   * Splits event into updates of the separate entities.
+   * @param event event to split
+   * @return updates by keys of the updated entities, in the order they should be published
+   */
+  protected abstract Map<K, V> getUpdates(T event);
 
-  protected List<T> retrieveBuffer() {
-    resetCollecting();
-    List<T> bufferContent = new ArrayList<>();
-    while (!buffer.isEmpty()) {
-      bufferContent.add(buffer.poll());
-    }
-    return bufferContent;
+  /**
+   * Copies an update, so it can be buffered and merged without changing the published event.
+   * @param update update to copy
+   * @return copy of the update
+   */
+  protected abstract V copy(V update);
+
+  /**
+   * Merges a new update of the entity into the buffered one. The buffered update is a copy owned by
+   * the publisher and may be changed, the new update belongs to the published event and must not be.
+   * @param buffered update already present in the buffer
+   * @param update new update of the same entity
+   * @return merged update
+   */
+  protected V merge(V buffered, V update) {
+    return copy(update);
   }
 
-  protected void resetCollecting() {
-    previousTime.set(System.currentTimeMillis());
-    collecting.set(false);
+  /**
+   * Creates events to publish from the merged updates.
+   * @param updates merged updates, the number of updates doesn't exceed maximal batch size
+   * @return events to publish
+   */
+  protected abstract List<T> createEvents(List<V> updates);
+
+  /**
+   * Publishes all buffered updates.
+   * @param m_eventBus bus to post events to
+   * @param endOfWindow {@code true} if the time window is over, {@code false} if the buffer is flushed
+   *                    because the maximal batch size is reached
+   */
+  private void flush(EventBus m_eventBus, boolean endOfWindow) {
+    List<V> updates;
+    synchronized (lock) {
+      updates = new ArrayList<>(buffer.values());
+      buffer.clear();
+      batchFlushScheduled = false;
+      if (endOfWindow) {
+        collecting = false;
+        previousTime = System.currentTimeMillis();
+      }
+    }
+    if (updates.isEmpty()) {
+      return;
+    }
+    try {
+      for (List<V> batch : Lists.partition(updates, maxBatchSize)) {
+        for (T event : createEvents(batch)) {
+          m_eventBus.post(event);
+        }
+      }
+    } catch (Exception e) {
+      LOG.error("Unable to publish {} buffered updates", updates.size(), e);
+    }
   }
 }
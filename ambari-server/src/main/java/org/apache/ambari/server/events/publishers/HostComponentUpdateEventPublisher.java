@@ -15,46 +15,61 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.apache.ambari.server.events.publishers;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
 
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.events.HostComponentUpdate;
 import org.apache.ambari.server.events.HostComponentsUpdateEvent;
 
-import com.google.common.eventbus.EventBus;
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
+/**
+ * Merges updates of the same host component, keeping the state preceding the first buffered update as
+ * the previous state and the last reported state as the current one.
+ */
 @Singleton
-public class HostComponentUpdateEventPublisher extends BufferedUpdateEventPublisher<HostComponentsUpdateEvent> {
+public class HostComponentUpdateEventPublisher extends BufferedUpdateEventPublisher<HostComponentsUpdateEvent, Long, HostComponentUpdate> {
 
-  @Override
-  protected Runnable getScheduledPublisher(EventBus m_eventBus) {
-    return new HostComponentsEventRunnable(m_eventBus);
+  @Inject
+  public HostComponentUpdateEventPublisher(Configuration configuration) {
+    super(configuration);
   }
 
-  private class HostComponentsEventRunnable implements Runnable {
-
-    private final EventBus eventBus;
+  HostComponentUpdateEventPublisher(Configuration configuration, ScheduledExecutorService scheduledExecutorService) {
+    super(configuration, scheduledExecutorService);
+  }
 
-    public HostComponentsEventRunnable(EventBus eventBus) {
-      this.eventBus = eventBus;
+  @Override
+  protected Map<Long, HostComponentUpdate> getUpdates(HostComponentsUpdateEvent event) {
+    Map<Long, HostComponentUpdate> updates = new LinkedHashMap<>();
+    for (HostComponentUpdate hostComponentUpdate : event.getHostComponentUpdates()) {
+      updates.merge(hostComponentUpdate.getId(), hostComponentUpdate, this::merge);
     }
+    return updates;
+  }
 
-    @Override
-    public void run() {
-      List<HostComponentsUpdateEvent> hostComponentUpdateEvents = retrieveBuffer();
-      if (hostComponentUpdateEvents.isEmpty()) {
-        return;
-      }
-      List<HostComponentUpdate> hostComponentUpdates = hostComponentUpdateEvents.stream().flatMap(
-          u -> u.getHostComponentUpdates().stream()).collect(Collectors.toList());
-
-      HostComponentsUpdateEvent resultEvents = new HostComponentsUpdateEvent(hostComponentUpdates);
-      //TODO add logging and metrics posting
-      eventBus.post(resultEvents);
-    }
+  @Override
+  protected HostComponentUpdate copy(HostComponentUpdate update) {
+    return new HostComponentUpdate(update);
+  }
+
+  @Override
+  protected HostComponentUpdate merge(HostComponentUpdate buffered, HostComponentUpdate update) {
+    HostComponentUpdate merged = copy(update);
+    merged.setPreviousState(buffered.getPreviousState());
+    return merged;
+  }
+
+  @Override
+  protected List<HostComponentsUpdateEvent> createEvents(List<HostComponentUpdate> updates) {
+    //TODO add logging and metrics posting
+    return Collections.singletonList(new HostComponentsUpdateEvent(updates));
   }
 }
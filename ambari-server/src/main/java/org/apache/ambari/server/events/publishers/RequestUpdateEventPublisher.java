@@ -18,10 +18,13 @@
 
 package org.apache.ambari.server.events.publishers;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.internal.CalculatedStatus;
 import org.apache.ambari.server.events.RequestUpdateEvent;
 import org.apache.ambari.server.orm.dao.ClusterDAO;
@@ -30,16 +33,16 @@ import org.apache.ambari.server.orm.dao.RequestDAO;
 import org.apache.ambari.server.orm.entities.RequestEntity;
 import org.apache.ambari.server.topology.TopologyManager;
 
-import com.google.common.eventbus.EventBus;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
+/**
+ * Merges updates of the same request, so subscribers receive the latest request status together with
+ * the latest statuses of all tasks changed within the time window. Progress and the missing request
+ * details are filled right before publishing.
+ */
 @Singleton
-public class RequestUpdateEventPublisher {
-
-  private final Long TIMEOUT = 1000L;
-  private ConcurrentHashMap<Long, Long> previousTime = new ConcurrentHashMap<>();
-  private ConcurrentHashMap<Long, RequestUpdateEvent> buffer = new ConcurrentHashMap<>();
+public class RequestUpdateEventPublisher extends BufferedUpdateEventPublisher<RequestUpdateEvent, Long, RequestUpdateEvent> {
 
   @Inject
   private HostRoleCommandDAO hostRoleCommandDAO;
@@ -53,28 +56,47 @@ public class RequestUpdateEventPublisher {
   @Inject
   private ClusterDAO clusterDAO;
 
-  public void publish(RequestUpdateEvent event, EventBus m_eventBus) {
-    Long eventTime = System.currentTimeMillis();
-    Long requestId = event.getRequestId();
-    if (!previousTime.containsKey(requestId)) {
-      previousTime.put(requestId, 0L);
-    }
-    if (eventTime - previousTime.get(requestId) <= TIMEOUT && !buffer.containsKey(requestId)) {
-      buffer.put(event.getRequestId(), event);
-      Executors.newScheduledThreadPool(1).schedule(new RequestEventRunnable(requestId, m_eventBus),
-          TIMEOUT, TimeUnit.MILLISECONDS);
-    } else if (buffer.containsKey(requestId)) {
-      //merge available buffer content with arrived
-      buffer.get(requestId).setEndTime(event.getEndTime());
-      buffer.get(requestId).setRequestStatus(event.getRequestStatus());
-      buffer.get(requestId).setRequestContext(event.getRequestContext());
-      buffer.get(requestId).getHostRoleCommands().removeAll(event.getHostRoleCommands());
-      buffer.get(requestId).getHostRoleCommands().addAll(event.getHostRoleCommands());
-    } else {
-      previousTime.put(requestId, eventTime);
+  @Inject
+  public RequestUpdateEventPublisher(Configuration configuration) {
+    super(configuration);
+  }
+
+  @Override
+  protected Map<Long, RequestUpdateEvent> getUpdates(RequestUpdateEvent event) {
+    return Collections.singletonMap(event.getRequestId(), event);
+  }
+
+  @Override
+  protected RequestUpdateEvent copy(RequestUpdateEvent update) {
+    RequestUpdateEvent copy = new RequestUpdateEvent(update.getRequestId(), update.getRequestStatus(),
+        new HashSet<>(update.getHostRoleCommands()));
+    copy.setClusterName(update.getClusterName());
+    copy.setEndTime(update.getEndTime());
+    copy.setProgressPercent(update.getProgressPercent());
+    copy.setRequestContext(update.getRequestContext());
+    copy.setStartTime(update.getStartTime());
+    return copy;
+  }
+
+  @Override
+  protected RequestUpdateEvent merge(RequestUpdateEvent buffered, RequestUpdateEvent update) {
+    //merge available buffer content with arrived
+    buffered.setEndTime(update.getEndTime());
+    buffered.setRequestStatus(update.getRequestStatus());
+    buffered.setRequestContext(update.getRequestContext());
+    buffered.getHostRoleCommands().removeAll(update.getHostRoleCommands());
+    buffered.getHostRoleCommands().addAll(update.getHostRoleCommands());
+    return buffered;
+  }
+
+  @Override
+  protected List<RequestUpdateEvent> createEvents(List<RequestUpdateEvent> updates) {
+    List<RequestUpdateEvent> events = new ArrayList<>(updates.size());
+    for (RequestUpdateEvent update : updates) {
       //TODO add logging and metrics posting
-      m_eventBus.post(fillRequest(event));
+      events.add(fillRequest(update));
     }
+    return events;
   }
 
   private RequestUpdateEvent fillRequest(RequestUpdateEvent event) {
@@ -93,24 +115,4 @@ public class RequestUpdateEventPublisher {
     }
     return event;
   }
-
-  private class RequestEventRunnable implements Runnable {
-
-    private final long requestId;
-    private final EventBus eventBus;
-
-    public RequestEventRunnable(long requestId, EventBus eventBus) {
-      this.requestId = requestId;
-      this.eventBus = eventBus;
-    }
-
-    @Override
-    public void run() {
-      RequestUpdateEvent resultEvent = buffer.get(requestId);
-      //TODO add logging and metrics posting
-      eventBus.post(fillRequest(resultEvent));
-      buffer.remove(requestId);
-      previousTime.remove(requestId);
-    }
-  }
 }
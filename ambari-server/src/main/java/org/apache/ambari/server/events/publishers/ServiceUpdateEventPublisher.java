@@ -19,52 +19,52 @@
 package org.apache.ambari.server.events.publishers;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.events.ServiceUpdateEvent;
 
-import com.google.common.eventbus.EventBus;
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
+/**
+ * Merges updates of the same service. Service update events are equal if they belong to the same
+ * service, so the events themselves are used as keys.
+ */
 @Singleton
-public class ServiceUpdateEventPublisher extends BufferedUpdateEventPublisher<ServiceUpdateEvent> {
+public class ServiceUpdateEventPublisher extends BufferedUpdateEventPublisher<ServiceUpdateEvent, ServiceUpdateEvent, ServiceUpdateEvent> {
 
-  @Override
-  protected Runnable getScheduledPublisher(EventBus m_eventBus) {
-    return new ServiceEventRunnable(m_eventBus);
+  @Inject
+  public ServiceUpdateEventPublisher(Configuration configuration) {
+    super(configuration);
   }
 
-  private class ServiceEventRunnable implements Runnable {
+  @Override
+  protected Map<ServiceUpdateEvent, ServiceUpdateEvent> getUpdates(ServiceUpdateEvent event) {
+    return Collections.singletonMap(event, event);
+  }
 
-    private final EventBus eventBus;
+  @Override
+  protected ServiceUpdateEvent copy(ServiceUpdateEvent update) {
+    return new ServiceUpdateEvent(update.getClusterName(), update.getMaintenanceState(), update.getServiceName(),
+        update.getState());
+  }
 
-    public ServiceEventRunnable(EventBus eventBus) {
-      this.eventBus = eventBus;
+  @Override
+  protected ServiceUpdateEvent merge(ServiceUpdateEvent buffered, ServiceUpdateEvent update) {
+    if (update.getState() != null) {
+      buffered.setState(update.getState());
     }
-
-    @Override
-    public void run() {
-      List<ServiceUpdateEvent> serviceUpdates = retrieveBuffer();
-      if (serviceUpdates.isEmpty()) {
-        return;
-      }
-      List<ServiceUpdateEvent> filtered = new ArrayList<>();
-      for (ServiceUpdateEvent event : serviceUpdates) {
-        int pos = filtered.indexOf(event);
-        if (pos != -1) {
-          if (event.getState() != null) {
-            filtered.get(pos).setState(event.getState());
-          }
-          if (event.getMaintenanceState() != null) {
-            filtered.get(pos).setMaintenanceState(event.getMaintenanceState());
-          }
-        } else {
-          filtered.add(event);
-        }
-      }
-      for (ServiceUpdateEvent serviceUpdateEvent : serviceUpdates) {
-        eventBus.post(serviceUpdateEvent);
-      }
+    if (update.getMaintenanceState() != null) {
+      buffered.setMaintenanceState(update.getMaintenanceState());
     }
+    return buffered;
+  }
+
+  @Override
+  protected List<ServiceUpdateEvent> createEvents(List<ServiceUpdateEvent> updates) {
+    return new ArrayList<>(updates);
   }
 }
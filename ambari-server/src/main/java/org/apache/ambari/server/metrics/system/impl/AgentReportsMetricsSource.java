@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.metrics.system.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.agent.AgentReportsProcessor;
+import org.apache.ambari.server.metrics.system.MetricsSink;
+import org.apache.ambari.server.metrics.system.SingleMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects metrics about queue depth and processing latency of agents' reports and publishes
+ * them to configured Metric Sink.
+ */
+public class AgentReportsMetricsSource extends AbstractMetricsSource {
+  private static final Logger LOG = LoggerFactory.getLogger(AgentReportsMetricsSource.class);
+
+  private static final String QUEUE_SIZE_METRIC = "agent.reports.queue.size";
+  private static final String MAX_PARTITION_QUEUE_SIZE_METRIC = "agent.reports.queue.size.max";
+  private static final String PROCESSED_METRIC = "agent.reports.processed";
+  private static final String REJECTED_METRIC = "agent.reports.rejected";
+  private static final String LATENCY_METRIC = "agent.reports.processing.latency.avg";
+
+  private ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+  private AgentReportsProcessor agentReportsProcessor;
+
+  private int interval = 60;
+
+  private long lastProcessedReports = 0;
+  private long lastRejectedReports = 0;
+  private long lastProcessingLatency = 0;
+
+  @Override
+  public void init(MetricsConfiguration configuration, MetricsSink sink) {
+    super.init(configuration, sink);
+    interval = Integer.parseInt(configuration.getProperty("interval", "60"));
+    LOG.info("Initialized agent reports metrics source...");
+  }
+
+  public void setAgentReportsProcessor(AgentReportsProcessor agentReportsProcessor) {
+    this.agentReportsProcessor = agentReportsProcessor;
+  }
+
+  @Override
+  public void start() {
+    LOG.info("Starting agent reports metrics source...");
+    try {
+      executor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            if (agentReportsProcessor != null) {
+              sink.publish(getMetrics());
+              LOG.debug("Published agent reports metrics to sink");
+            }
+          } catch (Exception e) {
+            LOG.debug("Error in publishing agent reports metrics to sink.", e);
+          }
+        }
+      }, interval, interval, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.info("Throwing exception when starting agent reports metrics source", e);
+    }
+  }
+
+  private List<SingleMetric> getMetrics() {
+    long timestamp = System.currentTimeMillis();
+    long processedReports = agentReportsProcessor.getProcessedReportsCount();
+    long processingLatency = agentReportsProcessor.getProcessingLatency();
+    long processedDelta = processedReports - lastProcessedReports;
+    long latencyDelta = processingLatency - lastProcessingLatency;
+    lastProcessedReports = processedReports;
+    long rejectedReports = agentReportsProcessor.getRejectedReportsCount();
+    long rejectedDelta = rejectedReports - lastRejectedReports;
+    lastRejectedReports = rejectedReports;
+    lastProcessingLatency = processingLatency;
+
+    List<SingleMetric> metrics = new ArrayList<>();
+    metrics.add(new SingleMetric(QUEUE_SIZE_METRIC, agentReportsProcessor.getQueueSize(), timestamp));
+    metrics.add(new SingleMetric(MAX_PARTITION_QUEUE_SIZE_METRIC, agentReportsProcessor.getMaxPartitionQueueSize(), timestamp));
+    metrics.add(new SingleMetric(PROCESSED_METRIC, processedDelta, timestamp));
+    metrics.add(new SingleMetric(REJECTED_METRIC, rejectedDelta, timestamp));
+    metrics.add(new SingleMetric(LATENCY_METRIC, processedDelta == 0 ? 0 : (double) latencyDelta / processedDelta, timestamp));
+    return metrics;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.metrics.system.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.metrics.system.MetricsSink;
+import org.apache.ambari.server.metrics.system.SingleMetric;
+import org.apache.ambari.server.orm.dao.AlertsDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the pending updates, flush lag and flush batch size of the current
+ * alert cache and publishes them to configured Metric Sink.
+ */
+public class AlertCacheMetricsSource extends AbstractMetricsSource {
+  private static final Logger LOG = LoggerFactory.getLogger(AlertCacheMetricsSource.class);
+
+  private static final String PENDING_METRIC = "alerts.cache.pending.updates";
+  private static final String FLUSH_BATCH_SIZE_METRIC = "alerts.cache.flush.batch.size";
+  private static final String FLUSH_LAG_METRIC = "alerts.cache.flush.lag";
+
+  private ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+  private AlertsDAO alertsDAO;
+
+  private int interval = 60;
+
+  @Override
+  public void init(MetricsConfiguration configuration, MetricsSink sink) {
+    super.init(configuration, sink);
+    interval = Integer.parseInt(configuration.getProperty("interval", "60"));
+    LOG.info("Initialized alert cache metrics source...");
+  }
+
+  public void setAlertsDAO(AlertsDAO alertsDAO) {
+    this.alertsDAO = alertsDAO;
+  }
+
+  @Override
+  public void start() {
+    LOG.info("Starting alert cache metrics source...");
+    try {
+      executor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            if (alertsDAO != null) {
+              sink.publish(getMetrics());
+              LOG.debug("Published alert cache metrics to sink");
+            }
+          } catch (Exception e) {
+            LOG.debug("Error in publishing alert cache metrics to sink.", e);
+          }
+        }
+      }, interval, interval, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.info("Throwing exception when starting alert cache metrics source", e);
+    }
+  }
+
+  private List<SingleMetric> getMetrics() {
+    long timestamp = System.currentTimeMillis();
+
+    List<SingleMetric> metrics = new ArrayList<>();
+    metrics.add(new SingleMetric(PENDING_METRIC, alertsDAO.getPendingAlertUpdateCount(), timestamp));
+    metrics.add(new SingleMetric(FLUSH_BATCH_SIZE_METRIC, alertsDAO.getLastFlushBatchSize(), timestamp));
+    metrics.add(new SingleMetric(FLUSH_LAG_METRIC, alertsDAO.getLastFlushLag(), timestamp));
+    return metrics;
+  }
+}
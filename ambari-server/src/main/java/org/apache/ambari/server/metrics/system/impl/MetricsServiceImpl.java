@@ -22,16 +22,20 @@ import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.ambari.server.agent.AgentReportsProcessor;
+import org.apache.ambari.server.api.query.QueryPlanCache;
 import org.apache.ambari.server.controller.AmbariManagementController;
 import org.apache.ambari.server.events.publishers.StateUpdateEventPublisher;
 import org.apache.ambari.server.metrics.system.MetricsService;
 import org.apache.ambari.server.metrics.system.MetricsSink;
 import org.apache.ambari.server.metrics.system.MetricsSource;
+import org.apache.ambari.server.orm.dao.AlertsDAO;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 
 @Singleton
@@ -45,6 +49,12 @@ public class MetricsServiceImpl implements MetricsService {
   AmbariManagementController amc;
   @Inject
   StateUpdateEventPublisher stateUpdateEventPublisher;
+  @Inject
+  Provider<AgentReportsProcessor> agentReportsProcessor;
+  @Inject
+  Provider<QueryPlanCache> queryPlanCache;
+  @Inject
+  Provider<AlertsDAO> alertsDAO;
 
   @Override
   public void start() {
@@ -118,6 +128,15 @@ public class MetricsServiceImpl implements MetricsService {
         if (src instanceof StompEventsMetricsSource) {
           stateUpdateEventPublisher.register(src);
         }
+        if (src instanceof AgentReportsMetricsSource) {
+          ((AgentReportsMetricsSource) src).setAgentReportsProcessor(agentReportsProcessor.get());
+        }
+        if (src instanceof QueryPlanCacheMetricsSource) {
+          ((QueryPlanCacheMetricsSource) src).setQueryPlanCache(queryPlanCache.get());
+        }
+        if (src instanceof AlertCacheMetricsSource) {
+          ((AlertCacheMetricsSource) src).setAlertsDAO(alertsDAO.get());
+        }
         src.start();
       }
 
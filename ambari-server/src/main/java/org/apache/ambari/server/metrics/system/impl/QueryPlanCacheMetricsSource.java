@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.metrics.system.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.api.query.QueryPlanCache;
+import org.apache.ambari.server.metrics.system.MetricsSink;
+import org.apache.ambari.server.metrics.system.SingleMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.CacheStats;
+
+/**
+ * Collects hit and miss metrics of the API query plan cache and publishes
+ * them to configured Metric Sink.
+ */
+public class QueryPlanCacheMetricsSource extends AbstractMetricsSource {
+  private static final Logger LOG = LoggerFactory.getLogger(QueryPlanCacheMetricsSource.class);
+
+  private static final String HITS_METRIC = "api.query.plan.cache.hits";
+  private static final String MISSES_METRIC = "api.query.plan.cache.misses";
+  private static final String HIT_RATIO_METRIC = "api.query.plan.cache.hit.ratio";
+  private static final String SIZE_METRIC = "api.query.plan.cache.size";
+
+  private ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+
+  private QueryPlanCache queryPlanCache;
+
+  private int interval = 60;
+
+  private CacheStats lastStats = new CacheStats(0, 0, 0, 0, 0, 0);
+
+  @Override
+  public void init(MetricsConfiguration configuration, MetricsSink sink) {
+    super.init(configuration, sink);
+    interval = Integer.parseInt(configuration.getProperty("interval", "60"));
+    LOG.info("Initialized query plan cache metrics source...");
+  }
+
+  public void setQueryPlanCache(QueryPlanCache queryPlanCache) {
+    this.queryPlanCache = queryPlanCache;
+  }
+
+  @Override
+  public void start() {
+    LOG.info("Starting query plan cache metrics source...");
+    try {
+      executor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            if (queryPlanCache != null) {
+              sink.publish(getMetrics());
+              LOG.debug("Published query plan cache metrics to sink");
+            }
+          } catch (Exception e) {
+            LOG.debug("Error in publishing query plan cache metrics to sink.", e);
+          }
+        }
+      }, interval, interval, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.info("Throwing exception when starting query plan cache metrics source", e);
+    }
+  }
+
+  private List<SingleMetric> getMetrics() {
+    long timestamp = System.currentTimeMillis();
+    CacheStats stats = queryPlanCache.getStats();
+    CacheStats delta = stats.minus(lastStats);
+    lastStats = stats;
+
+    List<SingleMetric> metrics = new ArrayList<>();
+    metrics.add(new SingleMetric(HITS_METRIC, delta.hitCount(), timestamp));
+    metrics.add(new SingleMetric(MISSES_METRIC, delta.missCount(), timestamp));
+    metrics.add(new SingleMetric(HIT_RATIO_METRIC, delta.hitRate(), timestamp));
+    metrics.add(new SingleMetric(SIZE_METRIC, queryPlanCache.size(), timestamp));
+    return metrics;
+  }
+}
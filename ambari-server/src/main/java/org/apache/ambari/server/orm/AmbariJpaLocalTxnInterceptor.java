@@ -20,8 +20,10 @@ package org.apache.ambari.server.orm;
 
 import java.lang.reflect.Method;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 
@@ -56,6 +58,9 @@ import com.google.inject.persist.jpa.AmbariJpaPersistService;
  * back. This ensures that transactional methods invoke from an already running
  * transaction can have their lock invoked for the lifespan of the outer
  * "parent" transaction.
+ * <p/>
+ * Work which must only become visible once the transaction is committed, such
+ * as updates of caches, can be deferred with {@link #runAfterCommit(Runnable)}.
  */
 public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
 
@@ -77,6 +82,13 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
     }
   };
 
+  /**
+   * The tasks to run after the outer-most transaction of the thread has been
+   * committed, or {@code null} if no transaction was begun by this
+   * interceptor.
+   */
+  private static final ThreadLocal<List<Runnable>> s_afterCommitTasks = new ThreadLocal<>();
+
   /**
    * Used to ensure that methods which rely on the completion of
    * {@link Transactional} can detect when they are able to run.
@@ -118,10 +130,12 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
       return methodInvocation.proceed();
     }
 
+    boolean committed = false;
     try {
       // this is the outer-most transactional, begin a transaction
       final EntityTransaction txn = em.getTransaction();
       txn.begin();
+      s_afterCommitTasks.set(new ArrayList<>());
 
       Object result;
       try {
@@ -131,6 +145,7 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
         // commit transaction only if rollback didn't occur
         if (rollbackIfNecessary(transactional, e, txn)) {
           txn.commit();
+          committed = true;
         }
 
         detailedLogForPersistenceError(e);
@@ -151,6 +166,7 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
       // interferes with the advised method's throwing semantics)
       try {
         txn.commit();
+        committed = true;
       } catch (Exception e) {
         detailedLogForPersistenceError(e);
         throw e;
@@ -165,11 +181,51 @@ public class AmbariJpaLocalTxnInterceptor implements MethodInterceptor {
       // or return result
       return result;
     } finally {
+      // run the deferred work while the lock areas are still held, so that
+      // it is visible as soon as they are released
+      List<Runnable> afterCommitTasks = s_afterCommitTasks.get();
+      s_afterCommitTasks.remove();
+      if (committed && null != afterCommitTasks) {
+        runAfterCommitTasks(afterCommitTasks);
+      }
+
       // unlock all lock areas for this transaction
       unlockTransaction();
     }
   }
 
+  /**
+   * Runs the given task once the outer-most transaction of the current thread
+   * has been committed. The task is discarded if the transaction is rolled
+   * back. If no transaction was begun by this interceptor, the task is run
+   * right away.
+   *
+   * @param task
+   *          the task to run (not {@code null}).
+   */
+  public static void runAfterCommit(Runnable task) {
+    List<Runnable> afterCommitTasks = s_afterCommitTasks.get();
+    if (null == afterCommitTasks) {
+      task.run();
+    } else {
+      afterCommitTasks.add(task);
+    }
+  }
+
+  /**
+   * Runs the tasks of a committed transaction. A failing task does not affect
+   * the other tasks, nor the outcome of the already committed transaction.
+   */
+  private void runAfterCommitTasks(List<Runnable> afterCommitTasks) {
+    for (Runnable task : afterCommitTasks) {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        LOG.error("Unable to run a task after the transaction was committed", e);
+      }
+    }
+  }
+
   private void detailedLogForPersistenceError(Exception e) {
     if (e instanceof PersistenceException) {
       PersistenceException rbe = (PersistenceException) e;
@@ -24,8 +24,7 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 
@@ -54,6 +53,7 @@ import org.apache.ambari.server.orm.entities.AlertCurrentEntity_;
 import org.apache.ambari.server.orm.entities.AlertHistoryEntity;
 import org.apache.ambari.server.orm.entities.AlertHistoryEntity_;
 import org.apache.ambari.server.orm.entities.AlertNoticeEntity;
+import org.apache.ambari.server.state.AlertFirmness;
 import org.apache.ambari.server.state.AlertState;
 import org.apache.ambari.server.state.Cluster;
 import org.apache.ambari.server.state.Clusters;
@@ -66,6 +66,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
@@ -81,6 +82,12 @@ import com.google.inject.persist.Transactional;
  * periodically flushed. This means that many queries will need to swap in the
  * cached {@link AlertCurrentEntity} with that returned from the EclipseLink JPA
  * entity manager.
+ * <p/>
+ * Cache only updates are tracked as compact {@link PendingAlertUpdate}
+ * records keyed by alert ID. Repeated updates of the same alert between two
+ * flushes are coalesced into one record and a flush only writes the alerts
+ * which changed, loading them in bulk and letting the JDBC batch writer send
+ * the updates.
  */
 @Singleton
 @Experimental(feature = ExperimentalFeature.ALERT_CACHING)
@@ -150,6 +157,23 @@ public class AlertsDAO implements Cleanable {
    */
   private LoadingCache<AlertCacheKey, AlertCurrentEntity> m_currentAlertCache = null;
 
+  /**
+   * The cache only updates which have not been flushed to the database yet,
+   * by alert ID. Records are kept until they are flushed, even if the cached
+   * entity is evicted in the meantime.
+   */
+  private final ConcurrentMap<Long, PendingAlertUpdate> m_pendingAlertUpdates = new ConcurrentHashMap<>();
+
+  /**
+   * The number of alerts written by the last flush.
+   */
+  private volatile int m_lastFlushBatchSize = 0;
+
+  /**
+   * The age, in milliseconds, of the oldest update written by the last flush.
+   */
+  private volatile long m_lastFlushLag = 0;
+
   /**
    * Batch size to query the DB and use the results in an IN clause.
    */
@@ -196,6 +220,13 @@ public class AlertsDAO implements Cleanable {
                 throw new AlertNotYetCreatedException();
               }
 
+              // an evicted alert may still have updates which were not flushed
+              PendingAlertUpdate pendingUpdate = m_pendingAlertUpdates.get(
+                  alertCurrentEntity.getAlertId());
+              if (null != pendingUpdate) {
+                pendingUpdate.applyTo(alertCurrentEntity);
+              }
+
               return alertCurrentEntity;
             }
           });
@@ -1038,10 +1069,13 @@ public class AlertsDAO implements Cleanable {
     // perform the JPA merge
     alert = m_entityManagerProvider.get().merge(alert);
 
-    // if caching is enabled, update the cache
+    // if caching is enabled, update the cache; the alert is now written
     if( m_configuration.isAlertCacheEnabled() ){
       AlertCacheKey key = AlertCacheKey.build(alert);
       m_currentAlertCache.put(key, alert);
+      if (null != alert.getAlertId()) {
+        m_pendingAlertUpdates.remove(alert.getAlertId());
+      }
     }
 
     return alert;
@@ -1072,8 +1106,17 @@ public class AlertsDAO implements Cleanable {
             "Unable to update a cached alert instance for {} because cached alerts are not enabled",
             key);
       } else {
-        // update cache and return alert; no database work
+        // update cache and record the update for the next flush; no database
+        // work
         m_currentAlertCache.put(key, alert);
+        if (null == alert.getAlertId()) {
+          LOG.warn("The cached alert instance for {} cannot be flushed because it was never persisted",
+              key);
+        } else {
+          PendingAlertUpdate update = new PendingAlertUpdate(alert, System.currentTimeMillis());
+          m_pendingAlertUpdates.merge(alert.getAlertId(), update,
+              (previous, next) -> next.coalesce(previous));
+        }
         return alert;
       }
     }
@@ -1171,28 +1214,105 @@ public class AlertsDAO implements Cleanable {
   }
 
   /**
-   * Writes all cached {@link AlertCurrentEntity} instances to the database and
-   * clears the cache.
+   * Writes the pending cache only updates of {@link AlertCurrentEntity}
+   * instances to the database. Only alerts which changed since the last flush
+   * are written; the cached instances stay valid. Updates which could not be
+   * written are kept for the next flush unless the alert was updated again.
    */
-  @Transactional
   public void flushCachedEntitiesToJPA() {
     if (!m_configuration.isAlertCacheEnabled()) {
       LOG.warn("Unable to flush cached alerts to JPA because caching is not enabled");
       return;
     }
 
-    // capture for logging purposes
-    long cachedEntityCount = m_currentAlertCache.size();
+    long now = System.currentTimeMillis();
+    long oldestUpdate = now;
 
-    ConcurrentMap<AlertCacheKey, AlertCurrentEntity> map = m_currentAlertCache.asMap();
-    Set<Entry<AlertCacheKey, AlertCurrentEntity>> entries = map.entrySet();
-    for (Entry<AlertCacheKey, AlertCurrentEntity> entry : entries) {
-      merge(entry.getValue());
+    // claim the pending updates; updates arriving from now on are kept for the
+    // next flush
+    List<PendingAlertUpdate> updates = new ArrayList<>(m_pendingAlertUpdates.size());
+    for (PendingAlertUpdate update : m_pendingAlertUpdates.values()) {
+      if (m_pendingAlertUpdates.remove(update.m_alertId, update)) {
+        updates.add(update);
+        oldestUpdate = Math.min(oldestUpdate, update.m_firstUpdateTime);
+      }
     }
 
-    m_currentAlertCache.invalidateAll();
+    if (!updates.isEmpty()) {
+      try {
+        writePendingAlertUpdates(updates);
+      } catch (RuntimeException exception) {
+        for (PendingAlertUpdate update : updates) {
+          m_pendingAlertUpdates.putIfAbsent(update.m_alertId, update);
+        }
+        throw exception;
+      }
+    }
+
+    m_lastFlushBatchSize = updates.size();
+    m_lastFlushLag = now - oldestUpdate;
 
-    LOG.info("Flushed {} cached alerts to the database", cachedEntityCount);
+    LOG.info("Flushed {} cached alerts to the database", updates.size());
+  }
+
+  /**
+   * Writes the specified updates to their {@link AlertCurrentEntity} rows.
+   * The entities are loaded in batches of {@link #BATCH_SIZE} so that the
+   * updates are written when the transaction commits instead of one merge per
+   * alert.
+   *
+   * @param updates
+   *          the updates to write (not {@code null}).
+   */
+  @Transactional
+  void writePendingAlertUpdates(List<PendingAlertUpdate> updates) {
+    Map<Long, PendingAlertUpdate> updatesById = new HashMap<>();
+    for (PendingAlertUpdate update : updates) {
+      updatesById.put(update.m_alertId, update);
+    }
+
+    List<List<Long>> batches = Lists.partition(new ArrayList<>(updatesById.keySet()), BATCH_SIZE);
+    for (List<Long> batch : batches) {
+      TypedQuery<AlertCurrentEntity> query = m_entityManagerProvider.get().createNamedQuery(
+          "AlertCurrentEntity.findByAlertIds", AlertCurrentEntity.class);
+
+      query.setParameter("alertIds", batch);
+
+      for (AlertCurrentEntity alert : m_daoUtils.selectList(query)) {
+        updatesById.get(alert.getAlertId()).applyTo(alert);
+      }
+    }
+  }
+
+  /**
+   * Gets the number of alerts with cache only updates which have not been
+   * written to the database yet.
+   *
+   * @return the number of pending alert updates.
+   */
+  public int getPendingAlertUpdateCount() {
+    return m_pendingAlertUpdates.size();
+  }
+
+  /**
+   * Gets the number of alerts written by the last flush.
+   *
+   * @return the size of the last flush.
+   * @see #flushCachedEntitiesToJPA()
+   */
+  public int getLastFlushBatchSize() {
+    return m_lastFlushBatchSize;
+  }
+
+  /**
+   * Gets the time, in milliseconds, the oldest update written by the last
+   * flush waited to be written.
+   *
+   * @return the lag of the last flush.
+   * @see #flushCachedEntitiesToJPA()
+   */
+  public long getLastFlushLag() {
+    return m_lastFlushLag;
   }
 
   /**
@@ -1306,6 +1426,75 @@ public class AlertsDAO implements Cleanable {
     }
   }
 
+  /**
+   * The {@link PendingAlertUpdate} class holds the state of a cache only
+   * update of an {@link AlertCurrentEntity} until it is flushed. It only
+   * references the updatable columns instead of the entity graph.
+   */
+  static final class PendingAlertUpdate {
+    private final Long m_alertId;
+    private final Long m_latestTimestamp;
+    private final Long m_originalTimestamp;
+    private final String m_latestText;
+    private final Long m_occurrences;
+    private final AlertFirmness m_firmness;
+    private final MaintenanceState m_maintenanceState;
+
+    /**
+     * The time of the first update since the last flush.
+     */
+    private final long m_firstUpdateTime;
+
+    private PendingAlertUpdate(AlertCurrentEntity alert, long updateTime) {
+      this(alert.getAlertId(), alert.getLatestTimestamp(), alert.getOriginalTimestamp(),
+          alert.getLatestText(), alert.getOccurrences(), alert.getFirmness(),
+          alert.getMaintenanceState(), updateTime);
+    }
+
+    private PendingAlertUpdate(Long alertId, Long latestTimestamp, Long originalTimestamp,
+        String latestText, Long occurrences, AlertFirmness firmness,
+        MaintenanceState maintenanceState, long firstUpdateTime) {
+      m_alertId = alertId;
+      m_latestTimestamp = latestTimestamp;
+      m_originalTimestamp = originalTimestamp;
+      m_latestText = latestText;
+      m_occurrences = occurrences;
+      m_firmness = firmness;
+      m_maintenanceState = maintenanceState;
+      m_firstUpdateTime = firstUpdateTime;
+    }
+
+    /**
+     * Coalesces this update with a previous, not yet flushed update of the
+     * same alert.
+     *
+     * @param previous
+     *          the previous update (not {@code null}).
+     * @return an update with the state of this update and the update time of
+     *         the previous one.
+     */
+    private PendingAlertUpdate coalesce(PendingAlertUpdate previous) {
+      return new PendingAlertUpdate(m_alertId, m_latestTimestamp, m_originalTimestamp,
+          m_latestText, m_occurrences, m_firmness, m_maintenanceState,
+          previous.m_firstUpdateTime);
+    }
+
+    /**
+     * Copies the updated state onto the specified entity.
+     *
+     * @param alert
+     *          the entity to update (not {@code null}).
+     */
+    private void applyTo(AlertCurrentEntity alert) {
+      alert.setLatestTimestamp(m_latestTimestamp);
+      alert.setOriginalTimestamp(m_originalTimestamp);
+      alert.setLatestText(m_latestText);
+      alert.setOccurrences(m_occurrences);
+      alert.setFirmness(m_firmness);
+      alert.setMaintenanceState(m_maintenanceState);
+    }
+  }
+
   /**
    * The {@link AlertCacheKey} class is used as a key in the cache of
    * {@link AlertCurrentEntity}.
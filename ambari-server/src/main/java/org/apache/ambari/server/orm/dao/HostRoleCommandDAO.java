@@ -23,7 +23,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -56,6 +55,7 @@ import org.apache.ambari.server.controller.utilities.PredicateHelper;
 import org.apache.ambari.server.events.TaskCreateEvent;
 import org.apache.ambari.server.events.TaskUpdateEvent;
 import org.apache.ambari.server.events.publishers.TaskEventPublisher;
+import org.apache.ambari.server.orm.AmbariJpaLocalTxnInterceptor;
 import org.apache.ambari.server.orm.RequiresSession;
 import org.apache.ambari.server.orm.TransactionalLocks;
 import org.apache.ambari.server.orm.entities.HostEntity;
@@ -104,6 +104,12 @@ public class HostRoleCommandDAO {
       " GROUP BY hrc.requestId, hrc.stageId HAVING hrc.requestId = :requestId",
       HostRoleCommandStatusSummaryDTO.class.getName());
 
+  /**
+   * JPQL to get the state of the tasks of a request which is used to seed the
+   * {@link HostRoleCommandStatusCounters} of the request.
+   */
+  private static final String STATUS_COUNTERS_SQL = "SELECT hrc.taskId, hrc.stageId, hrc.status, hrc.startTime, hrc.endTime, hrc.stage.skippable FROM HostRoleCommandEntity hrc WHERE hrc.requestId = :requestId";
+
   /**
    * SQL template to get requests that have at least one task in any of the
    * specified statuses.
@@ -117,10 +123,13 @@ public class HostRoleCommandDAO {
   private static final String COMPLETED_REQUESTS_SQL = "SELECT DISTINCT task.requestId FROM HostRoleCommandEntity task WHERE task.requestId NOT IN (SELECT task.requestId FROM HostRoleCommandEntity task WHERE task.status IN :notCompletedStatuses) ORDER BY task.requestId {0}";
 
   /**
-   * A cache that holds {@link HostRoleCommandStatusSummaryDTO} grouped by stage
-   * id for requests by request id. The JPQL computing the host role command
-   * status summary for a request is rather expensive thus this cache helps
-   * reducing the load on the database.
+   * A cache that holds the {@link HostRoleCommandStatusCounters} of requests by
+   * request id. The JPQL computing the host role command status summary for a
+   * request is rather expensive thus the counters of a request are seeded from
+   * the database once and then updated in place on every task transition which
+   * is merged through this DAO, once the transaction of the transition is
+   * committed. Requests are seeded again after an invalidation, e.g. when tasks
+   * are created or removed, and when their entry expires.
    * <p/>
    * Methods which interact with this cache, including invalidation and
    * population, should use the {@link TransactionalLock} annotation along with
@@ -136,7 +145,7 @@ public class HostRoleCommandDAO {
    * last invalidation would not invalidate anything since the cache was empty
    * at the time.
    */
-  private final Cache<Long, Map<Long, HostRoleCommandStatusSummaryDTO>> hrcStatusSummaryCache;
+  private final Cache<Long, HostRoleCommandStatusCounters> hrcStatusSummaryCache;
 
   /**
    * Specifies whether caching for {@link HostRoleCommandStatusSummaryDTO} grouped by stage id for requests
@@ -230,6 +239,57 @@ public class HostRoleCommandDAO {
     }
   }
 
+  /**
+   * Applies the transition of the given
+   * {@link org.apache.ambari.server.orm.entities.HostRoleCommandEntity} to the
+   * status counters of its request once the transaction is committed, so that
+   * rolled back transitions are never counted. The entry of the request is
+   * invalidated if its counters do not know the task.
+   *
+   * @param hostRoleCommandEntity
+   */
+  protected void updateHostRoleCommandStatusSummaryCache(
+      HostRoleCommandEntity hostRoleCommandEntity) {
+    if (!hostRoleCommandStatusSummaryCacheEnabled) {
+      return;
+    }
+
+    final Long requestId = getRequestId(hostRoleCommandEntity);
+    if (requestId == null) {
+      return;
+    }
+
+    final Long taskId = hostRoleCommandEntity.getTaskId();
+    final HostRoleStatus status = hostRoleCommandEntity.getStatus();
+    final Long startTime = hostRoleCommandEntity.getStartTime();
+    final Long endTime = hostRoleCommandEntity.getEndTime();
+
+    AmbariJpaLocalTxnInterceptor.runAfterCommit(() -> {
+      HostRoleCommandStatusCounters counters = hrcStatusSummaryCache.getIfPresent(requestId);
+      if (null != counters && (null == taskId || !counters.updateTask(taskId, status, startTime, endTime))) {
+        invalidateHostRoleCommandStatusSummaryCache(requestId);
+      }
+    });
+  }
+
+  /**
+   * Gets the request id of the given entity, falling back to the request of
+   * its stage.
+   *
+   * @param hostRoleCommandEntity
+   * @return the request id or {@code null} if it is not known
+   */
+  private Long getRequestId(HostRoleCommandEntity hostRoleCommandEntity) {
+    Long requestId = hostRoleCommandEntity.getRequestId();
+    if (requestId == null) {
+      StageEntity stageEntity = hostRoleCommandEntity.getStage();
+      if (stageEntity != null) {
+        requestId = stageEntity.getRequestId();
+      }
+    }
+    return requestId;
+  }
+
   /**
    * Loads the counts of tasks for a request and groups them by stage id.
    * This allows for very efficient loading when there are a huge number of stages
@@ -265,6 +325,29 @@ public class HostRoleCommandDAO {
     return map;
   }
 
+  /**
+   * Seeds the status counters of a request from the state of its tasks.
+   *
+   * @param requestId the request id
+   * @return the status counters of the request
+   */
+  @RequiresSession
+  private HostRoleCommandStatusCounters loadStatusCounters(Long requestId) {
+    HostRoleCommandStatusCounters counters = new HostRoleCommandStatusCounters();
+
+    EntityManager entityManager = entityManagerProvider.get();
+    TypedQuery<Object[]> query = entityManager.createQuery(STATUS_COUNTERS_SQL, Object[].class);
+    query.setParameter("requestId", requestId);
+
+    for (Object[] task : daoUtils.selectList(query)) {
+      Number skippable = (Number) task[5];
+      counters.addTask((Long) task[0], (Long) task[1], skippable != null && skippable.intValue() != 0,
+          (HostRoleStatus) task[2], (Long) task[3], (Long) task[4]);
+    }
+
+    return counters;
+  }
+
   @Inject
   public HostRoleCommandDAO(
       @Named(HRC_STATUS_SUMMARY_CACHE_ENABLED) boolean hostRoleCommandStatusSummaryCacheEnabled,
@@ -656,7 +739,7 @@ public class HostRoleCommandDAO {
   public HostRoleCommandEntity mergeWithoutPublishEvent(HostRoleCommandEntity entity) {
     EntityManager entityManager = entityManagerProvider.get();
     entity = entityManager.merge(entity);
-    invalidateHostRoleCommandStatusSummaryCache(entity);
+    updateHostRoleCommandStatusSummaryCache(entity);
     return entity;
   }
 
@@ -671,25 +754,15 @@ public class HostRoleCommandDAO {
   @Transactional
   @TransactionalLock(lockArea = LockArea.HRC_STATUS_CACHE, lockType = LockType.WRITE)
   public List<HostRoleCommandEntity> mergeAll(Collection<HostRoleCommandEntity> entities) {
-    Set<Long> requestsToInvalidate = new LinkedHashSet<>();
     List<HostRoleCommandEntity> managedList = new ArrayList<>(entities.size());
     for (HostRoleCommandEntity entity : entities) {
       EntityManager entityManager = entityManagerProvider.get();
       entity = entityManager.merge(entity);
       managedList.add(entity);
 
-      Long requestId = entity.getRequestId();
-      if (requestId == null) {
-        StageEntity stageEntity = entity.getStage();
-        if (stageEntity != null) {
-          requestId = stageEntity.getRequestId();
-        }
-      }
-
-      requestsToInvalidate.add(requestId);
+      updateHostRoleCommandStatusSummaryCache(entity);
     }
 
-    invalidateHostRoleCommandStatusSummaryCache(requestsToInvalidate);
     publishTaskUpdateEvent(getHostRoleCommands(entities));
     return managedList;
   }
@@ -751,9 +824,9 @@ public class HostRoleCommandDAO {
 
   /**
    * Finds the counts of tasks for a request and groups them by stage id. If
-   * caching is enabled, this will first consult the cache. Cache misses will
-   * then defer to loading the data from the database and then caching the
-   * result.
+   * caching is enabled, the counts are taken from the live status counters of
+   * the request. Cache misses will seed the counters from the database and
+   * then cache them.
    *
    * @param requestId
    *          the request id
@@ -765,21 +838,19 @@ public class HostRoleCommandDAO {
       return loadAggregateCounts(requestId);
     }
 
-    Map<Long, HostRoleCommandStatusSummaryDTO> map = hrcStatusSummaryCache.getIfPresent(requestId);
-    if (null != map) {
-      return map;
-    }
-
     // ensure that we wait for any running transactions working on this cache to
-    // complete
+    // complete, so that transitions which are not committed yet are not read
     ReadWriteLock lock = transactionLocks.getLock(LockArea.HRC_STATUS_CACHE);
     lock.readLock().lock();
 
     try {
-      map = loadAggregateCounts(requestId);
-      hrcStatusSummaryCache.put(requestId, map);
+      HostRoleCommandStatusCounters counters = hrcStatusSummaryCache.getIfPresent(requestId);
+      if (null == counters) {
+        counters = loadStatusCounters(requestId);
+        hrcStatusSummaryCache.put(requestId, counters);
+      }
 
-      return map;
+      return counters.getSummaries();
     } finally {
       lock.readLock().unlock();
     }
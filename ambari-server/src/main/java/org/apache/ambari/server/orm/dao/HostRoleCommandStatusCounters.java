@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.orm.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ambari.server.actionmanager.HostRoleStatus;
+
+/**
+ * Live task status counters of the stages of a single request.
+ * <p/>
+ * The counters are seeded once from the tasks of the request and then kept up
+ * to date with every task transition, so that the
+ * {@link HostRoleCommandStatusSummaryDTO}s of a running request can be built
+ * without running the summary query again.  A transition of a task which is
+ * not known to the counters, i.e. of a task created after the seeding, is
+ * rejected; the counters must then be seeded again.
+ */
+class HostRoleCommandStatusCounters {
+
+  /**
+   * The counters by stage id.
+   */
+  private final Map<Long, StageCounters> stages = new HashMap<>();
+
+  /**
+   * The tasks by task id.
+   */
+  private final Map<Long, Task> tasks = new HashMap<>();
+
+  /**
+   * The summaries built from the current counters; null after a transition
+   * until they are built again.
+   */
+  private Map<Long, HostRoleCommandStatusSummaryDTO> summaries;
+
+
+  // ----- HostRoleCommandStatusCounters -------------------------------------
+
+  /**
+   * Seed the counters with a task of the request.
+   *
+   * @param taskId     the task id
+   * @param stageId    the stage id of the task
+   * @param skippable  whether the stage of the task is skippable
+   * @param status     the status of the task
+   * @param startTime  the start time of the task; may be null
+   * @param endTime    the end time of the task; may be null
+   */
+  synchronized void addTask(long taskId, long stageId, boolean skippable, HostRoleStatus status,
+                            Long startTime, Long endTime) {
+    StageCounters stage = stages.computeIfAbsent(stageId, id -> new StageCounters(id, skippable));
+    Task task = new Task(stage, status, startTime, endTime);
+
+    tasks.put(taskId, task);
+    stage.counts[status.ordinal()]++;
+    stage.tasks.put(taskId, task);
+    summaries = null;
+  }
+
+  /**
+   * Apply the transition of a task.
+   *
+   * @param taskId     the task id
+   * @param status     the new status of the task
+   * @param startTime  the new start time of the task; may be null
+   * @param endTime    the new end time of the task; may be null
+   *
+   * @return false if the task is not known to the counters
+   */
+  synchronized boolean updateTask(long taskId, HostRoleStatus status, Long startTime, Long endTime) {
+    Task task = tasks.get(taskId);
+    if (task == null) {
+      return false;
+    }
+
+    int[] counts = task.stage.counts;
+    counts[task.status.ordinal()]--;
+    counts[status.ordinal()]++;
+
+    task.status    = status;
+    task.startTime = startTime;
+    task.endTime   = endTime;
+    summaries = null;
+    return true;
+  }
+
+  /**
+   * Get the summaries of the stages of the request.
+   *
+   * @return the summaries by stage id
+   */
+  synchronized Map<Long, HostRoleCommandStatusSummaryDTO> getSummaries() {
+    if (summaries == null) {
+      Map<Long, HostRoleCommandStatusSummaryDTO> map = new HashMap<>();
+      for (StageCounters stage : stages.values()) {
+        map.put(stage.stageId, stage.toSummary());
+      }
+      summaries = map;
+    }
+    return summaries;
+  }
+
+
+  // ----- StageCounters inner class -----------------------------------------
+
+  /**
+   * The counters of a stage.
+   */
+  private static final class StageCounters {
+    private final long stageId;
+    private final boolean skippable;
+    private final int[] counts = new int[HostRoleStatus.values().length];
+    private final Map<Long, Task> tasks = new HashMap<>();
+
+    private StageCounters(long stageId, boolean skippable) {
+      this.stageId   = stageId;
+      this.skippable = skippable;
+    }
+
+    /**
+     * Build the summary of the stage the same way the summary query does.
+     */
+    private HostRoleCommandStatusSummaryDTO toSummary() {
+      Long minStartTime = null;
+      Long maxEndTime = null;
+      for (Task task : tasks.values()) {
+        if (task.startTime != null && (minStartTime == null || task.startTime < minStartTime)) {
+          minStartTime = task.startTime;
+        }
+        if (task.endTime != null && (maxEndTime == null || task.endTime > maxEndTime)) {
+          maxEndTime = task.endTime;
+        }
+      }
+
+      return new HostRoleCommandStatusSummaryDTO(
+          skippable ? 1 : 0,
+          minStartTime,
+          maxEndTime,
+          stageId,
+          count(HostRoleStatus.ABORTED),
+          count(HostRoleStatus.COMPLETED),
+          count(HostRoleStatus.FAILED),
+          count(HostRoleStatus.HOLDING),
+          count(HostRoleStatus.HOLDING_FAILED),
+          count(HostRoleStatus.HOLDING_TIMEDOUT),
+          count(HostRoleStatus.IN_PROGRESS),
+          count(HostRoleStatus.PENDING),
+          count(HostRoleStatus.QUEUED),
+          count(HostRoleStatus.TIMEDOUT),
+          count(HostRoleStatus.SKIPPED_FAILED));
+    }
+
+    private Integer count(HostRoleStatus status) {
+      return counts[status.ordinal()];
+    }
+  }
+
+
+  // ----- Task inner class --------------------------------------------------
+
+  /**
+   * The state of a task which is relevant to the summary of its stage.
+   */
+  private static final class Task {
+    private final StageCounters stage;
+    private HostRoleStatus status;
+    private Long startTime;
+    private Long endTime;
+
+    private Task(StageCounters stage, HostRoleStatus status, Long startTime, Long endTime) {
+      this.stage     = stage;
+      this.status    = status;
+      this.startTime = startTime;
+      this.endTime   = endTime;
+    }
+  }
+}
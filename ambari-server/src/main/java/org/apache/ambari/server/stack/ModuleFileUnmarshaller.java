@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
@@ -62,7 +63,7 @@ public class ModuleFileUnmarshaller {
    * Map of class to JAXB context
    */
   private static final Map<Class<?>, JAXBContext> jaxbContexts = new HashMap<>();
-  private static final Map<String, Schema> jaxbSchemas = new HashMap<>();
+  private static final Map<String, Schema> jaxbSchemas = new ConcurrentHashMap<>();
 
 
   /**
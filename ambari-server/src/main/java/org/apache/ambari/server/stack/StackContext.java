@@ -145,12 +145,15 @@ public class StackContext {
     }
 
     /**
+     * Stack modules are built concurrently, so tasks may be added from
+     * several threads.
+     *
      * @param uri
      *          uri to load
      * @param stackModule
      *          the stack module
      */
-    public void addTask(URI uri, StackModule stackModule) {
+    public synchronized void addTask(URI uri, StackModule stackModule) {
       RepoUrlInfoCallable callable = null;
       if (tasks.containsKey(uri)) {
         callable = tasks.get(uri);
@@ -23,9 +23,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nullable;
 import javax.xml.XMLConstants;
@@ -55,6 +61,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
+import com.google.common.base.Throwables;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 
@@ -117,6 +124,46 @@ public class StackManager {
 
   private AmbariManagementHelper helper;
 
+  /**
+   * Number of threads used to parse the stack, common service and extension
+   * folders, the folders are parsed on the calling thread if it is 1.
+   */
+  private final int parseThreads;
+
+  /**
+   * Constructor. Initialize stack manager, parsing the stack definitions with
+   * the number of threads configured by {@link Configuration#STACK_PARSING_THREADS}.
+   *
+   * @throws AmbariException
+   *           if an exception occurs while processing the stacks
+   */
+  @AssistedInject
+  public StackManager(@Assisted("stackRoot") File stackRoot,
+      @Assisted("commonServicesRoot") @Nullable File commonServicesRoot,
+      @Assisted("extensionRoot") @Nullable File extensionRoot,
+      @Assisted OsFamily osFamily, @Assisted boolean validate,
+      MetainfoDAO metaInfoDAO, ActionMetadata actionMetadata, StackDAO stackDao,
+      ExtensionDAO extensionDao, ExtensionLinkDAO linkDao, AmbariManagementHelper helper,
+      Configuration configuration) throws AmbariException {
+    this(stackRoot, commonServicesRoot, extensionRoot, osFamily, validate, metaInfoDAO, actionMetadata, stackDao,
+        extensionDao, linkDao, helper, configuration.getStackParsingThreads());
+  }
+
+  /**
+   * Constructor. Initialize stack manager, parsing the stack definitions with
+   * one thread per available processor.
+   *
+   * @throws AmbariException
+   *           if an exception occurs while processing the stacks
+   */
+  public StackManager(File stackRoot, @Nullable File commonServicesRoot, @Nullable File extensionRoot,
+      OsFamily osFamily, boolean validate, MetainfoDAO metaInfoDAO, ActionMetadata actionMetadata,
+      StackDAO stackDao, ExtensionDAO extensionDao, ExtensionLinkDAO linkDao, AmbariManagementHelper helper)
+      throws AmbariException {
+    this(stackRoot, commonServicesRoot, extensionRoot, osFamily, validate, metaInfoDAO, actionMetadata, stackDao,
+        extensionDao, linkDao, helper, Runtime.getRuntime().availableProcessors());
+  }
+
   /**
    * Constructor. Initialize stack manager.
    *
@@ -140,26 +187,28 @@ public class StackManager {
    *          extension link DAO automatically injected
    * @param helper
    *          Ambari management helper automatically injected
+   * @param parseThreads
+   *          number of threads parsing the stack definitions
    *
    * @throws AmbariException
    *           if an exception occurs while processing the stacks
    */
-  @AssistedInject
-  public StackManager(@Assisted("stackRoot") File stackRoot,
-      @Assisted("commonServicesRoot") @Nullable File commonServicesRoot,
-      @Assisted("extensionRoot") @Nullable File extensionRoot,
-      @Assisted OsFamily osFamily, @Assisted boolean validate,
-      MetainfoDAO metaInfoDAO, ActionMetadata actionMetadata, StackDAO stackDao,
-      ExtensionDAO extensionDao, ExtensionLinkDAO linkDao, AmbariManagementHelper helper)
-      throws AmbariException {
+  StackManager(File stackRoot, @Nullable File commonServicesRoot, @Nullable File extensionRoot,
+      OsFamily osFamily, boolean validate, MetainfoDAO metaInfoDAO, ActionMetadata actionMetadata,
+      StackDAO stackDao, ExtensionDAO extensionDao, ExtensionLinkDAO linkDao, AmbariManagementHelper helper,
+      int parseThreads) throws AmbariException {
 
     LOG.info("Initializing the stack manager...");
 
+    this.parseThreads = parseThreads;
+
+    long startTime = System.currentTimeMillis();
     if (validate) {
       validateStackDirectory(stackRoot);
       validateCommonServicesDirectory(commonServicesRoot);
       validateExtensionDirectory(extensionRoot);
     }
+    long validateTime = System.currentTimeMillis();
 
     stackMap = new HashMap<>();
     stackContext = new StackContext(metaInfoDAO, actionMetadata, osFamily);
@@ -167,6 +216,7 @@ public class StackManager {
     this.helper = helper;
 
     parseDirectories(stackRoot, commonServicesRoot, extensionRoot);
+    long parseTime = System.currentTimeMillis();
 
     //Read the extension links from the DB
     for (StackModule module : stackModules.values()) {
@@ -187,10 +237,22 @@ public class StackManager {
     }
 
     fullyResolveCommonServices(stackModules, commonServiceModules, extensionModules);
+    long resolveCommonServicesTime = System.currentTimeMillis();
     fullyResolveExtensions(stackModules, commonServiceModules, extensionModules);
+    long resolveExtensionsTime = System.currentTimeMillis();
     fullyResolveStacks(stackModules, commonServiceModules, extensionModules);
+    long resolveStacksTime = System.currentTimeMillis();
 
     populateDB(stackDao, extensionDao);
+    long populateDBTime = System.currentTimeMillis();
+
+    LOG.info("Initialized the stack manager with {} stacks, {} common services and {} extensions in {} ms " +
+        "(validate: {} ms, parse: {} ms, resolve common services: {} ms, resolve extensions: {} ms, " +
+        "resolve stacks: {} ms, populate database: {} ms)",
+        stackModules.size(), commonServiceModules.size(), extensionModules.size(), populateDBTime - startTime,
+        validateTime - startTime, parseTime - validateTime, resolveCommonServicesTime - parseTime,
+        resolveExtensionsTime - resolveCommonServicesTime, resolveStacksTime - resolveExtensionsTime,
+        populateDBTime - resolveStacksTime);
   }
 
   protected void parseDirectories(File stackRoot, File commonServicesRoot, File extensionRoot) throws AmbariException {
@@ -568,38 +630,55 @@ public class StackManager {
     Map<String, ServiceModule> commonServiceModules = new HashMap<>();
 
     if(commonServicesRoot != null) {
+      List<File> serviceFolders = new ArrayList<>();
       File[] commonServiceFiles = commonServicesRoot.listFiles(StackDirectory.FILENAME_FILTER);
       for (File commonService : commonServiceFiles) {
         if (commonService.isFile()) {
           continue;
         }
         for (File serviceFolder : commonService.listFiles(StackDirectory.FILENAME_FILTER)) {
-          String serviceName = serviceFolder.getParentFile().getName();
-          String serviceVersion = serviceFolder.getName();
-          ServiceDirectory serviceDirectory = new CommonServiceDirectory(serviceFolder.getPath());
-          ServiceMetainfoXml metaInfoXml = serviceDirectory.getMetaInfoFile();
-          if (metaInfoXml != null) {
-            if (metaInfoXml.isValid()) {
-              for (ServiceInfo serviceInfo : metaInfoXml.getServices()) {
-                ServiceModule serviceModule = new ServiceModule(stackContext, serviceInfo, serviceDirectory, true);
-
-                String commonServiceKey = serviceInfo.getName() + StackManager.PATH_DELIMITER + serviceInfo.getVersion();
-                commonServiceModules.put(commonServiceKey, serviceModule);
-              }
-            } else {
-              ServiceModule serviceModule = new ServiceModule(stackContext, new ServiceInfo(), serviceDirectory, true);
-              serviceModule.setValid(false);
-              serviceModule.addErrors(metaInfoXml.getErrors());
-              commonServiceModules.put(metaInfoXml.getSchemaVersion(), serviceModule);
-              metaInfoXml.setSchemaVersion(null);
-            }
-          }
+          serviceFolders.add(serviceFolder);
         }
       }
+
+      for (Map<String, ServiceModule> serviceModules : parseFolders(serviceFolders, this::parseCommonServiceFolder)) {
+        commonServiceModules.putAll(serviceModules);
+      }
     }
     return commonServiceModules;
   }
 
+  /**
+   * Parse the specified common service version folder.
+   *
+   * @param serviceFolder  the common service version folder to parse
+   * @return map of common service id which contains name and version to common service module.
+   * @throws AmbariException if unable to parse the common service
+   */
+  private Map<String, ServiceModule> parseCommonServiceFolder(File serviceFolder) throws AmbariException {
+    Map<String, ServiceModule> serviceModules = new LinkedHashMap<>();
+
+    ServiceDirectory serviceDirectory = new CommonServiceDirectory(serviceFolder.getPath());
+    ServiceMetainfoXml metaInfoXml = serviceDirectory.getMetaInfoFile();
+    if (metaInfoXml != null) {
+      if (metaInfoXml.isValid()) {
+        for (ServiceInfo serviceInfo : metaInfoXml.getServices()) {
+          ServiceModule serviceModule = new ServiceModule(stackContext, serviceInfo, serviceDirectory, true);
+
+          String commonServiceKey = serviceInfo.getName() + StackManager.PATH_DELIMITER + serviceInfo.getVersion();
+          serviceModules.put(commonServiceKey, serviceModule);
+        }
+      } else {
+        ServiceModule serviceModule = new ServiceModule(stackContext, new ServiceInfo(), serviceDirectory, true);
+        serviceModule.setValid(false);
+        serviceModule.addErrors(metaInfoXml.getErrors());
+        serviceModules.put(metaInfoXml.getSchemaVersion(), serviceModule);
+        metaInfoXml.setSchemaVersion(null);
+      }
+    }
+    return serviceModules;
+  }
+
   /**
    * Parse the specified stack root directory
    *
@@ -610,6 +689,7 @@ public class StackManager {
   private Map<String, StackModule> parseStackDirectory(File stackRoot) throws AmbariException {
     Map<String, StackModule> stackModules = new HashMap<>();
 
+    List<File> stackFolders = new ArrayList<>();
     File[] stackFiles = stackRoot.listFiles(StackDirectory.FILENAME_FILTER);
     for (File stack : stackFiles) {
       if (stack.isFile()) {
@@ -619,16 +699,24 @@ public class StackManager {
         if (stackFolder.isFile()) {
           continue;
         }
-        String stackName = stackFolder.getParentFile().getName();
-        String stackVersion = stackFolder.getName();
-
-        StackModule stackModule = new StackModule(new StackDirectory(stackFolder.getPath()), stackContext);
-        String stackKey = stackName + StackManager.PATH_DELIMITER + stackVersion;
-        stackModules.put(stackKey, stackModule);
-        stackMap.put(stackKey, stackModule.getModuleInfo());
+        stackFolders.add(stackFolder);
       }
     }
 
+    List<StackModule> parsedModules = parseFolders(stackFolders,
+        stackFolder -> new StackModule(new StackDirectory(stackFolder.getPath()), stackContext));
+
+    for (int i = 0; i < stackFolders.size(); i++) {
+      File stackFolder = stackFolders.get(i);
+      String stackName = stackFolder.getParentFile().getName();
+      String stackVersion = stackFolder.getName();
+
+      StackModule stackModule = parsedModules.get(i);
+      String stackKey = stackName + StackManager.PATH_DELIMITER + stackVersion;
+      stackModules.put(stackKey, stackModule);
+      stackMap.put(stackKey, stackModule.getModuleInfo());
+    }
+
     if (stackMap.isEmpty()) {
       throw new AmbariException("Unable to find stack definitions under " +
           "stackRoot = " + stackRoot.getAbsolutePath());
@@ -656,6 +744,7 @@ public class StackManager {
     if (extensionRoot == null || !extensionRoot.exists())
       return extensionModules;
 
+    List<File> extensionFolders = new ArrayList<>();
     File[] extensionFiles = extensionRoot.listFiles(StackDirectory.FILENAME_FILTER);
     for (File extensionNameFolder : extensionFiles) {
       if (extensionNameFolder.isFile()) {
@@ -665,20 +754,91 @@ public class StackManager {
         if (extensionVersionFolder.isFile()) {
           continue;
         }
-        String extensionName = extensionNameFolder.getName();
-        String extensionVersion = extensionVersionFolder.getName();
-
-        ExtensionModule extensionModule = new ExtensionModule(new ExtensionDirectory(extensionVersionFolder.getPath()), stackContext);
-        String extensionKey = extensionName + StackManager.PATH_DELIMITER + extensionVersion;
-        extensionModules.put(extensionKey, extensionModule);
-        extensionMap.put(extensionKey, extensionModule.getModuleInfo());
+        extensionFolders.add(extensionVersionFolder);
       }
     }
 
+    List<ExtensionModule> parsedModules = parseFolders(extensionFolders,
+        extensionFolder -> new ExtensionModule(new ExtensionDirectory(extensionFolder.getPath()), stackContext));
+
+    for (int i = 0; i < extensionFolders.size(); i++) {
+      File extensionVersionFolder = extensionFolders.get(i);
+      String extensionName = extensionVersionFolder.getParentFile().getName();
+      String extensionVersion = extensionVersionFolder.getName();
+
+      ExtensionModule extensionModule = parsedModules.get(i);
+      String extensionKey = extensionName + StackManager.PATH_DELIMITER + extensionVersion;
+      extensionModules.put(extensionKey, extensionModule);
+      extensionMap.put(extensionKey, extensionModule.getModuleInfo());
+    }
+
     if (stackMap.isEmpty()) {
       throw new AmbariException("Unable to find extension definitions under " +
           "extensionRoot = " + extensionRoot.getAbsolutePath());
     }
     return extensionModules;
   }
+
+  /**
+   * Parse the specified folders on a fork-join pool.  Parsing a folder unmarshals all of
+   * the definition files beneath it, which is where most of the stack loading time is
+   * spent; the folders do not depend on each other until they are resolved.  With a
+   * single parse thread the folders are parsed one by one on the calling thread.
+   *
+   * @param folders  the folders to parse
+   * @param parser   parses a single folder
+   * @return the parse results in the order of the specified folders
+   * @throws AmbariException if unable to parse any of the folders
+   */
+  private <T> List<T> parseFolders(List<File> folders, FolderParser<T> parser) throws AmbariException {
+    if (parseThreads <= 1 || folders.size() <= 1) {
+      List<T> results = new ArrayList<>(folders.size());
+      for (File folder : folders) {
+        results.add(parser.parse(folder));
+      }
+      return results;
+    }
+
+    List<Callable<T>> tasks = new ArrayList<>(folders.size());
+    for (File folder : folders) {
+      tasks.add(() -> parser.parse(folder));
+    }
+
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    ForkJoinPool pool = new ForkJoinPool(Math.min(parseThreads, folders.size()), forkJoinPool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+      thread.setName("Stack Parsing Thread-" + thread.getPoolIndex());
+      thread.setContextClassLoader(classLoader);
+      return thread;
+    }, null, false);
+
+    try {
+      List<T> results = new ArrayList<>(folders.size());
+      for (Future<T> future : pool.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AmbariException("Interrupted while parsing the stack definitions", e);
+    } catch (ExecutionException e) {
+      // the fork-join pool wraps checked exceptions of the tasks
+      for (Throwable cause : Throwables.getCausalChain(e)) {
+        if (cause instanceof AmbariException) {
+          throw (AmbariException) cause;
+        }
+      }
+      Throwables.propagateIfPossible(e.getCause());
+      throw new AmbariException("Unable to parse the stack definitions", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Parses a single stack, common service or extension folder.
+   */
+  private interface FolderParser<T> {
+    T parse(File folder) throws AmbariException;
+  }
 }
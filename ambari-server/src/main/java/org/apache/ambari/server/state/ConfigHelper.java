@@ -31,7 +31,6 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.agent.stomp.AgentConfigsHolder;
@@ -54,9 +53,6 @@ import org.apache.commons.lang.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Objects;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -75,15 +71,17 @@ public class ConfigHelper {
   private static final String DELETED = "DELETED_";
   public static final String CLUSTER_DEFAULT_TAG = "tag";
   private final boolean STALE_CONFIGS_CACHE_ENABLED;
-  private final int STALE_CONFIGS_CACHE_EXPIRATION_TIME;
 
   /**
-   * Cache for storing stale config flags. Key for cache is hash of [actualConfigs, desiredConfigs, hostName, serviceName,
-   * componentName].
+   * Index of the stale config types and refresh commands of host components.
    */
-  private final Cache<Integer, Boolean> staleConfigsCache;
+  private final StaleConfigsIndex staleConfigsIndex = new StaleConfigsIndex();
 
-  private final Cache<Integer, String> refreshConfigCommandCache;
+  /**
+   * Merged effective configurations shared by the hosts with the same
+   * effective desired tags.
+   */
+  private final EffectiveConfigSnapshots effectiveConfigSnapshots = new EffectiveConfigSnapshots();
 
   private static final Logger LOG =
       LoggerFactory.getLogger(ConfigHelper.class);
@@ -132,12 +130,6 @@ public class ConfigHelper {
     ambariMetaInfo = metaInfo;
     this.clusterDAO = clusterDAO;
     STALE_CONFIGS_CACHE_ENABLED = configuration.isStaleConfigCacheEnabled();
-    STALE_CONFIGS_CACHE_EXPIRATION_TIME = configuration.staleConfigCacheExpiration();
-    staleConfigsCache = CacheBuilder.newBuilder().
-        expireAfterWrite(STALE_CONFIGS_CACHE_EXPIRATION_TIME, TimeUnit.SECONDS).build();
-
-    refreshConfigCommandCache = CacheBuilder.newBuilder().
-            expireAfterWrite(STALE_CONFIGS_CACHE_EXPIRATION_TIME, TimeUnit.SECONDS).build();
   }
 
   /**
@@ -278,6 +270,48 @@ public class ConfigHelper {
 
     Map<String, Map<String, String>> properties = new HashMap<>();
 
+    if (desiredTags != null && !desiredTags.isEmpty()) {
+      getEffectiveConfigSnapshot(cluster, desiredTags).getProperties().forEach(
+          (type, typeProperties) -> properties.put(type, new HashMap<>(typeProperties)));
+    }
+
+    return properties;
+  }
+
+  /**
+   * Get the merged effective configurations of the given tags, shared by all
+   * of the hosts with the same tags.
+   *
+   * @param cluster      the cluster
+   * @param desiredTags  the effective desired tags
+   * @return the immutable snapshot of the configurations
+   */
+  private EffectiveConfigSnapshots.Snapshot getEffectiveConfigSnapshot(
+      Cluster cluster, Map<String, Map<String, String>> desiredTags) {
+    return effectiveConfigSnapshots.getSnapshot(cluster.getClusterId(), desiredTags,
+        tags -> new EffectiveConfigSnapshots.Snapshot(mergeConfigProperties(cluster, tags),
+            mergeConfigAttributes(cluster, tags)));
+  }
+
+  /**
+   * Discards the merged effective configurations of the given cluster, e.g.
+   * when the properties of a config change without a new tag.
+   *
+   * @param clusterId  the cluster id
+   */
+  public void invalidateEffectiveConfigs(long clusterId) {
+    effectiveConfigSnapshots.invalidate(clusterId);
+  }
+
+  /**
+   * Merges the cluster config properties of the given tags with the config
+   * group overrides.
+   */
+  private Map<String, Map<String, String>> mergeConfigProperties(
+      Cluster cluster, Map<String, Map<String, String>> desiredTags) {
+
+    Map<String, Map<String, String>> properties = new HashMap<>();
+
     if (desiredTags != null) {
       for (Entry<String, Map<String, String>> entry : desiredTags.entrySet()) {
         String type = entry.getKey();
@@ -328,6 +362,26 @@ public class ConfigHelper {
 
     Map<String, Map<String, Map<String, String>>> attributes = new HashMap<>();
 
+    if (desiredTags != null && !desiredTags.isEmpty()) {
+      getEffectiveConfigSnapshot(cluster, desiredTags).getAttributes().forEach((type, typeAttributes) -> {
+        Map<String, Map<String, String>> attributesMap = new TreeMap<>();
+        cloneAttributesMap(typeAttributes, attributesMap);
+        attributes.put(type, attributesMap);
+      });
+    }
+
+    return attributes;
+  }
+
+  /**
+   * Merges the cluster config attributes of the given tags with the config
+   * group overrides.
+   */
+  private Map<String, Map<String, Map<String, String>>> mergeConfigAttributes(
+      Cluster cluster, Map<String, Map<String, String>> desiredTags) {
+
+    Map<String, Map<String, Map<String, String>>> attributes = new HashMap<>();
+
     if (desiredTags != null) {
       for (Entry<String, Map<String, String>> entry : desiredTags.entrySet()) {
 
@@ -1380,24 +1434,15 @@ public class ConfigHelper {
     Map<String, Map<String, String>> desired = getEffectiveDesiredTags(cluster, sch.getHostName(),
             desiredConfigs);
 
-    Boolean stale = null;
-    int staleHash = 0;
-    if (STALE_CONFIGS_CACHE_ENABLED){
-      staleHash = Objects.hashCode(actual.hashCode(),
-              desired.hashCode(),
-              sch.getHostName(),
-              sch.getServiceComponentName(),
-              sch.getServiceName());
-      stale = staleConfigsCache.getIfPresent(staleHash);
-      if(stale != null) {
-        return stale;
+    StackId stackId = sch.getServiceComponent().getDesiredStackId();
+
+    if (STALE_CONFIGS_CACHE_ENABLED) {
+      StaleConfigsIndex.Entry entry = staleConfigsIndex.get(sch, actual, desired, stackId);
+      if (entry != null) {
+        return entry.isStale();
       }
     }
 
-    stale = false;
-
-    StackId stackId = sch.getServiceComponent().getDesiredStackId();
-
     StackInfo stackInfo = ambariMetaInfo.getStack(stackId);
 
     ServiceInfo serviceInfo = ambariMetaInfo.getService(stackId.getStackName(),
@@ -1415,6 +1460,7 @@ public class ConfigHelper {
 
     Iterator<Entry<String, Map<String, String>>> it = desired.entrySet().iterator();
     List<String> changedProperties = new LinkedList<>();
+    Set<String> staleTypes = new HashSet<>();
 
     while (it.hasNext()) {
       boolean staleEntry = false;
@@ -1441,16 +1487,16 @@ public class ConfigHelper {
           }
         }
       }
-      stale = stale | staleEntry;
+      if (staleEntry) {
+        staleTypes.add(type);
+      }
     }
-    
+    boolean stale = !staleTypes.isEmpty();
+
     String refreshCommand = calculateRefreshCommand(stackInfo.getRefreshCommandConfiguration(), sch, changedProperties);
 
     if (STALE_CONFIGS_CACHE_ENABLED) {
-      staleConfigsCache.put(staleHash, stale);
-      if (refreshCommand != null) {
-        refreshConfigCommandCache.put(staleHash, refreshCommand);
-      }
+      staleConfigsIndex.put(sch, actual, desired, stackId, staleTypes, refreshCommand);
     }
 
     // gather all changed properties and see if we can find a common refreshConfigs command for this component
@@ -1477,16 +1523,25 @@ public class ConfigHelper {
     if (STALE_CONFIGS_CACHE_ENABLED) {
       Map<String, Map<String, String>> desired = getEffectiveDesiredTags(cluster, sch.getHostName(),
               cluster.getDesiredConfigs());
-      int staleHash = Objects.hashCode(actual.hashCode(),
-              desired.hashCode(),
-              sch.getHostName(),
-              sch.getServiceComponentName(),
-              sch.getServiceName());
-      refreshCommand = refreshConfigCommandCache.getIfPresent(staleHash);
+      StaleConfigsIndex.Entry entry = staleConfigsIndex.get(sch, actual, desired,
+              sch.getServiceComponent().getDesiredStackId());
+      if (entry != null) {
+        refreshCommand = entry.getRefreshCommand();
+      }
     }
     return refreshCommand;
   }
 
+  /**
+   * Discards the indexed stale config types of the given host component, e.g.
+   * when its actual configs change.
+   *
+   * @param sch  the host component
+   */
+  public void invalidateStaleConfigs(ServiceComponentHost sch) {
+    staleConfigsIndex.invalidate(sch);
+  }
+
 
   /**
    * Calculates refresh command for a set of changed properties as follows:
@@ -1713,23 +1768,19 @@ public class ConfigHelper {
 
     Host host = clusters.getHostById(hostId);
     for (Cluster cl : clusters.getClusters().values()) {
-      Map<String, Map<String, String>> configurations = new HashMap<>();
-      Map<String, Map<String, Map<String, String>>> configurationAttributes = new HashMap<>();
       Map<String, DesiredConfig> clusterDesiredConfigs = cl.getDesiredConfigs();
 
       Map<String, Map<String, String>> configTags =
           getEffectiveDesiredTags(cl, host.getHostName(), clusterDesiredConfigs);
 
-      getAndMergeHostConfigs(configurations, configTags, cl);
-      getAndMergeHostConfigAttributes(configurationAttributes, configTags, cl);
-
-      // remove empty entries
-      configurations.entrySet().removeIf(e -> e.getValue().isEmpty());
-      configurationAttributes.entrySet().removeIf(e -> e.getValue().isEmpty());
-
-      SortedMap<String, SortedMap<String, String>> configurationsTreeMap = sortConfigutations(configurations);
-      SortedMap<String, SortedMap<String, SortedMap<String, String>>> configurationAttributesTreeMap =
-          sortConfigurationAttributes(configurationAttributes);
+      // hosts with the same tags share the immutable, sorted configurations
+      SortedMap<String, SortedMap<String, String>> configurationsTreeMap = new TreeMap<>();
+      SortedMap<String, SortedMap<String, SortedMap<String, String>>> configurationAttributesTreeMap = new TreeMap<>();
+      if (!configTags.isEmpty()) {
+        EffectiveConfigSnapshots.Snapshot snapshot = getEffectiveConfigSnapshot(cl, configTags);
+        configurationsTreeMap = snapshot.getAgentConfigurations();
+        configurationAttributesTreeMap = snapshot.getAgentConfigurationAttributes();
+      }
       clustersConfigs.put(Long.toString(cl.getClusterId()),
           new ClusterConfigs(configurationsTreeMap, configurationAttributesTreeMap));
     }
@@ -44,6 +44,7 @@ import org.slf4j.LoggerFactory;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.google.inject.persist.Transactional;
@@ -96,6 +97,13 @@ public class ConfigImpl implements Config {
   @Inject
   private ServiceConfigDAO serviceConfigDAO;
 
+  /**
+   * Used to discard the merged effective configurations of the cluster when
+   * this configuration changes.
+   */
+  @Inject
+  private Provider<ConfigHelper> configHelper;
+
   private final AmbariEventPublisher eventPublisher;
 
   @AssistedInject
@@ -351,6 +359,7 @@ public class ConfigImpl implements Config {
 
     // re-load the entity associations for the cluster
     cluster.refresh();
+    configHelper.get().invalidateEffectiveConfigs(cluster.getClusterId());
 
     // broadcast the change event for the configuration
     ClusterConfigChangedEvent event = new ClusterConfigChangedEvent(cluster.getClusterName(),
@@ -396,6 +405,7 @@ public class ConfigImpl implements Config {
 
       // re-load the entity associations for the cluster
       cluster.refresh();
+      configHelper.get().invalidateEffectiveConfigs(cluster.getClusterId());
 
       // broadcast the change event for the configuration
       ClusterConfigChangedEvent event = new ClusterConfigChangedEvent(cluster.getClusterName(),
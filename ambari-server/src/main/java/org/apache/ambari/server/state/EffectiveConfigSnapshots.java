@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Store of the merged effective configurations of hosts.
+ * <p/>
+ * The effective configurations of a host only depend on its cluster and on
+ * its effective desired tags, i.e. on the desired cluster configs and on the
+ * config group overrides which apply to the host.  Hosts in the same config
+ * groups therefore have the same tags and share one immutable snapshot of the
+ * merged configurations.  A change of the desired configs or of the group
+ * membership of a host results in different tags and thus in a different
+ * snapshot; the snapshots of a cluster are invalidated by bumping the cluster
+ * version and removing the snapshots of the cluster when the contents of a
+ * config change under an existing tag.
+ * <p/>
+ * The store is bounded by the number of properties and property attribute
+ * values of the snapshots rather than by the number of snapshots, since the
+ * size of a snapshot depends on the configs of its cluster.
+ */
+public class EffectiveConfigSnapshots {
+
+  /**
+   * The maximum total weight of the cached snapshots, see
+   * {@link Snapshot#getWeight()}.
+   */
+  static final long MAX_WEIGHT = 500000L;
+
+  /**
+   * The snapshots keyed by cluster, cluster version and effective desired tags.
+   */
+  private final Cache<SnapshotKey, Snapshot> snapshots;
+
+  /**
+   * The config versions of the clusters.
+   */
+  private final ConcurrentMap<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+
+  // ----- Constructors ------------------------------------------------------
+
+  /**
+   * Constructor.
+   */
+  public EffectiveConfigSnapshots() {
+    this(MAX_WEIGHT);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxWeight  the maximum total weight of the cached snapshots
+   */
+  EffectiveConfigSnapshots(long maxWeight) {
+    snapshots = CacheBuilder.newBuilder()
+        .maximumWeight(maxWeight)
+        .weigher((SnapshotKey key, Snapshot snapshot) -> snapshot.getWeight())
+        .build();
+  }
+
+
+  // ----- EffectiveConfigSnapshots ------------------------------------------
+
+  /**
+   * Get the snapshot of the effective configurations of the given tags,
+   * building it if it does not exist.
+   *
+   * @param clusterId    the cluster id
+   * @param desiredTags  the effective desired tags
+   * @param builder      builds the snapshot of the tags if it does not exist
+   *
+   * @return the snapshot
+   */
+  public Snapshot getSnapshot(long clusterId, Map<String, Map<String, String>> desiredTags,
+                              Function<Map<String, Map<String, String>>, Snapshot> builder) {
+    // the version is read before building, so that a snapshot built while
+    // the configs change is stored under the outdated version
+    SnapshotKey key = new SnapshotKey(clusterId, getVersion(clusterId).get(), desiredTags);
+
+    Snapshot snapshot = snapshots.getIfPresent(key);
+    if (snapshot == null) {
+      snapshot = builder.apply(desiredTags);
+      snapshots.put(key.copy(), snapshot);
+    }
+    return snapshot;
+  }
+
+  /**
+   * Invalidate the snapshots of the given cluster.  The snapshots of outdated
+   * versions are removed from the store; a snapshot of an outdated version
+   * which is still being built is stored afterwards but never returned, and
+   * is removed by the next invalidation or ages out of the store.
+   *
+   * @param clusterId  the cluster id
+   */
+  public void invalidate(long clusterId) {
+    long version = getVersion(clusterId).incrementAndGet();
+    snapshots.asMap().keySet().removeIf(key -> key.clusterId == clusterId && key.version < version);
+  }
+
+  /**
+   * Get the number of cached snapshots.
+   *
+   * @return the number of snapshots
+   */
+  public long size() {
+    return snapshots.size();
+  }
+
+  private AtomicLong getVersion(long clusterId) {
+    return versions.computeIfAbsent(clusterId, id -> new AtomicLong());
+  }
+
+
+  // ----- Snapshot inner class ----------------------------------------------
+
+  /**
+   * Immutable merged configurations of a set of effective desired tags.
+   */
+  public static final class Snapshot {
+
+    /**
+     * The properties by config type, including empty types.
+     */
+    private final Map<String, Map<String, String>> properties;
+
+    /**
+     * The property attributes by config type.
+     */
+    private final Map<String, Map<String, Map<String, String>>> attributes;
+
+    /**
+     * The sorted properties without empty types, as sent to agents.
+     */
+    private final SortedMap<String, SortedMap<String, String>> agentConfigurations;
+
+    /**
+     * The sorted property attributes without empty types, as sent to agents.
+     */
+    private final SortedMap<String, SortedMap<String, SortedMap<String, String>>> agentConfigurationAttributes;
+
+    /**
+     * The weight of the snapshot in the store.
+     */
+    private final int weight;
+
+    /**
+     * Constructor.
+     *
+     * @param properties  the merged properties by config type
+     * @param attributes  the merged property attributes by config type
+     */
+    public Snapshot(Map<String, Map<String, String>> properties,
+                    Map<String, Map<String, Map<String, String>>> attributes) {
+      Map<String, Map<String, String>> propertiesCopy = new HashMap<>();
+      SortedMap<String, SortedMap<String, String>> sortedProperties = new TreeMap<>();
+      properties.forEach((type, typeProperties) -> {
+        propertiesCopy.put(type, Collections.unmodifiableMap(new HashMap<>(typeProperties)));
+        if (!typeProperties.isEmpty()) {
+          sortedProperties.put(type, Collections.unmodifiableSortedMap(new TreeMap<>(typeProperties)));
+        }
+      });
+
+      Map<String, Map<String, Map<String, String>>> attributesCopy = new HashMap<>();
+      SortedMap<String, SortedMap<String, SortedMap<String, String>>> sortedAttributes = new TreeMap<>();
+      attributes.forEach((type, typeAttributes) -> {
+        SortedMap<String, SortedMap<String, String>> sortedTypeAttributes = new TreeMap<>();
+        typeAttributes.forEach((attribute, values) ->
+            sortedTypeAttributes.put(attribute, Collections.unmodifiableSortedMap(new TreeMap<>(values))));
+
+        SortedMap<String, SortedMap<String, String>> typeAttributesCopy =
+            Collections.unmodifiableSortedMap(sortedTypeAttributes);
+        attributesCopy.put(type, Collections.unmodifiableMap(typeAttributesCopy));
+        if (!typeAttributes.isEmpty()) {
+          sortedAttributes.put(type, typeAttributesCopy);
+        }
+      });
+
+      this.properties                   = Collections.unmodifiableMap(propertiesCopy);
+      this.attributes                   = Collections.unmodifiableMap(attributesCopy);
+      this.agentConfigurations          = Collections.unmodifiableSortedMap(sortedProperties);
+      this.agentConfigurationAttributes = Collections.unmodifiableSortedMap(sortedAttributes);
+
+      int weight = properties.size() + attributes.size();
+      for (Map<String, String> typeProperties : properties.values()) {
+        weight += typeProperties.size();
+      }
+      for (Map<String, Map<String, String>> typeAttributes : attributes.values()) {
+        for (Map<String, String> values : typeAttributes.values()) {
+          weight += values.size();
+        }
+      }
+      this.weight = Math.max(weight, 1);
+    }
+
+    /**
+     * Get the weight of the snapshot in the store, which is the number of its
+     * config types, properties and property attribute values.
+     *
+     * @return the weight
+     */
+    int getWeight() {
+      return weight;
+    }
+
+    /**
+     * Get the merged properties by config type.
+     *
+     * @return the unmodifiable properties
+     */
+    public Map<String, Map<String, String>> getProperties() {
+      return properties;
+    }
+
+    /**
+     * Get the merged property attributes by config type.
+     *
+     * @return the unmodifiable attributes
+     */
+    public Map<String, Map<String, Map<String, String>>> getAttributes() {
+      return attributes;
+    }
+
+    /**
+     * Get the sorted non empty config types and their properties, as sent to
+     * agents.
+     *
+     * @return the unmodifiable configurations
+     */
+    public SortedMap<String, SortedMap<String, String>> getAgentConfigurations() {
+      return agentConfigurations;
+    }
+
+    /**
+     * Get the sorted non empty config types and their property attributes, as
+     * sent to agents.
+     *
+     * @return the unmodifiable configuration attributes
+     */
+    public SortedMap<String, SortedMap<String, SortedMap<String, String>>> getAgentConfigurationAttributes() {
+      return agentConfigurationAttributes;
+    }
+  }
+
+
+  // ----- SnapshotKey inner class -------------------------------------------
+
+  /**
+   * The key of a snapshot.
+   */
+  private static final class SnapshotKey {
+    private final long clusterId;
+    private final long version;
+    private final Map<String, Map<String, String>> desiredTags;
+
+    private SnapshotKey(long clusterId, long version, Map<String, Map<String, String>> desiredTags) {
+      this.clusterId   = clusterId;
+      this.version     = version;
+      this.desiredTags = desiredTags;
+    }
+
+    /**
+     * Copy the key, so that later changes of the tags of the caller do not
+     * change the stored key.
+     */
+    private SnapshotKey copy() {
+      Map<String, Map<String, String>> tagsCopy = new HashMap<>();
+      desiredTags.forEach((type, tags) -> tagsCopy.put(type, new HashMap<>(tags)));
+      return new SnapshotKey(clusterId, version, tagsCopy);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      SnapshotKey that = (SnapshotKey) o;
+
+      return clusterId == that.clusterId &&
+          version == that.version &&
+          desiredTags.equals(that.desiredTags);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(clusterId, version, desiredTags);
+    }
+  }
+}
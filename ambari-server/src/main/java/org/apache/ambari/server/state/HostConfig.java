@@ -52,9 +52,20 @@ public class HostConfig {
     return configGroupOverrides;
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    HostConfig that = (HostConfig) o;
+
+    return Objects.equal(defaultVersionTag, that.defaultVersionTag) &&
+        configGroupOverrides.equals(that.configGroupOverrides);
+  }
+
   @Override
   public int hashCode(){
-    return Objects.hashCode(defaultVersionTag.hashCode(), configGroupOverrides.hashCode());
+    return Objects.hashCode(defaultVersionTag, configGroupOverrides);
   }
 
   @Override
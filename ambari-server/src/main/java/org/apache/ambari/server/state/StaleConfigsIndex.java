@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the stale configuration types of host components.
+ * <p/>
+ * Entries are keyed by cluster, host, service and component and remember the
+ * actual configurations, the effective desired tags and the desired stack the
+ * stale types were calculated from.  An entry is only returned while all of
+ * those inputs are still equal to the current ones, so a change of the desired
+ * configurations or of the config groups of a host is picked up on the next
+ * lookup, and a change of the actual configurations reported by an agent
+ * removes the entry of the host component right away.  Entries do not expire.
+ */
+public class StaleConfigsIndex {
+
+  /**
+   * The indexed entries.
+   */
+  private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+
+  // ----- StaleConfigsIndex -------------------------------------------------
+
+  /**
+   * Get the entry of the given host component if it was calculated from the
+   * given inputs.
+   *
+   * @param sch      the host component
+   * @param actual   the actual configurations of the host component
+   * @param desired  the effective desired tags of the host
+   * @param stackId  the desired stack of the component
+   *
+   * @return the entry; null if there is none or if it is out of date
+   */
+  public Entry get(ServiceComponentHost sch, Map<String, HostConfig> actual,
+                   Map<String, Map<String, String>> desired, StackId stackId) {
+    Entry entry = entries.get(new Key(sch));
+    return entry != null && entry.isCurrent(actual, desired, stackId) ? entry : null;
+  }
+
+  /**
+   * Index the stale configuration types of the given host component.
+   *
+   * @param sch             the host component
+   * @param actual          the actual configurations the entry was calculated from
+   * @param desired         the effective desired tags the entry was calculated from
+   * @param stackId         the desired stack the entry was calculated from
+   * @param staleTypes      the stale configuration types
+   * @param refreshCommand  the command which refreshes the stale configurations; may be null
+   *
+   * @return the new entry
+   */
+  public Entry put(ServiceComponentHost sch, Map<String, HostConfig> actual,
+                   Map<String, Map<String, String>> desired, StackId stackId,
+                   Set<String> staleTypes, String refreshCommand) {
+    Entry entry = new Entry(actual, desired, stackId, staleTypes, refreshCommand);
+    entries.put(new Key(sch), entry);
+    return entry;
+  }
+
+  /**
+   * Remove the entry of the given host component.
+   *
+   * @param sch  the host component
+   */
+  public void invalidate(ServiceComponentHost sch) {
+    entries.remove(new Key(sch));
+  }
+
+  /**
+   * Get the number of indexed host components.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return entries.size();
+  }
+
+
+  // ----- Entry inner class -------------------------------------------------
+
+  /**
+   * The stale configuration types of a host component.
+   */
+  public static final class Entry {
+    private final Map<String, HostConfig> actual;
+    private final Map<String, Map<String, String>> desired;
+    private final StackId stackId;
+    private final Set<String> staleTypes;
+    private final String refreshCommand;
+
+    private Entry(Map<String, HostConfig> actual, Map<String, Map<String, String>> desired,
+                  StackId stackId, Set<String> staleTypes, String refreshCommand) {
+      this.actual         = new HashMap<>(actual);
+      this.desired        = desired;
+      this.stackId        = stackId;
+      this.staleTypes     = Collections.unmodifiableSet(new HashSet<>(staleTypes));
+      this.refreshCommand = refreshCommand;
+    }
+
+    /**
+     * Determine whether the host component has stale configurations.
+     *
+     * @return true if any configuration type is stale
+     */
+    public boolean isStale() {
+      return !staleTypes.isEmpty();
+    }
+
+    /**
+     * Get the stale configuration types.
+     *
+     * @return the stale types; empty if none are stale
+     */
+    public Set<String> getStaleTypes() {
+      return staleTypes;
+    }
+
+    /**
+     * Get the command which refreshes the stale configurations without a
+     * restart.
+     *
+     * @return the refresh command; null if there is none
+     */
+    public String getRefreshCommand() {
+      return refreshCommand;
+    }
+
+    private boolean isCurrent(Map<String, HostConfig> actual, Map<String, Map<String, String>> desired,
+                              StackId stackId) {
+      return this.actual.equals(actual) &&
+          Objects.equals(this.stackId, stackId) &&
+          this.desired.equals(desired);
+    }
+  }
+
+
+  // ----- Key inner class ---------------------------------------------------
+
+  /**
+   * The key of a host component.
+   */
+  private static final class Key {
+    private final long clusterId;
+    private final String hostName;
+    private final String serviceName;
+    private final String componentName;
+
+    private Key(ServiceComponentHost sch) {
+      clusterId     = sch.getClusterId();
+      hostName      = sch.getHostName();
+      serviceName   = sch.getServiceName();
+      componentName = sch.getServiceComponentName();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      Key that = (Key) o;
+
+      return clusterId == that.clusterId &&
+          Objects.equals(hostName, that.hostName) &&
+          Objects.equals(serviceName, that.serviceName) &&
+          Objects.equals(componentName, that.componentName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(clusterId, hostName, serviceName, componentName);
+    }
+  }
+}
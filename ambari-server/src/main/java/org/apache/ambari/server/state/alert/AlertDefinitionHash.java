@@ -134,7 +134,8 @@ public class AlertDefinitionHash {
    * {@link SourceType#AGGREGATE} since aggregate definitions are not scheduled
    * to run on agent hosts.
    * <p/>
-   * Hash values from this method are cached.
+   * Hash values from this method are cached. A hash calculated concurrently
+   * with {@link #invalidate(String, String)} is removed by the invalidation.
    *
    * @param clusterName
    *          the cluster name (not {@code null}).
@@ -152,15 +153,10 @@ public class AlertDefinitionHash {
       }
     }
 
-    String hash = clusterMapping.get(hostName);
-    if (null != hash) {
-      return hash;
-    }
-
-    hash = hash(clusterName, hostName);
-    clusterMapping.put(clusterName, hash);
-
-    return hash;
+    // the hash is calculated while holding the lock of its mapping, so an
+    // invalidation running meanwhile waits for it and then removes it, instead
+    // of a stale hash being cached after the invalidation
+    return clusterMapping.computeIfAbsent(clusterName, key -> hash(clusterName, hostName));
   }
 
   /**
@@ -355,6 +351,10 @@ public class AlertDefinitionHash {
    * <p/>
    * If the definition is an {@link SourceType#AGGREGATE}, this will return an
    * empty set since aggregates do not affect hosts.
+   * <p/>
+   * The hosts are taken from the host components of the definition's
+   * component and of its service's master components, so the cost depends on
+   * the number of affected hosts instead of on the size of the cluster.
    *
    * @param cluster
    * @param definitionName
@@ -370,26 +370,23 @@ public class AlertDefinitionHash {
       return Collections.emptySet();
     }
 
-    Map<String, Host> hosts = null;
     String clusterName = cluster.getClusterName();
     Set<String> affectedHosts = new HashSet<>();
 
-    try {
-      hosts = m_clusters.get().getHostsForCluster(clusterName);
-    } catch (AmbariException ambariException) {
-      LOG.error("Unable to lookup hosts for cluster named {}", clusterName,
-          ambariException);
-
-      return affectedHosts;
-    }
-
     String ambariServiceName = Services.AMBARI.name();
     String agentComponentName = Components.AMBARI_AGENT.name();
 
     // intercept host agent alerts; they affect all hosts
     if (ambariServiceName.equals(definitionServiceName)
         && agentComponentName.equals(definitionComponentName)) {
-      affectedHosts.addAll(hosts.keySet());
+      try {
+        Map<String, Host> hosts = m_clusters.get().getHostsForCluster(clusterName);
+        affectedHosts.addAll(hosts.keySet());
+      } catch (AmbariException ambariException) {
+        LOG.error("Unable to lookup hosts for cluster named {}", clusterName,
+            ambariException);
+      }
+
       return affectedHosts;
     }
 
@@ -398,24 +395,6 @@ public class AlertDefinitionHash {
       return Collections.emptySet();
     }
 
-    // find all hosts that have the matching service and component
-    for (String hostName : hosts.keySet()) {
-      List<ServiceComponentHost> hostComponents = cluster.getServiceComponentHosts(hostName);
-      if (null == hostComponents || hostComponents.size() == 0) {
-        continue;
-      }
-
-      // if a host has a matching service/component, invalidate it
-      for (ServiceComponentHost component : hostComponents) {
-        String serviceName = component.getServiceName();
-        String componentName = component.getServiceComponentName();
-        if (serviceName.equals(definitionServiceName)
-            && componentName.equals(definitionComponentName)) {
-          affectedHosts.add(hostName);
-        }
-      }
-    }
-
     // get the service that this alert definition is associated with
     Map<String, Service> services = cluster.getServices();
     Service service = services.get(definitionServiceName);
@@ -426,17 +405,30 @@ public class AlertDefinitionHash {
       return affectedHosts;
     }
 
+    Map<String, ServiceComponent> components = service.getServiceComponents();
+    if (null == components) {
+      return affectedHosts;
+    }
+
+    // find all hosts that have the matching service and component
+    ServiceComponent definitionComponent = null == definitionComponentName ? null
+        : components.get(definitionComponentName);
+
+    if (null != definitionComponent) {
+      Map<String, ServiceComponentHost> componentHosts = definitionComponent.getServiceComponentHosts();
+      if (null != componentHosts) {
+        affectedHosts.addAll(componentHosts.keySet());
+      }
+    }
+
     // get all master components of the definition's service; any hosts that
     // run the master should be invalidated as well
-    Map<String, ServiceComponent> components = service.getServiceComponents();
-    if (null != components) {
-      for (Entry<String, ServiceComponent> component : components.entrySet()) {
-        if (component.getValue().isMasterComponent()) {
-          Map<String, ServiceComponentHost> componentHosts = component.getValue().getServiceComponentHosts();
-          if (null != componentHosts) {
-            for (String componentHost : componentHosts.keySet()) {
-              affectedHosts.add(componentHost);
-            }
+    for (Entry<String, ServiceComponent> component : components.entrySet()) {
+      if (component.getValue().isMasterComponent()) {
+        Map<String, ServiceComponentHost> componentHosts = component.getValue().getServiceComponentHosts();
+        if (null != componentHosts) {
+          for (String componentHost : componentHosts.keySet()) {
+            affectedHosts.add(componentHost);
           }
         }
       }
@@ -23,15 +23,27 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.apache.ambari.server.AmbariService;
 import org.apache.ambari.server.configuration.Configuration;
@@ -39,6 +51,8 @@ import org.apache.ambari.server.controller.jmx.JMXMetricHolder;
 import org.apache.ambari.server.controller.utilities.ScalingThreadPoolExecutor;
 import org.apache.ambari.server.controller.utilities.StreamProvider;
 import org.apache.commons.io.IOUtils;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.DeserializationConfig;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.ObjectReader;
@@ -79,6 +93,18 @@ import com.google.inject.Inject;
  * In order to control throttling requests to the same endpoint,
  * {@link Configuration#isMetricsServiceRequestTTLCacheEnabled()} can be enabled
  * to allow for a fixed interval of time to pass between requests.
+ * <p/>
+ * Endpoints which have been requested are also scraped periodically, every
+ * {@link Configuration#getMetricsServiceScrapeInterval()} seconds with some
+ * jitter, for as long as callers keep requesting them within the cache
+ * timeout. This keeps the cached data of active endpoints fresh without
+ * waiting for the next caller. At most
+ * {@link Configuration#getMetricsServiceScrapeHostConcurrency()} requests to
+ * the same host are in flight before scrapes of that host are deferred.
+ * <p/>
+ * Once the JMX attributes read by callers have been registered via
+ * {@link #addJMXAttributes(Collection)}, JMX responses are streamed and only
+ * the registered attributes of each bean are cached.
  */
 @AmbariService
 public class MetricsRetrievalService extends AbstractService {
@@ -151,6 +177,17 @@ public class MetricsRetrievalService extends AbstractService {
    */
   private final ObjectReader m_jmxObjectReader;
 
+  /**
+   * Used to read attribute values when streaming remote JMX JSON.
+   */
+  private final ObjectMapper m_jmxObjectMapper;
+
+  /**
+   * The names of the JMX bean attributes which are read by callers. If empty,
+   * all attributes are cached.
+   */
+  private final Set<String> m_jmxAttributes = Sets.newConcurrentHashSet();
+
   /**
    * A thread-safe collection of all of the URL endpoints queued for processing.
    * This helps prevent the same endpoint from being queued multiple times.
@@ -175,6 +212,39 @@ public class MetricsRetrievalService extends AbstractService {
    */
   private int m_queueMaximumSize;
 
+  /**
+   * The endpoints which are scraped periodically by URL, or {@code null} if
+   * periodic scraping is disabled.
+   */
+  private ConcurrentMap<String, ScrapeEndpoint> m_scrapeEndpoints;
+
+  /**
+   * The number of queued or running requests by host.
+   */
+  private final ConcurrentMap<String, AtomicInteger> m_hostRequests = new ConcurrentHashMap<>();
+
+  /**
+   * Checks the registered endpoints for due scrapes, or {@code null} if
+   * periodic scraping is disabled.
+   */
+  private ScheduledExecutorService m_scrapeExecutor;
+
+  /**
+   * The interval between scrapes of an endpoint, in milliseconds.
+   */
+  private long m_scrapeIntervalMillis;
+
+  /**
+   * The maximum number of requests to a host before its scrapes are deferred.
+   */
+  private int m_scrapeHostConcurrency;
+
+  /**
+   * The time, in milliseconds, after which an endpoint which was not requested
+   * is no longer scraped.
+   */
+  private long m_scrapeIdleMillis;
+
   /**
    * Constructor.
    *
@@ -183,6 +253,7 @@ public class MetricsRetrievalService extends AbstractService {
     ObjectMapper jmxObjectMapper = new ObjectMapper();
     jmxObjectMapper.configure(DeserializationConfig.Feature.USE_ANNOTATIONS, false);
     m_jmxObjectReader = jmxObjectMapper.reader(JMXMetricHolder.class);
+    m_jmxObjectMapper = jmxObjectMapper;
   }
 
   /**
@@ -215,7 +286,7 @@ public class MetricsRetrievalService extends AbstractService {
         TimeUnit.SECONDS, m_queueMaximumSize);
 
     m_threadPoolExecutor.allowCoreThreadTimeOut(true);
-    m_threadPoolExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardOldestPolicy());
+    m_threadPoolExecutor.setRejectedExecutionHandler(new DiscardOldestRequestPolicy());
 
     ThreadFactory threadFactory = new ThreadFactoryBuilder().setDaemon(true).setNameFormat(
         "ambari-metrics-retrieval-service-thread-%d").setPriority(
@@ -232,6 +303,31 @@ public class MetricsRetrievalService extends AbstractService {
       LOG.info("Metrics Retrieval Service request TTL cache is enabled and set to {} seconds",
           ttlSeconds);
     }
+
+    // start the periodic scraping of requested endpoints if configured
+    int scrapeIntervalSeconds = m_configuration.getMetricsServiceScrapeInterval();
+    if (scrapeIntervalSeconds > 0) {
+      m_scrapeIntervalMillis = TimeUnit.SECONDS.toMillis(scrapeIntervalSeconds);
+      m_scrapeHostConcurrency = m_configuration.getMetricsServiceScrapeHostConcurrency();
+      m_scrapeIdleMillis = TimeUnit.MINUTES.toMillis(jmxCacheExpirationMinutes);
+      m_scrapeEndpoints = new ConcurrentHashMap<>();
+
+      m_scrapeExecutor = Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat(
+              "ambari-metrics-retrieval-service-scraper").build());
+
+      m_scrapeExecutor.scheduleWithFixedDelay(() -> {
+        try {
+          scrapeEndpoints(System.currentTimeMillis());
+        } catch (Exception exception) {
+          LOG.warn("Unable to scrape the registered metric endpoints", exception);
+        }
+      }, 1, 1, TimeUnit.SECONDS);
+
+      LOG.info(
+          "Metrics Retrieval Service will scrape requested endpoints every {} seconds with at most {} requests per host",
+          scrapeIntervalSeconds, m_scrapeHostConcurrency);
+    }
   }
 
   /**
@@ -255,7 +351,13 @@ public class MetricsRetrievalService extends AbstractService {
       m_ttlUrlCache.invalidateAll();
     }
 
+    if (null != m_scrapeExecutor) {
+      m_scrapeExecutor.shutdownNow();
+      m_scrapeEndpoints.clear();
+    }
+
     m_queuedUrls.clear();
+    m_hostRequests.clear();
     m_threadPoolExecutor.shutdownNow();
   }
 
@@ -275,6 +377,9 @@ public class MetricsRetrievalService extends AbstractService {
    * many times this method is called until it has been fully retrieved and
    * parsed. If the last endpoint request was too recent, then this method will
    * opt to not make another call until the TTL period expires.
+   * <p/>
+   * If periodic scraping is enabled, the endpoint is also registered to be
+   * scraped until it is no longer requested within the cache timeout.
    *
    * @param type
    *          the type of service hosting the metric (not {@code null}).
@@ -287,6 +392,26 @@ public class MetricsRetrievalService extends AbstractService {
    * @see #getCachedJMXMetric(String)
    */
   public void submitRequest(MetricSourceType type, StreamProvider streamProvider, String url) {
+    if (null != m_scrapeEndpoints) {
+      registerScrapeEndpoint(type, streamProvider, url);
+    }
+
+    enqueueRequest(type, streamProvider, url);
+  }
+
+  /**
+   * Enqueues a request for the given endpoint unless it is already queued or
+   * was made too recently.
+   *
+   * @param type
+   *          the type of service hosting the metric (not {@code null}).
+   * @param streamProvider
+   *          the {@link StreamProvider} to use to read from the remote
+   *          endpoint.
+   * @param url
+   *          the URL to read from
+   */
+  private void enqueueRequest(MetricSourceType type, StreamProvider streamProvider, String url) {
     // check to ensure that the request isn't already queued
     if (m_queuedUrls.contains(url)) {
       return;
@@ -305,17 +430,16 @@ public class MetricsRetrievalService extends AbstractService {
           ((float) queueSize / m_queueMaximumSize) * 100);
     }
 
-    // enqueue this URL
-    m_queuedUrls.add(url);
+    Consumer<String> completionListener = this::onRequestComplete;
 
     Runnable runnable = null;
     switch (type) {
       case JMX:
-        runnable = new JMXRunnable(m_jmxCache, m_queuedUrls, m_ttlUrlCache, m_jmxObjectReader,
-            streamProvider, url);
+        runnable = new JMXRunnable(m_jmxCache, completionListener, m_ttlUrlCache,
+            m_jmxObjectReader, m_jmxObjectMapper, m_jmxAttributes, streamProvider, url);
         break;
       case REST:
-        runnable = new RESTRunnable(m_restCache, m_queuedUrls, m_ttlUrlCache, m_gson,
+        runnable = new RESTRunnable(m_restCache, completionListener, m_ttlUrlCache, m_gson,
             streamProvider, url);
         break;
       default:
@@ -324,10 +448,153 @@ public class MetricsRetrievalService extends AbstractService {
     }
 
     if (null != runnable) {
+      // enqueue this URL
+      m_queuedUrls.add(url);
+      m_hostRequests.computeIfAbsent(getHost(url), host -> new AtomicInteger()).incrementAndGet();
+
       m_threadPoolExecutor.execute(runnable);
     }
   }
 
+  /**
+   * Invoked when a request has completed, successful or not, so that the URL
+   * can be requested again.
+   *
+   * @param url
+   *          the URL of the completed request.
+   */
+  private void onRequestComplete(String url) {
+    m_queuedUrls.remove(url);
+
+    AtomicInteger hostRequests = m_hostRequests.get(getHost(url));
+    if (null != hostRequests) {
+      hostRequests.decrementAndGet();
+    }
+  }
+
+  /**
+   * Registers the endpoint for periodic scraping, or marks an already
+   * registered endpoint as requested.
+   *
+   * @param type
+   *          the type of service hosting the metric (not {@code null}).
+   * @param streamProvider
+   *          the {@link StreamProvider} to use to read from the remote
+   *          endpoint.
+   * @param url
+   *          the URL to read from
+   */
+  private void registerScrapeEndpoint(MetricSourceType type, StreamProvider streamProvider,
+      String url) {
+    long now = System.currentTimeMillis();
+
+    ScrapeEndpoint endpoint = m_scrapeEndpoints.get(url);
+    if (null == endpoint) {
+      endpoint = m_scrapeEndpoints.computeIfAbsent(url,
+          key -> new ScrapeEndpoint(type, key, getHost(key), now + getJitteredScrapeInterval()));
+    }
+
+    endpoint.m_streamProvider = streamProvider;
+    endpoint.m_lastRequestTime = now;
+  }
+
+  /**
+   * Enqueues requests for all of the registered endpoints which are due to be
+   * scraped. Endpoints which have not been requested within the cache timeout
+   * are unregistered, while scrapes of hosts which already have too many
+   * requests in flight are deferred until the next check.
+   *
+   * @param now
+   *          the current time, in milliseconds.
+   */
+  void scrapeEndpoints(long now) {
+    for (ScrapeEndpoint endpoint : m_scrapeEndpoints.values()) {
+      if (now - endpoint.m_lastRequestTime > m_scrapeIdleMillis) {
+        m_scrapeEndpoints.remove(endpoint.m_url, endpoint);
+        continue;
+      }
+
+      if (now < endpoint.m_nextScrapeTime) {
+        continue;
+      }
+
+      AtomicInteger hostRequests = m_hostRequests.get(endpoint.m_host);
+      if (null != hostRequests && hostRequests.get() >= m_scrapeHostConcurrency) {
+        continue;
+      }
+
+      endpoint.m_nextScrapeTime = now + getJitteredScrapeInterval();
+      enqueueRequest(endpoint.m_type, endpoint.m_streamProvider, endpoint.m_url);
+    }
+  }
+
+  /**
+   * Gets the number of queued or running requests to the host of the given URL.
+   *
+   * @param url
+   *          the URL (not {@code null}).
+   * @return the number of requests to the host of the URL.
+   */
+  int getHostRequestCount(String url) {
+    AtomicInteger hostRequests = m_hostRequests.get(getHost(url));
+    return null == hostRequests ? 0 : hostRequests.get();
+  }
+
+  /**
+   * Gets the number of endpoints which are scraped periodically.
+   *
+   * @return the number of endpoints.
+   */
+  int getScrapeEndpointCount() {
+    return null == m_scrapeEndpoints ? 0 : m_scrapeEndpoints.size();
+  }
+
+  /**
+   * Gets the scrape interval with a random jitter of up to a quarter of the
+   * interval in either direction, so that the endpoints of a cluster are not
+   * all scraped at the same time.
+   *
+   * @return the time until the next scrape, in milliseconds.
+   */
+  private long getJitteredScrapeInterval() {
+    long jitter = m_scrapeIntervalMillis / 4;
+    return m_scrapeIntervalMillis + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+  }
+
+  /**
+   * Gets the host, including the port, of the given URL.
+   *
+   * @param url
+   *          the URL (not {@code null}).
+   * @return the host of the URL.
+   */
+  private static String getHost(String url) {
+    int start = url.indexOf("://");
+    start = start < 0 ? 0 : start + 3;
+
+    int end = start;
+    while (end < url.length() && url.charAt(end) != '/' && url.charAt(end) != '?') {
+      end++;
+    }
+
+    return url.substring(start, end);
+  }
+
+  /**
+   * Registers the names of JMX bean attributes which are read from the cached
+   * {@link JMXMetricHolder}s. Once any attributes are registered, only the
+   * registered attributes of each bean are retained when parsing JMX
+   * responses, and beans without any of them are dropped. Attributes which are
+   * registered after an endpoint was parsed become available with its next
+   * retrieval.
+   *
+   * @param attributes
+   *          the attribute names (not {@code null}).
+   */
+  public void addJMXAttributes(Collection<String> attributes) {
+    m_jmxAttributes.addAll(attributes);
+  }
+
   /**
    * Gets a cached JMX metric in the form of a {@link JMXMetricHolder}. If there
    * is no metric data cached for the given URL, then {@code null} is returned.
@@ -378,9 +645,9 @@ public class MetricsRetrievalService extends AbstractService {
     protected final String m_url;
 
     /**
-     * The URLs which have been requested but not yet read.
+     * Notified with the URL once the request has completed.
      */
-    private final Set<String> m_queuedUrls;
+    private final Consumer<String> m_completionListener;
 
     /**
      * An evicting cache used to control whether a request for a metric can be
@@ -395,20 +662,19 @@ public class MetricsRetrievalService extends AbstractService {
      *          the stream provider to read the URL with
      * @param url
      *          the URL endpoint to read data from (JMX or REST)
-     * @param queuedUrls
-     *          the URLs which are currently waiting to be processed. This
-     *          method will remove the specified URL from this {@link Set} when
-     *          it completes (successful or not).
+     * @param completionListener
+     *          notified with the URL when the request completes (successful
+     *          or not), so that the URL can be requested again.
      * @param ttlUrlCache
      *          an evicting cache which is used to determine if a request for a
      *          metric is too soon after the last request, or {@code null} if
      *          requests can be made sequentially without any separation.
      */
-    private MetricRunnable(StreamProvider streamProvider, String url, Set<String> queuedUrls,
-        Cache<String, String> ttlUrlCache) {
+    private MetricRunnable(StreamProvider streamProvider, String url,
+        Consumer<String> completionListener, Cache<String, String> ttlUrlCache) {
       m_streamProvider = streamProvider;
       m_url = url;
-      m_queuedUrls = queuedUrls;
+      m_completionListener = completionListener;
       m_ttlUrlCache = ttlUrlCache;
     }
 
@@ -455,10 +721,19 @@ public class MetricsRetrievalService extends AbstractService {
 
         // remove this URL from the list of queued URLs to ensure it will be
         // requested again
-        m_queuedUrls.remove(m_url);
+        m_completionListener.accept(m_url);
       }
     }
 
+    /**
+     * Invoked instead of {@link #run()} when the request is discarded without
+     * being run, so that the URL can be requested again.
+     */
+    private void discard() {
+      LOG.debug("Discarding the queued request for url {}", m_url);
+      m_completionListener.accept(m_url);
+    }
+
     /**
      * Removes metric values for current URL from cache.
      */
@@ -522,25 +797,39 @@ public class MetricsRetrievalService extends AbstractService {
    */
   private static final class JMXRunnable extends MetricRunnable {
 
+    /**
+     * The bean attributes which are always retained since they identify the
+     * bean.
+     */
+    private static final String NAME_KEY = "name";
+    private static final String PORT_KEY = "tag.port";
+
     private final ObjectReader m_jmxObjectReader;
+    private final ObjectMapper m_jmxObjectMapper;
+    private final Set<String> m_jmxAttributes;
     private final Cache<String, JMXMetricHolder> m_cache;
 
     /**
      * Constructor.
      *
      * @param cache
-     * @param queuedUrls
+     * @param completionListener
      * @param ttlUrlCache
      * @param jmxObjectReader
+     * @param jmxObjectMapper
+     * @param jmxAttributes
      * @param streamProvider
      * @param jmxUrl
      */
-    private JMXRunnable(Cache<String, JMXMetricHolder> cache, Set<String> queuedUrls,
-        Cache<String, String> ttlUrlCache, ObjectReader jmxObjectReader,
+    private JMXRunnable(Cache<String, JMXMetricHolder> cache,
+        Consumer<String> completionListener, Cache<String, String> ttlUrlCache,
+        ObjectReader jmxObjectReader, ObjectMapper jmxObjectMapper, Set<String> jmxAttributes,
         StreamProvider streamProvider, String jmxUrl) {
-      super(streamProvider, jmxUrl, queuedUrls, ttlUrlCache);
+      super(streamProvider, jmxUrl, completionListener, ttlUrlCache);
       m_cache = cache;
       m_jmxObjectReader = jmxObjectReader;
+      m_jmxObjectMapper = jmxObjectMapper;
+      m_jmxAttributes = jmxAttributes;
     }
 
     /**
@@ -556,9 +845,87 @@ public class MetricsRetrievalService extends AbstractService {
      */
     @Override
     protected void processInputStreamAndCacheResult(InputStream inputStream) throws Exception {
-      JMXMetricHolder jmxMetricHolder = m_jmxObjectReader.readValue(inputStream);
+      JMXMetricHolder jmxMetricHolder;
+      if (m_jmxAttributes.isEmpty()) {
+        jmxMetricHolder = m_jmxObjectReader.readValue(inputStream);
+      } else {
+        jmxMetricHolder = readFilteredValue(inputStream);
+      }
+
       m_cache.put(m_url, jmxMetricHolder);
     }
+
+    /**
+     * Streams the JMX JSON and retains only the registered attributes of each
+     * bean, along with the attributes which identify it. Beans without any of
+     * the registered attributes are dropped.
+     *
+     * @param inputStream
+     *          the JMX JSON
+     * @return the filtered beans
+     * @throws IOException
+     *           if the JSON could not be read
+     */
+    private JMXMetricHolder readFilteredValue(InputStream inputStream) throws IOException {
+      List<Map<String, Object>> beans = new ArrayList<>();
+
+      JsonParser parser = m_jmxObjectMapper.getJsonFactory().createJsonParser(inputStream);
+      try {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          throw new IOException("Expected a JSON object from " + m_url);
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String fieldName = parser.getCurrentName();
+          if (parser.nextToken() == JsonToken.START_ARRAY && "beans".equals(fieldName)) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+              Map<String, Object> bean = readFilteredBean(parser);
+              if (null != bean) {
+                beans.add(bean);
+              }
+            }
+          } else {
+            parser.skipChildren();
+          }
+        }
+      } finally {
+        parser.close();
+      }
+
+      JMXMetricHolder jmxMetricHolder = new JMXMetricHolder();
+      jmxMetricHolder.setBeans(beans);
+      return jmxMetricHolder;
+    }
+
+    /**
+     * Reads the bean at the current position of the parser.
+     *
+     * @param parser
+     *          the parser, positioned at the start of the bean
+     * @return the retained attributes of the bean, or {@code null} if the bean
+     *         has none of the registered attributes
+     * @throws IOException
+     *           if the JSON could not be read
+     */
+    private Map<String, Object> readFilteredBean(JsonParser parser) throws IOException {
+      Map<String, Object> bean = new HashMap<>(4);
+      boolean hasAttributes = false;
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String attribute = parser.getCurrentName();
+        parser.nextToken();
+
+        boolean registered = m_jmxAttributes.contains(attribute);
+        if (registered || NAME_KEY.equals(attribute) || PORT_KEY.equals(attribute)) {
+          bean.put(attribute, m_jmxObjectMapper.readValue(parser, Object.class));
+          hasAttributes |= registered;
+        } else {
+          parser.skipChildren();
+        }
+      }
+
+      return hasAttributes ? bean : null;
+    }
   }
 
   /**
@@ -576,16 +943,16 @@ public class MetricsRetrievalService extends AbstractService {
      * Constructor.
      *
      * @param cache
-     * @param queuedUrls
+     * @param completionListener
      * @param ttlUrlCache
      * @param gson
      * @param streamProvider
      * @param restUrl
      */
-    private RESTRunnable(Cache<String, Map<String, String>> cache, Set<String> queuedUrls,
-        Cache<String, String> ttlUrlCache, Gson gson, StreamProvider streamProvider,
-        String restUrl) {
-      super(streamProvider, restUrl, queuedUrls, ttlUrlCache);
+    private RESTRunnable(Cache<String, Map<String, String>> cache,
+        Consumer<String> completionListener, Cache<String, String> ttlUrlCache, Gson gson,
+        StreamProvider streamProvider, String restUrl) {
+      super(streamProvider, restUrl, completionListener, ttlUrlCache);
       m_cache = cache;
       m_gson = gson;
     }
@@ -613,6 +980,66 @@ public class MetricsRetrievalService extends AbstractService {
     }
   }
 
+  /**
+   * An endpoint which is scraped periodically.
+   */
+  private static final class ScrapeEndpoint {
+    private final MetricSourceType m_type;
+    private final String m_url;
+    private final String m_host;
+
+    /**
+     * The stream provider of the most recent request.
+     */
+    private volatile StreamProvider m_streamProvider;
+
+    /**
+     * The time of the most recent request by a caller.
+     */
+    private volatile long m_lastRequestTime;
+
+    /**
+     * The time at which the endpoint is scraped next.
+     */
+    private volatile long m_nextScrapeTime;
+
+    private ScrapeEndpoint(MetricSourceType type, String url, String host, long nextScrapeTime) {
+      m_type = type;
+      m_url = url;
+      m_host = host;
+      m_nextScrapeTime = nextScrapeTime;
+    }
+  }
+
+  /**
+   * Discards the oldest queued request to make room for a new one, like
+   * {@link ThreadPoolExecutor.DiscardOldestPolicy}, but notifies the
+   * discarded requests that they will not run. Otherwise their URLs would
+   * stay queued and their hosts would keep counting them as in flight.
+   */
+  private static final class DiscardOldestRequestPolicy implements RejectedExecutionHandler {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+      if (executor.isShutdown()) {
+        discard(runnable);
+        return;
+      }
+
+      discard(executor.getQueue().poll());
+      executor.execute(runnable);
+    }
+
+    private void discard(Runnable runnable) {
+      if (runnable instanceof MetricRunnable) {
+        ((MetricRunnable) runnable).discard();
+      }
+    }
+  }
+
   /**
    * A default exception handler.
    */
@@ -1366,6 +1366,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
       removeEntities();
       fireRemovalEvent = true;
       clusters.getCluster(getClusterName()).removeServiceComponentHost(this);
+      helper.invalidateStaleConfigs(this);
     } catch (AmbariException ex) {
       LOG.error("Unable to remove a service component from a host", ex);
     } finally {
@@ -1454,8 +1455,13 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
       }
     }
 
-    // update internal stateful collection in an "atomic" manner
-    actualConfigs = newActualConfigs;
+    // agents report the same tags over and over; only replace the collection,
+    // and with it the indexed staleness of this component, on a change
+    if (!newActualConfigs.equals(actualConfigs)) {
+      // update internal stateful collection in an "atomic" manner
+      actualConfigs = newActualConfigs;
+      helper.invalidateStaleConfigs(this);
+    }
   }
 
   @Override
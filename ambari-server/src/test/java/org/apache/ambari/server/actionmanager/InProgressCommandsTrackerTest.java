@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ambari.server.Role;
+import org.apache.ambari.server.RoleCommand;
+import org.apache.ambari.server.events.TaskCreateEvent;
+import org.apache.ambari.server.events.TaskUpdateEvent;
+import org.apache.ambari.server.events.publishers.TaskEventPublisher;
+import org.apache.ambari.server.orm.dao.HostDAO;
+import org.apache.ambari.server.orm.entities.HostEntity;
+import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * InProgressCommandsTracker tests.
+ */
+public class InProgressCommandsTrackerTest {
+
+  private static final int REQUESTS = 500;
+  private static final int STAGES_PER_REQUEST = 3;
+  private static final int HOSTS = 20;
+
+  private HostDAO hostDAO;
+  private TaskEventPublisher taskEventPublisher;
+  private InProgressCommandsTracker tracker;
+  private final AtomicInteger finishedStages = new AtomicInteger();
+
+  @Before
+  public void setup() throws Exception {
+    hostDAO = createNiceMock(HostDAO.class);
+    replay(hostDAO);
+    taskEventPublisher = new TaskEventPublisher();
+    tracker = new InProgressCommandsTracker(taskEventPublisher);
+    tracker.setStageFinishedListener(finishedStages::incrementAndGet);
+  }
+
+  @Test
+  public void testCommandsAreTrackedUntilCompleted() throws Exception {
+    HostRoleCommand first = createCommand(1L, 1L, 1L, "host1");
+    HostRoleCommand second = createCommand(2L, 1L, 1L, "host2");
+    taskEventPublisher.publish(new TaskCreateEvent(asList(first, second)));
+
+    assertEquals(2, tracker.getCommandsInProgressCount());
+    assertEquals(2, tracker.getHostsWithPendingTasks().size());
+
+    first.setStatus(HostRoleStatus.COMPLETED);
+    taskEventPublisher.publish(new TaskUpdateEvent(asList(first)));
+    assertEquals(Collections.singleton("host2"), tracker.getHostsWithPendingTasks());
+    assertEquals(0, finishedStages.get());
+
+    second.setStatus(HostRoleStatus.FAILED);
+    taskEventPublisher.publish(new TaskUpdateEvent(asList(second)));
+    assertFalse(tracker.hasCommandsInProgress());
+    assertTrue(tracker.getHostsWithPendingTasks().isEmpty());
+    assertEquals(1, finishedStages.get());
+  }
+
+  @Test
+  public void testReloadReplacesTrackedCommands() throws Exception {
+    taskEventPublisher.publish(new TaskCreateEvent(asList(createCommand(1L, 1L, 1L, "host1"))));
+
+    HostRoleCommandEntity inProgress = createEntity(2L, HostRoleStatus.IN_PROGRESS, "host2");
+    HostRoleCommandEntity completed = createEntity(3L, HostRoleStatus.COMPLETED, "host3");
+    tracker.reload(asList(inProgress, completed));
+
+    assertEquals(1, tracker.getCommandsInProgressCount());
+    assertEquals(Collections.singleton("host2"), tracker.getHostsWithPendingTasks());
+  }
+
+  /**
+   * Runs 500 requests concurrently, every request goes through its stages
+   * while the other requests are created and finished.
+   */
+  @Test
+  public void testConcurrentRequests() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(50);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < REQUESTS; i++) {
+      final long requestId = i;
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          start.await();
+          runRequest(requestId);
+          return null;
+        }
+      }));
+    }
+
+    start.countDown();
+    for (Future<Void> future : futures) {
+      future.get(1, TimeUnit.MINUTES);
+    }
+    executor.shutdown();
+
+    assertFalse(tracker.hasCommandsInProgress());
+    assertTrue(tracker.getHostsWithPendingTasks().isEmpty());
+    assertEquals(REQUESTS * STAGES_PER_REQUEST, finishedStages.get());
+  }
+
+  private void runRequest(long requestId) {
+    List<List<HostRoleCommand>> stages = new ArrayList<>();
+    List<HostRoleCommand> allCommands = new ArrayList<>();
+    for (long stageId = 0; stageId < STAGES_PER_REQUEST; stageId++) {
+      List<HostRoleCommand> stage = new ArrayList<>();
+      for (int host = 0; host < 2; host++) {
+        long taskId = (requestId * STAGES_PER_REQUEST + stageId) * 2 + host;
+        stage.add(createCommand(taskId, requestId, stageId, "host" + (taskId % HOSTS)));
+      }
+      stages.add(stage);
+      allCommands.addAll(stage);
+    }
+    taskEventPublisher.publish(new TaskCreateEvent(allCommands));
+
+    for (List<HostRoleCommand> stage : stages) {
+      for (HostRoleCommand command : stage) {
+        command.setStatus(HostRoleStatus.QUEUED);
+      }
+      taskEventPublisher.publish(new TaskUpdateEvent(stage));
+      for (HostRoleCommand command : stage) {
+        command.setStatus(HostRoleStatus.COMPLETED);
+        taskEventPublisher.publish(new TaskUpdateEvent(asList(command)));
+      }
+    }
+  }
+
+  private HostRoleCommand createCommand(long taskId, long requestId, long stageId, String hostName) {
+    HostRoleCommand command = new HostRoleCommand(hostName, Role.DATANODE, null, RoleCommand.START,
+        hostDAO, null, null);
+    command.setTaskId(taskId);
+    command.setRequestId(requestId);
+    command.setStageId(stageId);
+    command.setStatus(HostRoleStatus.PENDING);
+    return command;
+  }
+
+  private HostRoleCommandEntity createEntity(long taskId, HostRoleStatus status, String hostName) {
+    HostRoleCommandEntity entity = new HostRoleCommandEntity();
+    entity.setTaskId(taskId);
+    entity.setRequestId(1L);
+    entity.setStageId(1L);
+    entity.setStatus(status);
+    HostEntity hostEntity = new HostEntity();
+    hostEntity.setHostName(hostName);
+    entity.setHostEntity(hostEntity);
+    return entity;
+  }
+
+  @SafeVarargs
+  private static <T> List<T> asList(T... elements) {
+    List<T> list = new ArrayList<>();
+    Collections.addAll(list, elements);
+    return list;
+  }
+}
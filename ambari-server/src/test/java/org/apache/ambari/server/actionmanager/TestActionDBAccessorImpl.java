@@ -188,6 +188,67 @@ public class TestActionDBAccessorImpl {
             HostRoleStatus.ABORTED,s.getHostRoleStatus(hostname, "HBASE_MASTER"));
   }
 
+  @Test
+  public void testBatchedActionResponse() throws AmbariException {
+    String hostname = "host1";
+    populateActionDB(db, hostname, requestId, stageId, false);
+    Stage stage = db.getAllStages(requestId).get(0);
+    stage.setHostRoleStatus(hostname, "HBASE_MASTER", HostRoleStatus.QUEUED);
+    db.hostRoleScheduled(stage, hostname, "HBASE_MASTER");
+
+    db.beginHostRoleStatesBatch();
+    db.updateHostRoleStates(Collections.singletonList(createCommandReport(HostRoleStatus.IN_PROGRESS, 0)));
+    db.updateHostRoleStates(Collections.singletonList(createCommandReport(HostRoleStatus.COMPLETED, 215)));
+    // a late report does not revert the completed task
+    db.updateHostRoleStates(Collections.singletonList(createCommandReport(HostRoleStatus.IN_PROGRESS, 0)));
+
+    // nothing is written until the batch is flushed
+    assertEquals(HostRoleStatus.QUEUED, hostRoleCommandDAO.findByPK(1L).getStatus());
+
+    db.flushHostRoleStatesBatch();
+    HostRoleCommandEntity commandEntity = hostRoleCommandDAO.findByPK(1L);
+    assertEquals(HostRoleStatus.COMPLETED, commandEntity.getStatus());
+    assertEquals(Integer.valueOf(215), commandEntity.getExitcode());
+  }
+
+  @Test
+  public void testBatchedActionResponseWithFailingTask() throws AmbariException {
+    String hostname = "host1";
+    populateActionDB(db, hostname, requestId, stageId, false);
+    Stage stage = db.getAllStages(requestId).get(0);
+    stage.setHostRoleStatus(hostname, "HBASE_MASTER", HostRoleStatus.QUEUED);
+    db.hostRoleScheduled(stage, hostname, "HBASE_MASTER");
+
+    CommandReport invalidReport = createCommandReport(2, "HBASE_REGIONSERVER", "INVALID_STATUS", 0);
+
+    db.beginHostRoleStatesBatch();
+    db.updateHostRoleStates(Collections.singletonList(createCommandReport(HostRoleStatus.COMPLETED, 215)));
+    db.updateHostRoleStates(Collections.singletonList(invalidReport));
+
+    // the batch fails as a whole, but the valid report is still written
+    db.flushHostRoleStatesBatch();
+    HostRoleCommandEntity commandEntity = hostRoleCommandDAO.findByPK(1L);
+    assertEquals(HostRoleStatus.COMPLETED, commandEntity.getStatus());
+    assertEquals(Integer.valueOf(215), commandEntity.getExitcode());
+    assertEquals(HostRoleStatus.PENDING, hostRoleCommandDAO.findByPK(2L).getStatus());
+  }
+
+  private CommandReport createCommandReport(HostRoleStatus status, int exitCode) {
+    return createCommandReport(1, "HBASE_MASTER", status.toString(), exitCode);
+  }
+
+  private CommandReport createCommandReport(long taskId, String role, String status, int exitCode) {
+    CommandReport cr = new CommandReport();
+    cr.setTaskId(taskId);
+    cr.setActionId(StageUtils.getActionId(requestId, stageId));
+    cr.setRole(role);
+    cr.setStatus(status);
+    cr.setStdErr("");
+    cr.setStdOut("");
+    cr.setExitCode(exitCode);
+    return cr;
+  }
+
   @Test
   public void testGetStagesInProgress() throws AmbariException {
     List<Stage> stages = new ArrayList<>();
@@ -35,6 +35,7 @@ import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -74,8 +75,12 @@ import org.apache.ambari.server.agent.ExecutionCommand;
 import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.HostsMap;
 import org.apache.ambari.server.events.AmbariEvent;
+import org.apache.ambari.server.events.TaskCreateEvent;
+import org.apache.ambari.server.events.TaskEvent;
+import org.apache.ambari.server.events.TaskUpdateEvent;
 import org.apache.ambari.server.events.publishers.AgentCommandsPublisher;
 import org.apache.ambari.server.events.publishers.AmbariEventPublisher;
+import org.apache.ambari.server.events.publishers.TaskEventPublisher;
 import org.apache.ambari.server.metadata.RoleCommandOrder;
 import org.apache.ambari.server.metadata.RoleCommandOrderProvider;
 import org.apache.ambari.server.metadata.RoleCommandPair;
@@ -125,6 +130,7 @@ import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
 import com.google.inject.persist.UnitOfWork;
 
 public class TestActionScheduler {
@@ -2795,6 +2801,206 @@ public class TestActionScheduler {
 
   }
 
+  /**
+   * Verifies that the stages of independent requests are processed by the
+   * worker pool, each one loaded again in the unit of work of its worker.
+   */
+  @Test
+  public void testIndependentStagesParallelProcessing() throws Exception {
+    Clusters fsm = createParallelProcessingClusters();
+    UnitOfWork unitOfWork = mock(UnitOfWork.class);
+    AgentCommandsPublisher agentCommandsPublisher = mock(AgentCommandsPublisher.class);
+    ActionDBAccessor db = mock(ActionDBAccessor.class);
+
+    List<Stage> firstStageInProgressPerRequest = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      firstStageInProgressPerRequest.add(getStageWithSingleTask("host" + i, "cluster1", Role.DATANODE,
+          RoleCommand.START, Service.Type.HDFS, i, i, i));
+      when(db.getRequestEntity(i)).thenReturn(createRequestEntity(false));
+    }
+
+    ActionScheduler scheduler = createParallelProcessingScheduler(db, fsm, unitOfWork, agentCommandsPublisher,
+        firstStageInProgressPerRequest);
+
+    scheduler.doWork();
+
+    for (int i = 1; i <= 3; i++) {
+      Stage stage = firstStageInProgressPerRequest.get(i - 1);
+      Assert.assertEquals(HostRoleStatus.QUEUED, stage.getHostRoleStatus("host" + i, "DATANODE"));
+      verify(db).getStage(stage.getActionId());
+      verify(db).startRequest(i);
+    }
+
+    // a unit of work for the scheduler thread and one for each stage
+    verify(unitOfWork, times(4)).begin();
+    verify(unitOfWork, times(4)).end();
+
+    ArgumentCaptor<Multimap> commandsCaptor = ArgumentCaptor.forClass(Multimap.class);
+    verify(agentCommandsPublisher).sendAgentCommand(commandsCaptor.capture());
+    Assert.assertEquals(3, commandsCaptor.getValue().size());
+  }
+
+  /**
+   * Verifies that the worker pool does not change the processing of exclusive
+   * requests.
+   */
+  @Test
+  public void testExclusiveRequestsParallelProcessing() throws Exception {
+    Clusters fsm = createParallelProcessingClusters();
+    UnitOfWork unitOfWork = mock(UnitOfWork.class);
+    AgentCommandsPublisher agentCommandsPublisher = mock(AgentCommandsPublisher.class);
+    ActionDBAccessor db = mock(ActionDBAccessor.class);
+
+    Stage request1Stage = getStageWithSingleTask("host1", "cluster1", Role.DATANODE,
+        RoleCommand.START, Service.Type.HDFS, 1, 1, 1);
+    Stage request2Stage = getStageWithSingleTask("host2", "cluster1", Role.DATANODE,
+        RoleCommand.START, Service.Type.HDFS, 2, 2, 2);
+    Stage request3Stage = getStageWithSingleTask("host3", "cluster1", Role.DATANODE,
+        RoleCommand.START, Service.Type.HDFS, 3, 3, 3);
+
+    RequestEntity request1 = createRequestEntity(false);
+    RequestEntity request2 = createRequestEntity(true);
+    RequestEntity request3 = createRequestEntity(false);
+    when(db.getRequestEntity(1L)).thenReturn(request1);
+    when(db.getRequestEntity(2L)).thenReturn(request2);
+    when(db.getRequestEntity(3L)).thenReturn(request3);
+
+    List<Stage> firstStageInProgressPerRequest = new ArrayList<>(
+        Arrays.asList(request1Stage, request2Stage, request3Stage));
+
+    ActionScheduler scheduler = createParallelProcessingScheduler(db, fsm, unitOfWork, agentCommandsPublisher,
+        firstStageInProgressPerRequest);
+
+    // the exclusive request waits for the earlier request
+    scheduler.doWork();
+
+    Assert.assertEquals(HostRoleStatus.QUEUED, request1Stage.getHostRoleStatus("host1", "DATANODE"));
+    Assert.assertEquals(HostRoleStatus.PENDING, request2Stage.getHostRoleStatus("host2", "DATANODE"));
+    Assert.assertEquals(HostRoleStatus.PENDING, request3Stage.getHostRoleStatus("host3", "DATANODE"));
+    verify(db).startRequest(1L);
+    verify(db, times(0)).startRequest(2L);
+    verify(db, times(0)).startRequest(3L);
+
+    // the exclusive request holds back the later request
+    firstStageInProgressPerRequest.remove(request1Stage);
+    scheduler.doWork();
+
+    Assert.assertEquals(HostRoleStatus.QUEUED, request2Stage.getHostRoleStatus("host2", "DATANODE"));
+    Assert.assertEquals(HostRoleStatus.PENDING, request3Stage.getHostRoleStatus("host3", "DATANODE"));
+    verify(db).startRequest(2L);
+    verify(db, times(0)).startRequest(3L);
+  }
+
+  /**
+   * Verifies that the commands of the stages processed by the worker pool are
+   * sent even if processing of another stage failed.
+   */
+  @Test
+  public void testFailingStageParallelProcessing() throws Exception {
+    Clusters fsm = createParallelProcessingClusters();
+    UnitOfWork unitOfWork = mock(UnitOfWork.class);
+    AgentCommandsPublisher agentCommandsPublisher = mock(AgentCommandsPublisher.class);
+    ActionDBAccessor db = mock(ActionDBAccessor.class);
+
+    Stage failingStage = getStageWithSingleTask("host1", "cluster1", Role.DATANODE,
+        RoleCommand.START, Service.Type.HDFS, 1, 1, 1);
+    Stage stage = getStageWithSingleTask("host2", "cluster1", Role.DATANODE,
+        RoleCommand.START, Service.Type.HDFS, 2, 2, 2);
+    when(db.getRequestEntity(anyLong())).thenReturn(createRequestEntity(false));
+    Mockito.doThrow(new RuntimeException("Unable to schedule")).when(db)
+        .bulkHostRoleScheduled(eq(failingStage), anyListOf(ExecutionCommand.class));
+
+    ActionScheduler scheduler = createParallelProcessingScheduler(db, fsm, unitOfWork, agentCommandsPublisher,
+        Arrays.asList(failingStage, stage));
+
+    try {
+      scheduler.doWork();
+      Assert.fail("Expected the failure of the stage to be rethrown");
+    } catch (AmbariException e) {
+      Assert.assertEquals("Unable to schedule", e.getCause().getMessage());
+    }
+
+    // both workers have ended their units of work
+    verify(unitOfWork, times(3)).begin();
+    verify(unitOfWork, times(3)).end();
+
+    ArgumentCaptor<Multimap> commandsCaptor = ArgumentCaptor.forClass(Multimap.class);
+    verify(agentCommandsPublisher).sendAgentCommand(commandsCaptor.capture());
+    Collection<AgentCommand> commands = commandsCaptor.getValue().values();
+    Assert.assertEquals(1, commands.size());
+    Assert.assertEquals("host2", ((ExecutionCommand) commands.iterator().next()).getHostname());
+  }
+
+  private Clusters createParallelProcessingClusters() throws Exception {
+    Clusters fsm = mock(Clusters.class);
+    Cluster oneClusterMock = mock(Cluster.class);
+    Service serviceObj = mock(Service.class);
+    ServiceComponent scomp = mock(ServiceComponent.class);
+    ServiceComponentHost sch = mock(ServiceComponentHost.class);
+    when(fsm.getCluster(anyString())).thenReturn(oneClusterMock);
+    when(oneClusterMock.getService(anyString())).thenReturn(serviceObj);
+    when(serviceObj.getServiceComponent(anyString())).thenReturn(scomp);
+    when(scomp.getServiceComponentHost(anyString())).thenReturn(sch);
+    when(serviceObj.getCluster()).thenReturn(oneClusterMock);
+
+    HashMap<String, ServiceComponentHost> hosts = new HashMap<>();
+    for (int i = 1; i <= 3; i++) {
+      hosts.put("host" + i, sch);
+    }
+    when(scomp.getServiceComponentHosts()).thenReturn(hosts);
+
+    Host host = mock(Host.class);
+    when(fsm.getHost(anyString())).thenReturn(host);
+    when(host.getState()).thenReturn(HostState.HEALTHY);
+    when(host.getHostId()).thenReturn(1L);
+    return fsm;
+  }
+
+  private RequestEntity createRequestEntity(boolean exclusive) {
+    RequestEntity request = mock(RequestEntity.class);
+    when(request.isExclusive()).thenReturn(exclusive);
+    when(request.getClusterHostInfo()).thenReturn(CLUSTER_HOST_INFO);
+    return request;
+  }
+
+  /**
+   * Creates a scheduler which processes the given stages by a worker pool. The
+   * stages are loaded again by their action ids, as the workers do.
+   */
+  private ActionScheduler createParallelProcessingScheduler(ActionDBAccessor db, Clusters fsm, UnitOfWork unitOfWork,
+                                                            AgentCommandsPublisher agentCommandsPublisher,
+                                                            final List<Stage> firstStageInProgressPerRequest) {
+    HostRoleCommandDAO hostRoleCommandDAOMock = mock(HostRoleCommandDAO.class);
+    Mockito.doNothing().when(hostRoleCommandDAOMock).publishTaskCreateEvent(anyListOf(HostRoleCommand.class));
+
+    when(db.getCommandsInProgressCount()).thenReturn(firstStageInProgressPerRequest.size());
+    when(db.getFirstStageInProgressPerRequest()).thenReturn(firstStageInProgressPerRequest);
+    when(db.getStage(anyString())).thenAnswer(new Answer<Stage>() {
+      @Override
+      public Stage answer(InvocationOnMock invocation) throws Throwable {
+        String actionId = (String) invocation.getArguments()[0];
+        for (Stage stage : firstStageInProgressPerRequest) {
+          if (stage.getActionId().equals(actionId)) {
+            return stage;
+          }
+        }
+        return null;
+      }
+    });
+
+    Properties properties = new Properties();
+    properties.put(Configuration.PARALLEL_STAGE_EXECUTION.getKey(), "true");
+    properties.put(Configuration.PARALLEL_STAGE_PROCESSING_THREADS.getKey(), "4");
+    Configuration conf = new Configuration(properties);
+
+    ActionScheduler scheduler = spy(new ActionScheduler(100, 50, db, new ActionQueue(), fsm, 3,
+        new HostsMap((String) null), unitOfWork, null, conf, entityManagerProviderMock,
+        hostRoleCommandDAOMock, (HostRoleCommandFactory) null, agentCommandsPublisher));
+
+    doReturn(false).when(scheduler).wasAgentRestartedDuringOperation(any(Host.class), any(Stage.class), anyString());
+    return scheduler;
+  }
+
   @Test
   public void testAbortHolding() throws AmbariException {
     UnitOfWork unitOfWork = EasyMock.createMock(UnitOfWork.class);
@@ -3116,6 +3322,145 @@ public class TestActionScheduler {
     EasyMock.verify(previousStage, nextStage, actionDBAccessor, hostRoleCommand);
   }
 
+  /**
+   * Runs an event driven scheduler with a poll interval of an hour and checks
+   * that it wakes up as soon as the events of the commands finish the stage.
+   */
+  @Test
+  public void testEventDrivenSchedulerWakesUpWhenStageIsFinished() throws Exception {
+    CountDownLatch wakeups = new CountDownLatch(1);
+    TaskEventPublisher taskEventPublisher = new TaskEventPublisher();
+    ActionScheduler scheduler = createEventDrivenScheduler(3600000L,
+        new InProgressCommandsTracker(taskEventPublisher), wakeups);
+
+    HostRoleCommand first = createTrackedCommand(1L, "host1");
+    HostRoleCommand second = createTrackedCommand(2L, "host2");
+    taskEventPublisher.publish(new TaskCreateEvent(Lists.newArrayList(first, second)));
+
+    Thread schedulerThread = new Thread(scheduler);
+    schedulerThread.start();
+    try {
+      first.setStatus(HostRoleStatus.COMPLETED);
+      taskEventPublisher.publish(new TaskUpdateEvent(Lists.newArrayList(first)));
+      verify(scheduler, never()).doWork();
+
+      second.setStatus(HostRoleStatus.COMPLETED);
+      taskEventPublisher.publish(new TaskUpdateEvent(Lists.newArrayList(second)));
+      assertTrue(wakeups.await(10, TimeUnit.SECONDS));
+    } finally {
+      schedulerThread.interrupt();
+      schedulerThread.join();
+    }
+  }
+
+  /**
+   * Checks that an event driven scheduler still wakes up after the poll
+   * interval when no event is received.
+   */
+  @Test
+  public void testEventDrivenSchedulerPollsWithoutEvents() throws Exception {
+    CountDownLatch wakeups = new CountDownLatch(2);
+    ActionScheduler scheduler = createEventDrivenScheduler(50L,
+        new InProgressCommandsTracker(new TaskEventPublisher()), wakeups);
+
+    Thread schedulerThread = new Thread(scheduler);
+    schedulerThread.start();
+    try {
+      assertTrue(wakeups.await(10, TimeUnit.SECONDS));
+    } finally {
+      schedulerThread.interrupt();
+      schedulerThread.join();
+    }
+  }
+
+  /**
+   * Checks that the events published by a rolled back transaction neither
+   * change the commands in progress nor wake up the scheduler.
+   */
+  @Test
+  public void testRolledBackTransactionDoesNotWakeUpScheduler() throws Exception {
+    CountDownLatch wakeups = new CountDownLatch(1);
+    TaskEventPublisher taskEventPublisher = new TaskEventPublisher();
+    InProgressCommandsTracker tracker = new InProgressCommandsTracker(taskEventPublisher);
+    ActionScheduler scheduler = createEventDrivenScheduler(3600000L, tracker, wakeups);
+    TransactionalTaskEventPublisher transactionalPublisher = injector.getInstance(
+        TransactionalTaskEventPublisher.class);
+
+    HostRoleCommand command = createTrackedCommand(1L, "host1");
+    transactionalPublisher.publish(taskEventPublisher, new TaskCreateEvent(Lists.newArrayList(command)), false);
+    assertEquals(1, tracker.getCommandsInProgressCount());
+
+    Thread schedulerThread = new Thread(scheduler);
+    schedulerThread.start();
+    try {
+      command.setStatus(HostRoleStatus.COMPLETED);
+      try {
+        transactionalPublisher.publish(taskEventPublisher, new TaskUpdateEvent(Lists.newArrayList(command)), true);
+        Assert.fail("Expected the transaction to be rolled back");
+      } catch (IllegalStateException e) {
+        // expected
+      }
+      assertEquals(1, tracker.getCommandsInProgressCount());
+      verify(scheduler, never()).doWork();
+
+      transactionalPublisher.publish(taskEventPublisher, new TaskUpdateEvent(Lists.newArrayList(command)), false);
+      assertEquals(0, tracker.getCommandsInProgressCount());
+      assertTrue(wakeups.await(10, TimeUnit.SECONDS));
+    } finally {
+      schedulerThread.interrupt();
+      schedulerThread.join();
+    }
+  }
+
+  /**
+   * Creates an event driven scheduler, whose iterations only count down the
+   * given latch.
+   */
+  private ActionScheduler createEventDrivenScheduler(long sleepTime, InProgressCommandsTracker tracker,
+      final CountDownLatch wakeups) throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(Configuration.ACTION_SCHEDULER_EVENT_DRIVEN.getKey(), "true");
+    Configuration conf = new Configuration(properties);
+
+    ActionScheduler scheduler = spy(new ActionScheduler(sleepTime, 50, mock(ActionDBAccessor.class),
+        new ActionQueue(), mock(Clusters.class), 3, new HostsMap((String) null), mock(UnitOfWork.class),
+        null, conf, entityManagerProviderMock, mock(HostRoleCommandDAO.class), (HostRoleCommandFactory) null,
+        mock(AgentCommandsPublisher.class)));
+    scheduler.setInProgressCommandsTracker(tracker);
+
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        wakeups.countDown();
+        return null;
+      }
+    }).when(scheduler).doWork();
+    return scheduler;
+  }
+
+  private HostRoleCommand createTrackedCommand(long taskId, String hostName) {
+    HostRoleCommand command = hostRoleCommandFactory.create(hostName, Role.DATANODE, null, RoleCommand.START);
+    command.setTaskId(taskId);
+    command.setRequestId(1L);
+    command.setStageId(1L);
+    command.setStatus(HostRoleStatus.QUEUED);
+    return command;
+  }
+
+  /**
+   * Publishes task events within a transaction, like the DAOs do on persist
+   * and merge of commands.
+   */
+  public static class TransactionalTaskEventPublisher {
+    @Transactional
+    public void publish(TaskEventPublisher taskEventPublisher, TaskEvent event, boolean rollback) {
+      taskEventPublisher.publish(event);
+      if (rollback) {
+        throw new IllegalStateException("rollback");
+      }
+    }
+  }
+
   public static class MockModule extends AbstractModule {
     @Override
     protected void configure() {
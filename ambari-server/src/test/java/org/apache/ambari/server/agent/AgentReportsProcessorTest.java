@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.agent;
+
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.same;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.actionmanager.ActionDBAccessor;
+import org.apache.ambari.server.agent.stomp.dto.HostStatusReport;
+import org.apache.ambari.server.configuration.Configuration;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.persist.UnitOfWork;
+import com.google.inject.util.Providers;
+
+public class AgentReportsProcessorTest {
+
+  private Configuration configuration;
+  private HeartBeatHandler heartBeatHandler;
+
+  @Before
+  public void setUp() {
+    configuration = EasyMock.createNiceMock(Configuration.class);
+    // a single partition, processed by the tests only
+    expect(configuration.getAgentsReportThreadPoolSize()).andReturn(1).anyTimes();
+    expect(configuration.getAgentsReportQueueSize()).andReturn(3).anyTimes();
+    expect(configuration.getAgentsReportProcessingBatchSize()).andReturn(10).anyTimes();
+    expect(configuration.getAgentsReportQueueOfferTimeout()).andReturn(10L).anyTimes();
+    expect(configuration.getAgentsReportProcessingStartTimeout()).andReturn(3600).anyTimes();
+    expect(configuration.getAgentsReportProcessingPeriod()).andReturn(3600).anyTimes();
+    replay(configuration);
+
+    heartBeatHandler = EasyMock.createStrictMock(HeartBeatHandler.class);
+  }
+
+  @Test
+  public void reportsOfHostAreProcessedInOrder() throws Exception {
+    AgentReport report1 = createReport("host1");
+    AgentReport report2 = createReport("host2");
+    AgentReport report3 = createReport("host1");
+
+    expectReport(report1);
+    expectReport(report2);
+    expectReport(report3);
+    replay(heartBeatHandler);
+
+    AgentReportsProcessor processor = createProcessor();
+    processor.addAgentReport(report1);
+    processor.addAgentReport(report2);
+    processor.addAgentReport(report3);
+    assertEquals(3, processor.getQueueSize());
+
+    processor.processQueuedReports();
+
+    verify(heartBeatHandler);
+    assertEquals(0, processor.getQueueSize());
+    assertEquals(3, processor.getProcessedReportsCount());
+  }
+
+  @Test
+  public void failedBatchIsProcessedReportByReport() throws Exception {
+    AgentReport report1 = createReport("host1");
+    AgentReport report2 = createReport("host1");
+    AgentReport report3 = createReport("host1");
+
+    // the batch is rolled back on the failure of the second report
+    expectReport(report1);
+    expectReport(report2);
+    expectLastCall().andThrow(new AmbariException("failed"));
+    // and processed again one by one, the failure does not stop the third report
+    expectReport(report1);
+    expectReport(report2);
+    expectLastCall().andThrow(new AmbariException("failed"));
+    expectReport(report3);
+    replay(heartBeatHandler);
+
+    AgentReportsProcessor processor = createProcessor();
+    processor.addAgentReport(report1);
+    processor.addAgentReport(report2);
+    processor.addAgentReport(report3);
+
+    processor.processQueuedReports();
+
+    verify(heartBeatHandler);
+    assertEquals(3, processor.getProcessedReportsCount());
+  }
+
+  @Test
+  public void reportIsRejectedWhenQueueIsFull() throws Exception {
+    replay(heartBeatHandler);
+
+    AgentReportsProcessor processor = createProcessor();
+    for (int i = 0; i < 3; i++) {
+      processor.addAgentReport(createReport("host1"));
+    }
+
+    try {
+      processor.addAgentReport(createReport("host1"));
+      fail("Expected the report to be rejected");
+    } catch (AmbariException e) {
+      // expected
+    }
+    assertEquals(3, processor.getQueueSize());
+    assertEquals(1, processor.getRejectedReportsCount());
+  }
+
+  private AgentReportsProcessor createProcessor() {
+    UnitOfWork unitOfWork = EasyMock.createNiceMock(UnitOfWork.class);
+    ActionDBAccessor actionDBAccessor = EasyMock.createNiceMock(ActionDBAccessor.class);
+    replay(unitOfWork, actionDBAccessor);
+
+    return Guice.createInjector(new AbstractModule() {
+      @Override
+      protected void configure() {
+        // bound to providers, so that the members of the mocks are not injected
+        bind(Configuration.class).toProvider(Providers.of(configuration));
+        bind(HeartBeatHandler.class).toProvider(Providers.of(heartBeatHandler));
+        bind(UnitOfWork.class).toProvider(Providers.of(unitOfWork));
+        bind(ActionDBAccessor.class).toProvider(Providers.of(actionDBAccessor));
+      }
+    }).getInstance(AgentReportsProcessor.class);
+  }
+
+  private void expectReport(AgentReport report) throws AmbariException {
+    heartBeatHandler.handleHostReportStatus(same(report.getHostStatusReport()), eq(report.getHostName()));
+  }
+
+  private static AgentReport createReport(String hostName) {
+    return new AgentReport(hostName, null, null, new HostStatusReport());
+  }
+}
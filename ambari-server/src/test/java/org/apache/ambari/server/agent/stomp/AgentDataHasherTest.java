@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.agent.stomp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class AgentDataHasherTest {
+
+  @Test
+  public void hashIsIndependentOfBranchOrder() {
+    Map<String, Object> sorted = new TreeMap<>();
+    sorted.put("1", Collections.singletonMap("a", "b"));
+    sorted.put("2", Collections.singletonMap("c", "d"));
+    Map<String, Object> unsorted = new HashMap<>(sorted);
+
+    String first = new AgentDataHasher("").getHash(sorted, null);
+    String second = new AgentDataHasher("").getHash(unsorted, null);
+
+    assertEquals(first, second);
+    assertEquals(128, first.length());
+  }
+
+  @Test
+  public void onlyChangedBranchesAreRehashed() {
+    Map<String, String> cluster1 = new TreeMap<>();
+    cluster1.put("a", "b");
+    Map<String, Object> data = new TreeMap<>();
+    data.put("1", cluster1);
+    data.put("2", Collections.singletonMap("c", "d"));
+
+    AgentDataHasher hasher = new AgentDataHasher("");
+    String initialHash = hasher.getHash(data, null);
+
+    cluster1.put("a", "changed");
+    // cluster 1 is not reported as changed, so its cached digest is reused
+    assertEquals(initialHash, hasher.getHash(data, Collections.singleton("2")));
+
+    String updatedHash = hasher.getHash(data, Collections.singleton("1"));
+    assertNotEquals(initialHash, updatedHash);
+    assertEquals(new AgentDataHasher("").getHash(data, null), updatedHash);
+  }
+
+  @Test
+  public void removedBranchesAreDropped() {
+    Map<String, Object> data = new TreeMap<>();
+    data.put("1", Collections.singletonMap("a", "b"));
+
+    AgentDataHasher hasher = new AgentDataHasher("");
+    String singleClusterHash = hasher.getHash(data, null);
+
+    data.put("2", Collections.singletonMap("c", "d"));
+    String twoClustersHash = hasher.getHash(data, Collections.singleton("2"));
+    assertNotEquals(singleClusterHash, twoClustersHash);
+
+    data.remove("2");
+    assertEquals(singleClusterHash, hasher.getHash(data, Collections.singleton("2")));
+  }
+
+  @Test
+  public void wholeObjectHash() {
+    AgentDataHasher hasher = new AgentDataHasher("");
+    assertEquals(hasher.getHash(Collections.singletonMap("a", "b")),
+        new AgentDataHasher("").getHash(Collections.singletonMap("a", "b")));
+    assertNotEquals(hasher.getHash(Collections.singletonMap("a", "b")),
+        new AgentDataHasher("salt").getHash(Collections.singletonMap("a", "b")));
+  }
+}
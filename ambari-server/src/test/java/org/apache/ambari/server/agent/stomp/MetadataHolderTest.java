@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.agent.stomp;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.ambari.server.agent.stomp.dto.MetadataCluster;
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.controller.AmbariManagementControllerImpl;
+import org.apache.ambari.server.events.MetadataUpdateEvent;
+import org.apache.ambari.server.events.publishers.StateUpdateEventPublisher;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+public class MetadataHolderTest {
+
+  private MetadataHolder metadataHolder;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(Configuration.AGENTS_DATA_JOURNAL_SIZE.getKey(), "2");
+    final Configuration configuration = new Configuration(properties);
+
+    final AmbariManagementControllerImpl controller = createNiceMock(AmbariManagementControllerImpl.class);
+    expect(controller.getClustersMetadata()).andReturn(createUpdate("1", "param0", "value0")).once();
+    final StateUpdateEventPublisher publisher = createNiceMock(StateUpdateEventPublisher.class);
+    replay(controller, publisher);
+
+    metadataHolder = Guice.createInjector(new AbstractModule() {
+      @Override
+      protected void configure() {
+        bind(Configuration.class).toInstance(configuration);
+        bind(AmbariManagementControllerImpl.class).toInstance(controller);
+        bind(StateUpdateEventPublisher.class).toInstance(publisher);
+      }
+    }).getInstance(MetadataHolder.class);
+  }
+
+  @Test
+  public void agentReceivesOnlyMissedUpdates() throws Exception {
+    String initialHash = metadataHolder.getUpdateIfChanged(null).getHash();
+
+    metadataHolder.updateData(createUpdate("1", "param1", "value1"));
+    String firstUpdateHash = metadataHolder.getData().getHash();
+    metadataHolder.updateData(createUpdate("1", "param2", "value2"));
+
+    MetadataUpdateEvent delta = metadataHolder.getUpdateIfChanged(initialHash);
+    SortedMap<String, String> params = delta.getMetadataClusters().get("1").getClusterLevelParams();
+    assertEquals(2, params.size());
+    assertEquals("value1", params.get("param1"));
+    assertEquals("value2", params.get("param2"));
+    assertEquals(metadataHolder.getData().getHash(), delta.getHash());
+
+    delta = metadataHolder.getUpdateIfChanged(firstUpdateHash);
+    params = delta.getMetadataClusters().get("1").getClusterLevelParams();
+    assertEquals(1, params.size());
+    assertEquals("value2", params.get("param2"));
+
+    assertNull(metadataHolder.getUpdateIfChanged(metadataHolder.getData().getHash()).getMetadataClusters());
+  }
+
+  @Test
+  public void agentReceivesFullDataWhenJournalIsExceeded() throws Exception {
+    String initialHash = metadataHolder.getUpdateIfChanged(null).getHash();
+
+    metadataHolder.updateData(createUpdate("1", "param1", "value1"));
+    metadataHolder.updateData(createUpdate("1", "param2", "value2"));
+    metadataHolder.updateData(createUpdate("1", "param3", "value3"));
+
+    assertSame(metadataHolder.getData(), metadataHolder.getUpdateIfChanged(initialHash));
+    assertSame(metadataHolder.getData(), metadataHolder.getUpdateIfChanged("unknown"));
+  }
+
+  private MetadataUpdateEvent createUpdate(String clusterId, String paramName, String paramValue) {
+    SortedMap<String, String> clusterLevelParams = new TreeMap<>();
+    clusterLevelParams.put(paramName, paramValue);
+    SortedMap<String, MetadataCluster> clusters = new TreeMap<>();
+    clusters.put(clusterId, new MetadataCluster(null, new TreeMap<>(), clusterLevelParams));
+    return new MetadataUpdateEvent(clusters, null);
+  }
+}
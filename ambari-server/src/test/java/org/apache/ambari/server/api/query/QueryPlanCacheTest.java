@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.api.query;
+
+import static org.easymock.EasyMock.createStrictMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ambari.server.api.predicate.PredicateCompiler;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.spi.TemporalInfo;
+import org.apache.ambari.server.controller.utilities.PredicateBuilder;
+import org.junit.Test;
+
+/**
+ * QueryPlanCache unit tests.
+ */
+public class QueryPlanCacheTest {
+
+  @Test
+  public void testNormalize() {
+    Set<String> none = Collections.emptySet();
+
+    assertEquals("a=1", QueryPlanCache.normalize("a=1&_=1500000000000", none));
+    assertEquals("a=1&b=2", QueryPlanCache.normalize("fields=x/y,z[1,2,3]&a=1&_=15&b=2", none));
+    assertEquals("", QueryPlanCache.normalize("fields=x&_=15", none));
+    assertEquals("a=1", QueryPlanCache.normalize("a=1&params/run=true", Collections.singleton("params/run")));
+
+    // values which would be split into several tokens are kept
+    assertEquals("a=1&fields=(x)", QueryPlanCache.normalize("a=1&fields=(x)", none));
+    assertEquals("(a=1&_=2)", QueryPlanCache.normalize("(a=1&_=2)", none));
+    assertEquals("a=1|_=2", QueryPlanCache.normalize("a=1|_=2", none));
+    assertEquals("&a=1", QueryPlanCache.normalize("&a=1", none));
+  }
+
+  @Test
+  public void testGetPredicate() throws Exception {
+    Predicate predicate = new PredicateBuilder().property("Hosts/host_name").equals("h1").toPredicate();
+    PredicateCompiler compiler = createStrictMock(PredicateCompiler.class);
+    expect(compiler.compile("Hosts/host_name=h1&_=1")).andReturn(predicate);
+    expect(compiler.compile("Hosts/host_name=h1&_=1", Collections.singleton("ignored"))).andReturn(predicate);
+    expect(compiler.compile("fields=Hosts/*")).andReturn(null);
+    replay(compiler);
+
+    QueryPlanCache cache = new QueryPlanCache(10);
+
+    assertSame(predicate, cache.getPredicate(Resource.Type.Host, "Hosts/host_name=h1&_=1", null, compiler));
+    assertSame(predicate, cache.getPredicate(Resource.Type.Host, "Hosts/host_name=h1&_=2", null, compiler));
+    assertSame(predicate, cache.getPredicate(Resource.Type.Host, "_=3&Hosts/host_name=h1",
+        Collections.emptySet(), compiler));
+    assertSame(predicate, cache.getPredicate(Resource.Type.Host, "Hosts/host_name=h1&_=1",
+        Collections.singleton("ignored"), compiler));
+
+    assertNull(cache.getPredicate(Resource.Type.Host, "fields=Hosts/*", null, compiler));
+    assertNull(cache.getPredicate(Resource.Type.Host, "fields=Hosts/*", null, compiler));
+
+    verify(compiler);
+    assertEquals(3, cache.getStats().hitCount());
+    assertEquals(3, cache.getStats().missCount());
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void testGetFields() {
+    Map<String, TemporalInfo> parsed = new HashMap<>();
+    parsed.put("Hosts/host_name", null);
+
+    QueryPlanCache cache = new QueryPlanCache(10);
+
+    Map<String, TemporalInfo> fields = cache.getFields("Hosts/host_name", f -> parsed);
+    assertEquals(parsed, fields);
+    assertNotSame(parsed, fields);
+
+    fields.put("Hosts/rack_info", null);
+    assertEquals(parsed, cache.getFields("Hosts/host_name", f -> {
+      throw new IllegalStateException("Fields should be cached");
+    }));
+    assertEquals(1, cache.getStats().hitCount());
+  }
+}
@@ -40,6 +40,7 @@ import org.apache.ambari.server.api.services.Result;
 import org.apache.ambari.server.api.services.ResultImpl;
 import org.apache.ambari.server.api.util.TreeNode;
 import org.apache.ambari.server.api.util.TreeNodeImpl;
+import org.apache.ambari.server.controller.internal.CompactResource;
 import org.apache.ambari.server.controller.internal.ResourceImpl;
 import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.controller.spi.Schema;
@@ -450,6 +451,61 @@ public class MinimalRendererTest {
     }
   }
 
+  @Test
+  public void testFinalizeResult_compactResources() throws Exception {
+    SchemaFactory schemaFactory = createNiceMock(SchemaFactory.class);
+    Schema clusterSchema = createNiceMock(Schema.class);
+    Schema hostSchema = createNiceMock(Schema.class);
+    Schema hostComponentSchema = createNiceMock(Schema.class);
+
+    // mock expectations
+    expect(schemaFactory.getSchema(Resource.Type.Cluster)).andReturn(clusterSchema).anyTimes();
+    expect(schemaFactory.getSchema(Resource.Type.Host)).andReturn(hostSchema).anyTimes();
+    expect(schemaFactory.getSchema(Resource.Type.HostComponent)).andReturn(hostComponentSchema).anyTimes();
+
+    expect(clusterSchema.getKeyPropertyId(Resource.Type.Cluster)).andReturn("Clusters/cluster_name").anyTimes();
+
+    expect(hostSchema.getKeyPropertyId(Resource.Type.Cluster)).andReturn("Hosts/cluster_name").anyTimes();
+    expect(hostSchema.getKeyPropertyId(Resource.Type.Host)).andReturn("Hosts/host_name").anyTimes();
+
+    expect(hostComponentSchema.getKeyPropertyId(Resource.Type.Cluster)).andReturn("HostRoles/cluster_name").anyTimes();
+    expect(hostComponentSchema.getKeyPropertyId(Resource.Type.Host)).andReturn("HostRoles/host_name").anyTimes();
+    expect(hostComponentSchema.getKeyPropertyId(Resource.Type.HostComponent)).andReturn("HostRoles/component_name").anyTimes();
+
+    replay(schemaFactory, clusterSchema, hostSchema, hostComponentSchema);
+
+    Result result = new ResultImpl(true);
+    createResultTree(result.getResultTree(), true);
+
+    MinimalRenderer renderer = new MinimalRenderer();
+    renderer.init(schemaFactory);
+    //call finalizeProperties so that renderer know which properties are requested by user
+    renderer.finalizeProperties(createPropertyTree(), false);
+
+    TreeNode<Resource> resultTree = renderer.finalizeResult(result).getResultTree();
+    TreeNode<Resource> clusterNode = resultTree.getChildren().iterator().next();
+    TreeNode<Resource> hosts = clusterNode.getChildren().iterator().next();
+    for (TreeNode<Resource> hostNode : hosts.getChildren()){
+      Resource hostResource = hostNode.getObject();
+      assertTrue(hostResource instanceof CompactResource);
+      Map<String, Map<String, Object>> hostProperties = hostResource.getPropertiesMap();
+      assertEquals(1, hostProperties.size());
+      assertEquals(1, hostProperties.get("Hosts").size());
+      assertTrue(hostProperties.get("Hosts").containsKey("host_name"));
+      assertNull(hostResource.getPropertyValue("foo"));
+
+      for (TreeNode<Resource> componentNode : hostNode.getChildren().iterator().next().getChildren()) {
+        Resource componentResource = componentNode.getObject();
+        assertTrue(componentResource instanceof CompactResource);
+        Map<String, Map<String, Object>> componentProperties = componentResource.getPropertiesMap();
+        assertEquals(1, componentProperties.size());
+        assertEquals(1, componentProperties.get("HostRoles").size());
+        assertTrue(componentProperties.get("HostRoles").containsKey("component_name"));
+        assertNull(componentResource.getPropertyValue("HostRoles/host_name"));
+      }
+    }
+  }
+
   //todo: test post processing to ensure href removal
   //todo: Need to do some refactoring to do this.
   //todo: BaseResourceDefinition.BaseHrefPostProcessor calls static ClusterControllerHelper.getClusterController().
@@ -483,6 +539,10 @@ public class MinimalRendererTest {
   }
 
   private void createResultTree(TreeNode<Resource> resultTree) throws Exception{
+    createResultTree(resultTree, false);
+  }
+
+  private void createResultTree(TreeNode<Resource> resultTree, boolean compactResources) throws Exception{
     Resource clusterResource = new ResourceImpl(Resource.Type.Cluster);
     clusterResource.setProperty("Clusters/cluster_name", "testCluster");
     clusterResource.setProperty("Clusters/version", "HDP-1.3.3");
@@ -495,7 +555,7 @@ public class MinimalRendererTest {
     hostsTree.setProperty("isCollection", "true");
 
     // host 1 : ambari host
-    Resource hostResource = new ResourceImpl(Resource.Type.Host);
+    Resource hostResource = createResource(Resource.Type.Host, compactResources);
     hostResource.setProperty("Hosts/host_name", "testHost");
     hostResource.setProperty("Hosts/cluster_name", "testCluster");
     hostResource.setProperty("foo", "bar");
@@ -505,22 +565,22 @@ public class MinimalRendererTest {
     hostComponentsTree.setProperty("isCollection", "true");
 
     // host 1 components
-    Resource nnComponentResource = new ResourceImpl(Resource.Type.HostComponent);
+    Resource nnComponentResource = createResource(Resource.Type.HostComponent, compactResources);
     nnComponentResource.setProperty("HostRoles/component_name", "NAMENODE");
     nnComponentResource.setProperty("HostRoles/host_name", "testHost");
     nnComponentResource.setProperty("HostRoles/cluster_name", "testCluster");
 
-    Resource dnComponentResource = new ResourceImpl(Resource.Type.HostComponent);
+    Resource dnComponentResource = createResource(Resource.Type.HostComponent, compactResources);
     dnComponentResource.setProperty("HostRoles/component_name", "DATANODE");
     dnComponentResource.setProperty("HostRoles/host_name", "testHost");
     dnComponentResource.setProperty("HostRoles/cluster_name", "testCluster");
 
-    Resource jtComponentResource = new ResourceImpl(Resource.Type.HostComponent);
+    Resource jtComponentResource = createResource(Resource.Type.HostComponent, compactResources);
     jtComponentResource.setProperty("HostRoles/component_name", "JOBTRACKER");
     jtComponentResource.setProperty("HostRoles/host_name", "testHost");
     jtComponentResource.setProperty("HostRoles/cluster_name", "testCluster");
 
-    Resource ttComponentResource = new ResourceImpl(Resource.Type.HostComponent);
+    Resource ttComponentResource = createResource(Resource.Type.HostComponent, compactResources);
     ttComponentResource.setProperty("HostRoles/component_name", "TASKTRACKER");
     jtComponentResource.setProperty("HostRoles/host_name", "testHost");
     jtComponentResource.setProperty("HostRoles/cluster_name", "testCluster");
@@ -531,7 +591,7 @@ public class MinimalRendererTest {
     hostComponentsTree.addChild(ttComponentResource, "HostComponent:4");
 
     // host 2
-    Resource host2Resource = new ResourceImpl(Resource.Type.Host);
+    Resource host2Resource = createResource(Resource.Type.Host, compactResources);
     host2Resource.setProperty("Hosts/host_name", "testHost2");
     host2Resource.setProperty("Hosts/cluster_name", "testCluster");
     host2Resource.setProperty("foo", "bar");
@@ -545,7 +605,7 @@ public class MinimalRendererTest {
     host2ComponentsTree.addChild(ttComponentResource, "HostComponent:2");
 
     // host 3 : same topology as host 2
-    Resource host3Resource = new ResourceImpl(Resource.Type.Host);
+    Resource host3Resource = createResource(Resource.Type.Host, compactResources);
     host3Resource.setProperty("Hosts/host_name", "testHost3");
     host3Resource.setProperty("Hosts/host_name", "testHost2");
     host3Resource.setProperty("foo", "bar");
@@ -558,4 +618,8 @@ public class MinimalRendererTest {
     host3ComponentsTree.addChild(dnComponentResource, "HostComponent:1");
     host3ComponentsTree.addChild(ttComponentResource, "HostComponent:2");
   }
+
+  private static Resource createResource(Resource.Type type, boolean compactResource) {
+    return compactResource ? new CompactResource(type) : new ResourceImpl(type);
+  }
 }
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.api.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.apache.ambari.server.api.services.serializers.StreamingResultSerializer;
+import org.junit.Test;
+
+/**
+ * Tests for the streaming of results by {@link BaseService}.
+ */
+public class ResultStreamingTest {
+
+  private static final String BEGINNING = "{\"items\":[";
+  private static final String END = "]}";
+
+  private final Result result = new ResultImpl(new ResultStatus(ResultStatus.STATUS.OK));
+
+  @Test
+  public void testCompleteResultIsWritten() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    BaseService.writeResult(new TestSerializer(false), result, out, 4);
+
+    assertEquals(BEGINNING + END, out.toString("UTF-8"));
+  }
+
+  @Test
+  public void testFailureBeforeResponseIsSent() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try {
+      BaseService.writeResult(new TestSerializer(true), result, out, 1024);
+      fail("Expected the serialization to fail");
+    } catch (WebApplicationException e) {
+      assertEquals(500, e.getResponse().getStatus());
+      assertEquals("error", e.getResponse().getEntity());
+    }
+    assertEquals(0, out.size());
+  }
+
+  @Test
+  public void testFailureAfterResponseIsSent() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try {
+      BaseService.writeResult(new TestSerializer(true), result, out, 4);
+      fail("Expected the serialization to fail");
+    } catch (IllegalStateException e) {
+      // the response can't be turned into an error anymore and is aborted
+    }
+    assertEquals(BEGINNING, out.toString("UTF-8"));
+  }
+
+  /**
+   * Serializer writing the beginning of a result and optionally failing
+   * halfway.
+   */
+  private static class TestSerializer implements StreamingResultSerializer {
+    private final boolean fail;
+
+    private TestSerializer(boolean fail) {
+      this.fail = fail;
+    }
+
+    @Override
+    public void serialize(Result result, OutputStream out) throws IOException {
+      out.write(BEGINNING.getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      if (fail) {
+        throw new IllegalStateException("failed");
+      }
+      out.write(END.getBytes(StandardCharsets.UTF_8));
+      out.flush();
+    }
+
+    @Override
+    public Object serialize(Result result) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object serializeError(ResultStatus error) {
+      return "error";
+    }
+  }
+}
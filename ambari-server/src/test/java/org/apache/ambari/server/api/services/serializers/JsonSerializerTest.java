@@ -24,6 +24,7 @@ import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -244,5 +245,54 @@ public class JsonSerializerTest {
     String  json = new JsonSerializer().serialize(result).toString().replace("\r", "");
     assertEquals(expected, json);
   }
-  
+
+  @Test
+  public void testSerializeToStream() throws Exception {
+    Resource resource = createMock(Resource.class);
+
+    Result result = new ResultImpl(true);
+    result.setResultStatus(new ResultStatus(ResultStatus.STATUS.OK));
+    TreeNode<Resource> resourcesNode = result.getResultTree().addChild(null, "resources");
+    resourcesNode.addChild(resource, "resource1");
+
+    Map<String, Object> mapRootProps = new LinkedHashMap<>();
+    mapRootProps.put("prop1", "value1");
+    mapRootProps.put("prop2", "v\u00e4lue2");
+
+    Map<String, Map<String, Object>> propertyMap = new LinkedHashMap<>();
+    propertyMap.put(null, mapRootProps);
+
+    //expectations
+    expect(resource.getPropertiesMap()).andReturn(propertyMap).anyTimes();
+    expect(resource.getType()).andReturn(Resource.Type.Cluster).anyTimes();
+
+    replay(resource);
+
+    //execute test
+    JsonSerializer serializer = new JsonSerializer();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    serializer.serialize(result, out);
+    // the stream is left open for the caller
+    out.write('\n');
+
+    assertEquals(serializer.serialize(result) + "\n", out.toString("UTF-8"));
+
+    verify(resource);
+  }
+
+  @Test
+  public void testSerializeErrorToStream() throws Exception {
+    Result result = new ResultImpl(new ResultStatus(ResultStatus.STATUS.NOT_FOUND, "not found"));
+
+    JsonSerializer serializer = new JsonSerializer();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    serializer.serialize(result, out);
+
+    String expected =
+        "{\n" +
+        "  \"status\" : 404,\n" +
+        "  \"message\" : \"not found\"\n" +
+        "}";
+    assertEquals(expected, out.toString("UTF-8").replace("\r", ""));
+  }
 }
@@ -44,6 +44,7 @@ import org.apache.ambari.server.controller.spi.PageResponse;
 import org.apache.ambari.server.controller.spi.Predicate;
 import org.apache.ambari.server.controller.spi.PropertyProvider;
 import org.apache.ambari.server.controller.spi.ProviderModule;
+import org.apache.ambari.server.controller.spi.QueryResponse;
 import org.apache.ambari.server.controller.spi.Request;
 import org.apache.ambari.server.controller.spi.RequestStatus;
 import org.apache.ambari.server.controller.spi.Resource;
@@ -448,6 +449,58 @@ public class ClusterControllerImplTest {
     Assert.assertEquals(4, pageResponse.getTotalResourceCount().intValue());
   }
 
+  @Test
+  public void testGetPopulatedPage() throws Exception{
+    final List<Integer> populatedCounts = new ArrayList<>();
+    final List<Set<String>> populatedPropertyIds = new ArrayList<>();
+
+    ClusterControllerImpl controller = new ClusterControllerImpl(new TestProviderModule()) {
+      @Override
+      public Set<Resource> populateResources(Type type, Set<Resource> resources, Request request,
+                                             Predicate predicate) throws SystemException {
+        populatedCounts.add(resources.size());
+        populatedPropertyIds.add(request.getPropertyIds());
+        return super.populateResources(type, resources, request, predicate);
+      }
+    };
+
+    Set<String> propertyIds = new HashSet<>();
+    propertyIds.add(PropertyHelper.getPropertyId("c1", "p1"));
+    propertyIds.add(PropertyHelper.getPropertyId("c3", "p5"));
+    propertyIds.add(PropertyHelper.getPropertyId("c4", "p7"));
+
+    Request request = PropertyHelper.getReadRequest(propertyIds);
+    PageRequest pageRequest = new PageRequestImpl(PageRequest.StartingPoint.Beginning, 1, 0, null, null);
+
+    // no predicate or sort request; only the page is populated
+    QueryResponse queryResponse = controller.getResources(Resource.Type.Host, request, null);
+    PageResponse pageResponse = controller.getPopulatedPage(Resource.Type.Host, queryResponse, request, null,
+        pageRequest, null);
+
+    Assert.assertEquals(Collections.singletonList(1), populatedCounts);
+    Assert.assertEquals(4, pageResponse.getTotalResourceCount().intValue());
+    Resource resource = pageResponse.getIterable().iterator().next();
+    Assert.assertEquals("host:0", resource.getPropertyValue(PropertyHelper.getPropertyId("Hosts", "host_name")));
+    Assert.assertEquals("monkey", resource.getPropertyValue(PropertyHelper.getPropertyId("c4", "p7")));
+
+    // predicate on a property provider property; all resources are populated with the
+    // predicate property only, the page with all of the requested properties
+    populatedCounts.clear();
+    populatedPropertyIds.clear();
+
+    Predicate predicate = new PredicateBuilder().property("c3/p6").equals(1).toPredicate();
+    queryResponse = controller.getResources(Resource.Type.Host, request, predicate);
+    pageResponse = controller.getPopulatedPage(Resource.Type.Host, queryResponse, request, predicate,
+        pageRequest, null);
+
+    Assert.assertEquals(2, populatedCounts.size());
+    Assert.assertEquals(4, populatedCounts.get(0).intValue());
+    Assert.assertEquals(Collections.singleton(PropertyHelper.getPropertyId("c3", "p6")), populatedPropertyIds.get(0));
+    Assert.assertEquals(1, populatedCounts.get(1).intValue());
+    Assert.assertEquals(propertyIds, populatedPropertyIds.get(1));
+    Assert.assertEquals(2, pageResponse.getTotalResourceCount().intValue());
+  }
+
   @Test
   public void testGetResourcesEmptyRequest() throws Exception{
     ClusterControllerImpl controller = new ClusterControllerImpl(new TestProviderModule());
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.controller.internal;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+/**
+ * CompactResource tests.
+ */
+public class CompactResourceTest {
+
+  private static final Resource.Type OVERFLOW_TYPE = new Resource.Type("CompactResourceTestOverflow");
+  private static final Resource.Type READ_TYPE = new Resource.Type("CompactResourceTestRead");
+
+  @Test
+  public void testSetGetProperty() {
+    Resource resource = new CompactResource(Resource.Type.Cluster);
+
+    String propertyId = PropertyHelper.getPropertyId("c1", "p1");
+    Assert.assertNull(resource.getPropertyValue(propertyId));
+
+    resource.setProperty(propertyId, "foo");
+    Assert.assertEquals("foo", resource.getPropertyValue(propertyId));
+
+    resource.setProperty(propertyId, 65L);
+    Assert.assertEquals(65L, resource.getPropertyValue(propertyId));
+
+    resource.setProperty(propertyId, null);
+    Assert.assertNull(resource.getPropertyValue(propertyId));
+    Assert.assertTrue(resource.getPropertiesMap().get("c1").containsKey("p1"));
+
+    // resources created before a property id was interned
+    Resource other = new CompactResource(Resource.Type.Cluster);
+    resource.setProperty(PropertyHelper.getPropertyId("c1", "new_property"), "bar");
+    other.setProperty(PropertyHelper.getPropertyId("c1", "new_property"), "baz");
+    Assert.assertEquals("bar", resource.getPropertyValue(PropertyHelper.getPropertyId("c1", "new_property")));
+    Assert.assertEquals("baz", other.getPropertyValue(PropertyHelper.getPropertyId("c1", "new_property")));
+  }
+
+  @Test
+  public void testGetPropertiesMap() {
+    Resource resource = new CompactResource(Resource.Type.Cluster);
+    Resource expected = new ResourceImpl(Resource.Type.Cluster);
+
+    for (Resource r : new Resource[] {resource, expected}) {
+      r.setProperty(PropertyHelper.getPropertyId(null, "p1"), "foo");
+      r.setProperty(PropertyHelper.getPropertyId("c1", "p2"), 1);
+      r.setProperty(PropertyHelper.getPropertyId("c1/c2", "p3"), (float) 1.99);
+      r.setProperty(PropertyHelper.getPropertyId("c1/c2/c3", "p4"), 1.99);
+      r.setProperty(PropertyHelper.getPropertyId("c1", "p5"), 65L);
+    }
+
+    Resource copy = new CompactResource(expected);
+    Assert.assertEquals(expected.getPropertiesMap(), copy.getPropertiesMap());
+
+    resource.addCategory("c4");
+    expected.addCategory("c4");
+
+    Map<String, Map<String, Object>> map = resource.getPropertiesMap();
+    Assert.assertEquals(expected.getPropertiesMap(), map);
+    Assert.assertEquals(expected.getPropertiesMap().keySet().toString(), map.keySet().toString());
+    Assert.assertEquals(expected.getPropertiesMap().get("c1").keySet().toString(), map.get("c1").keySet().toString());
+  }
+
+  @Test
+  public void testGetPropertiesMapRemove() {
+    // fill the schema of the type, so that c5/p4 is kept in the overflow map
+    Resource filler = new CompactResource(OVERFLOW_TYPE);
+    for (int i = 0; i < CompactResource.MAX_SCHEMA_SIZE; i++) {
+      filler.setProperty(PropertyHelper.getPropertyId("c" + (i % 3), "p" + i), i);
+    }
+
+    Resource resource = new CompactResource(OVERFLOW_TYPE);
+    Resource expected = new ResourceImpl(OVERFLOW_TYPE);
+
+    for (Resource r : new Resource[] {resource, expected}) {
+      r.setProperty(PropertyHelper.getPropertyId("c1", "p1"), "foo");
+      r.setProperty(PropertyHelper.getPropertyId("c1", "p2"), 1);
+      r.setProperty(PropertyHelper.getPropertyId("c2", "p3"), 65L);
+      r.setProperty(PropertyHelper.getPropertyId("c5", "p4"), "bar");
+      r.addCategory("c3");
+    }
+
+    for (Resource r : new Resource[] {resource, expected}) {
+      Map<String, Map<String, Object>> map = r.getPropertiesMap();
+      Iterator<String> iterator = map.get("c1").keySet().iterator();
+      Assert.assertEquals("p1", iterator.next());
+      iterator.remove();
+      map.remove("c2");
+      map.get("c5").remove("p4");
+      map.get("c1").put("p5", "baz");
+      for (Iterator<Map.Entry<String, Map<String, Object>>> entries = map.entrySet().iterator(); entries.hasNext(); ) {
+        if (entries.next().getValue().isEmpty()) {
+          entries.remove();
+        }
+      }
+    }
+
+    Assert.assertNull(resource.getPropertyValue(PropertyHelper.getPropertyId("c1", "p1")));
+    Assert.assertEquals(1, resource.getPropertyValue(PropertyHelper.getPropertyId("c1", "p2")));
+    Assert.assertNull(resource.getPropertyValue(PropertyHelper.getPropertyId("c2", "p3")));
+    Assert.assertNull(resource.getPropertyValue(PropertyHelper.getPropertyId("c5", "p4")));
+    Assert.assertEquals("baz", resource.getPropertyValue(PropertyHelper.getPropertyId("c1", "p5")));
+    Assert.assertEquals(expected.getPropertiesMap(), resource.getPropertiesMap());
+    Assert.assertEquals("[c1]", resource.getPropertiesMap().keySet().toString());
+  }
+
+  @Test
+  public void testGetPropertyDoesNotInternId() {
+    String propertyId = PropertyHelper.getPropertyId("c1", "p1");
+    String unknownId = PropertyHelper.getPropertyId("c1", "unknown");
+
+    CompactResource resource = new CompactResource(READ_TYPE);
+    resource.setProperty(propertyId, "foo");
+
+    Assert.assertNull(resource.getPropertyValue(unknownId));
+    Assert.assertNull(new PropertyReader(unknownId).read(resource));
+    Assert.assertEquals(-1, CompactResource.getSlotIndex(READ_TYPE, unknownId));
+
+    int index = CompactResource.getSlotIndex(READ_TYPE, propertyId);
+    Assert.assertTrue(index != -1);
+    Assert.assertEquals("foo", resource.getPropertyValue(index));
+
+    // the id is interned once it is set, and found by readers which did not find it before
+    PropertyReader reader = new PropertyReader(unknownId);
+    Assert.assertNull(reader.read(resource));
+    resource.setProperty(unknownId, "bar");
+    Assert.assertEquals("bar", reader.read(resource));
+    Assert.assertTrue(CompactResource.getSlotIndex(READ_TYPE, unknownId) != -1);
+    Assert.assertNull(reader.read(new CompactResource(READ_TYPE)));
+  }
+
+  @Test
+  public void testGetPropertiesMapPut() {
+    Resource resource = new CompactResource(Resource.Type.Cluster);
+    Resource expected = new ResourceImpl(Resource.Type.Cluster);
+
+    for (Resource r : new Resource[] {resource, expected}) {
+      r.setProperty(PropertyHelper.getPropertyId("c1", "p1"), "foo");
+      r.setProperty(PropertyHelper.getPropertyId("c1", "p2"), 1);
+      r.setProperty(PropertyHelper.getPropertyId("c2", "p3"), 65L);
+    }
+
+    for (Resource r : new Resource[] {resource, expected}) {
+      Map<String, Map<String, Object>> map = r.getPropertiesMap();
+      Map<String, Object> c1 = new TreeMap<>();
+      c1.put("p4", "bar");
+      map.put("c1", c1);
+      map.put("c3", new TreeMap<>());
+      for (Map.Entry<String, Object> entry : map.get("c2").entrySet()) {
+        entry.setValue(66L);
+      }
+    }
+
+    Assert.assertNull(resource.getPropertyValue(PropertyHelper.getPropertyId("c1", "p1")));
+    Assert.assertEquals("bar", resource.getPropertyValue(PropertyHelper.getPropertyId("c1", "p4")));
+    Assert.assertEquals(66L, resource.getPropertyValue(PropertyHelper.getPropertyId("c2", "p3")));
+    Assert.assertEquals(expected.getPropertiesMap(), resource.getPropertiesMap());
+  }
+
+  @Test
+  public void testEquals() {
+    Resource resource1 = new CompactResource(Resource.Type.Cluster);
+    Resource resource2 = new CompactResource(Resource.Type.Cluster);
+    Resource resource3 = new CompactResource(Resource.Type.Host);
+
+    Assert.assertTrue(resource1.equals(resource2));
+    Assert.assertFalse(resource1.equals(resource3));
+    Assert.assertFalse(resource3.equals(resource1));
+
+    resource1.setProperty("p1", "foo");
+    resource2.setProperty("p1", "bar");
+    Assert.assertFalse(resource1.equals(resource2));
+    Assert.assertFalse(resource2.equals(resource1));
+
+    resource2.setProperty("p1", "foo");
+    Assert.assertTrue(resource1.equals(resource2));
+    Assert.assertTrue(resource2.equals(resource1));
+    Assert.assertEquals(resource1.hashCode(), resource2.hashCode());
+  }
+
+  @Test
+  public void testSchemaOverflow() {
+    Resource resource = new CompactResource(OVERFLOW_TYPE);
+    Resource expected = new ResourceImpl(OVERFLOW_TYPE);
+
+    int count = CompactResource.MAX_SCHEMA_SIZE + 10;
+    for (int i = 0; i < count; i++) {
+      String propertyId = PropertyHelper.getPropertyId("c" + (i % 3), "p" + i);
+      resource.setProperty(propertyId, i);
+      expected.setProperty(propertyId, i);
+    }
+
+    for (int i = 0; i < count; i++) {
+      Assert.assertEquals(i, resource.getPropertyValue(PropertyHelper.getPropertyId("c" + (i % 3), "p" + i)));
+    }
+    Assert.assertEquals(expected.getPropertiesMap(), resource.getPropertiesMap());
+
+    Resource copy = new CompactResource(resource);
+    Assert.assertEquals(resource, copy);
+    Assert.assertEquals(resource.hashCode(), copy.hashCode());
+  }
+}
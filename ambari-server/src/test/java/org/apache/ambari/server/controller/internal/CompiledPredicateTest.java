@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.server.controller.internal;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.ambari.server.controller.predicate.AndPredicate;
+import org.apache.ambari.server.controller.predicate.CategoryIsEmptyPredicate;
+import org.apache.ambari.server.controller.predicate.EqualsPredicate;
+import org.apache.ambari.server.controller.predicate.FilterPredicate;
+import org.apache.ambari.server.controller.predicate.GreaterPredicate;
+import org.apache.ambari.server.controller.predicate.LessEqualsPredicate;
+import org.apache.ambari.server.controller.predicate.NotPredicate;
+import org.apache.ambari.server.controller.predicate.OrPredicate;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PredicateBuilder;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+/**
+ * CompiledPredicate tests.
+ */
+public class CompiledPredicateTest {
+
+  private static final String STATE_PROPERTY_ID = PropertyHelper.getPropertyId("HostRoles", "state");
+  private static final String NAME_PROPERTY_ID = PropertyHelper.getPropertyId("HostRoles", "component_name");
+  private static final String COUNT_PROPERTY_ID = PropertyHelper.getPropertyId("HostRoles/metrics", "count");
+
+  private static final String[] STATES = {"STARTED", "INSTALLED", "INSTALL_FAILED"};
+
+  @Test
+  public void testEvaluate() {
+    Predicate[] predicates = {
+        new EqualsPredicate<>(STATE_PROPERTY_ID, "STARTED"),
+        new EqualsPredicate<>(COUNT_PROPERTY_ID, "4"),
+        new EqualsPredicate<>(COUNT_PROPERTY_ID, null),
+        new GreaterPredicate<>(COUNT_PROPERTY_ID, 3),
+        new LessEqualsPredicate<>(COUNT_PROPERTY_ID, 3.0),
+        new FilterPredicate(NAME_PROPERTY_ID, "DATA.*"),
+        new NotPredicate(new EqualsPredicate<>(STATE_PROPERTY_ID, "INSTALLED")),
+        new CategoryIsEmptyPredicate("HostRoles/metrics"),
+        new PredicateBuilder().property(STATE_PROPERTY_ID).equals("STARTED").and()
+            .property(COUNT_PROPERTY_ID).greaterThan(2).toPredicate(),
+        new PredicateBuilder().property(NAME_PROPERTY_ID).equals("NAMENODE").or()
+            .not().property(STATE_PROPERTY_ID).equals("STARTED").toPredicate(),
+        new AndPredicate(new OrPredicate(), new NotPredicate(new AndPredicate()))
+    };
+
+    for (Resource resource : createResources(12)) {
+      for (Predicate predicate : predicates) {
+        Assert.assertEquals(predicate + " " + resource, predicate.evaluate(resource),
+            CompiledPredicate.compile(predicate).evaluate(resource));
+      }
+    }
+  }
+
+  @Test
+  public void testCompile() {
+    EqualsPredicate<String> statePredicate = new EqualsPredicate<>(STATE_PROPERTY_ID, "STARTED");
+
+    CompiledPredicate compiledPredicate = CompiledPredicate.compile(statePredicate);
+    Assert.assertSame(compiledPredicate, CompiledPredicate.compile(compiledPredicate));
+    Assert.assertSame(statePredicate, compiledPredicate.getPredicate());
+    Assert.assertEquals(statePredicate.toString(), compiledPredicate.toString());
+  }
+
+  private static Set<Resource> createResources(int count) {
+    Set<Resource> resources = new LinkedHashSet<>();
+    for (int i = 0; i < count; i++) {
+      Resource resource;
+      switch (i % 3) {
+        case 0:
+          resource = new ResourceImpl(Resource.Type.HostComponent);
+          break;
+        case 1:
+          resource = new CompactResource(Resource.Type.HostComponent);
+          break;
+        default:
+          resource = new CompactResource(new ResourceImpl(Resource.Type.HostComponent));
+      }
+      resource.setProperty(NAME_PROPERTY_ID, (i % 4 == 0 ? "DATANODE" : "NAMENODE") + i);
+      if (i % 5 != 0) {
+        resource.setProperty(STATE_PROPERTY_ID, STATES[i % STATES.length]);
+      }
+      if (i % 7 != 0) {
+        resource.setProperty(COUNT_PROPERTY_ID, i % 2 == 0 ? Integer.valueOf(i % 6) : String.valueOf(i % 6));
+      }
+      resources.add(resource);
+    }
+    return resources;
+  }
+}
@@ -106,8 +106,9 @@ public class TimelineMetricCacheSizingTest {
     long sampleSizeInMB = bytesFromReflectionEngine / (1024 * 1024);
     long discrepancyInKB = Math.abs(bytesFromCustomSizeOfEngine - bytesFromReflectionEngine) / 1024;
 
+    // 16 bytes per data point in the primitive arrays of the series
     Assert.assertTrue("Sample size is " + sampleSizeInMB + ", expected to be" +
-        "greater that 10 MB", sampleSizeInMB > 10);
+        "greater that 4 MB", sampleSizeInMB >= 4);
     Assert.assertTrue("Discrepancy in values is " + discrepancyInKB  + ", " +
         "expected to be less than 10K. " + "Bytes from reflection = " +
         bytesFromReflectionEngine + ", bytes from custom sizing engine = " +
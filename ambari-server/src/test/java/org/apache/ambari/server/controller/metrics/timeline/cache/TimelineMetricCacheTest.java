@@ -38,6 +38,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.ambari.server.configuration.Configuration;
 import org.apache.ambari.server.controller.internal.TemporalInfoImpl;
@@ -187,7 +189,7 @@ public class TimelineMetricCacheTest {
     TimelineMetric metric = metricsList.iterator().next();
     Assert.assertEquals("cpu_user", metric.getMetricName());
     Assert.assertEquals("app1", metric.getAppId());
-    Assert.assertSame(metricValues, metric.getMetricValues());
+    Assert.assertEquals(metricValues, metric.getMetricValues());
 
     // call to update with new key
     metrics = cache.getAppTimelineMetricsFromCache(testKey);
@@ -195,7 +197,92 @@ public class TimelineMetricCacheTest {
     Assert.assertEquals(1, metricsList.size());
     Assert.assertEquals("cpu_user", metric.getMetricName());
     Assert.assertEquals("app1", metric.getAppId());
-    Assert.assertSame(metricValues, metric.getMetricValues());
+    Assert.assertEquals(metricValues, metric.getMetricValues());
+
+    verify(configuration, cacheEntryFactory);
+  }
+
+  @Test(timeout = 30000)
+  public void testConcurrentRequestsAreCoalesced() throws Exception {
+    Configuration configuration = createNiceMock(Configuration.class);
+    expect(configuration.getMetricCacheTTLSeconds()).andReturn(3600);
+    expect(configuration.getMetricCacheIdleSeconds()).andReturn(100);
+    expect(configuration.getMetricsCacheManagerHeapPercent()).andReturn("10%").anyTimes();
+
+    replay(configuration);
+
+    final long now = System.currentTimeMillis();
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final TimelineMetricsCacheValue value = new TimelineMetricsCacheValue(now, now + 1000,
+      new TimelineMetrics(), null);
+
+    // a single collector call which blocks until both requests are issued
+    TimelineMetricCacheEntryFactory cacheEntryFactory = createMock(TimelineMetricCacheEntryFactory.class);
+    expect(cacheEntryFactory.createEntry(anyObject())).andAnswer(new IAnswer<Object>() {
+      @Override
+      public Object answer() throws Throwable {
+        entered.countDown();
+        Assert.assertTrue(release.await(10, TimeUnit.SECONDS));
+        return value;
+      }
+    }).once();
+
+    replay(cacheEntryFactory);
+
+    TimelineMetricCacheProvider cacheProvider = createMockBuilder(TimelineMetricCacheProvider.class)
+      .addMockedMethod("createCacheConfiguration")
+      .withConstructor(configuration, cacheEntryFactory)
+      .createNiceMock();
+
+    expect(cacheProvider.createCacheConfiguration()).andReturn(createTestCacheConfiguration(configuration)).anyTimes();
+    replay(cacheProvider);
+
+    final TimelineMetricCache cache = cacheProvider.getTimelineMetricsCache();
+    final TimelineMetrics[] results = new TimelineMetrics[2];
+
+    Thread first = new Thread() {
+      @Override
+      public void run() {
+        try {
+          results[0] = cache.getAppTimelineMetricsFromCache(new TimelineAppMetricCacheKey(
+            Collections.singleton("cpu_user"), "app1", new TemporalInfoImpl(now, now + 1000, 1)));
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+
+    Thread second = new Thread() {
+      @Override
+      public void run() {
+        try {
+          results[1] = cache.getAppTimelineMetricsFromCache(new TimelineAppMetricCacheKey(
+            Collections.singleton("cpu_user"), "app1", new TemporalInfoImpl(now, now + 1000, 1)));
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+
+    first.start();
+    Assert.assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+    // the second request waits for the pending one
+    second.start();
+    long deadline = System.currentTimeMillis() + 10000;
+    while (second.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(Thread.State.WAITING, second.getState());
+
+    release.countDown();
+    first.join(10000);
+    second.join(10000);
+
+    Assert.assertNotNull(results[0]);
+    Assert.assertSame(results[0], results[1]);
 
     verify(configuration, cacheEntryFactory);
   }
@@ -513,6 +600,7 @@ public class TimelineMetricCacheTest {
     metrics = cache.getAppTimelineMetricsFromCache(newKey);
     metricsList = metrics.getMetrics();
     Assert.assertEquals(1, metricsList.size());
+    metric = metricsList.iterator().next();
     Assert.assertEquals("cpu_user", metric.getMetricName());
     Assert.assertEquals("app1", metric.getAppId());
     Assert.assertEquals(newMetricValues, metric.getMetricValues());
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.controller.metrics.timeline.cache;
+
+import java.util.TreeMap;
+
+import org.apache.hadoop.metrics2.sink.timeline.TimelineMetric;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link TimelineMetricSeries}.
+ */
+public class TimelineMetricSeriesTest {
+
+  @Test
+  public void testMergeAndRetain() {
+    TimelineMetric timelineMetric = new TimelineMetric();
+    timelineMetric.setMetricName("cpu_user");
+    timelineMetric.setAppId("app1");
+    timelineMetric.setMetricValues(createValues(100L, 1.0, 200L, 2.0, 300L, 3.0));
+
+    TimelineMetricSeries series = new TimelineMetricSeries(timelineMetric);
+    Assert.assertEquals(3, series.size());
+
+    // appended after the last timestamp
+    series.merge(createValues(400L, 4.0, 500L, 5.0));
+
+    // interleaved and replacing existing timestamps
+    series.merge(createValues(50L, 0.5, 200L, 20.0, 450L, 4.5));
+
+    TreeMap<Long, Double> expected = createValues(50L, 0.5, 100L, 1.0, 200L, 20.0, 300L, 3.0,
+        400L, 4.0, 450L, 4.5, 500L, 5.0);
+    Assert.assertEquals(expected, series.toTimelineMetric().getMetricValues());
+
+    series.retain(100L, 450L);
+    Assert.assertEquals(createValues(100L, 1.0, 200L, 20.0, 300L, 3.0, 400L, 4.0, 450L, 4.5),
+        series.toTimelineMetric().getMetricValues());
+
+    series.retain(150L, 160L);
+    Assert.assertEquals(0, series.size());
+
+    TimelineMetric copy = series.toTimelineMetric();
+    Assert.assertEquals("cpu_user", copy.getMetricName());
+    Assert.assertEquals("app1", copy.getAppId());
+    Assert.assertTrue(series.isSeriesOf(timelineMetric));
+  }
+
+  @Test
+  public void testNullValues() {
+    TimelineMetric timelineMetric = new TimelineMetric();
+    timelineMetric.setMetricName("cpu_user");
+    timelineMetric.setMetricValues(createValues(100L, 1.0, 200L, null, 300L, 3.0));
+
+    TimelineMetricSeries series = new TimelineMetricSeries(timelineMetric);
+    series.merge(createValues(400L, null));
+    series.merge(createValues(50L, null, 300L, null, 350L, 3.5));
+
+    // null values stay null instead of becoming NaN
+    Assert.assertEquals(createValues(50L, null, 100L, 1.0, 200L, null, 300L, null, 350L, 3.5, 400L, null),
+        series.toTimelineMetric().getMetricValues());
+
+    series.retain(100L, 350L);
+    Assert.assertEquals(createValues(100L, 1.0, 200L, null, 300L, null, 350L, 3.5),
+        series.toTimelineMetric().getMetricValues());
+
+    series.merge(createValues(200L, 2.0, 300L, 3.0));
+    Assert.assertEquals(createValues(100L, 1.0, 200L, 2.0, 300L, 3.0, 350L, 3.5),
+        series.toTimelineMetric().getMetricValues());
+  }
+
+  @Test
+  public void testTimelineMetricIsSharedUntilChanged() {
+    TimelineMetric timelineMetric = new TimelineMetric();
+    timelineMetric.setMetricName("cpu_user");
+    timelineMetric.setMetricValues(createValues(100L, 1.0, 200L, 2.0));
+
+    TimelineMetricSeries series = new TimelineMetricSeries(timelineMetric);
+    TimelineMetric metric = series.toTimelineMetric();
+    Assert.assertSame(metric, series.toTimelineMetric());
+
+    series.merge(createValues(300L, 3.0));
+    TimelineMetric merged = series.toTimelineMetric();
+    Assert.assertNotSame(metric, merged);
+    Assert.assertEquals(createValues(100L, 1.0, 200L, 2.0), metric.getMetricValues());
+    Assert.assertEquals(createValues(100L, 1.0, 200L, 2.0, 300L, 3.0), merged.getMetricValues());
+
+    series.retain(200L, 300L);
+    Assert.assertNotSame(merged, series.toTimelineMetric());
+    Assert.assertEquals(createValues(200L, 2.0, 300L, 3.0), series.toTimelineMetric().getMetricValues());
+  }
+
+  private static TreeMap<Long, Double> createValues(Object... timestampsAndValues) {
+    TreeMap<Long, Double> values = new TreeMap<>();
+    for (int i = 0; i < timestampsAndValues.length; i += 2) {
+      values.put((Long) timestampsAndValues[i], (Double) timestampsAndValues[i + 1]);
+    }
+    return values;
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.events.publishers;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.events.HostComponentUpdate;
+import org.apache.ambari.server.events.HostComponentsUpdateEvent;
+import org.apache.ambari.server.orm.entities.HostComponentStateEntity;
+import org.apache.ambari.server.orm.entities.HostEntity;
+import org.apache.ambari.server.state.State;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * HostComponentUpdateEventPublisher tests.
+ */
+public class HostComponentUpdateEventPublisherTest {
+
+  private HostComponentUpdateEventPublisher publisher;
+  private ManualExecutor executor;
+  private EventBus eventBus;
+  private Listener listener;
+
+  @Before
+  public void setup() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(Configuration.UPDATE_EVENTS_BUFFER_WINDOW.getKey(), "100");
+    properties.setProperty(Configuration.UPDATE_EVENTS_BUFFER_MAX_BATCH_SIZE.getKey(), "2");
+    executor = new ManualExecutor();
+    publisher = new HostComponentUpdateEventPublisher(new Configuration(properties), executor);
+    eventBus = new EventBus();
+    listener = new Listener();
+    eventBus.register(listener);
+  }
+
+  @Test
+  public void testUpdatesOfSameComponentAreMerged() throws Exception {
+    List<HostComponentUpdate> updates = new ArrayList<>();
+    updates.add(createUpdate(1L, State.INSTALLING, State.INIT));
+    updates.add(createUpdate(1L, State.INSTALLED, State.INSTALLING));
+    updates.add(createUpdate(1L, State.STARTED, State.INSTALLED));
+
+    publisher.publish(new HostComponentsUpdateEvent(updates), eventBus);
+    executor.runTasks();
+
+    List<HostComponentsUpdateEvent> events = listener.events;
+    assertEquals(1, events.size());
+    assertEquals(1, events.get(0).getHostComponentUpdates().size());
+    HostComponentUpdate merged = events.get(0).getHostComponentUpdates().get(0);
+    assertEquals(State.INIT, merged.getPreviousState());
+    assertEquals(State.STARTED, merged.getCurrentState());
+  }
+
+  @Test
+  public void testUpdatesAreSplitByMaxBatchSize() throws Exception {
+    List<HostComponentUpdate> updates = new ArrayList<>();
+    for (long id = 1; id <= 5; id++) {
+      updates.add(createUpdate(id, State.INSTALLED, State.INSTALLING));
+    }
+
+    publisher.publish(new HostComponentsUpdateEvent(updates), eventBus);
+    executor.runTasks();
+
+    List<HostComponentsUpdateEvent> events = listener.events;
+    assertEquals(3, events.size());
+    assertEquals(2, events.get(0).getHostComponentUpdates().size());
+    assertEquals(2, events.get(1).getHostComponentUpdates().size());
+    assertEquals(1, events.get(2).getHostComponentUpdates().size());
+  }
+
+  @Test
+  public void testPublishedUpdatesAreNotChanged() throws Exception {
+    HostComponentUpdate first = createUpdate(1L, State.INSTALLING, State.INIT);
+    HostComponentUpdate second = createUpdate(1L, State.INSTALLED, State.INSTALLING);
+
+    publisher.publish(new HostComponentsUpdateEvent(Collections.singletonList(first)), eventBus);
+    publisher.publish(new HostComponentsUpdateEvent(Collections.singletonList(second)), eventBus);
+    executor.runTasks();
+
+    assertEquals(1, listener.events.size());
+    HostComponentUpdate merged = listener.events.get(0).getHostComponentUpdates().get(0);
+    assertEquals(State.INIT, merged.getPreviousState());
+    assertEquals(State.INSTALLED, merged.getCurrentState());
+    assertNotSame(first, merged);
+    assertNotSame(second, merged);
+    assertEquals(State.INIT, first.getPreviousState());
+    assertEquals(State.INSTALLING, first.getCurrentState());
+    assertEquals(State.INSTALLING, second.getPreviousState());
+  }
+
+  private HostComponentUpdate createUpdate(Long id, State currentState, State previousState) {
+    HostEntity hostEntity = createNiceMock(HostEntity.class);
+    expect(hostEntity.getHostName()).andReturn("host1").anyTimes();
+    HostComponentStateEntity stateEntity = createNiceMock(HostComponentStateEntity.class);
+    expect(stateEntity.getId()).andReturn(id).anyTimes();
+    expect(stateEntity.getHostEntity()).andReturn(hostEntity).anyTimes();
+    expect(stateEntity.getCurrentState()).andReturn(currentState).anyTimes();
+    replay(hostEntity, stateEntity);
+    return new HostComponentUpdate(stateEntity, previousState);
+  }
+
+  public static class Listener {
+
+    private final List<HostComponentsUpdateEvent> events = new ArrayList<>();
+
+    @Subscribe
+    public void onEvent(HostComponentsUpdateEvent event) {
+      events.add(event);
+    }
+  }
+
+  /**
+   * Collects the flushes of the buffer, so the tests run them instead of waiting for them.
+   */
+  private static class ManualExecutor extends ScheduledThreadPoolExecutor {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private ManualExecutor() {
+      super(1);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+      tasks.add(command);
+      return null;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    private void runTasks() {
+      while (!tasks.isEmpty()) {
+        tasks.remove(0).run();
+      }
+    }
+  }
+}
@@ -193,6 +193,62 @@ public class AlertsDAOCachedTest {
     EasyMock.verify(definition, history, entityManager, daoUtils);
   }
 
+  /**
+   * Tests that a flush only writes the alerts updated in the cache and
+   * coalesces repeated updates of an alert.
+   *
+   * @throws Exception
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testFlushWritesPendingUpdates() throws Exception {
+    EntityManager entityManager = m_injector.getInstance(EntityManager.class);
+    DaoUtils daoUtils = m_injector.getInstance(DaoUtils.class);
+
+    AlertHistoryEntity history = EasyMock.createNiceMock(AlertHistoryEntity.class);
+    AlertDefinitionEntity definition = EasyMock.createNiceMock(AlertDefinitionEntity.class);
+    mock(definition, history);
+
+    AlertCurrentEntity jpaCurrent = new AlertCurrentEntity();
+    jpaCurrent.setAlertId(1L);
+    jpaCurrent.setAlertHistory(history);
+    jpaCurrent.setOriginalTimestamp(1L);
+    jpaCurrent.setLatestTimestamp(2L);
+
+    AlertCurrentEntity memoryCurrent = new AlertCurrentEntity();
+    memoryCurrent.setAlertId(1L);
+    memoryCurrent.setAlertHistory(history);
+    memoryCurrent.setOriginalTimestamp(1L);
+    memoryCurrent.setLatestTimestamp(3L);
+
+    // the alerts are loaded in bulk exactly once and never merged
+    TypedQuery<AlertCurrentEntity> typedQuery = EasyMock.createNiceMock(TypedQuery.class);
+    EasyMock.expect(entityManager.createNamedQuery("AlertCurrentEntity.findByAlertIds",
+        AlertCurrentEntity.class)).andReturn(typedQuery).once();
+
+    EasyMock.expect(daoUtils.selectList(typedQuery)).andReturn(
+        Lists.newArrayList(jpaCurrent)).once();
+
+    EasyMock.replay(entityManager, daoUtils, typedQuery);
+
+    AlertsDAO alertsDAO = m_injector.getInstance(AlertsDAO.class);
+    alertsDAO.merge(memoryCurrent, true);
+    memoryCurrent.setLatestTimestamp(4L);
+    alertsDAO.merge(memoryCurrent, true);
+    Assert.assertEquals(1, alertsDAO.getPendingAlertUpdateCount());
+
+    alertsDAO.flushCachedEntitiesToJPA();
+    Assert.assertEquals(Long.valueOf(4), jpaCurrent.getLatestTimestamp());
+    Assert.assertEquals(0, alertsDAO.getPendingAlertUpdateCount());
+    Assert.assertEquals(1, alertsDAO.getLastFlushBatchSize());
+
+    // nothing changed since the last flush
+    alertsDAO.flushCachedEntitiesToJPA();
+    Assert.assertEquals(0, alertsDAO.getLastFlushBatchSize());
+
+    EasyMock.verify(entityManager, daoUtils);
+  }
+
   @SuppressWarnings("unchecked")
   private void testFindUsesCache(CachedAlertTestArea testArea) throws Exception {
     EntityManager entityManager = m_injector.getInstance(EntityManager.class);
@@ -44,6 +44,7 @@ import org.junit.Test;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.persist.Transactional;
 
 import junit.framework.Assert;
 
@@ -167,6 +168,67 @@ public class HostRoleCommandDAOTest {
     }
   }
 
+  /**
+   * Tests that task transitions are applied to the status summaries only
+   * once their transaction is committed.
+   */
+  @Test
+  public void testStatusSummaryOfRolledBackTransition() {
+    OrmTestHelper helper = m_injector.getInstance(OrmTestHelper.class);
+    helper.createDefaultData();
+
+    Long requestId = Long.valueOf(100L);
+    ClusterEntity clusterEntity = m_clusterDAO.findByName("test_cluster1");
+
+    RequestEntity requestEntity = new RequestEntity();
+    requestEntity.setRequestId(requestId);
+    requestEntity.setClusterId(clusterEntity.getClusterId());
+    requestEntity.setStages(new ArrayList<>());
+    m_requestDAO.create(requestEntity);
+
+    HostEntity host = m_hostDAO.findByName("test_host1");
+    host.setHostRoleCommandEntities(new ArrayList<>());
+    createStage(1L, 2, host, requestEntity, HostRoleStatus.PENDING);
+
+    // seed the counters of the request
+    HostRoleCommandStatusSummaryDTO summary = m_hostRoleCommandDAO.findAggregateCounts(requestId).get(1L);
+    Assert.assertEquals(2, summary.getCounts().get(HostRoleStatus.PENDING).intValue());
+
+    final HostRoleCommandEntity task = m_hostRoleCommandDAO.findByRequest(requestId).get(0);
+    task.setStatus(HostRoleStatus.COMPLETED);
+
+    TransactionRunner transactionRunner = m_injector.getInstance(TransactionRunner.class);
+    try {
+      transactionRunner.run(() -> {
+        m_hostRoleCommandDAO.mergeWithoutPublishEvent(task);
+        throw new IllegalStateException("rolling back");
+      });
+      Assert.fail("Expected the transaction to be rolled back");
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+
+    summary = m_hostRoleCommandDAO.findAggregateCounts(requestId).get(1L);
+    Assert.assertEquals(2, summary.getCounts().get(HostRoleStatus.PENDING).intValue());
+    Assert.assertEquals(0, summary.getCounts().get(HostRoleStatus.COMPLETED).intValue());
+
+    transactionRunner.run(() -> m_hostRoleCommandDAO.mergeWithoutPublishEvent(task));
+
+    summary = m_hostRoleCommandDAO.findAggregateCounts(requestId).get(1L);
+    Assert.assertEquals(1, summary.getCounts().get(HostRoleStatus.PENDING).intValue());
+    Assert.assertEquals(1, summary.getCounts().get(HostRoleStatus.COMPLETED).intValue());
+  }
+
+  /**
+   * Runs work in a transaction.
+   */
+  public static class TransactionRunner {
+    @Transactional
+    public void run(Runnable work) {
+      work.run();
+    }
+  }
+
   /**
    * Creates a single stage with the specified number of commands.
    *
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.orm.dao;
+
+import java.util.Map;
+
+import org.apache.ambari.server.actionmanager.HostRoleStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link HostRoleCommandStatusCounters}.
+ */
+public class HostRoleCommandStatusCountersTest {
+
+  @Test
+  public void testSummaries() {
+    HostRoleCommandStatusCounters counters = new HostRoleCommandStatusCounters();
+    counters.addTask(1L, 10L, false, HostRoleStatus.COMPLETED, 100L, 200L);
+    counters.addTask(2L, 10L, false, HostRoleStatus.IN_PROGRESS, 150L, -1L);
+    counters.addTask(3L, 11L, true, HostRoleStatus.PENDING, -1L, -1L);
+
+    Map<Long, HostRoleCommandStatusSummaryDTO> summaries = counters.getSummaries();
+    Assert.assertEquals(2, summaries.size());
+
+    HostRoleCommandStatusSummaryDTO stage = summaries.get(10L);
+    Assert.assertFalse(stage.isStageSkippable());
+    Assert.assertEquals(2, stage.getTaskTotal());
+    Assert.assertEquals(1, stage.getCounts().get(HostRoleStatus.COMPLETED).intValue());
+    Assert.assertEquals(1, stage.getCounts().get(HostRoleStatus.IN_PROGRESS).intValue());
+    Assert.assertEquals(100L, stage.getStartTime().longValue());
+    Assert.assertEquals(200L, stage.getEndTime().longValue());
+
+    Assert.assertTrue(summaries.get(11L).isStageSkippable());
+    Assert.assertEquals(1, summaries.get(11L).getCounts().get(HostRoleStatus.PENDING).intValue());
+
+    // summaries are reused until the next transition
+    Assert.assertSame(summaries, counters.getSummaries());
+  }
+
+  @Test
+  public void testUpdateTask() {
+    HostRoleCommandStatusCounters counters = new HostRoleCommandStatusCounters();
+    counters.addTask(1L, 10L, false, HostRoleStatus.COMPLETED, 100L, 200L);
+    counters.addTask(2L, 10L, false, HostRoleStatus.IN_PROGRESS, 150L, -1L);
+    Map<Long, HostRoleCommandStatusSummaryDTO> summaries = counters.getSummaries();
+
+    Assert.assertTrue(counters.updateTask(2L, HostRoleStatus.FAILED, 150L, 300L));
+
+    HostRoleCommandStatusSummaryDTO stage = counters.getSummaries().get(10L);
+    Assert.assertNotSame(summaries, counters.getSummaries());
+    Assert.assertEquals(2, stage.getTaskTotal());
+    Assert.assertEquals(0, stage.getCounts().get(HostRoleStatus.IN_PROGRESS).intValue());
+    Assert.assertEquals(1, stage.getCounts().get(HostRoleStatus.FAILED).intValue());
+    Assert.assertEquals(300L, stage.getEndTime().longValue());
+
+    // tasks which were not seeded require a new seeding
+    Assert.assertFalse(counters.updateTask(3L, HostRoleStatus.COMPLETED, 100L, 200L));
+  }
+}
@@ -27,6 +27,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.FileReader;
@@ -52,9 +53,11 @@ import org.apache.ambari.server.orm.dao.MetainfoDAO;
 import org.apache.ambari.server.orm.dao.StackDAO;
 import org.apache.ambari.server.orm.entities.ExtensionEntity;
 import org.apache.ambari.server.orm.entities.ExtensionLinkEntity;
+import org.apache.ambari.server.orm.entities.StackEntity;
 import org.apache.ambari.server.state.ClientConfigFileDefinition;
 import org.apache.ambari.server.state.CommandScriptDefinition;
 import org.apache.ambari.server.state.ComponentInfo;
+import org.apache.ambari.server.state.ExtensionInfo;
 import org.apache.ambari.server.state.PropertyInfo;
 import org.apache.ambari.server.state.ServiceInfo;
 import org.apache.ambari.server.state.ServiceOsSpecific;
@@ -63,10 +66,13 @@ import org.apache.ambari.server.state.stack.ConfigUpgradePack;
 import org.apache.ambari.server.state.stack.MetricDefinition;
 import org.apache.ambari.server.state.stack.OsFamily;
 import org.apache.ambari.server.state.stack.UpgradePack;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.easymock.EasyMock;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.util.Assert;
 
 import com.google.gson.Gson;
@@ -85,6 +91,9 @@ public class StackManagerTest {
   private static ExtensionDAO extensionDao;
   private static ExtensionLinkDAO linkDao;
 
+  @Rule
+  public TemporaryFolder tmpFolder = new TemporaryFolder();
+
   @BeforeClass
   public static void initStack() throws Exception{
     stackManager = createTestStackManager();
@@ -1039,4 +1048,135 @@ public class StackManagerTest {
     latestUri = stack.getRepositoryXml().getLatestURI();
     assertTrue(latestUri == null);
   }
+
+  /**
+   * Tests that the stack definitions parsed on several threads result in the
+   * same modules as parsed one by one.
+   */
+  @Test
+  public void testParallelParsingMatchesSequentialParsing() throws Exception {
+    File stackRoot = getResourceFile("stacks_with_common_services");
+    File commonServicesRoot = getResourceFile("common-services");
+    File extensionRoot = getResourceFile("extensions");
+
+    StackManager sequential = createStackManager(stackRoot, commonServicesRoot, extensionRoot, 1);
+    StackManager parallel = createStackManager(stackRoot, commonServicesRoot, extensionRoot, 4);
+
+    assertFalse(sequential.stackModules.isEmpty());
+    assertFalse(sequential.commonServiceModules.isEmpty());
+    assertSameModules(sequential, parallel);
+  }
+
+  /**
+   * Tests that an invalid stack folder results in the same errors whether it
+   * is parsed on several threads or not.
+   */
+  @Test
+  public void testParallelParsingOfInvalidFolder() throws Exception {
+    File stackRoot = tmpFolder.newFolder("stacks");
+    FileUtils.copyDirectory(getResourceFile("stacks_with_common_services"), stackRoot);
+    FileUtils.copyDirectory(new File(getResourceFile("bad-stacks"), "HDP/0.1"), new File(stackRoot, "HDP/0.3"));
+    File commonServicesRoot = getResourceFile("common-services");
+
+    StackManager sequential = createStackManager(stackRoot, commonServicesRoot, null, 1);
+    StackManager parallel = createStackManager(stackRoot, commonServicesRoot, null, 4);
+
+    assertSameModules(sequential, parallel);
+    StackInfo invalidStack = parallel.getStack("HDP", "0.3");
+    assertFalse(invalidStack.isValid());
+    assertEquals(2, invalidStack.getErrors().size());
+  }
+
+  /**
+   * Tests that an exception thrown while parsing a folder on another thread
+   * reaches the caller as it was thrown.
+   */
+  @Test
+  public void testParallelParsingException() throws Exception {
+    File commonServicesRoot = tmpFolder.newFolder("common-services");
+    FileUtils.copyDirectory(getResourceFile("common-services"), commonServicesRoot);
+    // a common service folder without metainfo.xml can't be parsed
+    assertTrue(new File(commonServicesRoot, "BROKEN/1.0").mkdirs());
+
+    for (int parseThreads : new int[] {1, 4}) {
+      try {
+        createStackManager(getResourceFile("stacks_with_common_services"), commonServicesRoot, null, parseThreads);
+        fail("Expected exception due to the common service without metainfo.xml");
+      } catch (AmbariException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("doesn't contain a metainfo.xml file"));
+      }
+    }
+  }
+
+  private static File getResourceFile(String name) {
+    return new File(ClassLoader.getSystemClassLoader().getResource(name).getPath());
+  }
+
+  private static StackManager createStackManager(File stackRoot, File commonServicesRoot, File extensionRoot,
+      int parseThreads) throws Exception {
+    MetainfoDAO metaInfoDao = createNiceMock(MetainfoDAO.class);
+    StackDAO stackDao = createNiceMock(StackDAO.class);
+    ExtensionDAO extensionDao = createNiceMock(ExtensionDAO.class);
+    ExtensionLinkDAO linkDao = createNiceMock(ExtensionLinkDAO.class);
+    ActionMetadata actionMetadata = createNiceMock(ActionMetadata.class);
+    Configuration config = createNiceMock(Configuration.class);
+
+    expect(config.getSharedResourcesDirPath()).andReturn(
+        ClassLoader.getSystemClassLoader().getResource("").getPath()).anyTimes();
+    expect(stackDao.find(EasyMock.anyObject(String.class), EasyMock.anyObject(String.class))).andReturn(
+        createNiceMock(StackEntity.class)).anyTimes();
+    expect(extensionDao.find(EasyMock.anyObject(String.class), EasyMock.anyObject(String.class))).andReturn(
+        createNiceMock(ExtensionEntity.class)).anyTimes();
+    expect(linkDao.findByStack(EasyMock.anyObject(String.class), EasyMock.anyObject(String.class))).andReturn(
+        Collections.emptyList()).anyTimes();
+
+    replay(config, metaInfoDao, stackDao, extensionDao, linkDao, actionMetadata);
+
+    return new StackManager(stackRoot, commonServicesRoot, extensionRoot, new OsFamily(config), false,
+        metaInfoDao, actionMetadata, stackDao, extensionDao, linkDao,
+        new AmbariManagementHelper(stackDao, extensionDao, linkDao), parseThreads);
+  }
+
+  private static void assertSameModules(StackManager expected, StackManager actual) {
+    assertEquals(expected.stackModules.keySet(), actual.stackModules.keySet());
+    for (Map.Entry<String, StackModule> entry : expected.stackModules.entrySet()) {
+      StackInfo expectedStack = entry.getValue().getModuleInfo();
+      StackInfo actualStack = actual.stackModules.get(entry.getKey()).getModuleInfo();
+      assertEquals(entry.getKey(), expectedStack.isValid(), actualStack.isValid());
+      assertEquals(entry.getKey(), new HashSet<>(expectedStack.getErrors()), new HashSet<>(actualStack.getErrors()));
+
+      Map<String, ServiceInfo> actualServices = new HashMap<>();
+      for (ServiceInfo service : actualStack.getServices()) {
+        actualServices.put(service.getName(), service);
+      }
+      assertEquals(entry.getKey(), expectedStack.getServices().size(), actualServices.size());
+      for (ServiceInfo expectedService : expectedStack.getServices()) {
+        assertSameService(expectedService, actualServices.get(expectedService.getName()));
+      }
+    }
+
+    assertEquals(expected.commonServiceModules.keySet(), actual.commonServiceModules.keySet());
+    for (Map.Entry<String, ServiceModule> entry : expected.commonServiceModules.entrySet()) {
+      assertSameService(entry.getValue().getModuleInfo(),
+          actual.commonServiceModules.get(entry.getKey()).getModuleInfo());
+    }
+
+    assertEquals(expected.extensionModules.keySet(), actual.extensionModules.keySet());
+    for (Map.Entry<String, ExtensionModule> entry : expected.extensionModules.entrySet()) {
+      ExtensionInfo expectedExtension = entry.getValue().getModuleInfo();
+      ExtensionInfo actualExtension = actual.extensionModules.get(entry.getKey()).getModuleInfo();
+      assertEquals(entry.getKey(), expectedExtension.isValid(), actualExtension.isValid());
+      assertEquals(entry.getKey(), new HashSet<>(expectedExtension.getErrors()),
+          new HashSet<>(actualExtension.getErrors()));
+    }
+  }
+
+  private static void assertSameService(ServiceInfo expected, ServiceInfo actual) {
+    assertNotNull(expected.getName(), actual);
+    assertEquals(expected.getName(), expected.getVersion(), actual.getVersion());
+    assertEquals(expected.getName(), expected.isValid(), actual.isValid());
+    assertEquals(expected.getName(), new HashSet<>(expected.getErrors()), new HashSet<>(actual.getErrors()));
+    assertEquals(expected.getName(), expected.getComponents().size(), actual.getComponents().size());
+    assertEquals(expected.getName(), expected.getProperties().size(), actual.getProperties().size());
+  }
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link EffectiveConfigSnapshots}.
+ */
+public class EffectiveConfigSnapshotsTest {
+
+  @Test
+  public void testGetSnapshot() {
+    AtomicInteger builds = new AtomicInteger();
+    Function<Map<String, Map<String, String>>, EffectiveConfigSnapshots.Snapshot> builder = tags -> {
+      builds.incrementAndGet();
+
+      Map<String, Map<String, String>> properties = new HashMap<>();
+      properties.put("hdfs-site", Collections.singletonMap("dfs.replication", "3"));
+      properties.put("empty-site", new HashMap<>());
+
+      Map<String, Map<String, Map<String, String>>> attributes = new HashMap<>();
+      attributes.put("hdfs-site", Collections.singletonMap("final", Collections.singletonMap("dfs.replication", "true")));
+      attributes.put("empty-site", new HashMap<>());
+
+      return new EffectiveConfigSnapshots.Snapshot(properties, attributes);
+    };
+
+    EffectiveConfigSnapshots snapshots = new EffectiveConfigSnapshots();
+
+    EffectiveConfigSnapshots.Snapshot snapshot = snapshots.getSnapshot(1L, createTags("version1", null), builder);
+    Assert.assertEquals(1, builds.get());
+    Assert.assertEquals(2, snapshot.getProperties().size());
+    Assert.assertEquals("3", snapshot.getProperties().get("hdfs-site").get("dfs.replication"));
+    Assert.assertEquals(Collections.singleton("hdfs-site"), snapshot.getAgentConfigurations().keySet());
+    Assert.assertEquals(Collections.singleton("hdfs-site"), snapshot.getAgentConfigurationAttributes().keySet());
+
+    // hosts with the same tags share the snapshot
+    Assert.assertSame(snapshot, snapshots.getSnapshot(1L, createTags("version1", null), builder));
+    Assert.assertEquals(1, builds.get());
+
+    // config group overrides, other clusters
+    Assert.assertNotSame(snapshot, snapshots.getSnapshot(1L, createTags("version1", "group1"), builder));
+    Assert.assertNotSame(snapshot, snapshots.getSnapshot(2L, createTags("version1", null), builder));
+    Assert.assertEquals(3, builds.get());
+
+    // changed configs of the cluster
+    snapshots.invalidate(1L);
+    EffectiveConfigSnapshots.Snapshot rebuilt = snapshots.getSnapshot(1L, createTags("version1", null), builder);
+    Assert.assertNotSame(snapshot, rebuilt);
+    Assert.assertEquals(4, builds.get());
+    Assert.assertSame(rebuilt, snapshots.getSnapshot(1L, createTags("version1", null), builder));
+    snapshots.getSnapshot(2L, createTags("version1", null), builder);
+    Assert.assertEquals(4, builds.get());
+  }
+
+  @Test
+  public void testInvalidateRemovesSnapshots() {
+    Function<Map<String, Map<String, String>>, EffectiveConfigSnapshots.Snapshot> builder =
+        tags -> createSnapshot(10);
+
+    EffectiveConfigSnapshots snapshots = new EffectiveConfigSnapshots();
+    for (int i = 0; i < 5; i++) {
+      snapshots.getSnapshot(1L, createTags("version1", "group" + i), builder);
+    }
+    snapshots.getSnapshot(2L, createTags("version1", null), builder);
+    Assert.assertEquals(6, snapshots.size());
+
+    // the outdated snapshots of the cluster are released, the other cluster keeps its snapshot
+    snapshots.invalidate(1L);
+    Assert.assertEquals(1, snapshots.size());
+
+    snapshots.getSnapshot(1L, createTags("version1", null), builder);
+    Assert.assertEquals(2, snapshots.size());
+    snapshots.invalidate(2L);
+    Assert.assertEquals(1, snapshots.size());
+  }
+
+  @Test
+  public void testMaxWeight() {
+    EffectiveConfigSnapshots.Snapshot snapshot = createSnapshot(99);
+    Assert.assertEquals(100, snapshot.getWeight());
+
+    EffectiveConfigSnapshots snapshots = new EffectiveConfigSnapshots(1000L);
+    for (int i = 0; i < 100; i++) {
+      snapshots.getSnapshot(1L, createTags("version1", "group" + i), tags -> createSnapshot(99));
+    }
+    Assert.assertTrue(snapshots.size() <= 10);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSnapshotIsImmutable() {
+    Map<String, Map<String, String>> properties = new HashMap<>();
+    properties.put("hdfs-site", new HashMap<>(Collections.singletonMap("dfs.replication", "3")));
+
+    EffectiveConfigSnapshots.Snapshot snapshot = new EffectiveConfigSnapshots.Snapshot(properties,
+        new HashMap<>());
+
+    // changes of the source maps do not leak into the snapshot
+    properties.get("hdfs-site").put("dfs.replication", "1");
+    Assert.assertEquals("3", snapshot.getAgentConfigurations().get("hdfs-site").get("dfs.replication"));
+
+    snapshot.getProperties().get("hdfs-site").put("dfs.replication", "1");
+  }
+
+  private static EffectiveConfigSnapshots.Snapshot createSnapshot(int propertyCount) {
+    Map<String, String> typeProperties = new HashMap<>();
+    for (int i = 0; i < propertyCount; i++) {
+      typeProperties.put("property" + i, "value" + i);
+    }
+    return new EffectiveConfigSnapshots.Snapshot(Collections.singletonMap("hdfs-site", typeProperties),
+        new HashMap<>());
+  }
+
+  private static Map<String, Map<String, String>> createTags(String tag, String groupTag) {
+    Map<String, String> tags = new LinkedHashMap<>();
+    tags.put(ConfigHelper.CLUSTER_DEFAULT_TAG, tag);
+    if (groupTag != null) {
+      tags.put("1", groupTag);
+    }
+    Map<String, Map<String, String>> desiredTags = new HashMap<>();
+    desiredTags.put("hdfs-site", tags);
+    return desiredTags;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link StaleConfigsIndex}.
+ */
+public class StaleConfigsIndexTest {
+
+  private static final StackId STACK_ID = new StackId("HDP", "2.6");
+
+  @Test
+  public void testGetAndInvalidate() {
+    ServiceComponentHost sch = createHostComponent("h1");
+    ServiceComponentHost other = createHostComponent("h2");
+
+    Map<String, HostConfig> actual = new HashMap<>();
+    actual.put("hdfs-site", createHostConfig("version1"));
+    Map<String, Map<String, String>> desired = createDesired("version2");
+
+    StaleConfigsIndex index = new StaleConfigsIndex();
+    Assert.assertNull(index.get(sch, actual, desired, STACK_ID));
+
+    index.put(sch, actual, desired, STACK_ID, Collections.singleton("hdfs-site"), "reload_configs");
+
+    StaleConfigsIndex.Entry entry = index.get(sch, actual, desired, STACK_ID);
+    Assert.assertNotNull(entry);
+    Assert.assertTrue(entry.isStale());
+    Assert.assertEquals(Collections.singleton("hdfs-site"), entry.getStaleTypes());
+    Assert.assertEquals("reload_configs", entry.getRefreshCommand());
+
+    // equal but not identical inputs
+    Map<String, HostConfig> reported = new HashMap<>();
+    reported.put("hdfs-site", createHostConfig("version1"));
+    Assert.assertNotNull(index.get(sch, reported, createDesired("version2"), STACK_ID));
+
+    // other host components are not indexed
+    Assert.assertNull(index.get(other, actual, desired, STACK_ID));
+
+    // changed desired configs, stack or actual configs
+    Assert.assertNull(index.get(sch, actual, createDesired("version3"), STACK_ID));
+    Assert.assertNull(index.get(sch, actual, desired, new StackId("HDP", "3.0")));
+    actual.put("hdfs-site", createHostConfig("version2"));
+    Assert.assertNull(index.get(sch, actual, desired, STACK_ID));
+
+    index.put(sch, actual, desired, STACK_ID, Collections.emptySet(), null);
+    Assert.assertFalse(index.get(sch, actual, desired, STACK_ID).isStale());
+    Assert.assertEquals(1, index.size());
+
+    index.invalidate(sch);
+    Assert.assertNull(index.get(sch, actual, desired, STACK_ID));
+    Assert.assertEquals(0, index.size());
+  }
+
+  private static ServiceComponentHost createHostComponent(String hostName) {
+    ServiceComponentHost sch = createNiceMock(ServiceComponentHost.class);
+    expect(sch.getClusterId()).andReturn(1L).anyTimes();
+    expect(sch.getHostName()).andReturn(hostName).anyTimes();
+    expect(sch.getServiceName()).andReturn("HDFS").anyTimes();
+    expect(sch.getServiceComponentName()).andReturn("NAMENODE").anyTimes();
+    replay(sch);
+    return sch;
+  }
+
+  private static HostConfig createHostConfig(String tag) {
+    HostConfig hostConfig = new HostConfig();
+    hostConfig.setDefaultVersionTag(tag);
+    return hostConfig;
+  }
+
+  private static Map<String, Map<String, String>> createDesired(String tag) {
+    Map<String, Map<String, String>> desired = new TreeMap<>();
+    desired.put("hdfs-site", Collections.singletonMap(ConfigHelper.CLUSTER_DEFAULT_TAG, tag));
+    return desired;
+  }
+}
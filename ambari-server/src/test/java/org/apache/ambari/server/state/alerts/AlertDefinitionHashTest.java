@@ -271,6 +271,7 @@ public class AlertDefinitionHashTest extends TestCase {
 
     newHash = m_hash.getHash(CLUSTERNAME, HOSTNAME);
     assertNotSame(hash, newHash);
+    assertFalse(hash.equals(newHash));
   }
 
   /**
@@ -337,6 +338,54 @@ public class AlertDefinitionHashTest extends TestCase {
     assertFalse(m_hash.isHashCached("foo", HOSTNAME));
   }
 
+  /**
+   * Tests that hashes are served from the cache until an affected definition
+   * invalidates them.
+   */
+  @Test
+  public void testHashIsCachedUntilInvalidated() {
+    String hash = m_hash.getHash(CLUSTERNAME, HOSTNAME);
+
+    // a changed definition does not change the cached hash by itself
+    m_hdfsHost.setHash(UUID.randomUUID().toString());
+    assertEquals(hash, m_hash.getHash(CLUSTERNAME, HOSTNAME));
+
+    m_hash.invalidateHosts(m_hdfsHost);
+    String newHash = m_hash.getHash(CLUSTERNAME, HOSTNAME);
+    assertFalse(hash.equals(newHash));
+    assertEquals(newHash, m_hash.getHash(CLUSTERNAME, HOSTNAME));
+  }
+
+  /**
+   * Tests that an invalidation running while the hash is calculated is not
+   * overwritten by the stale hash.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testInvalidationDuringGetHash() throws Exception {
+    final Thread invalidation = new Thread(() -> m_hash.invalidate(CLUSTERNAME, HOSTNAME));
+
+    EasyMock.reset(m_mockDao);
+    EasyMock.expect(m_mockDao.findByServiceMaster(EasyMock.anyInt(),
+        (Set<String>) EasyMock.anyObject())).andReturn(
+        Collections.singletonList(m_hdfsService)).anyTimes();
+    EasyMock.expect(m_mockDao.findByServiceComponent(EasyMock.anyInt(),
+        EasyMock.anyObject(String.class), EasyMock.anyObject(String.class))).andReturn(
+        Collections.singletonList(m_hdfsHost)).anyTimes();
+
+    // the definitions are changed and invalidated while they are read
+    EasyMock.expect(m_mockDao.findAgentScoped(EasyMock.anyInt())).andAnswer(() -> {
+      invalidation.start();
+      invalidation.join(100);
+      return m_agentDefinitions;
+    });
+    EasyMock.replay(m_mockDao);
+
+    assertNotNull(m_hash.getHash(CLUSTERNAME, HOSTNAME));
+    invalidation.join();
+    assertFalse(m_hash.isHashCached(CLUSTERNAME, HOSTNAME));
+  }
+
   @Test
   public void testAggregateIgnored() {
     Set<String> associatedHosts = m_hash.getAssociatedHosts(m_mockCluster,
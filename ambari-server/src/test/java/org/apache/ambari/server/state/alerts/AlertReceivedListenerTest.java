@@ -933,4 +933,39 @@ public class AlertReceivedListenerTest {
 
     assertEquals(1, m_dao.findCurrent().size());
   }
+
+  /**
+   * Tests that the alerts of one event are processed by their shards and that
+   * repeated alerts of the same definition and host are applied in order.
+   */
+  @Test
+  public void testShardedAlertsInOneEvent() {
+    List<Alert> alerts = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      alerts.add(createDataNodeAlert(ALERT_DEFINITION + i, 1L));
+    }
+
+    // the same alert again, processed after the first one by the same shard
+    alerts.add(createDataNodeAlert(ALERT_DEFINITION + "0", 2L));
+
+    AlertReceivedListener listener = m_injector.getInstance(AlertReceivedListener.class);
+    listener.onAlertEvent(new AlertReceivedEvent(alerts));
+
+    List<AlertCurrentEntity> allCurrent = m_dao.findCurrent();
+    assertEquals(3, allCurrent.size());
+
+    AlertCurrentEntity current = m_dao.findCurrentByHostAndName(m_cluster.getClusterId(), HOST1,
+        ALERT_DEFINITION + "0");
+    assertEquals(2L, current.getOccurrences().longValue());
+    assertEquals(2L, current.getLatestTimestamp().longValue());
+  }
+
+  private Alert createDataNodeAlert(String definitionName, long timestamp) {
+    Alert alert = new Alert(definitionName, null, "HDFS", "DATANODE", HOST1, AlertState.OK);
+    alert.setClusterId(m_cluster.getClusterId());
+    alert.setLabel(ALERT_LABEL);
+    alert.setText("HDFS DATANODE is OK");
+    alert.setTimestamp(timestamp);
+    return alert;
+  }
 }
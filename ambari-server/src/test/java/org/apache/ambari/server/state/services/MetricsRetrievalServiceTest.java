@@ -19,7 +19,10 @@ package org.apache.ambari.server.state.services;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.persistence.EntityManager;
 
@@ -237,6 +240,159 @@ public class MetricsRetrievalServiceTest extends EasyMockSupport {
     verifyAll();
   }
 
+  /**
+   * Tests that only registered JMX attributes are retained once attributes
+   * have been registered.
+   */
+  @Test
+  public void testRetrievalOfRegisteredJMXAttributes() throws Exception {
+    InputStream jmxInputStream = IOUtils.toInputStream("{ \"beans\": [ "
+        + "{ \"name\": \"java.lang:type=Memory\", \"modelerType\": \"sun.management.MemoryImpl\", "
+        + "\"HeapMemoryUsage\": { \"max\": 1024, \"used\": 512 }, \"ObjectPendingFinalizationCount\": 0 }, "
+        + "{ \"name\": \"java.lang:type=Runtime\", \"Uptime\": 1000, \"SystemProperties\": [ { \"key\": \"a\" } ] } "
+        + "], \"other\": { \"beans\": [] } }");
+
+    StreamProvider streamProvider = createNiceMock(StreamProvider.class);
+    EasyMock.expect(streamProvider.readFrom(JMX_URL)).andReturn(jmxInputStream).once();
+
+    replayAll();
+
+    m_service.doStart();
+
+    // make the service synchronous
+    m_service.setThreadPoolExecutor(new SynchronousThreadPoolExecutor());
+
+    m_service.addJMXAttributes(Collections.singleton("HeapMemoryUsage"));
+    m_service.submitRequest(MetricSourceType.JMX, streamProvider, JMX_URL);
+
+    JMXMetricHolder jmxMetricHolder = m_service.getCachedJMXMetric(JMX_URL);
+    Assert.assertNotNull(jmxMetricHolder);
+    Assert.assertEquals(1, jmxMetricHolder.getBeans().size());
+
+    Map<String, Object> bean = jmxMetricHolder.getBeans().get(0);
+    Assert.assertEquals(2, bean.size());
+    Assert.assertEquals("java.lang:type=Memory", bean.get("name"));
+    Assert.assertEquals(512, ((Map<?, ?>) bean.get("HeapMemoryUsage")).get("used"));
+
+    verifyAll();
+  }
+
+  /**
+   * Tests that requested endpoints are scraped once they are due and are no
+   * longer scraped after they have not been requested within the cache
+   * timeout.
+   */
+  @Test
+  public void testScrapeRequestedEndpoints() throws Exception {
+    Configuration configuration = m_injector.getInstance(Configuration.class);
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_REQUEST_TTL_ENABLED.getKey(), "false");
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_SCRAPE_INTERVAL.getKey(), "60");
+
+    // one request by the caller and one scrape
+    StreamProvider streamProvider = createStrictMock(StreamProvider.class);
+    EasyMock.expect(streamProvider.readFrom(JMX_URL)).andReturn(
+        IOUtils.toInputStream("{ \"beans\": [] }")).once();
+    EasyMock.expect(streamProvider.readFrom(JMX_URL)).andReturn(
+        IOUtils.toInputStream("{ \"beans\": [] }")).once();
+
+    replayAll();
+
+    m_service.doStart();
+
+    // make the service synchronous
+    m_service.setThreadPoolExecutor(new SynchronousThreadPoolExecutor());
+
+    long now = System.currentTimeMillis();
+    m_service.submitRequest(MetricSourceType.JMX, streamProvider, JMX_URL);
+    Assert.assertEquals(1, m_service.getScrapeEndpointCount());
+
+    // not due yet
+    m_service.scrapeEndpoints(now);
+
+    // due after the jittered interval
+    m_service.scrapeEndpoints(now + 2 * 60 * 1000);
+    Assert.assertEquals(1, m_service.getScrapeEndpointCount());
+
+    // idle for longer than the cache timeout
+    m_service.scrapeEndpoints(now + 31 * 60 * 1000);
+    Assert.assertEquals(0, m_service.getScrapeEndpointCount());
+
+    verifyAll();
+  }
+
+  /**
+   * Tests that requests discarded from a saturated worker queue no longer
+   * count against their host and can be requested again.
+   */
+  @Test(timeout = 30000)
+  public void testDiscardedRequestsAreReleased() throws Exception {
+    Configuration configuration = m_injector.getInstance(Configuration.class);
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_REQUEST_TTL_ENABLED.getKey(), "false");
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_SCRAPE_INTERVAL.getKey(), "0");
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_THREADPOOL_CORE_SIZE.getKey(), "1");
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_THREADPOOL_MAX_SIZE.getKey(), "1");
+    configuration.setProperty(
+        Configuration.METRIC_RETRIEVAL_SERVICE_THREADPOOL_WORKER_QUEUE_SIZE.getKey(), "1");
+
+    final String runningUrl = "http://host1:50070/jmx?running";
+    final String discardedUrl = "http://host1:50070/jmx?discarded";
+    final String queuedUrl = "http://host1:50070/jmx?queued";
+
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    StreamProvider streamProvider = createMock(StreamProvider.class);
+    EasyMock.expect(streamProvider.readFrom(runningUrl)).andAnswer(() -> {
+      started.countDown();
+      Assert.assertTrue(release.await(10, TimeUnit.SECONDS));
+      return IOUtils.toInputStream("{ \"beans\": [] }");
+    }).once();
+    EasyMock.expect(streamProvider.readFrom(queuedUrl)).andReturn(
+        IOUtils.toInputStream("{ \"beans\": [] }")).once();
+    EasyMock.expect(streamProvider.readFrom(discardedUrl)).andReturn(
+        IOUtils.toInputStream("{ \"beans\": [] }")).once();
+
+    replayAll();
+
+    m_service.doStart();
+
+    // occupy the only worker and fill the queue
+    m_service.submitRequest(MetricSourceType.JMX, streamProvider, runningUrl);
+    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+    m_service.submitRequest(MetricSourceType.JMX, streamProvider, discardedUrl);
+    Assert.assertEquals(2, m_service.getHostRequestCount(runningUrl));
+
+    // the queued request is discarded to make room for the new one
+    m_service.submitRequest(MetricSourceType.JMX, streamProvider, queuedUrl);
+    Assert.assertEquals(2, m_service.getHostRequestCount(runningUrl));
+
+    release.countDown();
+    waitForHostRequests(runningUrl);
+
+    // the discarded request can be made again
+    m_service.submitRequest(MetricSourceType.JMX, streamProvider, discardedUrl);
+    waitForHostRequests(runningUrl);
+
+    verifyAll();
+  }
+
+  /**
+   * Waits until there are no more requests to the host of the given URL.
+   */
+  private void waitForHostRequests(String url) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (m_service.getHostRequestCount(url) > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(0, m_service.getHostRequestCount(url));
+  }
+
   /**
    *
    */